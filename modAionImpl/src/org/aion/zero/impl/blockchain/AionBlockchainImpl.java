@@ -36,11 +36,16 @@ import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 import org.aion.base.AccountState;
 import org.aion.base.AionTransaction;
 import org.aion.base.AionTxExecSummary;
@@ -52,6 +57,7 @@ import org.aion.base.db.Repository;
 import org.aion.base.db.RepositoryCache;
 import org.aion.crypto.AddressSpecs;
 import org.aion.crypto.HashUtil;
+import org.aion.crypto.HashUtil.H256Context;
 import org.aion.crypto.ed25519.ECKeyEd25519;
 import org.aion.crypto.vrf.VRF_Ed25519;
 import org.aion.db.impl.SystemExitCodes;
@@ -65,6 +71,9 @@ import org.aion.log.LogUtil;
 import org.aion.types.AionAddress;
 import org.aion.util.bytes.ByteUtil;
 import org.aion.util.conversions.Hex;
+import org.aion.util.metrics.Counter;
+import org.aion.util.metrics.Histogram;
+import org.aion.util.metrics.MetricsRegistry;
 import org.aion.util.types.AddressUtils;
 import org.aion.util.types.ByteArrayWrapper;
 import org.aion.utils.HeapDumper;
@@ -77,7 +86,9 @@ import org.aion.zero.impl.core.ImportResult;
 import org.aion.zero.impl.core.TimeVaryingRewardsCalculator;
 import org.aion.zero.impl.core.energy.AbstractEnergyStrategyLimit;
 import org.aion.zero.impl.core.energy.EnergyStrategies;
+import org.aion.zero.impl.db.AionRepositoryCache;
 import org.aion.zero.impl.db.AionRepositoryImpl;
+import org.aion.zero.impl.db.BloomBitsIndex;
 import org.aion.zero.impl.db.TransactionStore;
 import org.aion.zero.impl.forks.ForkUtility;
 import org.aion.zero.impl.sync.DatabaseType;
@@ -97,6 +108,7 @@ import org.aion.zero.impl.types.MiningBlockHeader;
 import org.aion.zero.impl.types.RetValidPreBlock;
 import org.aion.zero.impl.types.StakingBlock;
 import org.aion.zero.impl.types.StakingBlockHeader;
+import org.aion.zero.impl.types.TxResponse;
 import org.aion.zero.impl.valid.AionExtraDataRule;
 import org.aion.zero.impl.valid.BeaconHashValidator;
 import org.aion.zero.impl.valid.BlockHeaderRule;
@@ -149,6 +161,7 @@ public class AionBlockchainImpl implements IAionBlockchain {
     private final GreatGrandParentBlockHeaderValidator unityGreatGrandParentBlockHeaderValidator, nonceSeedValidator, nonceSeedDifficultyValidator;
     private final ParentBlockHeaderValidator preUnityParentBlockHeaderValidator;
     private final ParentBlockHeaderValidator unityParentBlockHeaderValidator;
+    private final ParentBlockHeaderValidator unityParentBlockHeaderValidatorWithoutStake;
     private StakingContractHelper stakingContractHelper = null;
     public final ForkUtility forkUtility;
     public final BeaconHashValidator beaconHashValidator;
@@ -206,6 +219,18 @@ public class AionBlockchainImpl implements IAionBlockchain {
     private SelfNodeStatusCallback callback;
     private BestBlockImportCallback bestBlockCallback;
     ReentrantLock lock = new ReentrantLock();
+
+    private static final int IMPORT_VALIDATION_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    // the number of blocks validated ahead of the block being imported
+    private static final int IMPORT_VALIDATION_LOOKAHEAD = 2 * IMPORT_VALIDATION_THREADS;
+    private static final ExecutorService importValidationPool =
+            Executors.newFixedThreadPool(
+                    IMPORT_VALIDATION_THREADS,
+                    r -> {
+                        Thread t = new Thread(r, "sync-iv");
+                        t.setDaemon(true);
+                        return t;
+                    });
     private AtomicBoolean shutDownFlag = new AtomicBoolean();
 
     /**
@@ -301,6 +326,7 @@ public class AionBlockchainImpl implements IAionBlockchain {
         headerValidator = chainConfiguration.createBlockHeaderValidatorForImport();
         preUnityParentBlockHeaderValidator = chainConfig.createPreUnityParentBlockHeaderValidator();
         unityParentBlockHeaderValidator = chainConfig.createUnityParentBlockHeaderValidator();
+        unityParentBlockHeaderValidatorWithoutStake = chainConfig.createUnityParentBlockHeaderValidatorWithoutStake();
         preUnityGrandParentBlockHeaderValidator = chainConfiguration.createPreUnityGrandParentHeaderValidator();
         unityGreatGrandParentBlockHeaderValidator = chainConfiguration.createUnityGreatGrandParentHeaderValidator();
         nonceSeedDifficultyValidator = chainConfiguration.createNonceSeedDifficultyValidator();
@@ -658,9 +684,33 @@ public class AionBlockchainImpl implements IAionBlockchain {
             updateTotalDifficulty(block);
             summary.setTotalDifficulty(block.getTotalDifficulty());
 
-            storeBlock(block, summary.getReceipts(), summary.getSummaries());
+            // the block, its index, transaction info and state are written together when supported
+            long storeStart = System.nanoTime();
+            repository.startAtomicWrite();
+            boolean stored = false;
+            try {
+                storeBlock(block, summary.getReceipts(), summary.getSummaries());
 
-            flush();
+                flush();
+                stored = true;
+            } catch (Exception e) {
+                LOG.error(
+                        "Shutdown due to a fatal error encountered while storing block "
+                                + block.getShortDescr()
+                                + ".",
+                        e);
+            } finally {
+                // a partially stored block is never written
+                if (stored) {
+                    repository.commitAtomicWrite();
+                } else {
+                    repository.discardAtomicWrite();
+                    // the world state, the caches and the best block already include the block
+                    // so the node restarts from the consistent state on disk
+                    System.exit(SystemExitCodes.DATABASE_CORRUPTION);
+                }
+            }
+            IMPORT_STORE_TIME.recordSince(storeStart);
 
             if (forkUtility.isNonceForkBlock(block.getNumber())) {
                 BigInteger newDiff = calculateFirstPoSDifficultyAtBlock(block);
@@ -836,6 +886,60 @@ public class AionBlockchainImpl implements IAionBlockchain {
         }
     }
 
+    /**
+     * Stores the pivot block of the fast sync and its parent as main chain blocks without validity
+     * checks. Their ancestors are imported afterwards using {@link #tryFastImport(Block)}.
+     *
+     * @param pivot the block whose world state was downloaded by the fast sync
+     * @param parent the parent of the pivot block
+     * @throws IllegalArgumentException when the parent does not match the pivot
+     */
+    public void storeFastSyncPivot(final Block pivot, final Block parent) {
+        if (!Arrays.equals(pivot.getParentHash(), parent.getHash())
+                || pivot.getNumber() != parent.getNumber() + 1) {
+            throw new IllegalArgumentException("The given parent does not match the pivot block.");
+        }
+
+        lock.lock();
+        try {
+            // the total difficulty will be updated after the chain is complete
+            repository.getBlockStore().saveBlock(pivot, ZERO, true);
+            repository.getBlockStore().saveBlock(parent, ZERO, true);
+            LOG.info("Fast sync pivot saved: number: {}, hash: {}", pivot.getNumber(), pivot.getShortHash());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Makes the pivot block of the fast sync the best block once its world state and all its
+     * ancestors were imported. Sets the total difficulty of the imported blocks.
+     *
+     * @param pivot the block whose world state was downloaded by the fast sync
+     */
+    public void completeFastSync(final Block pivot) {
+        lock.lock();
+        try {
+            BigInteger totalDifficulty = repository.getBlockStore().correctMainChainTotalDifficulty(pivot.getNumber(), LOG);
+            pivot.setTotalDifficulty(totalDifficulty);
+
+            repository.syncToRoot(pivot.getStateRoot());
+            bestStakingBlock = null;
+            setBestBlock(pivot);
+            loadBestMiningBlock();
+            loadBestStakingBlock();
+            setTotalDifficulty(totalDifficulty);
+            resetPubBestBlock(pivot);
+
+            if (callback != null) {
+                callback.updateBlockStatus(pivot.getNumber(), pivot.getHash().clone(), totalDifficulty);
+            }
+            LOG.info("Fast sync completed at block number: {}, hash: {}, td: {}", pivot.getNumber(), pivot.getShortHash(), totalDifficulty);
+        } finally {
+            lock.unlock();
+        }
+    }
+
     public static long shutdownHook = Long.MAX_VALUE;
 
     public static boolean enableFullSyncCheck = false;
@@ -878,7 +982,9 @@ public class AionBlockchainImpl implements IAionBlockchain {
     }
 
     /**
-     * Imports a batch of blocks.
+     * Imports a batch of blocks. While a block is imported, the import workers validate the parts
+     * of the following blocks that do not depend on the chain state, so that only the checks
+     * against the chain state and the execution remain for each block.
      *
      * @param blockRange the block range to be imported
      * @param peerDisplayId the display identifier for the peer who provided the batch
@@ -891,12 +997,21 @@ public class AionBlockchainImpl implements IAionBlockchain {
      */
     public Triple<Long, Set<ByteArrayWrapper>, ImportResult> tryToConnect(final List<Block> blockRange, String peerDisplayId) {
 
+        List<Future<Boolean>> statelessChecks = new ArrayList<>(blockRange.size());
         lock.lock();
         try {
             ImportResult importResult = null;
             Set<ByteArrayWrapper> imported = new HashSet<>();
-            for (Block block : blockRange) {
-                Pair<ImportResult, Long> result = tryToConnectWithTimedExecution(new BlockWrapper(block));
+            for (int i = 0; i < blockRange.size(); i++) {
+                // keep a bounded number of the following blocks under validation
+                while (statelessChecks.size() < blockRange.size() && statelessChecks.size() <= i + IMPORT_VALIDATION_LOOKAHEAD) {
+                    Block next = blockRange.get(statelessChecks.size());
+                    statelessChecks.add(importValidationPool.submit(() -> inHashContext(next, () -> isValidStateless(next))));
+                }
+
+                Block block = blockRange.get(i);
+                // blocks that failed the checks are fully validated by the import to report the failure
+                Pair<ImportResult, Long> result = tryToConnectWithTimedExecution(new BlockWrapper(block, passedStatelessChecks(statelessChecks.get(i))));
                 importResult = result.getLeft();
                 long importTime = result.getRight();
 
@@ -925,10 +1040,26 @@ public class AionBlockchainImpl implements IAionBlockchain {
             return Triple.of(bestBlock.getNumber(), imported, importResult);
         } finally{
             lock.unlock();
+            // the remaining blocks were not imported
+            for (Future<Boolean> check : statelessChecks) {
+                check.cancel(false);
+            }
             checkKernelExit();
         }
     }
 
+    private static boolean passedStatelessChecks(Future<Boolean> check) {
+        try {
+            return check.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            LOG.error("Failed to validate block ahead of its import.", e.getCause());
+            return false;
+        }
+    }
+
     private long surveyTotalImportTime = 0;
     private long surveyLongImportTimeCount = 0;
     private long surveySuperLongImportTimeCount = 0;
@@ -939,6 +1070,22 @@ public class AionBlockchainImpl implements IAionBlockchain {
     private final static long TEN_SECOND_TO_NANO = TimeUnit.SECONDS.toNanos(10);
     private final static long SIXTY_SECOND_TO_MILLI = TimeUnit.SECONDS.toMillis(60);
 
+    private static final String IMPORT_STAGE_SECONDS = "aion_block_import_stage_seconds";
+    private static final String IMPORT_STAGE_HELP = "Time spent in each stage of the block import.";
+    private static final Histogram IMPORT_VALIDATE_TIME = MetricsRegistry.getDefault().timer(IMPORT_STAGE_SECONDS, IMPORT_STAGE_HELP, "stage", "validate");
+    private static final Histogram IMPORT_EXECUTE_TIME = MetricsRegistry.getDefault().timer(IMPORT_STAGE_SECONDS, IMPORT_STAGE_HELP, "stage", "execute");
+    private static final Histogram IMPORT_VERIFY_TIME = MetricsRegistry.getDefault().timer(IMPORT_STAGE_SECONDS, IMPORT_STAGE_HELP, "stage", "verify");
+    private static final Histogram IMPORT_STATE_TIME = MetricsRegistry.getDefault().timer(IMPORT_STAGE_SECONDS, IMPORT_STAGE_HELP, "stage", "state");
+    private static final Histogram IMPORT_STORE_TIME = MetricsRegistry.getDefault().timer(IMPORT_STAGE_SECONDS, IMPORT_STAGE_HELP, "stage", "store");
+    private static final Histogram IMPORT_TIME = MetricsRegistry.getDefault().timer("aion_block_import_seconds", "Time to import a block, including the chain reorganizations.");
+    private static final Map<ImportResult, Counter> IMPORT_RESULTS = new EnumMap<>(ImportResult.class);
+
+    static {
+        for (ImportResult result : ImportResult.values()) {
+            IMPORT_RESULTS.put(result, MetricsRegistry.getDefault().counter("aion_block_import_total", "Blocks processed by the import, by result.", "result", result.name()));
+        }
+    }
+
     /**
      * @return the import result and the duration of the import in {@link TimeUnit#NANOSECONDS}.
      */
@@ -948,6 +1095,8 @@ public class AionBlockchainImpl implements IAionBlockchain {
                 tryToConnectAndFetchSummary(blockWrapper).getLeft();
         importTime = (System.nanoTime() - importTime);
 
+        IMPORT_TIME.record(importTime);
+        IMPORT_RESULTS.get(importResult).inc();
         blockImportSurvey(importResult.isValid(), importTime);
         return Pair.of(importResult, importTime);
     }
@@ -1072,6 +1221,11 @@ public class AionBlockchainImpl implements IAionBlockchain {
         if (ret == IMPORTED_BEST) {
             pubBestBlock = bestBlock;
 
+            BloomBitsIndex bloomBitsIndex = repository.getBloomBitsIndex();
+            if (bloomBitsIndex != null) {
+                bloomBitsIndex.onBestBlock(block.getNumber());
+            }
+
             if (callback != null) {
                 callback.updateBlockStatus(block.getNumber(), block.getHash().clone(), block.getTotalDifficulty());
             }
@@ -1079,7 +1233,7 @@ public class AionBlockchainImpl implements IAionBlockchain {
             if (bestBlockCallback != null) {
                 long t1 = System.currentTimeMillis();
 
-                bestBlockCallback.applyBlockUpdate(block, summary.getReceipts());
+                bestBlockCallback.applyBlockUpdate(block, summary.getReceipts(), summary.getTouchedAccounts());
 
                 AionLoggerFactory.getLogger(LogEnum.TX.toString())
                     .debug("Pending state update took {} ms", System.currentTimeMillis() - t1);
@@ -1515,12 +1669,15 @@ public class AionBlockchainImpl implements IAionBlockchain {
         repository.clearCachedVMs();
 
         Block block = blockWrapper.block;
-        if (!blockWrapper.validatedHeader && !isValid(block)) {
+        long stageStart = System.nanoTime();
+        if (!blockWrapper.validatedHeader && !isValid(block, blockWrapper.validatedStateless)) {
             LOG.error("Attempting to add {} block.", (block == null ? "NULL" : "INVALID"));
             return Pair.of(null, null);
         }
+        IMPORT_VALIDATE_TIME.recordSince(stageStart);
 
-        track = repository.startTracking();
+        AionRepositoryCache blockTrack = repository.startTracking();
+        track = blockTrack;
         byte[] origRoot = repository.getRoot();
 
         // (if not reconstructing old blocks) keep chain continuity
@@ -1535,19 +1692,26 @@ public class AionBlockchainImpl implements IAionBlockchain {
             cachedBlockNumberForAVM = 0;
         }
 
+        stageStart = System.nanoTime();
         AionBlockSummary summary = processBlock(block);
         List<AionTxExecSummary> transactionSummaries = summary.getSummaries();
         List<AionTxReceipt> receipts = summary.getReceipts();
+        IMPORT_EXECUTE_TIME.recordSince(stageStart);
 
+        stageStart = System.nanoTime();
         if (!isValidBlock(block, transactionSummaries, receipts, isException(block.getNumber()), LOG)) {
             track.rollback();
             return Pair.of(null, null);
         }
+        IMPORT_VERIFY_TIME.recordSince(stageStart);
 
         if (blockWrapper.skipRepoFlush) {
             return Pair.of(summary, track);
         }
 
+        // used by the pending state to re-execute only the transactions affected by the block
+        summary.setTouchedAccounts(blockTrack.getCachedAddresses());
+        stageStart = System.nanoTime();
         track.flushTo(repository, true);
         repository.commitCachedVMs(block.getHashWrapper());
 
@@ -1583,6 +1747,7 @@ public class AionBlockchainImpl implements IAionBlockchain {
                 repository.setRoot(origRoot);
                 return Pair.of(null, null);
             }
+            IMPORT_STATE_TIME.recordSince(stageStart);
         }
 
         return Pair.of(summary, null);
@@ -1622,13 +1787,36 @@ public class AionBlockchainImpl implements IAionBlockchain {
             return false;
         }
 
+        return isValidWithAncestors(header);
+    }
+
+    /** Validates the header against its ancestors, without the rules applied to the header alone. */
+    private boolean isValidWithAncestors(BlockHeader header) {
         Block[] threeGenParents = repository.getBlockStore().getThreeGenerationBlocksByHashWithInfo(header.getParentHash());
-        Block parentBlock = threeGenParents[0];
+        return isValidWithAncestors(header, threeGenParents[0], threeGenParents[1], threeGenParents[2], true);
+    }
+
+    /**
+     * Validates the header against the given ancestors, which are not yet stored. Used by the fast
+     * sync, which downloads the blocks from its pivot down without their states, so the rules that
+     * depend on the state of the parent are skipped: the stake of the staker and the difficulty of
+     * the first staking blocks after the forks.
+     *
+     * @param header the header to be validated
+     * @param parent the parent of the header
+     * @param grandparent the parent of the given parent or {@code null} for the genesis
+     * @param greatGrandparent the parent of the given grandparent or {@code null} if none
+     * @return {@code true} if the header is valid with respect to the given ancestors
+     */
+    public boolean isValidWithAncestorsWithoutState(
+            BlockHeader header, Block parent, Block grandparent, Block greatGrandparent) {
+        return isValidWithAncestors(header, parent, grandparent, greatGrandparent, false);
+    }
+
+    private boolean isValidWithAncestors(BlockHeader header, Block parentBlock, Block grandparentBlock, Block greatGrandparentBlock, boolean withState) {
         if (parentBlock == null) {
             return false;
         }
-        Block grandparentBlock = threeGenParents[1];
-        Block greatGrandparentBlock = threeGenParents[2];
 
         if (header.getSealType() == Seal.PROOF_OF_WORK) {
             if (forkUtility.isUnityForkActive(header.getNumber())) {
@@ -1654,35 +1842,42 @@ public class AionBlockchainImpl implements IAionBlockchain {
             }
 
             if (forkUtility.isUnityForkBlock(parentBlock.getNumber())) {
-                BigInteger expectedDiff = calculateFirstPoSDifficultyAtBlock(parentBlock);
+                // without the state the difficulty of the first staking block cannot be checked
+                BigInteger expectedDiff = withState ? calculateFirstPoSDifficultyAtBlock(parentBlock) : header.getDifficultyBI();
                 if (!expectedDiff.equals(header.getDifficultyBI())) {
                     return false;
                 }
                 grandparentBlock = new GenesisStakingBlock(expectedDiff);
-            } else if (forkUtility.isNonceForkBlock(parentBlock.getNumber())) {
+            } else if (withState && forkUtility.isNonceForkBlock(parentBlock.getNumber())) {
                 BigInteger expectedDiff = calculateFirstPoSDifficultyAtBlock(parentBlock);
                 if (!expectedDiff.equals(header.getDifficultyBI())) {
                     return false;
                 }
             }
 
-            BigInteger stake = null;
+            boolean result;
+            if (withState) {
+                BigInteger stake = null;
 
-            try {
-                stake = getStakingContractHelper().getEffectiveStake(new AionAddress(AddressSpecs.computeA0Address(((StakingBlockHeader) header).getSigningPublicKey())), ((StakingBlockHeader) header).getCoinbase(), parentBlock);
-            } catch (Exception e) {
-                LOG.error("Shutdown due to a fatal error encountered while getting the effective stake.", e);
-                System.exit(SystemExitCodes.FATAL_VM_ERROR);
+                try {
+                    stake = getStakingContractHelper().getEffectiveStake(new AionAddress(AddressSpecs.computeA0Address(((StakingBlockHeader) header).getSigningPublicKey())), ((StakingBlockHeader) header).getCoinbase(), parentBlock);
+                } catch (Exception e) {
+                    LOG.error("Shutdown due to a fatal error encountered while getting the effective stake.", e);
+                    System.exit(SystemExitCodes.FATAL_VM_ERROR);
+                }
+
+                result = unityParentBlockHeaderValidator.validate(header, parentBlock.getHeader(), LOG, stake);
+            } else {
+                result = unityParentBlockHeaderValidatorWithoutStake.validate(header, parentBlock.getHeader(), LOG, null);
             }
 
-            boolean result = unityParentBlockHeaderValidator.validate(header, parentBlock.getHeader(), LOG, stake);
             if (result) {
                 if (forkUtility.isSignatureSwapForkActive(header.getNumber())) {
                     result = vrfProofValidator.validate(parentBlock.getHeader(), grandparentBlock.getHeader(), header, LOG)
-                                && difficultyValidateAfterSeedNonceFork(grandparentBlock.getHeader(), greatGrandparentBlock.getHeader(), header);
+                                && difficultyValidateAfterSeedNonceFork(grandparentBlock.getHeader(), greatGrandparentBlock.getHeader(), header, withState);
                 } else if (forkUtility.isNonceForkActive(header.getNumber())) {
                     result = nonceSeedValidator.validate(grandparentBlock.getHeader(), parentBlock.getHeader(), header, LOG)
-                                && difficultyValidateAfterSeedNonceFork(grandparentBlock.getHeader(), greatGrandparentBlock.getHeader(), header);
+                                && difficultyValidateAfterSeedNonceFork(grandparentBlock.getHeader(), greatGrandparentBlock.getHeader(), header, withState);
                 } else {
                     result = unityGreatGrandParentBlockHeaderValidator.validate(grandparentBlock.getHeader(), greatGrandparentBlock.getHeader(), header, LOG);
                 }
@@ -1696,9 +1891,10 @@ public class AionBlockchainImpl implements IAionBlockchain {
         }
     }
 
-    private boolean difficultyValidateAfterSeedNonceFork(BlockHeader grandparent, BlockHeader greatGrandparent, BlockHeader current) {
+    private boolean difficultyValidateAfterSeedNonceFork(BlockHeader grandparent, BlockHeader greatGrandparent, BlockHeader current, boolean withState) {
         if (forkUtility.isNonceForkBlock(current.getNumber() - 1)) {
-            return current.getDifficultyBI().equals(forkUtility.getNonceForkResetDiff());
+            // the reset difficulty is computed from the state at the fork block
+            return !withState || current.getDifficultyBI().equals(forkUtility.getNonceForkResetDiff());
         } else {
             return nonceSeedDifficultyValidator.validate(grandparent, greatGrandparent, current, LOG);
         }
@@ -1709,58 +1905,52 @@ public class AionBlockchainImpl implements IAionBlockchain {
      * between the last two blocks results in an increase in the difficulty level and thus
      * additional computation required, lengthening the likely next period. Conversely, if the
      * period is too large, the difficulty, and expected time to the next block, is reduced.
+     *
+     * @param statelessValid {@code true} when the block already passed {@link
+     *     #isValidStateless(Block)} and only the checks against the chain state remain
      */
-    private boolean isValid(Block block) {
+    private boolean isValid(Block block, boolean statelessValid) {
 
         if (block == null) {
             return false;
         }
 
         if (!block.isGenesis()) {
-            if (!isValid(block.getHeader())) {
-                LOG.warn("Block {} has an invalid block header", block.getNumber());
+            if (!statelessValid && !inHashContext(block, () -> isValidStateless(block))) {
                 return false;
             }
 
-            List<AionTransaction> txs = block.getTransactionsList();
-            if (!isValidTxTrieRoot(block.getTxTrieRoot(), txs, block.getNumber(), LOG)) {
+            if (!isValidWithAncestors(block.getHeader())) {
+                LOG.warn("Block {} has an invalid block header", block.getNumber());
                 return false;
             }
 
+            List<AionTransaction> txs = block.getTransactionsList();
             if (!txs.isEmpty()) {
-                Repository parentRepo = repository;
+                AionRepositoryImpl parentRepo = repository;
 
                 if (!Arrays.equals(bestBlock.getHash(), block.getParentHash())) {
                     parentRepo =
-                            repository.getSnapshotTo(
-                                    getBlockByHash(block.getParentHash()).getStateRoot());
+                            (AionRepositoryImpl)
+                                    repository.getSnapshotTo(
+                                            getBlockByHash(block.getParentHash()).getStateRoot());
                 }
 
                 Map<AionAddress, BigInteger> nonceCache = new HashMap<>();
 
-                boolean unityForkEnabled = forkUtility.isUnityForkActive(block.getNumber());
-                boolean signatureSwapForkEnabled = forkUtility.isSignatureSwapForkActive(block.getNumber());
-                if (txs.parallelStream()
-                        .anyMatch(
-                                tx ->
-                                    TXValidator.validateTx(tx, unityForkEnabled, signatureSwapForkEnabled).isFail()
-                                                || !TransactionTypeValidator.isValid(tx)
-                                                || !beaconHashValidator.validateTxForBlock(tx, block))) {
+                if (txs.parallelStream().anyMatch(tx -> !beaconHashValidator.validateTxForBlock(tx, block))) {
                     LOG.error("Some transactions in the block are invalid");
-
-                    for (AionTransaction tx : txs) {
-                        TX_LOG.debug(
-                                "Tx valid ["
-                                        + TXValidator.validateTx(tx, unityForkEnabled, signatureSwapForkEnabled).isSuccess()
-                                        + "]. Type valid ["
-                                        + TransactionTypeValidator.isValid(tx)
-                                        + "]\n"
-                                        + tx.toString());
-                    }
-
+                    logTransactionValidity(block);
                     return false;
                 }
 
+                // load the sender accounts with batch reads before checking the nonces
+                Set<AionAddress> senders = new HashSet<>();
+                for (AionTransaction tx : txs) {
+                    senders.add(tx.getSenderAddress());
+                }
+                parentRepo.prefetchAccountStates(senders);
+
                 for (AionTransaction tx : txs) {
                     AionAddress txSender = tx.getSenderAddress();
 
@@ -1790,16 +1980,83 @@ public class AionBlockchainImpl implements IAionBlockchain {
         return true;
     }
 
+    /**
+     * Validates the parts of a block that do not depend on the chain state, i.e. the rules applied
+     * to the header alone, the transaction trie root and the transactions with their signatures.
+     * Blocks of a range are checked by the import workers ahead of their import.
+     */
+    private boolean isValidStateless(Block block) {
+        if (block.isGenesis()) {
+            return true;
+        }
+
+        if (!headerValidator.validate(block.getHeader(), LOG)) {
+            LOG.warn("Block {} has an invalid block header", block.getNumber());
+            return false;
+        }
+
+        List<AionTransaction> txs = block.getTransactionsList();
+        if (!isValidTxTrieRoot(block.getTxTrieRoot(), txs, block.getNumber(), LOG)) {
+            return false;
+        }
+
+        if (!txs.isEmpty()) {
+            boolean unityForkEnabled = forkUtility.isUnityForkActive(block.getNumber());
+            boolean signatureSwapForkEnabled = forkUtility.isSignatureSwapForkActive(block.getNumber());
+            if (TXValidator.validateTxBatch(txs, unityForkEnabled, signatureSwapForkEnabled).stream().anyMatch(TxResponse::isFail)
+                    || txs.stream().anyMatch(tx -> !TransactionTypeValidator.isValid(tx))) {
+                LOG.error("Some transactions in the block are invalid");
+                logTransactionValidity(block);
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void logTransactionValidity(Block block) {
+        if (TX_LOG.isDebugEnabled()) {
+            boolean unityForkEnabled = forkUtility.isUnityForkActive(block.getNumber());
+            boolean signatureSwapForkEnabled = forkUtility.isSignatureSwapForkActive(block.getNumber());
+            for (AionTransaction tx : block.getTransactionsList()) {
+                TX_LOG.debug(
+                        "Tx valid ["
+                                + TXValidator.validateTx(tx, unityForkEnabled, signatureSwapForkEnabled).isSuccess()
+                                + "]. Type valid ["
+                                + TransactionTypeValidator.isValid(tx)
+                                + "]\n"
+                                + tx.toString());
+            }
+        }
+    }
+
     private AionBlockSummary processBlock(Block block) {
 
         if (!block.isGenesis()) {
-            return applyBlock(block);
+            if (forkUtility.isSignatureSwapForkActive(block.getNumber())) {
+                // the threads without a context of their own follow the chain past the fork
+                HashUtil.setAfterSignatureSwap();
+            }
+            return inHashContext(block, () -> applyBlock(block));
         } else {
             return new AionBlockSummary(
                     block, new HashMap<>(), new ArrayList<>(), new ArrayList<>());
         }
     }
 
+    /**
+     * Runs the given work on the current thread with the hashing context of the fork active at
+     * the given block, since the hashes depend on the signature swap fork (AKI-716).
+     */
+    private <T> T inHashContext(Block block, Supplier<T> work) {
+        H256Context previous = HashUtil.setThreadContext(H256Context.forSignatureSwap(forkUtility.isSignatureSwapForkActive(block.getNumber())));
+        try {
+            return work.get();
+        } finally {
+            HashUtil.setThreadContext(previous);
+        }
+    }
+
     /**
      * For generating the necessary transactions for a block
      *
@@ -1821,6 +2078,8 @@ public class AionBlockchainImpl implements IAionBlockchain {
                 TransactionTypeRule.allowAVMContractTransaction();
             }
 
+            repository.prefetchAccountStates(getTransactionParticipants(block));
+
             try {
                 // Booleans moved out here so their meaning is explicit.
                 boolean isLocalCall = false;
@@ -1864,6 +2123,19 @@ public class AionBlockchainImpl implements IAionBlockchain {
         return new RetValidPreBlock(transactions, rewards, receipts, summaries);
     }
 
+    /** @return the senders and recipients of the block transactions and the block coinbase */
+    private static Set<AionAddress> getTransactionParticipants(Block block) {
+        Set<AionAddress> accounts = new HashSet<>();
+        accounts.add(block.getCoinbase());
+        for (AionTransaction tx : block.getTransactionsList()) {
+            accounts.add(tx.getSenderAddress());
+            if (tx.getDestinationAddress() != null) {
+                accounts.add(tx.getDestinationAddress());
+            }
+        }
+        return accounts;
+    }
+
     private AionBlockSummary applyBlock(Block block) {
         long saveTime = System.nanoTime();
 
@@ -1878,11 +2150,7 @@ public class AionBlockchainImpl implements IAionBlockchain {
                 TransactionTypeRule.allowAVMContractTransaction();
             }
 
-            if (forkUtility.isSignatureSwapForkActive(block.getNumber())) {
-                HashUtil.setAfterSignatureSwap();
-            } else {
-                HashUtil.setBeforeSignatureSwap();
-            }
+            repository.prefetchAccountStates(getTransactionParticipants(block));
 
             try {
                 // Booleans moved out here so their meaning is explicit.
@@ -2681,6 +2949,12 @@ public class AionBlockchainImpl implements IAionBlockchain {
         // Note: if block DB corruption, the bestBlock may not match with the indexDB.
         Block bestBlock = repository.getBestBlock();
 
+        // an interrupted flush of buffered writes can leave index levels without their blocks
+        if (bestBlock != null && repository.getBlockStore().getMaxNumber() > bestBlock.getNumber()) {
+            genLOG.info("Removing the index entries above the best block " + bestBlock.getNumber() + ".");
+            repository.getBlockStore().rollback(bestBlock.getNumber());
+        }
+
         // AKI-716
         if (bestBlock != null && forkUtility.isSignatureSwapForkActive(bestBlock.getNumber())) {
             HashUtil.setAfterSignatureSwap();
@@ -9,6 +9,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.ServiceLoader;
+import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.aion.base.AionTransaction;
@@ -17,6 +18,8 @@ import org.aion.base.TransactionTypeRule;
 import org.aion.evtmgr.EventMgrModule;
 import org.aion.evtmgr.IEvent;
 import org.aion.evtmgr.IEventMgr;
+import org.aion.evtmgr.IHandler;
+import org.aion.evtmgr.impl.abs.AbstractHandler;
 import org.aion.evtmgr.impl.evt.EventBlock;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
@@ -32,22 +35,38 @@ import org.aion.p2p.Handler;
 import org.aion.p2p.INode;
 import org.aion.p2p.IP2pMgr;
 import org.aion.p2p.impl1.P2pMgr;
+import org.aion.types.AionAddress;
 import org.aion.util.bytes.ByteUtil;
+import org.aion.util.metrics.MetricsRegistry;
 import org.aion.zero.impl.pendingState.AionPendingStateImpl;
 import org.aion.zero.impl.pendingState.IPendingState;
 import org.aion.zero.impl.config.CfgAion;
 import org.aion.zero.impl.pow.AionPoW;
+import org.aion.zero.impl.sync.FastSyncManager;
 import org.aion.zero.impl.sync.NodeWrapper;
 import org.aion.zero.impl.sync.SyncMgr;
+import org.aion.zero.impl.sync.handler.AnnounceTxHashesHandler;
 import org.aion.zero.impl.sync.handler.BlockPropagationHandler;
 import org.aion.zero.impl.sync.handler.BroadcastNewBlockHandler;
 import org.aion.zero.impl.sync.handler.BroadcastTxHandler;
+import org.aion.zero.impl.sync.handler.CompactBlockHandler;
 import org.aion.zero.impl.sync.handler.ReqBlocksBodiesHandler;
 import org.aion.zero.impl.sync.handler.ReqBlocksHeadersHandler;
 import org.aion.zero.impl.sync.handler.ReqStatusHandler;
+import org.aion.zero.impl.sync.handler.RequestBlockTxsHandler;
+import org.aion.zero.impl.sync.handler.RequestBlocksHandler;
+import org.aion.zero.impl.sync.handler.RequestTrieDataHandler;
+import org.aion.zero.impl.sync.handler.RequestTxsHandler;
 import org.aion.zero.impl.sync.handler.ResBlocksBodiesHandler;
 import org.aion.zero.impl.sync.handler.ResBlocksHeadersHandler;
 import org.aion.zero.impl.sync.handler.ResStatusHandler;
+import org.aion.zero.impl.sync.handler.ResponseBlockTxsHandler;
+import org.aion.zero.impl.sync.handler.ResponseBlocksHandler;
+import org.aion.zero.impl.sync.handler.ResponseTrieDataHandler;
+import org.aion.zero.impl.sync.handler.SendCompactBlocksHandler;
+import org.aion.zero.impl.trie.TrieNodeCache;
+import org.aion.zero.impl.tx.TxFetcher;
+import org.aion.zero.impl.vm.avm.AvmLocalCallPool;
 import org.slf4j.Logger;
 
 public class AionHub {
@@ -63,8 +82,12 @@ public class AionHub {
 
     private SyncMgr syncMgr;
 
+    private FastSyncManager fastSyncMgr;
+
     private BlockPropagationHandler propHandler;
 
+    private TxFetcher txFetcher;
+
     private AionPendingStateImpl mempool;
 
     private AionBlockchainImpl blockchain;
@@ -143,6 +166,10 @@ public class AionHub {
             genLOG.info("Seed node mode enabled!");
         }
 
+        if (!forTest) {
+            AvmLocalCallPool.configure(cfg.getApi().getLocalCallPoolSize(), cfg.getApi().getLocalCallTimeout());
+        }
+
         /*
          * p2p hook up start sync mgr needs to be initialed after loadBlockchain()
          * method
@@ -175,6 +202,15 @@ public class AionHub {
                 cfg.getSync().getShowStatistics(),
                 cfg.getNet().getP2p().getMaxActiveNodes());
 
+        if (cfg.getSync().getFastSync()) {
+            this.fastSyncMgr =
+                    new FastSyncManager(
+                            blockchain,
+                            p2pMgr,
+                            syncMgr,
+                            blockchain.getRepository().getFastSyncDatabase());
+        }
+
         ChainConfiguration chainConfig = new ChainConfiguration();
         this.propHandler =
                 new BlockPropagationHandler(
@@ -188,9 +224,14 @@ public class AionHub {
                         mempool);
 
         registerCallback();
+        registerMetrics();
 
         if (!forTest) {
             p2pMgr.run();
+
+            if (fastSyncMgr != null) {
+                fastSyncMgr.start();
+            }
         }
 
         if (!AionBlockchainImpl.enableFullSyncCheck) {
@@ -239,11 +280,51 @@ public class AionHub {
         cbs.add(new ResBlocksHeadersHandler(syncLOG, surveyLOG, syncMgr));
         cbs.add(new ReqBlocksBodiesHandler(syncLOG, blockchain, syncMgr, p2pMgr, inSyncOnlyMode));
         cbs.add(new ResBlocksBodiesHandler(syncLOG, surveyLOG, syncMgr, p2pMgr));
-        cbs.add(new BroadcastTxHandler(syncLOG, mempool, p2pMgr, inSyncOnlyMode));
+        // the transactions announced by their hashes are requested once from one of the peers
+        this.txFetcher = new TxFetcher(syncLOG, mempool, p2pMgr);
+        if (!inSyncOnlyMode) {
+            txFetcher.start();
+        }
+        cbs.add(new BroadcastTxHandler(syncLOG, mempool, p2pMgr, txFetcher, inSyncOnlyMode));
+        cbs.add(new AnnounceTxHashesHandler(syncLOG, txFetcher, p2pMgr, inSyncOnlyMode));
+        cbs.add(new RequestTxsHandler(syncLOG, txFetcher, p2pMgr));
         cbs.add(new BroadcastNewBlockHandler(syncLOG, surveyLOG, propHandler, p2pMgr));
+        // new blocks are exchanged as compact blocks with the peers supporting them
+        cbs.add(new SendCompactBlocksHandler(syncLOG, propHandler));
+        cbs.add(new CompactBlockHandler(syncLOG, propHandler, p2pMgr));
+        cbs.add(new RequestBlockTxsHandler(syncLOG, blockchain, p2pMgr));
+        cbs.add(new ResponseBlockTxsHandler(syncLOG, propHandler, p2pMgr));
+        // the state and the blocks are served to the peers using fast sync
+        cbs.add(new RequestTrieDataHandler(syncLOG, blockchain, p2pMgr));
+        cbs.add(new RequestBlocksHandler(syncLOG, blockchain, p2pMgr));
+        if (fastSyncMgr != null) {
+            cbs.add(new ResponseTrieDataHandler(syncLOG, fastSyncMgr.getReceivedNodes()));
+            cbs.add(new ResponseBlocksHandler(syncLOG, p2pMgr, fastSyncMgr));
+        }
         this.p2pMgr.register(cbs);
     }
 
+    /** Exposes the queues and caches of the kernel which are sampled when the metrics are scraped. */
+    private void registerMetrics() {
+        MetricsRegistry metrics = MetricsRegistry.getDefault();
+        metrics.registerGauge("aion_txpool_pending_transactions", "Transactions in the pending state.", () -> mempool.getPendingTxSize());
+
+        for (IHandler handler : eventMgr.getHandlerList()) {
+            if (handler instanceof AbstractHandler) {
+                AbstractHandler events = (AbstractHandler) handler;
+                String type = String.valueOf(IHandler.TYPE.GETTYPE(events.getType()));
+                metrics.registerGauge("aion_event_queue_depth", "Events waiting to be dispatched.", events::getQueueDepth, "handler", type);
+                metrics.registerCounter("aion_event_dispatched_total", "Events dispatched to the callbacks.", events::getDispatchedEvents, "handler", type);
+                metrics.registerCounter("aion_event_dropped_total", "Events dropped because the queue was full.", events::getDroppedEvents, "handler", type);
+            }
+        }
+
+        TrieNodeCache trieCache = blockchain.getRepository().getTrieNodeCache();
+        metrics.registerGauge("aion_trie_cache_entries", "Nodes held by the trie node cache.", trieCache::getEntryCount);
+        metrics.registerCounter("aion_trie_cache_hits_total", "Lookups served by the trie node cache.", trieCache::getHitCount);
+        metrics.registerCounter("aion_trie_cache_misses_total", "Lookups missing the trie node cache.", trieCache::getMissCount);
+    }
+
     private void loadEventMgr(boolean forTest) {
 
         try {
@@ -275,6 +356,11 @@ public class AionHub {
         return blockchain.getRepository();
     }
 
+    /** Returns a read-only view of the last committed state that block imports do not block. */
+    public Repository getCommittedView() {
+        return blockchain.getRepository().getCommittedView();
+    }
+
     public IAionBlockchain getBlockchain() {
         return blockchain;
     }
@@ -298,6 +384,11 @@ public class AionHub {
     public void close() {
         genLOG.info("<KERNEL SHUTDOWN SEQUENCE>");
 
+        if (fastSyncMgr != null) {
+            fastSyncMgr.shutdown();
+            genLOG.info("<shutdown-fast-sync-mgr>");
+        }
+
         if (syncMgr != null) {
             syncMgr.shutdown();
             genLOG.info("<shutdown-sync-mgr>");
@@ -322,6 +413,8 @@ public class AionHub {
             genLOG.info("shutdown consensus... Done!");
         }
 
+        AvmLocalCallPool.shutdown();
+
         blockchain.close();
 
         this.start.set(false);
@@ -336,6 +429,10 @@ public class AionHub {
         return this.p2pMgr;
     }
 
+    public TxFetcher getTxFetcher() {
+        return this.txFetcher;
+    }
+
     public int getActiveNodesCount() {
         return this.p2pMgr.getActiveNodes().size();
     }
@@ -416,8 +513,8 @@ public class AionHub {
             this.mempool = mempool;
         }
 
-        void applyBlockUpdate(Block block, List<AionTxReceipt> receipts) {
-            mempool.applyBlockUpdate(block, receipts);
+        void applyBlockUpdate(Block block, List<AionTxReceipt> receipts, Set<AionAddress> touchedAccounts) {
+            mempool.applyBlockUpdate(block, receipts, touchedAccounts);
         }
 
     }
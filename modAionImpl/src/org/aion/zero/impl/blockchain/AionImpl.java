@@ -77,7 +77,7 @@ public class AionImpl implements IAionChain {
                         + cfg.getNet().getP2p().getPort()
                         + ">");
 
-        collector = new TxCollector(this.aionHub.getP2pMgr(), LOG_TX);
+        collector = new TxCollector(this.aionHub.getP2pMgr(), this.aionHub.getTxFetcher()::isAnnouncingPeer, LOG_TX);
 
         lock = new ReentrantLock();
     }
@@ -305,6 +305,11 @@ public class AionImpl implements IAionChain {
         return repository.getSnapshotTo(root);
     }
 
+    @Override
+    public Repository getCommittedView() {
+        return aionHub.getCommittedView();
+    }
+
     @Override
     public List<AionTransaction> getWireTransactions() {
         return aionHub.getPendingState().getPendingTransactions();
@@ -421,7 +426,7 @@ public class AionImpl implements IAionChain {
     public Optional<ByteArrayWrapper> getCode(AionAddress address) {
         Objects.requireNonNull(address);
 
-        byte[] code = this.aionHub.getRepository().getCode(address);
+        byte[] code = this.aionHub.getCommittedView().getCode(address);
         if (code == null) return Optional.empty();
         return Optional.of(ByteArrayWrapper.wrap(code));
     }
@@ -431,7 +436,7 @@ public class AionImpl implements IAionChain {
         Objects.requireNonNull(address);
         Objects.requireNonNull(key);
 
-        ByteArrayWrapper values = aionHub.getRepository().getStorageValue(address, key);
+        ByteArrayWrapper values = aionHub.getCommittedView().getStorageValue(address, key);
         return values == null ? Optional.empty() : Optional.of(values);
     }
 
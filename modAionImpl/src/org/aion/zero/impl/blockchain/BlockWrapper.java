@@ -8,13 +8,20 @@ public class BlockWrapper {
     public final boolean skipExistCheck;
     public final boolean reBuild;
     public final boolean skipRepoFlush;
+    // the checks that do not depend on the chain state were already passed
+    public final boolean validatedStateless;
 
     public BlockWrapper(Block block) {
+        this(block, false);
+    }
+
+    public BlockWrapper(Block block, boolean validatedStateless) {
         this.block = block;
         this.validatedHeader = false;
         this.skipExistCheck = false;
         this.reBuild = false;
         this.skipRepoFlush = false;
+        this.validatedStateless = validatedStateless;
     }
 
     public BlockWrapper(
@@ -28,5 +35,6 @@ public class BlockWrapper {
         this.skipExistCheck = skipExistCheck;
         this.reBuild = reBuild;
         this.skipRepoFlush = skipRepoFlush;
+        this.validatedStateless = false;
     }
 }
@@ -259,6 +259,27 @@ public class ChainConfiguration {
         return new ParentBlockHeaderValidator(unityRules);
     }
 
+    /**
+     * Creates the parent header rules that do not depend on the stake of the staker, used to check
+     * the headers whose parent state is not available.
+     */
+    public ParentBlockHeaderValidator createUnityParentBlockHeaderValidatorWithoutStake() {
+        List<DependentBlockHeaderRule> rules =
+                Arrays.asList(
+                        new BlockNumberRule(),
+                        new ParentOppositeTypeRule(),
+                        new TimeStampRule(),
+                        new EnergyLimitRule(
+                                getConstants().getEnergyDivisorLimitLong(),
+                                getConstants().getEnergyLowerBoundLong()));
+
+        Map<Seal, List<DependentBlockHeaderRule>> unityRules = new EnumMap<>(Seal.class);
+        unityRules.put(Seal.PROOF_OF_WORK, rules);
+        unityRules.put(Seal.PROOF_OF_STAKE, rules);
+
+        return new ParentBlockHeaderValidator(unityRules);
+    }
+
     public IDifficultyCalculator getUnityDifficultyCalculator() {
         return unityDifficultyCalculator;
     }
@@ -27,6 +27,8 @@ public interface IAionChain  extends RepoState {
 
     Repository getSnapshotTo(byte[] root);
 
+    Repository getCommittedView();
+
     List<AionTransaction> getWireTransactions();
 
     List<AionTransaction> getPendingStateTransactions();
@@ -2,10 +2,13 @@ package org.aion.zero.impl.blockchain;
 
 import static org.aion.zero.impl.blockchain.AionImpl.keyForCallandEstimate;
 
+import com.google.common.annotations.VisibleForTesting;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import org.aion.base.AionTxExecSummary;
 import org.aion.zero.impl.vm.avm.AvmProvider;
@@ -24,7 +27,9 @@ import org.aion.zero.impl.types.Block;
 import org.aion.base.db.RepositoryCache;
 import org.aion.types.AionAddress;
 import org.aion.util.bytes.ByteUtil;
+import org.aion.util.types.ByteArrayWrapper;
 import org.aion.zero.impl.SystemExitCodes;
+import org.apache.commons.collections4.map.LRUMap;
 import org.slf4j.Logger;
 
 /**
@@ -37,11 +42,20 @@ public class StakingContractHelper {
     private final Logger LOG_VM = AionLoggerFactory.getLogger(LogEnum.VM.toString());
     private final Logger LOG_CONS = AionLoggerFactory.getLogger(LogEnum.CONS.toString());
     private static final AvmVersion LATEST_AVM_VERSION = AvmVersion.VERSION_2;
+    private static final int EFFECTIVE_STAKE_CACHE_SIZE = 1024;
 
     /**
      * cached byte array for skipping the abi encode the contract method during the contract call.
      */
     private byte[] effectiveStake = null;
+
+    /**
+     * The effective stakes by state root, signing address and coinbase. The result of the contract
+     * call depends only on the state, so a change of the state root misses the cache and the
+     * entries for previous roots remain valid until evicted.
+     */
+    private final Map<ByteArrayWrapper, BigInteger> effectiveStakeCache =
+            Collections.synchronizedMap(new LRUMap<>(EFFECTIVE_STAKE_CACHE_SIZE));
     
     public StakingContractHelper(AionAddress contractDestination, AionBlockchainImpl _chain) {
         if (contractDestination == null || _chain == null) {
@@ -67,6 +81,17 @@ public class StakingContractHelper {
             throw new NullPointerException();
         }
 
+        ByteArrayWrapper cacheKey =
+                ByteArrayWrapper.wrap(
+                        ByteUtil.merge(
+                                block.getStateRoot(),
+                                signingAddress.toByteArray(),
+                                coinbase.toByteArray()));
+        BigInteger cachedStake = effectiveStakeCache.get(cacheKey);
+        if (cachedStake != null) {
+            return cachedStake;
+        }
+
         if (!AvmProvider.tryAcquireLock(10, TimeUnit.MINUTES)) {
             throw new IllegalStateException("Failed to acquire the avm lock!");
         }
@@ -121,16 +146,19 @@ public class StakingContractHelper {
         BigInteger output = resourceFactory.newDecoder(receipt.getTransactionOutput()).decodeOneBigInteger();
         AvmProvider.releaseLock();
 
+        // the failed calls returned above are not cached, they may succeed when retried
+        effectiveStakeCache.put(cacheKey, output);
         return output;
     }
 
-    private AionTxReceipt callConstant(AionTransaction tx, Block block)
+    @VisibleForTesting
+    AionTxReceipt callConstant(AionTransaction tx, Block block)
         throws VmFatalException {
 
         RepositoryCache repository =
                 chain.getRepository().getSnapshotTo(block.getStateRoot()).startTracking();
 
-            List<AionTxExecSummary> summaries = AvmTransactionExecutor.executeTransactions(repository
+            List<AionTxExecSummary> summaries = AvmTransactionExecutor.executeTransactionsOnProvider(repository
                 , block.getDifficultyBI()
                 , block.getNumber()
                 , block.getTimestamp()
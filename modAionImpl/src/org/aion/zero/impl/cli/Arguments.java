@@ -112,6 +112,18 @@ public class Arguments {
                     "drops all databases except for block and index when not given a parameter or starting from 0 and redoes import of all known main chain blocks")
     private String redoImport = null;
 
+    @Option(
+            names = {"--db-migrate"},
+            description =
+                    "copies the repository databases into column families of a single rocksdb instance and switches the database vendor to rocksdbcf")
+    private boolean dbMigrate;
+
+    @Option(
+            names = {"--db-migrate-tx-info"},
+            description =
+                    "rewrites the transaction receipts stored by previous versions using the compact encoding")
+    private boolean dbMigrateTxInfo;
+
     /** Compacts the account options into specific commands. */
     public static String[] preProcess(String[] arguments) {
         List<String> list = new ArrayList<>();
@@ -189,4 +201,12 @@ public class Arguments {
     public String isRedoImport() {
         return redoImport;
     }
+
+    public boolean isDbMigrate() {
+        return dbMigrate;
+    }
+
+    public boolean isDbMigrateTxInfo() {
+        return dbMigrateTxInfo;
+    }
 }
@@ -15,16 +15,22 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import org.aion.db.impl.ByteArrayKeyValueDatabase;
+import org.aion.db.impl.DBVendor;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.aion.log.LogLevel;
 import org.aion.zero.impl.blockchain.AionBlockchainImpl;
 import org.aion.zero.impl.config.CfgDb;
 import org.aion.zero.impl.db.AionRepositoryImpl;
+import org.aion.zero.impl.db.DatabaseUtils;
+import org.aion.zero.impl.db.RepositoryConfig;
+import org.aion.zero.impl.db.RepositoryConfigImpl;
 import org.aion.zero.impl.vm.avm.AvmConfigurations;
 import org.aion.zero.impl.vm.avm.schedule.AvmVersionSchedule;
 import org.aion.zero.impl.config.CfgAion;
@@ -50,6 +56,7 @@ public class Cli {
     private final File keystoreDir =
             new File(System.getProperty("user.dir") + File.separator + CfgSsl.SSL_KEYSTORE_DIR);
 
+    private static final int MIGRATION_BATCH_SIZE = 10_000;
     private final Arguments options = new Arguments();
     private final CommandLine parser;
     private final EditCli editCli;
@@ -94,7 +101,9 @@ public class Cli {
         PRUNE_STATE,
         DEV,
         DB_COMPACT,
-        REDO_IMPORT
+        REDO_IMPORT,
+        DB_MIGRATE,
+        DB_MIGRATE_TX_INFO
     }
 
     public ReturnType callAndInitializeAvm(String[] args, CfgAion cfg) {
@@ -457,6 +466,30 @@ public class Cli {
                 }
             }
 
+            if (options.isDbMigrate()) {
+                if (migrateToColumnFamilies()) {
+                    System.out.println("Database migration to column families successful.");
+                    return EXIT;
+                } else {
+                    System.out.println("Database migration to column families FAILED.");
+                    return ERROR;
+                }
+            }
+
+            if (options.isDbMigrateTxInfo()) {
+                // read database configuration
+                CfgAion.inst().dbFromXML();
+                AionLoggerFactory.initAll(Map.of(LogEnum.GEN, LogLevel.INFO, LogEnum.DB, LogLevel.WARN));
+                final Logger log = AionLoggerFactory.getLogger(LogEnum.GEN.name());
+
+                AionRepositoryImpl repository = AionRepositoryImpl.inst();
+                log.info("Migrating the transaction records ...");
+                long count = repository.getTransactionStore().migrateLegacyRecords(log);
+                log.info("Migrated {} transaction records.", count);
+                repository.close();
+                return EXIT;
+            }
+
 
             // if no return happened earlier, run the kernel
             return RUN;
@@ -667,6 +700,12 @@ public class Cli {
         if (options.isRedoImport() != null) {
             return TaskPriority.REDO_IMPORT;
         }
+        if (options.isDbMigrate()) {
+            return TaskPriority.DB_MIGRATE;
+        }
+        if (options.isDbMigrateTxInfo()) {
+            return TaskPriority.DB_MIGRATE_TX_INFO;
+        }
         return TaskPriority.NONE;
     }
 
@@ -728,6 +767,12 @@ public class Cli {
                 && options.isRedoImport() != null) {
             skippedTasks.add("--redo-import");
         }
+        if (breakingTaskPriority.compareTo(TaskPriority.DB_MIGRATE) < 0 && options.isDbMigrate()) {
+            skippedTasks.add("--db-migrate");
+        }
+        if (breakingTaskPriority.compareTo(TaskPriority.DB_MIGRATE_TX_INFO) < 0 && options.isDbMigrateTxInfo()) {
+            skippedTasks.add("--db-migrate-tx-info");
+        }
 
         return skippedTasks;
     }
@@ -766,6 +811,123 @@ public class Cli {
         return isSuccessful;
     }
 
+    /**
+     * Copies the repository databases into column families of a single RocksDB instance located
+     * in the database directory and updates the configuration to use them. The original databases
+     * are not deleted.
+     *
+     * @return {@code true} if successful and {@code false} in case of any failure
+     */
+    private boolean migrateToColumnFamilies() {
+        CfgAion cfg = CfgAion.inst();
+        cfg.fromXML();
+
+        AionLoggerFactory.initAll(Map.of(LogEnum.GEN, LogLevel.INFO, LogEnum.DB, LogLevel.WARN));
+        final Logger log = AionLoggerFactory.getLogger(LogEnum.GEN.name());
+
+        String dbPath = cfg.getDatabasePath();
+        RepositoryConfig repoCfg = new RepositoryConfigImpl(dbPath, cfg.getDb());
+        DBVendor vendor =
+                DBVendor.fromString(repoCfg.getDatabaseConfig(CfgDb.Names.DEFAULT).getProperty(CfgDb.Props.DB_TYPE));
+
+        if (vendor == DBVendor.ROCKSDB_CF) {
+            log.info("The databases already use the vendor «{}». Nothing to do.", vendor.toValue());
+            return true;
+        }
+        if (!vendor.isFileBased()) {
+            log.error("Migrating from the vendor «{}» is not supported.", vendor.toValue());
+            return false;
+        }
+
+        // the pending blocks are not migrated since they are requested again during sync
+        List<String> names =
+                List.of(
+                        CfgDb.Names.STATE,
+                        CfgDb.Names.STATE_ARCHIVE,
+                        CfgDb.Names.STATE_JOURNAL,
+                        CfgDb.Names.TRANSACTION,
+                        CfgDb.Names.CONTRACT_INDEX,
+                        CfgDb.Names.CONTRACT_PERFORM_CODE,
+                        CfgDb.Names.CONTRACT_ADDRESS,
+                        CfgDb.Names.DETAILS,
+                        CfgDb.Names.STORAGE,
+                        CfgDb.Names.GRAPH,
+                        CfgDb.Names.INDEX,
+                        CfgDb.Names.BLOCK,
+                        CfgDb.Names.TX_POOL,
+                        CfgDb.Names.TX_CACHE,
+                        CfgDb.Names.BLOOM_BITS,
+                        CfgDb.Names.FAST_SYNC,
+                        CfgDb.Names.STATE_SNAPSHOT);
+
+        for (String name : names) {
+            if (!new File(dbPath, name).exists()) {
+                log.info("The «{}» database does not exist. Skipping it.", name);
+                continue;
+            }
+
+            Properties sourceProps = repoCfg.getDatabaseConfig(name);
+            sourceProps.setProperty(CfgDb.Props.ENABLE_LOCKING, "false");
+            sourceProps.setProperty(CfgDb.Props.DB_PATH, dbPath);
+            sourceProps.setProperty(CfgDb.Props.DB_NAME, name);
+
+            Properties targetProps = repoCfg.getDatabaseConfig(name);
+            targetProps.setProperty(CfgDb.Props.ENABLE_LOCKING, "false");
+            targetProps.setProperty(CfgDb.Props.DB_PATH, dbPath);
+            targetProps.setProperty(CfgDb.Props.DB_NAME, name);
+            targetProps.setProperty(CfgDb.Props.DB_TYPE, DBVendor.ROCKSDB_CF.toValue());
+
+            ByteArrayKeyValueDatabase source = DatabaseUtils.connectAndOpen(sourceProps, log);
+            ByteArrayKeyValueDatabase target = DatabaseUtils.connectAndOpen(targetProps, log);
+
+            try {
+                if (source == null || source.isClosed() || target == null || target.isClosed()) {
+                    log.error("Unable to open the «{}» database for migration.", name);
+                    return false;
+                }
+
+                // discard data left behind by a previous failed attempt
+                target.drop();
+
+                log.info("Migrating the «{}» database ...", name);
+                long count = 0;
+                Map<byte[], byte[]> batch = new HashMap<>();
+                Iterator<Map.Entry<byte[], byte[]>> entries = source.iterate(null, null);
+
+                while (entries.hasNext()) {
+                    Map.Entry<byte[], byte[]> entry = entries.next();
+                    batch.put(entry.getKey(), entry.getValue());
+
+                    if (batch.size() == MIGRATION_BATCH_SIZE) {
+                        target.putBatch(batch);
+                        count += batch.size();
+                        batch.clear();
+                    }
+                }
+                target.putBatch(batch);
+                count += batch.size();
+
+                log.info("Migrated {} entries from the «{}» database.", count, name);
+            } finally {
+                if (source != null) {
+                    source.close();
+                }
+                if (target != null) {
+                    target.close();
+                }
+            }
+        }
+
+        cfg.getDb().setVendor(DBVendor.ROCKSDB_CF.toValue());
+        cfg.toXML(null, cfg.getExecConfigFile());
+
+        log.info(
+                "The configuration was updated to use the vendor «{}». The original databases in {} can be deleted after the kernel starts successfully.",
+                DBVendor.ROCKSDB_CF.toValue(),
+                dbPath);
+        return true;
+    }
+
     private void createKeystoreDirIfMissing() {
         if (!keystoreDir.isDirectory()) {
             if (!keystoreDir.mkdir()) {
@@ -8,6 +8,7 @@ import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.XMLStreamWriter;
+import org.aion.zero.impl.vm.avm.AvmLocalCallPool;
 
 /** Api configuration class. */
 public final class CfgApi {
@@ -15,11 +16,15 @@ public final class CfgApi {
     private CfgApiZmq zmq;
     private CfgApiRpc rpc;
     private CfgApiNrg nrg;
+    private int localCallPoolSize;
+    private long localCallTimeout;
 
     public CfgApi() {
         this.rpc = new CfgApiRpc();
         this.zmq = new CfgApiZmq();
         this.nrg = new CfgApiNrg();
+        this.localCallPoolSize = AvmLocalCallPool.DEFAULT_POOL_SIZE;
+        this.localCallTimeout = AvmLocalCallPool.DEFAULT_CALL_TIMEOUT_MS;
     }
 
     public CfgApiRpc getRpc() {
@@ -34,6 +39,16 @@ public final class CfgApi {
         return this.nrg;
     }
 
+    /** @return the number of avm instances running local calls concurrently, 0 if disabled */
+    public int getLocalCallPoolSize() {
+        return this.localCallPoolSize;
+    }
+
+    /** @return the maximum time in milliseconds to wait for a local call */
+    public long getLocalCallTimeout() {
+        return this.localCallTimeout;
+    }
+
     public void fromXML(final XMLStreamReader sr) throws XMLStreamException {
         loop:
         while (sr.hasNext()) {
@@ -50,6 +65,30 @@ public final class CfgApi {
                         case "nrg-recommendation":
                             this.nrg.fromXML(sr);
                             break;
+                        case "local-call-pool-size":
+                            try {
+                                int size = Integer.parseInt(ConfigUtil.readValue(sr));
+                                if (size >= 0) {
+                                    this.localCallPoolSize = size;
+                                }
+                            } catch (NumberFormatException e) {
+                                System.out.println(
+                                        "failed to read config node: aion.api.local-call-pool-size; using preset: "
+                                                + this.localCallPoolSize);
+                            }
+                            break;
+                        case "local-call-timeout":
+                            try {
+                                long timeout = Long.parseLong(ConfigUtil.readValue(sr));
+                                if (timeout > 0) {
+                                    this.localCallTimeout = timeout;
+                                }
+                            } catch (NumberFormatException e) {
+                                System.out.println(
+                                        "failed to read config node: aion.api.local-call-timeout; using preset: "
+                                                + this.localCallTimeout);
+                            }
+                            break;
                         default:
                             ConfigUtil.skipElement(sr);
                             break;
@@ -76,6 +115,20 @@ public final class CfgApi {
             xmlWriter.writeCharacters(this.zmq.toXML());
             xmlWriter.writeCharacters(this.nrg.toXML());
 
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment("number of avm instances running local calls concurrently, 0 to disable");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement("local-call-pool-size");
+            xmlWriter.writeCharacters(String.valueOf(this.localCallPoolSize));
+            xmlWriter.writeEndElement();
+
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment("maximum time in milliseconds to wait for a local call");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement("local-call-timeout");
+            xmlWriter.writeCharacters(String.valueOf(this.localCallTimeout));
+            xmlWriter.writeEndElement();
+
             xmlWriter.writeCharacters("\r\n\t");
             xmlWriter.writeEndElement();
             xml = strWriter.toString();
@@ -97,11 +150,13 @@ public final class CfgApi {
         CfgApi cfgApi = (CfgApi) o;
         return Objects.equal(zmq, cfgApi.zmq)
                 && Objects.equal(rpc, cfgApi.rpc)
-                && Objects.equal(nrg, cfgApi.nrg);
+                && Objects.equal(nrg, cfgApi.nrg)
+                && localCallPoolSize == cfgApi.localCallPoolSize
+                && localCallTimeout == cfgApi.localCallTimeout;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(zmq, rpc, nrg);
+        return Objects.hashCode(zmq, rpc, nrg, localCallPoolSize, localCallTimeout);
     }
 }
@@ -12,6 +12,7 @@ import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.XMLStreamWriter;
 import org.aion.util.others.Utils;
+import org.aion.zero.impl.trie.TrieNodeCache;
 
 /** @author chris */
 public class CfgDb {
@@ -25,6 +26,7 @@ public class CfgDb {
 
         public static final String CONTRACT_INDEX = "contractIndex";
         public static final String CONTRACT_PERFORM_CODE = "contractPerformCode";
+        public static final String CONTRACT_ADDRESS = "contractAddress";
 
         public static final String DETAILS = "details";
         public static final String STORAGE = "storage";
@@ -32,10 +34,15 @@ public class CfgDb {
 
         public static final String STATE = "state";
         public static final String STATE_ARCHIVE = "stateArchive";
+        public static final String STATE_JOURNAL = "stateJournal";
         public static final String TRANSACTION = "transaction";
 
         public static final String TX_CACHE = "pendingtxCache";
         public static final String TX_POOL = "pendingtxPool";
+
+        public static final String BLOOM_BITS = "bloomBits";
+        public static final String FAST_SYNC = "fastSync";
+        public static final String STATE_SNAPSHOT = "stateSnapshot";
     }
 
     /** Properties used by the DatabaseFactory */
@@ -68,6 +75,8 @@ public class CfgDb {
     private CfgPrune prune;
     private PruneOption prune_option;
     private boolean internalTxStorage;
+    private int trieCacheSize;
+    private int writeBehindBlocks;
 
     /**
      * Enabling expert mode allows more detailed database configurations.
@@ -86,6 +95,8 @@ public class CfgDb {
         this.check_integrity = true;
         this.prune = new CfgPrune(false);
         this.prune_option = PruneOption.FULL;
+        this.trieCacheSize = TrieNodeCache.DEFAULT_SIZE_MB;
+        this.writeBehindBlocks = DEFAULT_WRITE_BEHIND_BLOCKS;
 
         if (expert) {
             this.specificConfig = new HashMap<>();
@@ -113,6 +124,12 @@ public class CfgDb {
                         case "internal-tx-storage":
                             this.internalTxStorage = Boolean.parseBoolean(ConfigUtil.readValue(sr));
                             break;
+                        case "trie-cache-size":
+                            setTrieCacheSize(Integer.parseInt(ConfigUtil.readValue(sr)));
+                            break;
+                        case "write-behind-blocks":
+                            setWriteBehindBlocks(Integer.parseInt(ConfigUtil.readValue(sr)));
+                            break;
                             // parameter considered only when expert==false
                         case "vendor":
                             this.vendor = ConfigUtil.readValue(sr);
@@ -252,6 +269,20 @@ public class CfgDb {
             xmlWriter.writeCharacters(String.valueOf(internalTxStorage));
             xmlWriter.writeEndElement();
 
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment("Size in MB of the trie node cache shared by the state and storage tries.");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement("trie-cache-size");
+            xmlWriter.writeCharacters(String.valueOf(trieCacheSize));
+            xmlWriter.writeEndElement();
+
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment("Number of imported blocks written to the database together; 1 writes each block immediately.");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement("write-behind-blocks");
+            xmlWriter.writeCharacters(String.valueOf(writeBehindBlocks));
+            xmlWriter.writeEndElement();
+
             if (!expert) {
                 xmlWriter.writeCharacters("\r\n\t\t");
                 xmlWriter.writeComment(
@@ -327,6 +358,22 @@ public class CfgDb {
         this.internalTxStorage = isEnabled;
     }
 
+    public int getTrieCacheSize() {
+        return trieCacheSize;
+    }
+
+    public void setTrieCacheSize(int trieCacheSize) {
+        this.trieCacheSize = Math.max(0, trieCacheSize);
+    }
+
+    public int getWriteBehindBlocks() {
+        return writeBehindBlocks;
+    }
+
+    public void setWriteBehindBlocks(int writeBehindBlocks) {
+        this.writeBehindBlocks = Math.max(1, writeBehindBlocks);
+    }
+
     public CfgPrune getPrune() {
         return this.prune;
     }
@@ -336,6 +383,10 @@ public class CfgDb {
      * blocks is also kept in memory for later pruning.
      */
     public static final int TOP_PRUNE_BLOCK_COUNT = 256;
+
+    /** Number of imported blocks whose writes are buffered and flushed to the databases together. */
+    public static final int DEFAULT_WRITE_BEHIND_BLOCKS = 16;
+
     /**
      * Number of topmost blocks present in the database in SPREAD pruning mode. Information about
      * these blocks is also kept in memory for later pruning.
@@ -442,6 +493,8 @@ public class CfgDb {
                 && Objects.equal(vendor, cfgDb.vendor)
                 && Objects.equal(prune, cfgDb.prune)
                 && prune_option == cfgDb.prune_option
+                && trieCacheSize == cfgDb.trieCacheSize
+                && writeBehindBlocks == cfgDb.writeBehindBlocks
                 && Objects.equal(specificConfig, cfgDb.specificConfig);
     }
 
@@ -454,6 +507,8 @@ public class CfgDb {
                 check_integrity,
                 prune,
                 prune_option,
+                trieCacheSize,
+                writeBehindBlocks,
                 expert,
                 specificConfig);
     }
@@ -28,8 +28,8 @@ public class BloomFilter {
     public static Bloom create(byte[]... input) {
         Bloom targetBloom = new Bloom();
 
-        for (int i = 0; i < input.length; i++) {
-            targetBloom.or(Bloom.create(HashUtil.h256(input[i])));
+        for (byte[] hash : HashUtil.h256Many(input)) {
+            targetBloom.or(Bloom.create(hash));
         }
         return targetBloom;
     }
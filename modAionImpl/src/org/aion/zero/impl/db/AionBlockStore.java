@@ -1070,6 +1070,54 @@ public class AionBlockStore {
         }
     }
 
+    /**
+     * Sets the total difficulty of the main chain blocks from the genesis up to the given level
+     * based on the difficulty of each block. Used to complete the fast sync, which imports the
+     * blocks in descending order without knowing their total difficulty.
+     *
+     * @param lastLevel the level of the last block to be updated
+     * @param log the logger for the progress of the update
+     * @return the total difficulty of the block on the last level
+     * @throws IllegalStateException when a level does not contain a single main chain block
+     */
+    public BigInteger correctMainChainTotalDifficulty(long lastLevel, Logger log) {
+        lock.lock();
+
+        try {
+            BigInteger totalDifficulty = getChainBlockByNumber(0).getTotalDifficulty();
+            long start = System.nanoTime();
+            final long TEN_SEC = 10_000_000_000L;
+
+            for (long level = 1; level <= lastLevel; level++) {
+                List<BlockInfo> levelBlocks = getBlockInfoForLevel(level);
+                if (levelBlocks == null || levelBlocks.size() != 1 || !levelBlocks.get(0).isMainChain()) {
+                    throw new IllegalStateException("Expected a single main chain block on level " + level + ".");
+                }
+
+                byte[] hash = levelBlocks.get(0).getHash();
+                Block block = blocks.get(hash);
+                if (block == null) {
+                    throw new IllegalStateException("Missing block #" + level + " from the database.");
+                }
+
+                totalDifficulty = totalDifficulty.add(block.getDifficultyBI());
+                // the list is modified when other blocks are added on the same level
+                List<BlockInfo> corrected = new ArrayList<>();
+                corrected.add(new BlockInfo(hash, totalDifficulty, true));
+                setBlockInfoForLevel(level, corrected);
+
+                if (System.nanoTime() - start > TEN_SEC) {
+                    log.info("Progress report: updated the total difficulty up to level {}.", level);
+                    start = System.nanoTime();
+                }
+            }
+
+            return totalDifficulty;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     public BigInteger correctIndexEntry(Block block, BigInteger parentTotalDifficulty) {
         if (block == null || parentTotalDifficulty == null) {
             throw new NullPointerException();
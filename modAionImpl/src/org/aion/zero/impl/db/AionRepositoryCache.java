@@ -8,7 +8,9 @@ import java.math.BigInteger;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import org.aion.base.db.ContractDetail;
@@ -52,7 +54,7 @@ public final class AionRepositoryCache implements RepositoryCache {
     }
 
     @Override
-    public RepositoryCache startTracking() {
+    public AionRepositoryCache startTracking() {
         return new AionRepositoryCache(this);
     }
 
@@ -466,6 +468,36 @@ public final class AionRepositoryCache implements RepositoryCache {
         }
     }
 
+    /** @return the addresses of the accounts read or written through this cache */
+    public Set<AionAddress> getCachedAddresses() {
+        lock.lock();
+        try {
+            Set<AionAddress> addresses = new HashSet<>(cachedAccounts.keySet());
+            addresses.addAll(cachedDetails.keySet());
+            addresses.addAll(cachedTransformedCode.keySet());
+            return addresses;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Discards the cached state of the given accounts, including any changes, so that it is
+     * reloaded from the tracked repository.
+     */
+    public void evict(Collection<AionAddress> addresses) {
+        lock.lock();
+        try {
+            for (AionAddress address : addresses) {
+                cachedAccounts.remove(address);
+                cachedDetails.remove(address);
+                cachedTransformedCode.remove(address);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
     @Override
     public Repository getSnapshotTo(byte[] root) {
         return repository.getSnapshotTo(root);
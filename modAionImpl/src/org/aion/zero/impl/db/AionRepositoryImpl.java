@@ -5,15 +5,20 @@ import static org.aion.crypto.HashUtil.h256;
 import static org.aion.util.bytes.ByteUtil.EMPTY_BYTE_ARRAY;
 import static org.aion.util.conversions.Hex.toHexString;
 import static org.aion.zero.impl.config.CfgDb.Names.BLOCK;
+import static org.aion.zero.impl.config.CfgDb.Names.BLOOM_BITS;
+import static org.aion.zero.impl.config.CfgDb.Names.CONTRACT_ADDRESS;
 import static org.aion.zero.impl.config.CfgDb.Names.CONTRACT_INDEX;
 import static org.aion.zero.impl.config.CfgDb.Names.CONTRACT_PERFORM_CODE;
 import static org.aion.zero.impl.config.CfgDb.Names.DEFAULT;
 import static org.aion.zero.impl.config.CfgDb.Names.DETAILS;
+import static org.aion.zero.impl.config.CfgDb.Names.FAST_SYNC;
 import static org.aion.zero.impl.config.CfgDb.Names.GRAPH;
 import static org.aion.zero.impl.config.CfgDb.Names.INDEX;
 import static org.aion.zero.impl.config.CfgDb.Names.PENDING_BLOCK;
 import static org.aion.zero.impl.config.CfgDb.Names.STATE;
 import static org.aion.zero.impl.config.CfgDb.Names.STATE_ARCHIVE;
+import static org.aion.zero.impl.config.CfgDb.Names.STATE_JOURNAL;
+import static org.aion.zero.impl.config.CfgDb.Names.STATE_SNAPSHOT;
 import static org.aion.zero.impl.config.CfgDb.Names.STORAGE;
 import static org.aion.zero.impl.config.CfgDb.Names.TRANSACTION;
 import static org.aion.zero.impl.config.CfgDb.Names.TX_CACHE;
@@ -51,6 +56,7 @@ import org.aion.base.db.TransformedCodeInfoInterface;
 import org.aion.db.impl.ByteArrayKeyValueDatabase;
 import org.aion.db.impl.ByteArrayKeyValueStore;
 import org.aion.db.impl.DBVendor;
+import org.aion.db.impl.rocksdb.SharedRocksDB;
 import org.aion.db.store.ArchivedDataSource;
 import org.aion.db.store.JournalPruneDataSource;
 import org.aion.db.store.ObjectStore;
@@ -66,9 +72,11 @@ import org.aion.base.db.RepositoryCache;
 import org.aion.util.types.AddressUtils;
 import org.aion.util.types.DataWord;
 import org.aion.zero.impl.config.CfgDb.Props;
+import org.aion.zero.impl.trie.Cache;
 import org.aion.zero.impl.trie.SecureTrie;
 import org.aion.zero.impl.trie.Trie;
 import org.aion.zero.impl.trie.TrieImpl;
+import org.aion.zero.impl.trie.TrieNodeCache;
 import org.aion.zero.impl.trie.TrieNodeResult;
 import org.aion.p2p.V1Constants;
 import org.aion.precompiled.ContractInfo;
@@ -97,7 +105,7 @@ public final class AionRepositoryImpl implements Repository {
     private ReadWriteLock rwLock = new ReentrantReadWriteLock();
 
     // Databases used by the repository.
-    private Collection<ByteArrayKeyValueDatabase> databaseGroup;
+    private List<ByteArrayKeyValueDatabase> databaseGroup;
     @VisibleForTesting ByteArrayKeyValueDatabase transactionDatabase;
     @VisibleForTesting ByteArrayKeyValueDatabase contractIndexDatabase;
     @VisibleForTesting ByteArrayKeyValueDatabase detailsDatabase;
@@ -107,9 +115,23 @@ public final class AionRepositoryImpl implements Repository {
     @VisibleForTesting ByteArrayKeyValueDatabase blockDatabase;
     @VisibleForTesting ByteArrayKeyValueDatabase stateDatabase;
     @VisibleForTesting ByteArrayKeyValueDatabase stateArchiveDatabase;
+    private ByteArrayKeyValueDatabase stateJournalDatabase;
     @VisibleForTesting ByteArrayKeyValueDatabase txPoolDatabase;
     @VisibleForTesting ByteArrayKeyValueDatabase pendingTxCacheDatabase;
     @VisibleForTesting ByteArrayKeyValueDatabase contractPerformCodeDatabase;
+    @VisibleForTesting ByteArrayKeyValueDatabase contractAddressDatabase;
+    // not part of the database group since it is rebuilt from the blocks by its index
+    private ByteArrayKeyValueDatabase bloomBitsDatabase;
+    // not part of the database group since it only holds the progress of the fast sync
+    private ByteArrayKeyValueDatabase fastSyncDatabase;
+    // not part of the database group since it is a copy of the state which is rebuilt when invalid
+    private ByteArrayKeyValueDatabase stateSnapshotDatabase;
+
+    // Shared instance backing the databases above when using column families, null otherwise.
+    private SharedRocksDB sharedInstance;
+
+    // Buffers the writes of imported blocks when enabled, null otherwise.
+    private WriteBehindCoordinator writeBehind;
 
     // Current block store.
     private AionBlockStore blockStore;
@@ -123,12 +145,24 @@ public final class AionRepositoryImpl implements Repository {
     private long archiveRate;
     private boolean pruneEnabled;
 
+    // Clean trie nodes shared by the state and storage tries, including the snapshots.
+    private TrieNodeCache trieNodeCache;
+
     private DetailsDataStore detailsDS;
     private TransactionStore transactionStore;
 
+    // Flat copy of the recent states serving the account and storage reads, shared with the snapshots.
+    private FlatStateSnapshot flatState;
+    // The changes made by updateBatch since the last committed block and the root they apply to.
+    private FlatStateSnapshot.Diff pendingDiff;
+    private byte[] pendingRoot;
+
     // pending block store
     private PendingBlockStore pendingStore;
 
+    // index of the log blooms used by the log queries
+    private BloomBitsIndex bloomBitsIndex;
+
     // inferred contract information not used for consensus
     private ObjectStore<ContractInformation> contractInfoSource;
 
@@ -140,6 +174,11 @@ public final class AionRepositoryImpl implements Repository {
 
     // Flag to see if the current instance is a snapshot.
     private boolean isSnapshot = false;
+    // Flag for the committed state views, which reject any update.
+    private boolean isReadOnly = false;
+
+    // Read-only snapshot of the last committed state, replaced by the writers when the root moves.
+    private volatile AionRepositoryImpl committedView;
 
     /**
      * used by getSnapShotTo
@@ -164,10 +203,16 @@ public final class AionRepositoryImpl implements Repository {
 
     private void init(RepositoryConfig cfg) {
         try {
+            trieNodeCache = new TrieNodeCache(cfg.getTrieCacheSize() * 1024L * 1024L);
             initializeDatabasesAndCaches(cfg);
 
             // Setup the cache for the contract details data source.
-            detailsDS = new DetailsDataStore(detailsDatabase, storageDatabase, graphDatabase, LOG);
+            detailsDS = new DetailsDataStore(detailsDatabase, storageDatabase, graphDatabase, contractAddressDatabase, trieNodeCache, LOG);
+            flatState = new FlatStateSnapshot(stateSnapshotDatabase, FlatStateSnapshot.DEFAULT_DIFF_LAYERS, LOG);
+            if (stateDatabase.isEmpty()) {
+                // the snapshot is built together with the state, starting from the genesis
+                flatState.markComplete();
+            }
 
             // Setup the cache for transaction data source.
             this.transactionStore =
@@ -178,6 +223,7 @@ public final class AionRepositoryImpl implements Repository {
             blockStore = new AionBlockStore(indexDatabase, blockDatabase, Boolean.valueOf(cfg.getDatabaseConfig(DEFAULT).getProperty(Props.CHECK_INTEGRITY)), blockCacheSize);
 
             pendingStore = new PendingBlockStore(getDatabaseConfig(cfg, PENDING_BLOCK, cfg.getDbPath()));
+            bloomBitsIndex = new BloomBitsIndex(bloomBitsDatabase, blockStore::getChainBlockByNumber, BloomBitsIndex.DEFAULT_SECTION_SIZE, BloomBitsIndex.DEFAULT_CONFIRMATIONS, LOG);
             this.contractInfoSource = Stores.newObjectStoreWithCache(contractIndexDatabase, ContractInformation.RLP_SERIALIZER, 10, true);
             this.transformedCodeSource = Stores.newObjectStore(contractPerformCodeDatabase, TransformedCodeSerializer.RLP_SERIALIZER);
 
@@ -193,6 +239,7 @@ public final class AionRepositoryImpl implements Repository {
                 stateWithArchive = null;
                 stateDSPrune = new JournalPruneDataSource(stateDatabase, LOG);
                 stateDSPrune.setPruneEnabled(pruneEnabled);
+                stateDSPrune.setPruneListener(trieNodeCache::invalidate);
                 // Setup world trie.
                 worldState = createStateTrie();
             }
@@ -216,9 +263,11 @@ public final class AionRepositoryImpl implements Repository {
         databaseGroup.add(stateArchiveDatabase);
 
         stateWithArchive = new ArchivedDataSource(stateDatabase, stateArchiveDatabase);
-        stateDSPrune = new JournalPruneDataSource(stateWithArchive, LOG);
+        stateDSPrune = new JournalPruneDataSource(stateWithArchive, stateJournalDatabase, LOG);
 
         stateDSPrune.setPruneEnabled(pruneEnabled);
+        stateDSPrune.setPruneListener(trieNodeCache::invalidate);
+        pruneJournaledBlocks();
         worldState = createStateTrie();
 
         LOGGEN.info("Pruning and archiving ENABLED. Top block count set to {} and archive rate set to {}.", pruneBlockCount, archiveRate);
@@ -232,14 +281,27 @@ public final class AionRepositoryImpl implements Repository {
 
         stateArchiveDatabase = null;
         stateWithArchive = null;
-        stateDSPrune = new JournalPruneDataSource(stateDatabase, LOG);
+        stateDSPrune = new JournalPruneDataSource(stateDatabase, stateJournalDatabase, LOG);
 
         stateDSPrune.setPruneEnabled(pruneEnabled);
+        stateDSPrune.setPruneListener(trieNodeCache::invalidate);
+        pruneJournaledBlocks();
         worldState = createStateTrie();
 
         LOGGEN.info("Pruning ENABLED. Top block count set to {}.", pruneBlockCount);
     }
 
+    /**
+     * Prunes the blocks journaled before a restart that are already below the pruning window,
+     * since the pruning of new blocks only reaches the block at the bottom of the window.
+     */
+    private void pruneJournaledBlocks() {
+        if (blockStore != null) {
+            stateDSPrune.pruneUpTo(
+                    blockStore.getMaxNumber() - pruneBlockCount, blockStore::getBlockHashByNumber);
+        }
+    }
+
     /**
      * Initializes all necessary databases and caches.
      *
@@ -277,6 +339,14 @@ public final class AionRepositoryImpl implements Repository {
         }
         databaseGroup.add(stateDatabase);
 
+        // getting state journal specific properties
+        sharedProps = getDatabaseConfig(cfg, STATE_JOURNAL, dbPath);
+        this.stateJournalDatabase = connectAndOpen(sharedProps, LOG);
+        if (stateJournalDatabase == null || stateJournalDatabase.isClosed()) {
+            throw newException(STATE_JOURNAL, sharedProps);
+        }
+        databaseGroup.add(stateJournalDatabase);
+
         // getting transaction specific properties
         sharedProps = getDatabaseConfig(cfg, TRANSACTION, dbPath);
         this.transactionDatabase = connectAndOpen(sharedProps, LOG);
@@ -302,6 +372,14 @@ public final class AionRepositoryImpl implements Repository {
         }
         databaseGroup.add(contractPerformCodeDatabase);
 
+        // getting contract address specific properties
+        sharedProps = getDatabaseConfig(cfg, CONTRACT_ADDRESS, dbPath);
+        this.contractAddressDatabase = connectAndOpen(sharedProps, LOG);
+        if (contractAddressDatabase == null || contractAddressDatabase.isClosed()) {
+            throw newException(CONTRACT_ADDRESS, sharedProps);
+        }
+        databaseGroup.add(contractAddressDatabase);
+
         // getting details specific properties
         sharedProps = getDatabaseConfig(cfg, DETAILS, dbPath);
         this.detailsDatabase = connectAndOpen(sharedProps, LOG);
@@ -357,6 +435,109 @@ public final class AionRepositoryImpl implements Repository {
             throw newException(TX_CACHE, sharedProps);
         }
         databaseGroup.add(pendingTxCacheDatabase);
+
+        // getting bloom bits specific properties
+        sharedProps = getDatabaseConfig(cfg, BLOOM_BITS, dbPath);
+        this.bloomBitsDatabase = connectAndOpen(sharedProps, LOG);
+        if (bloomBitsDatabase == null || bloomBitsDatabase.isClosed()) {
+            throw newException(BLOOM_BITS, sharedProps);
+        }
+
+        // getting fast sync specific properties
+        sharedProps = getDatabaseConfig(cfg, FAST_SYNC, dbPath);
+        this.fastSyncDatabase = connectAndOpen(sharedProps, LOG);
+        if (fastSyncDatabase == null || fastSyncDatabase.isClosed()) {
+            throw newException(FAST_SYNC, sharedProps);
+        }
+
+        // getting state snapshot specific properties
+        sharedProps = getDatabaseConfig(cfg, STATE_SNAPSHOT, dbPath);
+        this.stateSnapshotDatabase = connectAndOpen(sharedProps, LOG);
+        if (stateSnapshotDatabase == null || stateSnapshotDatabase.isClosed()) {
+            throw newException(STATE_SNAPSHOT, sharedProps);
+        }
+
+        if (vendor == DBVendor.ROCKSDB_CF) {
+            this.sharedInstance = SharedRocksDB.getOpenInstance(dbPath).orElse(null);
+        } else {
+            this.sharedInstance = null;
+        }
+
+        if (cfg.getWriteBehindBlocks() > 1) {
+            setupWriteBehind(cfg.getWriteBehindBlocks());
+        }
+    }
+
+    /**
+     * Buffers the writes of the given number of imported blocks to the block, index, transaction
+     * and state databases and flushes them together. The index is flushed after the blocks and the
+     * state so that a crash during a flush never leaves it referring to missing blocks or state.
+     * The fast sync progress is flushed last, since it records the trie nodes already imported.
+     */
+    private void setupWriteBehind(int blocks) {
+        writeBehind =
+                new WriteBehindCoordinator(
+                        blocks,
+                        WriteBehindCoordinator.DEFAULT_MAX_BUFFERED_BYTES,
+                        WriteBehindCoordinator.DEFAULT_MAX_DELAY_MS,
+                        sharedInstance,
+                        LOG);
+
+        stateDatabase = writeBehind.wrap(stateDatabase);
+        stateJournalDatabase = writeBehind.wrap(stateJournalDatabase);
+        detailsDatabase = writeBehind.wrap(detailsDatabase);
+        storageDatabase = writeBehind.wrap(storageDatabase);
+        graphDatabase = writeBehind.wrap(graphDatabase);
+        contractIndexDatabase = writeBehind.wrap(contractIndexDatabase);
+        contractPerformCodeDatabase = writeBehind.wrap(contractPerformCodeDatabase);
+        transactionDatabase = writeBehind.wrap(transactionDatabase);
+        blockDatabase = writeBehind.wrap(blockDatabase);
+        indexDatabase = writeBehind.wrap(indexDatabase);
+        fastSyncDatabase = writeBehind.wrap(fastSyncDatabase);
+
+        databaseGroup.replaceAll(writeBehind::wrapped);
+
+        LOGGEN.info("Write-behind ENABLED. The writes of up to {} blocks are flushed together.", blocks);
+    }
+
+    /**
+     * Starts grouping the writes to the repository databases performed by the current thread into
+     * a single atomic write. Has no effect unless the databases are column families of a shared
+     * instance. Each call must be followed by a call to {@link #commitAtomicWrite()} or {@link
+     * #discardAtomicWrite()}.
+     */
+    public void startAtomicWrite() {
+        if (writeBehind != null) {
+            writeBehind.startSection();
+        } else if (sharedInstance != null) {
+            sharedInstance.startAtomicWrite();
+        }
+    }
+
+    /**
+     * Applies the writes grouped since the matching call to {@link #startAtomicWrite()}. When
+     * write-behind is enabled the writes are buffered and applied together with the writes of the
+     * following blocks.
+     */
+    public void commitAtomicWrite() {
+        if (writeBehind != null) {
+            writeBehind.endSection();
+        } else if (sharedInstance != null) {
+            sharedInstance.commitAtomicWrite();
+        }
+    }
+
+    /**
+     * Drops the writes grouped since the matching call to {@link #startAtomicWrite()}, when they
+     * could not be completed. Unless write-behind is enabled or the databases are column families
+     * of a shared instance, the writes already committed to the databases are kept.
+     */
+    public void discardAtomicWrite() {
+        if (writeBehind != null) {
+            writeBehind.discardSection();
+        } else if (sharedInstance != null) {
+            sharedInstance.discardAtomicWrite();
+        }
     }
 
     private Properties getDatabaseConfig(RepositoryConfig cfg, String dbName, String dbPath) {
@@ -386,7 +567,9 @@ public final class AionRepositoryImpl implements Repository {
     }
 
     private Trie createStateTrie() {
-        return new SecureTrie(stateDSPrune).withPruningEnabled(pruneEnabled);
+        return new SecureTrie(new Cache(stateDSPrune, trieNodeCache), "")
+                .withPruningEnabled(pruneEnabled)
+                .withDeferredHashing(true);
     }
 
     @Override
@@ -394,9 +577,15 @@ public final class AionRepositoryImpl implements Repository {
             Map<AionAddress, AccountState> stateCache,
             Map<AionAddress, ContractDetail> detailsCache,
             Map<AionAddress, TransformedCodeInfoInterface> transformedCodeCache) {
+        checkWritable();
         rwLock.writeLock().lock();
 
         try {
+            if (pendingDiff == null) {
+                pendingRoot = worldState.getRootHash();
+                pendingDiff = new FlatStateSnapshot.Diff();
+            }
+
             for (Map.Entry<AionAddress, AccountState> entry : stateCache.entrySet()) {
                 AionAddress address = entry.getKey();
                 AccountState accountState = entry.getValue();
@@ -406,6 +595,7 @@ public final class AionRepositoryImpl implements Repository {
                     // TODO-A: batch operations here
                     try {
                         worldState.delete(address.toByteArray());
+                        pendingDiff.deleteAccount(address);
                     } catch (Exception e) {
                         LOG.error("key deleted exception [{}]", e.toString());
                     }
@@ -441,6 +631,11 @@ public final class AionRepositoryImpl implements Repository {
                     if (contractDetailsCache.origContract == null) {
                         contractDetailsCache.origContract = detailsDS.newContractDetails(address, contractDetailsCache.getVmType());
                         contractDetailsCache.commit();
+                        // the storage starts from an empty trie
+                        pendingDiff.clearStorage(address);
+                    }
+                    for (Map.Entry<ByteArrayWrapper, ByteArrayWrapper> value : contractDetailsCache.getCachedStorage().entrySet()) {
+                        pendingDiff.updateStorage(address, value.getKey(), value.getValue() == null ? null : RLP.encodeElement(value.getValue().toBytes()));
                     }
 
                     StoredContractDetails parentDetails = (StoredContractDetails) contractDetailsCache.origContract;
@@ -541,16 +736,19 @@ public final class AionRepositoryImpl implements Repository {
 
     @Override
     public void syncToRoot(final byte[] root) {
+        checkWritable();
         rwLock.writeLock().lock();
         try {
             worldState.setRoot(root);
+            pendingDiff = null;
+            publishCommittedView();
         } finally {
             rwLock.writeLock().unlock();
         }
     }
 
     @Override
-    public RepositoryCache startTracking() {
+    public AionRepositoryCache startTracking() {
         return new AionRepositoryCache(this);
     }
 
@@ -580,12 +778,9 @@ public final class AionRepositoryImpl implements Repository {
         List<byte[]> rtn = new ArrayList<>();
         rwLock.readLock().lock();
         try {
-            Iterator<byte[]> iterator = txPoolDatabase.keys();
+            Iterator<Map.Entry<byte[], byte[]>> iterator = txPoolDatabase.iterate(null, null);
             while (iterator.hasNext()) {
-                byte[] b = iterator.next();
-                if (txPoolDatabase.get(b).isPresent()) {
-                    rtn.add(txPoolDatabase.get(b).get());
-                }
+                rtn.add(iterator.next().getValue());
             }
         } finally {
             rwLock.readLock().unlock();
@@ -599,12 +794,9 @@ public final class AionRepositoryImpl implements Repository {
         List<byte[]> rtn = new ArrayList<>();
         rwLock.readLock().lock();
         try {
-            Iterator<byte[]> iterator = pendingTxCacheDatabase.keys();
+            Iterator<Map.Entry<byte[], byte[]>> iterator = pendingTxCacheDatabase.iterate(null, null);
             while (iterator.hasNext()) {
-                byte[] b = iterator.next();
-                if (pendingTxCacheDatabase.get(b).isPresent()) {
-                    rtn.add(pendingTxCacheDatabase.get(b).get());
-                }
+                rtn.add(iterator.next().getValue());
             }
         } finally {
             rwLock.readLock().unlock();
@@ -655,6 +847,7 @@ public final class AionRepositoryImpl implements Repository {
 
     @Override
     public void setTransformedCode(AionAddress address, byte[] codeHash, int avmVersion, byte[] transformedCode) {
+        checkWritable();
         rwLock.writeLock().lock();
 
         try {
@@ -695,7 +888,9 @@ public final class AionRepositoryImpl implements Repository {
     /** @implNote The method calling this method must handle the locking. */
     private void updateAccountState(AionAddress address, AccountState accountState) {
         // locked by calling method
-        worldState.update(address.toByteArray(), accountState.getEncoded());
+        byte[] encoding = accountState.getEncoded();
+        worldState.update(address.toByteArray(), encoding);
+        pendingDiff.updateAccount(address, encoding);
     }
 
     /**
@@ -722,7 +917,12 @@ public final class AionRepositoryImpl implements Repository {
             }
 
             InternalVmType vm = getVMUsed(address, codeHash);
-            return detailsDS.getSnapshot(vm, address.toByteArray(), storageRoot);
+            StoredContractDetails details = detailsDS.getSnapshot(vm, address.toByteArray(), storageRoot);
+            if (details == null || pendingDiff != null) {
+                // the storage changes not committed yet are only held by the trie
+                return details;
+            }
+            return new FlatStateContractDetails(details, flatState, worldState.getRootHash(), address);
         } finally {
             rwLock.readLock().unlock();
         }
@@ -738,6 +938,30 @@ public final class AionRepositoryImpl implements Repository {
         }
     }
 
+    /**
+     * Loads the world state trie nodes for the given accounts with one batch read per trie level,
+     * so that the following account state lookups do not access the database one node at a time.
+     *
+     * @param addresses the accounts that are about to be read
+     */
+    public void prefetchAccountStates(Collection<AionAddress> addresses) {
+        if (addresses.isEmpty()) {
+            return;
+        }
+
+        List<byte[]> keys = new ArrayList<>(addresses.size());
+        for (AionAddress address : addresses) {
+            keys.add(address.toByteArray());
+        }
+
+        rwLock.readLock().lock();
+        try {
+            worldState.prefetch(keys);
+        } finally {
+            rwLock.readLock().unlock();
+        }
+    }
+
     /**
      * @inheritDoc
      * @implNote Any other method calling this can rely on the fact that the account state returned
@@ -751,7 +975,7 @@ public final class AionRepositoryImpl implements Repository {
         AccountState result = null;
 
         try {
-            byte[] accountData = worldState.get(address.toByteArray());
+            byte[] accountData = readAccount(address);
 
             if (accountData.length != 0) {
                 result = new AccountState(accountData);
@@ -768,6 +992,29 @@ public final class AionRepositoryImpl implements Repository {
         }
     }
 
+    /**
+     * Reads the account from the flat state snapshot, or from the trie when the snapshot does not
+     * know it.
+     *
+     * @implNote The method calling this method must handle the locking.
+     * @return the account encoding or an empty array if the account does not exist
+     */
+    private byte[] readAccount(AionAddress address) {
+        byte[] accountData = (pendingDiff == null) ? null : pendingDiff.getAccount(address);
+        if (accountData != null) {
+            return accountData;
+        }
+
+        // the accounts not changed by the pending updates are the same as in their parent state
+        byte[] root = (pendingDiff == null) ? worldState.getRootHash() : pendingRoot;
+        accountData = flatState.getAccount(root, address);
+        if (accountData == null) {
+            accountData = worldState.get(address.toByteArray());
+            flatState.cacheAccount(root, address, accountData);
+        }
+        return accountData;
+    }
+
     /**
      * Returns {@code true} only if the specified account has non-empty storage associated with it. Otherwise {@code false}.
      *
@@ -795,9 +1042,12 @@ public final class AionRepositoryImpl implements Repository {
     }
 
     public void setRoot(byte[] root) {
+        checkWritable();
         rwLock.writeLock().lock();
         try {
             worldState.setRoot(root);
+            pendingDiff = null;
+            publishCommittedView();
         } finally {
             rwLock.writeLock().unlock();
         }
@@ -808,11 +1058,18 @@ public final class AionRepositoryImpl implements Repository {
     }
 
     public void commitBlock(ByteArrayWrapper blockHash, long blockNumber, byte[] blockStateRoot) {
+        checkWritable();
         rwLock.writeLock().lock();
 
         try {
             worldState.sync();
 
+            if (pendingDiff != null) {
+                flatState.addLayer(pendingRoot, worldState.getRootHash(), pendingDiff);
+                pendingDiff = null;
+            }
+            publishCommittedView();
+
             if (pruneEnabled) {
                 if (stateDSPrune.isArchiveEnabled() && blockNumber % archiveRate == 0) {
                     // archive block
@@ -822,6 +1079,10 @@ public final class AionRepositoryImpl implements Repository {
                 detailsDS.getStorageDSPrune().storeBlockChanges(blockHash, blockNumber);
                 pruneBlocks(blockNumber);
             }
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Block #{} committed with {}", blockNumber, trieNodeCache.getStatsSummary());
+            }
         } finally {
             rwLock.writeLock().unlock();
         }
@@ -861,31 +1122,84 @@ public final class AionRepositoryImpl implements Repository {
         rwLock.readLock().lock();
 
         try {
-            AionRepositoryImpl repo = new AionRepositoryImpl();
-            repo.blockStore = blockStore;
-            repo.contractInfoSource = contractInfoSource;
-            repo.transformedCodeSource = transformedCodeSource;
-            repo.stateDatabase = this.stateDatabase;
-            repo.stateWithArchive = this.stateWithArchive;
-            repo.stateDSPrune = this.stateDSPrune;
+            return createSnapshot(root);
+        } finally {
+            rwLock.readLock().unlock();
+        }
+    }
 
-            // pruning config
-            repo.pruneEnabled = this.pruneEnabled;
-            repo.pruneBlockCount = this.pruneBlockCount;
-            repo.archiveRate = this.archiveRate;
+    /** @implNote The method calling this method must handle the locking. */
+    private AionRepositoryImpl createSnapshot(byte[] root) {
+        AionRepositoryImpl repo = new AionRepositoryImpl();
+        repo.blockStore = blockStore;
+        repo.contractInfoSource = contractInfoSource;
+        repo.transformedCodeSource = transformedCodeSource;
+        repo.stateDatabase = this.stateDatabase;
+        repo.stateWithArchive = this.stateWithArchive;
+        repo.stateDSPrune = this.stateDSPrune;
+        repo.trieNodeCache = this.trieNodeCache;
 
-            repo.detailsDS = this.detailsDS;
-            repo.isSnapshot = true;
+        // pruning config
+        repo.pruneEnabled = this.pruneEnabled;
+        repo.pruneBlockCount = this.pruneBlockCount;
+        repo.archiveRate = this.archiveRate;
 
-            repo.worldState = repo.createStateTrie();
-            repo.worldState.setRoot(root);
+        repo.detailsDS = this.detailsDS;
+        repo.flatState = this.flatState;
+        repo.isSnapshot = true;
 
-            // gives snapshots access to the pending store
-            repo.pendingStore = this.pendingStore;
+        repo.worldState = repo.createStateTrie();
+        repo.worldState.setRoot(root);
 
-            return repo;
-        } finally {
-            rwLock.readLock().unlock();
+        // gives snapshots access to the pending store
+        repo.pendingStore = this.pendingStore;
+        repo.bloomBitsIndex = this.bloomBitsIndex;
+        repo.fastSyncDatabase = this.fastSyncDatabase;
+
+        return repo;
+    }
+
+    /**
+     * Returns a read-only view of the state committed by the last imported block, which is not
+     * affected by the updates of the block being imported. The readers do not wait for the
+     * writers: the view is replaced atomically when a block is committed or the root is moved,
+     * while the views already handed out keep reading the state they were created for. Since the
+     * trie nodes are addressed by their hash, a view stays valid until its state is pruned, so it
+     * should be obtained again for each query rather than retained.
+     *
+     * @return a read-only repository pinned to the last committed state root
+     */
+    public Repository getCommittedView() {
+        AionRepositoryImpl view = committedView;
+        if (view == null) {
+            rwLock.readLock().lock();
+            try {
+                view = committedView;
+                if (view == null) {
+                    view = createCommittedView(pendingDiff == null ? worldState.getRootHash() : pendingRoot);
+                    committedView = view;
+                }
+            } finally {
+                rwLock.readLock().unlock();
+            }
+        }
+        return view;
+    }
+
+    /** @implNote The method calling this method must hold the write lock. */
+    private void publishCommittedView() {
+        committedView = createCommittedView(worldState.getRootHash());
+    }
+
+    private AionRepositoryImpl createCommittedView(byte[] root) {
+        AionRepositoryImpl view = createSnapshot(root);
+        view.isReadOnly = true;
+        return view;
+    }
+
+    private void checkWritable() {
+        if (isReadOnly) {
+            throw new UnsupportedOperationException("The committed state view is read-only.");
         }
     }
 
@@ -946,6 +1260,27 @@ public final class AionRepositoryImpl implements Repository {
     public void close() {
         rwLock.writeLock().lock();
         try {
+            try {
+                // stopped first since it reads the blocks
+                if (bloomBitsIndex != null) {
+                    bloomBitsIndex.close();
+                    LOGGEN.info("Bloom bits index closed.");
+                    bloomBitsIndex = null;
+                }
+            } catch (Exception e) {
+                LOGGEN.error("Exception occurred while closing the bloom bits index.", e);
+            }
+
+            try {
+                if (writeBehind != null) {
+                    writeBehind.close();
+                    LOGGEN.info("Buffered writes flushed.");
+                    writeBehind = null;
+                }
+            } catch (Exception e) {
+                LOGGEN.error("Exception occurred while flushing the buffered writes.", e);
+            }
+
             try {
                 if (detailsDS != null) {
                     detailsDS.close();
@@ -956,6 +1291,28 @@ public final class AionRepositoryImpl implements Repository {
                 LOGGEN.error("Exception occurred while closing the details data source.", e);
             }
 
+            try {
+                if (fastSyncDatabase != null) {
+                    fastSyncDatabase.close();
+                    LOGGEN.info("Fast sync database closed.");
+                    fastSyncDatabase = null;
+                }
+            } catch (Exception e) {
+                LOGGEN.error("Exception occurred while closing the fast sync database.", e);
+            }
+
+            try {
+                if (stateSnapshotDatabase != null) {
+                    // the diff layers are lost on shutdown, so the current state is written to disk
+                    flatState.persist(worldState.getRootHash());
+                    stateSnapshotDatabase.close();
+                    LOGGEN.info("State snapshot database closed.");
+                    stateSnapshotDatabase = null;
+                }
+            } catch (Exception e) {
+                LOGGEN.error("Exception occurred while closing the state snapshot database.", e);
+            }
+
             try {
                 if (contractInfoSource != null) {
                     contractInfoSource.close();
@@ -1145,6 +1502,16 @@ public final class AionRepositoryImpl implements Repository {
      *     supported
      */
     public byte[] getTrieNode(byte[] key, DatabaseType dbType) {
+        if (dbType == DatabaseType.DETAILS) {
+            // the details are requested either by address or by the hash used in the world state
+            byte[] details = detailsDS.get(key);
+            if (details == null) {
+                byte[] address = detailsDS.getAddress(key);
+                details = address == null ? null : detailsDS.get(address);
+            }
+            return details;
+        }
+
         ByteArrayKeyValueDatabase db = selectDatabase(dbType);
 
         Optional<byte[]> value = db.get(key);
@@ -1171,7 +1538,7 @@ public final class AionRepositoryImpl implements Repository {
         } else {
             ByteArrayKeyValueDatabase db = selectDatabase(dbType);
 
-            Trie trie = new TrieImpl(db);
+            Trie trie = new TrieImpl(new Cache(db, trieNodeCache), "");
             return trie.getReferencedTrieNodes(value, limit);
         }
     }
@@ -1234,7 +1601,7 @@ public final class AionRepositoryImpl implements Repository {
             ByteArrayKeyValueStore db =
                     new XorDataSource(selectDatabase(DatabaseType.STORAGE), subKey, false);
 
-            Trie trie = new SecureTrie(db);
+            Trie trie = new SecureTrie(new Cache(db, trieNodeCache), "");
             Map<ByteArrayWrapper, byte[]> refs = trie.getReferencedTrieNodes(value, limit);
             List<byte[]> converted = new ArrayList<>();
             for (ByteArrayWrapper key : refs.keySet()) {
@@ -1292,8 +1659,13 @@ public final class AionRepositoryImpl implements Repository {
             }
         }
 
-        db.put(key, value);
-        db.commit();
+        if (dbType == DatabaseType.DETAILS) {
+            // also indexes the hash of the contract address
+            detailsDS.put(key, value);
+        } else {
+            db.put(key, value);
+            db.commit();
+        }
         return TrieNodeResult.IMPORTED;
     }
 
@@ -1305,6 +1677,10 @@ public final class AionRepositoryImpl implements Repository {
                 return storageDatabase;
             case STATE:
                 return stateDatabase;
+            case GRAPH:
+                return graphDatabase;
+            case CONTRACT_INDEX:
+                return contractIndexDatabase;
             default:
                 throw new IllegalArgumentException(
                         "The database type " + dbType.toString() + " is not supported.");
@@ -1637,6 +2013,24 @@ public final class AionRepositoryImpl implements Repository {
         return this.blockStore;
     }
 
+    public BloomBitsIndex getBloomBitsIndex() {
+        return this.bloomBitsIndex;
+    }
+
+    /** @return the trie node cache shared by the state and storage tries of this repository */
+    public TrieNodeCache getTrieNodeCache() {
+        return this.trieNodeCache;
+    }
+
+    /**
+     * Retrieves the database storing the progress of the fast sync.
+     *
+     * @return the fast sync database
+     */
+    public ByteArrayKeyValueDatabase getFastSyncDatabase() {
+        return this.fastSyncDatabase;
+    }
+
     @Override
     public byte[] getBlockHashByNumber(long blockNumber) {
         return this.blockStore.getBlockHashByNumber(blockNumber);
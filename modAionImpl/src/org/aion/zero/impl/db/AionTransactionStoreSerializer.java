@@ -1,12 +1,15 @@
 package org.aion.zero.impl.db;
 
+import java.nio.ByteBuffer;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 import org.aion.db.store.Serializer;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.aion.rlp.RLP;
+import org.aion.rlp.RLPElement;
 import org.aion.rlp.SharedRLPList;
 import org.aion.util.types.ByteArrayWrapper;
 import org.aion.zero.impl.types.AionTxInfo;
@@ -15,6 +18,10 @@ import org.slf4j.Logger;
 public class AionTransactionStoreSerializer {
     private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.TX.toString());
 
+    /**
+     * Decodes the records written before the introduction of the {@link #locationSerializer}, which
+     * store the full {@link AionTxInfo} encodings for all the blocks including the transaction.
+     */
     public static final Serializer<Map<ByteArrayWrapper, AionTxInfo>> serializer =
             new Serializer<>() {
                 @Override
@@ -46,4 +53,80 @@ public class AionTransactionStoreSerializer {
                     }
                 }
             };
+
+    // marks the location records, RLP lists start with a byte greater than 0xbf
+    private static final byte LOCATION_VERSION = 0x01;
+    private static final int BLOCK_HASH_SIZE = 32;
+    private static final int LOCATION_SIZE = BLOCK_HASH_SIZE + Integer.BYTES;
+
+    /**
+     * Encodes the blocks including a transaction with the index of the transaction in each block as
+     * a version byte followed by fixed size entries:
+     *
+     * <pre>
+     * [version: 1 byte]([block hash: 32 bytes][index: 4 bytes])*
+     * </pre>
+     *
+     * Returns {@code null} when deserializing an encoding of the {@link #serializer}.
+     */
+    public static final Serializer<Map<ByteArrayWrapper, Integer>> locationSerializer =
+            new Serializer<>() {
+                @Override
+                public byte[] serialize(Map<ByteArrayWrapper, Integer> locations) {
+                    ByteBuffer buffer = ByteBuffer.allocate(1 + locations.size() * LOCATION_SIZE);
+                    buffer.put(LOCATION_VERSION);
+                    for (Map.Entry<ByteArrayWrapper, Integer> location : locations.entrySet()) {
+                        buffer.put(location.getKey().toBytes()).putInt(location.getValue());
+                    }
+                    return buffer.array();
+                }
+
+                @Override
+                public Map<ByteArrayWrapper, Integer> deserialize(byte[] stream) {
+                    if (!isLocationRecord(stream)) {
+                        return null;
+                    }
+                    ByteBuffer buffer = ByteBuffer.wrap(stream, 1, stream.length - 1);
+                    Map<ByteArrayWrapper, Integer> locations = new LinkedHashMap<>();
+                    while (buffer.hasRemaining()) {
+                        byte[] blockHash = new byte[BLOCK_HASH_SIZE];
+                        buffer.get(blockHash);
+                        locations.put(ByteArrayWrapper.wrap(blockHash), buffer.getInt());
+                    }
+                    return locations;
+                }
+            };
+
+    private static boolean isLocationRecord(byte[] stream) {
+        return stream.length > 0 && stream[0] == LOCATION_VERSION && (stream.length - 1) % LOCATION_SIZE == 0;
+    }
+
+    /**
+     * Checks without logging errors if the given value has the structure of an encoding of the
+     * {@link #serializer}, which allows telling the transaction records apart from the other values
+     * of the transaction database.
+     */
+    static boolean isLegacyRecord(byte[] stream) {
+        if (stream.length == 0 || (stream[0] & 0xFF) < 0xC0) {
+            return false;
+        }
+        try {
+            SharedRLPList decoded = RLP.decode2SharedList(stream);
+            // a single list of infos spanning the whole value
+            if (decoded.size() != 1 || !decoded.get(0).isList() || ((SharedRLPList) decoded.get(0)).isEmpty()) {
+                return false;
+            }
+            RLPElement infoList = decoded.get(0);
+            for (RLPElement info : (SharedRLPList) infoList) {
+                if (!info.isList()
+                        || ((SharedRLPList) info).size() < AionTxInfo.SIZE_OF_OLD_ENCODING
+                        || ((SharedRLPList) info).size() > AionTxInfo.SIZE_WITH_INTERNAL_TRANSACTIONS) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
 }
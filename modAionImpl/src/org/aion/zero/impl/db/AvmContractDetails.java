@@ -23,7 +23,9 @@ import org.aion.types.AionAddress;
 import org.aion.util.conversions.Hex;
 import org.aion.util.types.ByteArrayWrapper;
 import org.aion.zero.impl.db.DetailsDataStore.RLPContractDetails;
+import org.aion.zero.impl.trie.Cache;
 import org.aion.zero.impl.trie.SecureTrie;
+import org.aion.zero.impl.trie.TrieNodeCache;
 
 /**
  * Stores contract details as required by the AVM with support for the use of the object graph and
@@ -54,6 +56,7 @@ public class AvmContractDetails implements StoredContractDetails {
     private ByteArrayWrapper objectGraph = null;
     private byte[] objectGraphHash = EMPTY_DATA_HASH;
     private SecureTrie storageTrie;
+    private final TrieNodeCache trieNodeCache;
 
     /**
      * Creates an object with attached database access for the external storage and object graph.
@@ -66,16 +69,37 @@ public class AvmContractDetails implements StoredContractDetails {
      * @throws IllegalArgumentException when the contract address belongs to a precompiled contract.
      */
     public AvmContractDetails(AionAddress address, ByteArrayKeyValueStore externalStorageSource, ByteArrayKeyValueStore objectGraphSource) {
+        this(address, externalStorageSource, objectGraphSource, TrieNodeCache.DISABLED);
+    }
+
+    /**
+     * Creates an object with attached database access for the external storage and object graph.
+     *
+     * @param externalStorageSource the external storage data source associated with the given
+     *     contract address
+     * @param objectGraphSource the object graph data source associated with the given contract
+     *     address
+     * @param trieNodeCache the cache sharing the clean nodes of the storage trie
+     * @throws NullPointerException when any of the given parameters are null.
+     * @throws IllegalArgumentException when the contract address belongs to a precompiled contract.
+     */
+    public AvmContractDetails(
+            AionAddress address,
+            ByteArrayKeyValueStore externalStorageSource,
+            ByteArrayKeyValueStore objectGraphSource,
+            TrieNodeCache trieNodeCache) {
         Objects.requireNonNull(address,"The address cannot be null!");
         Objects.requireNonNull(externalStorageSource,"The storage data source cannot be null!");
         Objects.requireNonNull(objectGraphSource,"The graph data source cannot be null!");
+        Objects.requireNonNull(trieNodeCache, "The trie node cache cannot be null!");
         if (ContractInfo.isPrecompiledContract(address)) {
             throw new IllegalArgumentException("The address cannot be a precompiled contract!");
         }
         this.address = address;
         this.externalStorageSource = externalStorageSource;
         this.objectGraphSource = objectGraphSource;
-        this.storageTrie = new SecureTrie(this.externalStorageSource);
+        this.trieNodeCache = trieNodeCache;
+        this.storageTrie = new SecureTrie(new Cache(this.externalStorageSource, trieNodeCache), "");
     }
 
     @Override
@@ -259,6 +283,16 @@ public class AvmContractDetails implements StoredContractDetails {
         return h256(concatenated);
     }
 
+    /**
+     * Decodes a snapshot of the contract details whose storage trie does not share its nodes.
+     *
+     * @see #decodeAtRoot(RLPContractDetails, ByteArrayKeyValueStore, ByteArrayKeyValueStore,
+     *     byte[], TrieNodeCache)
+     */
+    public static AvmContractDetails decodeAtRoot(RLPContractDetails input, ByteArrayKeyValueStore storageSource, ByteArrayKeyValueStore objectGraphSource, byte[] consensusRoot) {
+        return decodeAtRoot(input, storageSource, objectGraphSource, consensusRoot, TrieNodeCache.DISABLED);
+    }
+
     /**
      * Decodes an AvmContractDetails object from the RLP encoding and returns a snapshot to the
      * specific point in the blockchain history given by the consensus root hash.
@@ -268,15 +302,23 @@ public class AvmContractDetails implements StoredContractDetails {
      * @param objectGraphSource the data source for the object graph
      * @param consensusRoot the consensus root linking to specific external storage and object graph
      *     data at the point of interest in the blockchain history
+     * @param trieNodeCache the cache sharing the clean nodes of the storage trie
      * @return a snapshot of the contract details with the information it contained at the specified
      *     point in the blockchain history
      */
-    public static AvmContractDetails decodeAtRoot(RLPContractDetails input, ByteArrayKeyValueStore storageSource, ByteArrayKeyValueStore objectGraphSource, byte[] consensusRoot) {
+    public static AvmContractDetails decodeAtRoot(
+            RLPContractDetails input,
+            ByteArrayKeyValueStore storageSource,
+            ByteArrayKeyValueStore objectGraphSource,
+            byte[] consensusRoot,
+            TrieNodeCache trieNodeCache) {
         Objects.requireNonNull(input, "The contract data for the snapshot cannot be null.");
         Objects.requireNonNull(consensusRoot, "The consensus root for the snapshot cannot be null.");
 
         // additional null check are performed by the constructor
-        AvmContractDetails details = new AvmContractDetails(input.address, storageSource, objectGraphSource);
+        AvmContractDetails details =
+                new AvmContractDetails(
+                        input.address, storageSource, objectGraphSource, trieNodeCache);
 
         RLPElement code = input.code;
         if (code instanceof SharedRLPList) {
@@ -322,7 +364,10 @@ public class AvmContractDetails implements StoredContractDetails {
 
         // load/deserialize storage trie
         if (input.isExternalStorage) { // ensure transition from old encoding
-            details.storageTrie = new SecureTrie(details.externalStorageSource, storageRootHash);
+            details.storageTrie =
+                    new SecureTrie(
+                            new Cache(details.externalStorageSource, details.trieNodeCache),
+                            storageRootHash);
         } else {
             details.storageTrie = new SecureTrie(null);
             details.storageTrie.deserialize((SharedRLPList)storage);
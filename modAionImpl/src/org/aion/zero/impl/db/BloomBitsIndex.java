@@ -0,0 +1,301 @@
+package org.aion.zero.impl.db;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+import org.aion.base.Bloom;
+import org.aion.db.impl.ByteArrayKeyValueDatabase;
+import org.aion.util.bytes.ByteUtil;
+import org.aion.util.conversions.Hex;
+import org.aion.zero.impl.types.Block;
+import org.slf4j.Logger;
+
+/**
+ * A persistent index of the log blooms of the main chain that finds the blocks which may contain
+ * the logs matching a filter without reading every block in the queried range.
+ *
+ * <p>The chain is split into sections of consecutive blocks. For each section and each of the
+ * {@code 2048} bits of a {@link Bloom}, the index stores a bit vector with one bit per block of the
+ * section which is set when the block's log bloom has that bit set. The candidate blocks for a
+ * filter are obtained by a bitwise AND of the vectors of the bits set in the filter's blooms.
+ *
+ * <p>A section is indexed once all its blocks have enough confirmations. The index is built on a
+ * background thread when the best block changes, which also indexes the past sections missing from
+ * the index. The hash of the last block of each section is stored to detect the reorganizations
+ * that replaced indexed blocks, in which case the affected sections are indexed again.
+ */
+public final class BloomBitsIndex implements Closeable {
+
+    public static final int DEFAULT_SECTION_SIZE = 4096;
+    public static final int DEFAULT_CONFIRMATIONS = 256;
+
+    private static final int BLOOM_BITS = Bloom.SIZE * 8;
+    private static final byte VECTOR_PREFIX = 0x01;
+    private static final byte HEAD_PREFIX = 0x02;
+    private static final byte[] SECTIONS_KEY = "sections".getBytes();
+    // the number of sections indexed between progress reports
+    private static final int LOG_INTERVAL = 64;
+
+    private final ByteArrayKeyValueDatabase database;
+    private final LongFunction<Block> chainBlockByNumber;
+    private final int sectionSize;
+    private final int confirmations;
+    private final Logger log;
+
+    // the number of consecutive sections from the genesis that are indexed
+    private volatile long sections;
+
+    private final ExecutorService indexer;
+    private final AtomicBoolean updateScheduled = new AtomicBoolean(false);
+    private final AtomicLong bestBlockNumber = new AtomicLong(-1L);
+    private volatile boolean closed = false;
+
+    /**
+     * @param database the database storing the index
+     * @param chainBlockByNumber retrieves the main chain block with the given number, or {@code
+     *     null} if it is missing
+     * @param sectionSize the number of blocks in a section
+     * @param confirmations the number of blocks imported after a section before it is indexed
+     * @param log the logger for the indexing progress
+     */
+    public BloomBitsIndex(
+            ByteArrayKeyValueDatabase database,
+            LongFunction<Block> chainBlockByNumber,
+            int sectionSize,
+            int confirmations,
+            Logger log) {
+        if (sectionSize < 1 || confirmations < 0) {
+            throw new IllegalArgumentException("Invalid bloom bits section size or confirmations.");
+        }
+        this.database = database;
+        this.chainBlockByNumber = chainBlockByNumber;
+        this.sectionSize = sectionSize;
+        this.confirmations = confirmations;
+        this.log = log;
+
+        Optional<byte[]> stored = database.get(SECTIONS_KEY);
+        this.sections = stored.map(ByteUtil::byteArrayToLong).orElse(0L);
+
+        this.indexer =
+                Executors.newSingleThreadExecutor(
+                        r -> {
+                            Thread t = new Thread(r, "bloom-bits-index");
+                            t.setDaemon(true);
+                            return t;
+                        });
+    }
+
+    /** @return the number of blocks in a section */
+    public int getSectionSize() {
+        return sectionSize;
+    }
+
+    /**
+     * Returns the number of blocks covered by the index. The blocks numbered from {@code 0} to the
+     * returned value (exclusive) can be queried with {@link #getCandidates(long, Bloom[][])}.
+     *
+     * @return the number of indexed blocks
+     */
+    public long getIndexedBlocks() {
+        return sections * sectionSize;
+    }
+
+    /**
+     * Schedules the indexing of the sections that are confirmed by the given best block, unless an
+     * update is already scheduled. Does not block.
+     *
+     * @param number the number of the new best block
+     */
+    public void onBestBlock(long number) {
+        bestBlockNumber.set(number);
+        if (!closed && updateScheduled.compareAndSet(false, true)) {
+            indexer.execute(
+                    () -> {
+                        updateScheduled.set(false);
+                        try {
+                            update(bestBlockNumber.get());
+                        } catch (Exception e) {
+                            // the sections are indexed again on the next update
+                            log.error("Failed to update the bloom bits index.", e);
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Returns the blocks of a section whose log blooms may match the given filter. The filter
+     * matches a bloom when, for each of its elements, the bloom contains at least one of the blooms
+     * in that element. An empty element matches all the blocks.
+     *
+     * @param section the section to query
+     * @param filter the blooms that must be matched
+     * @return the offsets within the section of the candidate blocks, or {@code null} if the
+     *     section is not indexed
+     */
+    public BitSet getCandidates(long section, Bloom[][] filter) {
+        if (section >= sections) {
+            return null;
+        }
+
+        Map<Integer, BitSet> vectors = new HashMap<>();
+        BitSet candidates = allBlocks();
+        for (Bloom[] alternatives : filter) {
+            if (alternatives.length == 0) {
+                continue;
+            }
+
+            BitSet matches = new BitSet(sectionSize);
+            for (Bloom bloom : alternatives) {
+                BitSet bloomMatches = allBlocks();
+                for (int bit = 0; bit < BLOOM_BITS && !bloomMatches.isEmpty(); bit++) {
+                    if (ByteUtil.getBit(bloom.getBloomFilterBytes(), bit) == 1) {
+                        bloomMatches.and(vectors.computeIfAbsent(bit, b -> getVector(section, b)));
+                    }
+                }
+                matches.or(bloomMatches);
+            }
+
+            candidates.and(matches);
+            if (candidates.isEmpty()) {
+                break;
+            }
+        }
+
+        // the section may have been rolled back while it was read
+        return section < sections ? candidates : null;
+    }
+
+    /**
+     * Indexes the sections that are confirmed by the given best block, after rolling back the
+     * sections which are no longer on the main chain.
+     *
+     * @param bestNumber the number of the best block
+     */
+    synchronized void update(long bestNumber) {
+        rollbackReorganizedSections();
+
+        long start = sections;
+        while (!closed && (sections + 1) * sectionSize - 1 + confirmations <= bestNumber) {
+            if (!indexSection(sections)) {
+                // the chain changed while the section was read, retried on the next update
+                break;
+            }
+            if ((sections - start) % LOG_INTERVAL == 0) {
+                log.info("Bloom bits indexed up to block #{}.", getIndexedBlocks() - 1);
+            } else {
+                log.debug("Bloom bits indexed up to block #{}.", getIndexedBlocks() - 1);
+            }
+        }
+    }
+
+    private void rollbackReorganizedSections() {
+        long valid = sections;
+        while (valid > 0) {
+            Optional<byte[]> head = database.get(headKey(valid - 1));
+            Block block = chainBlockByNumber.apply(valid * sectionSize - 1);
+            if (head.isPresent() && block != null && Arrays.equals(head.get(), block.getHash())) {
+                break;
+            }
+            valid--;
+        }
+
+        if (valid < sections) {
+            log.info("Rolling back the bloom bits index from {} to {} sections after a chain reorganization.", sections, valid);
+            for (long section = valid; section < sections; section++) {
+                for (int bit = 0; bit < BLOOM_BITS; bit++) {
+                    database.delete(vectorKey(section, bit));
+                }
+                database.delete(headKey(section));
+            }
+            database.put(SECTIONS_KEY, ByteUtil.longToBytes(valid));
+            database.commit();
+            sections = valid;
+        }
+    }
+
+    /** @return {@code false} if the section could not be read from a consistent main chain */
+    private boolean indexSection(long section) {
+        BitSet[] vectors = new BitSet[BLOOM_BITS];
+        byte[] parentHash = null;
+
+        for (int offset = 0; offset < sectionSize; offset++) {
+            long number = section * sectionSize + offset;
+            Block block = chainBlockByNumber.apply(number);
+            if (block == null || (parentHash != null && !Arrays.equals(parentHash, block.getParentHash()))) {
+                return false;
+            }
+            parentHash = block.getHash();
+
+            byte[] bloom = block.getLogBloom();
+            for (int bit = 0; bit < BLOOM_BITS; bit++) {
+                if (ByteUtil.getBit(bloom, bit) == 1) {
+                    if (vectors[bit] == null) {
+                        vectors[bit] = new BitSet(sectionSize);
+                    }
+                    vectors[bit].set(offset);
+                }
+            }
+        }
+
+        // the vectors of the bits never set are not stored
+        for (int bit = 0; bit < BLOOM_BITS; bit++) {
+            if (vectors[bit] != null) {
+                database.put(vectorKey(section, bit), vectors[bit].toByteArray());
+            }
+        }
+        database.put(headKey(section), parentHash);
+        database.put(SECTIONS_KEY, ByteUtil.longToBytes(section + 1));
+        database.commit();
+        sections = section + 1;
+
+        if (log.isTraceEnabled()) {
+            log.trace("Bloom bits section {} ends with block hash {}.", section, Hex.toHexString(parentHash));
+        }
+        return true;
+    }
+
+    private BitSet getVector(long section, int bit) {
+        return database.get(vectorKey(section, bit)).map(BitSet::valueOf).orElseGet(BitSet::new);
+    }
+
+    private BitSet allBlocks() {
+        BitSet all = new BitSet(sectionSize);
+        all.set(0, sectionSize);
+        return all;
+    }
+
+    private static byte[] vectorKey(long section, int bit) {
+        return ByteUtil.merge(
+                new byte[] {VECTOR_PREFIX},
+                ByteUtil.longToBytes(section),
+                new byte[] {(byte) (bit >> 8), (byte) bit});
+    }
+
+    private static byte[] headKey(long section) {
+        return ByteUtil.merge(new byte[] {HEAD_PREFIX}, ByteUtil.longToBytes(section));
+    }
+
+    /** Stops the indexing and closes the database. */
+    @Override
+    public void close() {
+        closed = true;
+        indexer.shutdownNow();
+        try {
+            if (!indexer.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.error("The bloom bits indexer did not stop in time.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        database.close();
+    }
+}
@@ -16,27 +16,66 @@ import org.aion.rlp.RLPElement;
 import org.aion.rlp.SharedRLPList;
 import org.aion.types.AionAddress;
 import org.aion.util.types.ByteArrayWrapper;
+import org.aion.zero.impl.trie.TrieNodeCache;
 import org.slf4j.Logger;
 
 /** Detail data storage , */
 public class DetailsDataStore {
+    /**
+     * Storage pruning is never enabled, so this pruner only passes the writes through and its
+     * journal stays empty. The journal is kept in memory; enabling storage pruning also requires
+     * a persisted journal database, as used by the state pruner, otherwise the references of the
+     * blocks journaled before a restart are never pruned.
+     */
     private JournalPruneDataSource storageDSPrune;
 
     private ByteArrayKeyValueDatabase detailsSrc;
     private ByteArrayKeyValueDatabase storageSrc;
     private ByteArrayKeyValueDatabase graphSrc;
+    // maps the hashes of the contract addresses, used as keys by the world state, to the addresses
+    private ByteArrayKeyValueDatabase addressSrc;
+    // shared by the storage tries of all the contracts
+    private final TrieNodeCache trieNodeCache;
     private Logger log;
 
+    private static final byte[] ADDRESSES_INDEXED_KEY = "indexed".getBytes();
+
     public DetailsDataStore(
             ByteArrayKeyValueDatabase detailsCache,
             ByteArrayKeyValueDatabase storageCache,
             ByteArrayKeyValueDatabase graphCache,
+            ByteArrayKeyValueDatabase addressCache,
+            TrieNodeCache trieNodeCache,
             Logger log) {
         this.detailsSrc = detailsCache;
         this.storageSrc = storageCache;
         this.graphSrc = graphCache;
+        this.addressSrc = addressCache;
+        this.trieNodeCache = trieNodeCache;
         this.log = log;
         this.storageDSPrune = new JournalPruneDataSource(storageSrc, log);
+        indexAddresses();
+    }
+
+    /**
+     * Adds the addresses of the contracts stored before the address index was introduced to the
+     * index. Performed only once, when the index is first created.
+     */
+    private void indexAddresses() {
+        if (addressSrc.get(ADDRESSES_INDEXED_KEY).isPresent()) {
+            return;
+        }
+
+        long count = 0;
+        Iterator<byte[]> addresses = detailsSrc.keys();
+        while (addresses.hasNext()) {
+            byte[] address = addresses.next();
+            addressSrc.put(h256(address), address);
+            count++;
+        }
+        addressSrc.put(ADDRESSES_INDEXED_KEY, new byte[] {1});
+        addressSrc.commit();
+        log.info("Indexed the hashes of {} contract addresses.", count);
     }
 
     /**
@@ -80,9 +119,10 @@ public class DetailsDataStore {
             ByteArrayKeyValueStore storage = createStorageSource(rlpDetails.address);
             if (vm == InternalVmType.AVM) {
                 ByteArrayKeyValueStore graph = createGraphSource(rlpDetails.address);
-                return AvmContractDetails.decodeAtRoot(rlpDetails, storage, graph, storageRoot);
+                return AvmContractDetails.decodeAtRoot(
+                        rlpDetails, storage, graph, storageRoot, trieNodeCache);
             } else if (vm == InternalVmType.FVM) {
-                return FvmContractDetails.decodeAtRoot(rlpDetails, storage, storageRoot);
+                return FvmContractDetails.decodeAtRoot(rlpDetails, storage, storageRoot, trieNodeCache);
             } else {
                 // This may be a regular account or a contract that is not stored yet.
                 // There is no need to instantiate a ContractDetails object.
@@ -103,9 +143,9 @@ public class DetailsDataStore {
         ByteArrayKeyValueStore storage = createStorageSource(address);
         if (vm == InternalVmType.AVM) {
             ByteArrayKeyValueStore graph = createGraphSource(address);
-            return new AvmContractDetails(address, storage, graph);
+            return new AvmContractDetails(address, storage, graph, trieNodeCache);
         } else if (vm == InternalVmType.FVM || ContractInfo.isPrecompiledContract(address)) {
-            return new FvmContractDetails(address, storage);
+            return new FvmContractDetails(address, storage, trieNodeCache);
         } else {
             throw new IllegalArgumentException("The given VM=" + vm + " does not correspond to a type of contract.");
         }
@@ -117,6 +157,48 @@ public class DetailsDataStore {
         detailsSrc.put(key.toByteArray(), rawDetails);
         detailsSrc.commit(); // TODO AKI-309: flush in bulk by the repository
         contractDetails.syncStorage();
+        indexAddress(key.toByteArray());
+    }
+
+    /**
+     * Stores the given raw contract details without decoding them. Used by the fast sync which
+     * downloads the details from other nodes.
+     *
+     * @param key the contract address as bytes
+     * @param rawDetails the encoding of the contract details
+     */
+    public synchronized void put(byte[] key, byte[] rawDetails) {
+        detailsSrc.put(key, rawDetails);
+        detailsSrc.commit();
+        indexAddress(key);
+    }
+
+    private void indexAddress(byte[] address) {
+        byte[] hash = h256(address);
+        if (!addressSrc.get(hash).isPresent()) {
+            addressSrc.put(hash, address);
+            addressSrc.commit();
+        }
+    }
+
+    /**
+     * Returns the address of a stored contract given its hash.
+     *
+     * @param hash the hash of the contract address, as used by the world state
+     * @return the contract address as bytes or {@code null} if no stored contract matches the hash
+     */
+    public synchronized byte[] getAddress(byte[] hash) {
+        return addressSrc.get(hash).orElse(null);
+    }
+
+    /**
+     * Returns the raw contract details stored under the given key.
+     *
+     * @param key the contract address as bytes
+     * @return the encoding of the contract details or {@code null} if the contract is not stored
+     */
+    public synchronized byte[] get(byte[] key) {
+        return detailsSrc.get(key).orElse(null);
     }
 
     public JournalPruneDataSource getStorageDSPrune() {
@@ -132,6 +214,7 @@ public class DetailsDataStore {
             detailsSrc.close();
             storageSrc.close();
             graphSrc.close();
+            addressSrc.close();
         } catch (Exception e) {
             throw new RuntimeException("error closing db");
         }
@@ -0,0 +1,156 @@
+package org.aion.zero.impl.db;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import org.aion.base.InternalVmType;
+import org.aion.rlp.RLP;
+import org.aion.types.AionAddress;
+import org.aion.util.types.ByteArrayWrapper;
+
+/**
+ * Contract details which read the storage values from a {@link FlatStateSnapshot} and fall back to
+ * the storage trie of the wrapped details for the values unknown to the snapshot. Once the storage
+ * is changed through this object, all the reads go to the wrapped details, which hold the changes.
+ *
+ * @implNote The values are read from the snapshot at the state root the details were loaded at,
+ *     which must be the state of the account's storage root.
+ */
+final class FlatStateContractDetails implements StoredContractDetails {
+
+    private final StoredContractDetails details;
+    private final FlatStateSnapshot flatState;
+    private final byte[] stateRoot;
+    private final AionAddress address;
+
+    // set once the storage no longer matches the state root
+    private boolean modified = false;
+
+    FlatStateContractDetails(StoredContractDetails details, FlatStateSnapshot flatState, byte[] stateRoot, AionAddress address) {
+        this.details = Objects.requireNonNull(details);
+        this.flatState = Objects.requireNonNull(flatState);
+        this.stateRoot = Objects.requireNonNull(stateRoot);
+        this.address = Objects.requireNonNull(address);
+    }
+
+    @Override
+    public ByteArrayWrapper get(ByteArrayWrapper key) {
+        if (modified) {
+            return details.get(key);
+        }
+
+        byte[] data = flatState.getStorage(stateRoot, address, key);
+        if (data == null) {
+            ByteArrayWrapper value = details.get(key);
+            flatState.cacheStorage(stateRoot, address, key, value == null ? null : RLP.encodeElement(value.toBytes()));
+            return value;
+        }
+        // decoded the same way as the values of the storage trie
+        return data.length == 0 ? null : ByteArrayWrapper.wrap(RLP.decode2SharedList(data).get(0).getRLPData());
+    }
+
+    @Override
+    public Map<ByteArrayWrapper, ByteArrayWrapper> getStorage(Collection<ByteArrayWrapper> keys) {
+        if (keys == null) {
+            throw new IllegalArgumentException("Input keys cannot be null");
+        }
+
+        Map<ByteArrayWrapper, ByteArrayWrapper> storage = new HashMap<>();
+        for (ByteArrayWrapper key : keys) {
+            ByteArrayWrapper value = get(key);
+            if (value != null) {
+                storage.put(key, value);
+            }
+        }
+        return storage;
+    }
+
+    @Override
+    public void put(ByteArrayWrapper key, ByteArrayWrapper value) {
+        modified = true;
+        details.put(key, value);
+    }
+
+    @Override
+    public void delete(ByteArrayWrapper key) {
+        modified = true;
+        details.delete(key);
+    }
+
+    @Override
+    public void delete() {
+        modified = true;
+        details.delete();
+    }
+
+    @Override
+    public byte[] getCode(byte[] codeHash) {
+        return details.getCode(codeHash);
+    }
+
+    @Override
+    public Map<ByteArrayWrapper, ByteArrayWrapper> getCodes() {
+        return details.getCodes();
+    }
+
+    @Override
+    public void setCode(byte[] code) {
+        details.setCode(code);
+    }
+
+    @Override
+    public void appendCodes(Map<ByteArrayWrapper, ByteArrayWrapper> codes) {
+        details.appendCodes(codes);
+    }
+
+    @Override
+    public InternalVmType getVmType() {
+        return details.getVmType();
+    }
+
+    @Override
+    public byte[] getObjectGraph() {
+        return details.getObjectGraph();
+    }
+
+    @Override
+    public void setObjectGraph(byte[] graph) {
+        details.setObjectGraph(graph);
+    }
+
+    @Override
+    public byte[] getStorageHash() {
+        return details.getStorageHash();
+    }
+
+    @Override
+    public void markAsDirty() {
+        details.markAsDirty();
+    }
+
+    @Override
+    public boolean isDirty() {
+        return details.isDirty();
+    }
+
+    @Override
+    public boolean isDeleted() {
+        return details.isDeleted();
+    }
+
+    @Override
+    public byte[] getEncoded() {
+        return details.getEncoded();
+    }
+
+    @Override
+    public void syncStorage() {
+        details.syncStorage();
+    }
+
+    @Override
+    public String toString() {
+        return details.toString();
+    }
+}
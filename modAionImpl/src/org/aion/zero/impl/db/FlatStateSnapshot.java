@@ -0,0 +1,638 @@
+package org.aion.zero.impl.db;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.aion.base.ConstantUtil;
+import org.aion.db.impl.ByteArrayKeyValueDatabase;
+import org.aion.types.AionAddress;
+import org.aion.util.conversions.Hex;
+import org.aion.util.types.ByteArrayWrapper;
+import org.slf4j.Logger;
+
+/**
+ * A flat copy of the world state which serves the account and storage reads of the recent states
+ * with a single lookup instead of a walk from the root of the state trie.
+ *
+ * <p>The snapshot is made of a disk layer, which stores the encoded accounts by address and the
+ * encoded storage values by address and key for one state, and of in-memory diff layers on top of
+ * it. Each diff layer holds the changes made by a block and is identified by the state root after
+ * the block. The layers form a tree whose root is the disk layer, so both the recent states of the
+ * main chain and the states of the side chains can be read. When a chain of diff layers grows
+ * deeper than the configured number of layers, its bottom layer is written to the disk layer and
+ * the layers which do not descend from it anymore are discarded.
+ *
+ * <p>The snapshot only serves reads, the state roots are still computed by the trie. A lookup
+ * returns the encoding of the value, {@link #ABSENT} when the value is known not to exist, or
+ * {@code null} when the snapshot does not know the value, which must then be read from the trie.
+ * The disk layer knows every value of its state only when it was declared complete by {@link
+ * #markComplete} while holding the empty state, before the genesis was built. Otherwise it learns
+ * the values written by the blocks and the values read from the trie given to {@link
+ * #cacheAccount} and {@link #cacheStorage}. These values are kept in memory and written together
+ * with the next layer written to the disk layer.
+ *
+ * <p>When a layer is added on top of a state unknown to the snapshot, for example after a crash, a
+ * fast sync or a reorganization deeper than the diff layers, the disk layer is moved to that state
+ * and cleared by a background thread. The disk layer is not read until the clear completes.
+ */
+public final class FlatStateSnapshot {
+
+    public static final int DEFAULT_DIFF_LAYERS = 128;
+
+    /** The value returned by the lookups for the accounts and storage values that do not exist. */
+    public static final byte[] ABSENT = new byte[0];
+
+    private static final byte ACCOUNT_PREFIX = 0x01;
+    private static final byte STORAGE_PREFIX = 0x02;
+    private static final byte[] ROOT_KEY = "root".getBytes();
+    // stored under the root key while the disk layer is cleared
+    private static final byte[] CLEARING = {(byte) 0xff};
+    // the number of deletions committed together when the disk layer is cleared
+    private static final int CLEAR_BATCH_SIZE = 10_000;
+    // the number of values read from the trie kept until the next write to the disk layer
+    private static final int MAX_CACHED_VALUES = 100_000;
+
+    private final ByteArrayKeyValueDatabase database;
+    private final int diffLayers;
+    private final Logger log;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<ByteArrayWrapper, Layer> layers = new HashMap<>();
+    // the number of diff layers changing each key, the other keys are read from the disk layer
+    private final Map<ByteArrayWrapper, Integer> changes = new HashMap<>();
+    // the values of the disk layer read from the trie, added concurrently by the readers
+    private final Map<ByteArrayWrapper, byte[]> cached = new ConcurrentHashMap<>();
+    private ByteArrayWrapper diskRoot;
+    private boolean complete;
+    // the clear of the disk layer in progress, if any
+    private FutureTask<Void> clear = null;
+    private volatile boolean clearing = false;
+
+    /**
+     * @param database the database storing the disk layer
+     * @param diffLayers the number of diff layers kept in memory above the disk layer
+     * @param log the logger for the changes of the disk layer
+     */
+    public FlatStateSnapshot(ByteArrayKeyValueDatabase database, int diffLayers, Logger log) {
+        if (diffLayers < 1) {
+            throw new IllegalArgumentException("The state snapshot needs at least one diff layer.");
+        }
+        this.database = database;
+        this.diffLayers = diffLayers;
+        this.log = log;
+
+        Optional<byte[]> stored = database.get(ROOT_KEY);
+        if (stored.isPresent() && Arrays.equals(stored.get(), CLEARING)) {
+            // the clear was interrupted by a shutdown
+            clearDisk();
+            database.delete(ROOT_KEY);
+            database.commit();
+            stored = Optional.empty();
+        }
+        if (stored.isPresent()) {
+            byte[] meta = stored.get();
+            this.diskRoot = ByteArrayWrapper.wrap(Arrays.copyOf(meta, meta.length - 1));
+            this.complete = meta[meta.length - 1] == 1;
+        } else {
+            // a new snapshot holds the empty state, but the trie may already hold other states
+            this.diskRoot = ByteArrayWrapper.wrap(ConstantUtil.EMPTY_TRIE_HASH);
+            this.complete = false;
+        }
+    }
+
+    /**
+     * Returns the account with the given address in the state with the given root.
+     *
+     * @return the encoding of the account, {@link #ABSENT} if the account does not exist or {@code
+     *     null} if the snapshot does not know the account
+     */
+    public byte[] getAccount(byte[] root, AionAddress address) {
+        lock.readLock().lock();
+        try {
+            ByteArrayWrapper key = accountKey(address);
+            ByteArrayWrapper current = ByteArrayWrapper.wrap(root);
+            if (!isKnown(current)) {
+                return null;
+            }
+            if (changes.containsKey(key)) {
+                while (!current.equals(diskRoot)) {
+                    Layer layer = layers.get(current);
+                    byte[] value = layer.diff.getAccount(address);
+                    if (value != null) {
+                        return value;
+                    }
+                    current = layer.parent;
+                }
+            }
+            return readDisk(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the storage value of the given account for the given key in the state with the given
+     * root.
+     *
+     * @return the encoding of the value, {@link #ABSENT} if the key is not set or {@code null} if
+     *     the snapshot does not know the value
+     */
+    public byte[] getStorage(byte[] root, AionAddress address, ByteArrayWrapper storageKey) {
+        lock.readLock().lock();
+        try {
+            ByteArrayWrapper key = storageKey(address, storageKey);
+            ByteArrayWrapper current = ByteArrayWrapper.wrap(root);
+            if (!isKnown(current)) {
+                return null;
+            }
+            if (changes.containsKey(key) || changes.containsKey(storagePrefix(address))) {
+                while (!current.equals(diskRoot)) {
+                    Layer layer = layers.get(current);
+                    byte[] value = layer.diff.getStorage(address, storageKey);
+                    if (value != null) {
+                        return value;
+                    }
+                    current = layer.parent;
+                }
+            }
+            return readDisk(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stores an account read from the trie in the state with the given root, so that the next
+     * lookups do not need the trie.
+     *
+     * @param encoding the encoding of the account or an empty array if it does not exist
+     */
+    public void cacheAccount(byte[] root, AionAddress address, byte[] encoding) {
+        cache(root, accountKey(address), null, encoding);
+    }
+
+    /**
+     * Stores a storage value read from the trie in the state with the given root, so that the next
+     * lookups do not need the trie.
+     *
+     * @param encoding the encoding of the value or {@code null} if the key is not set
+     */
+    public void cacheStorage(byte[] root, AionAddress address, ByteArrayWrapper storageKey, byte[] encoding) {
+        cache(root, storageKey(address, storageKey), storagePrefix(address), encoding == null ? ABSENT : encoding);
+    }
+
+    /**
+     * Keeps the value for the disk layer when no diff layer changes it, in which case it is the
+     * same in the given state and in the state of the disk layer.
+     */
+    private void cache(byte[] root, ByteArrayWrapper key, ByteArrayWrapper prefix, byte[] encoding) {
+        lock.readLock().lock();
+        try {
+            if (complete
+                    || cached.size() >= MAX_CACHED_VALUES
+                    || !isKnown(ByteArrayWrapper.wrap(root))
+                    || changes.containsKey(key)
+                    || (prefix != null && changes.containsKey(prefix))) {
+                return;
+            }
+            cached.put(key, encoding);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the changes made on top of the given parent state as a new diff layer. Writes the
+     * bottom layers of the chain to the disk layer if it becomes deeper than the configured number
+     * of diff layers.
+     *
+     * @param parentRoot the root of the state the changes were applied to
+     * @param root the root of the state after the changes
+     * @param diff the changes, which must not be modified afterwards
+     */
+    public void addLayer(byte[] parentRoot, byte[] root, Diff diff) {
+        ByteArrayWrapper parent = ByteArrayWrapper.wrap(parentRoot);
+        ByteArrayWrapper current = ByteArrayWrapper.wrap(root);
+
+        lock.writeLock().lock();
+        try {
+            if (current.equals(parent) || isKnown(current)) {
+                // the same state reached again
+                return;
+            }
+            if (!isKnown(parent)) {
+                reset(parent);
+            }
+
+            Layer layer = new Layer(current, parent, diff);
+            layers.put(current, layer);
+            for (ByteArrayWrapper key : diff.keys()) {
+                changes.merge(key, 1, Integer::sum);
+            }
+
+            List<Layer> chain = chain(current);
+            for (int i = chain.size() - 1; i >= diffLayers; i--) {
+                flatten(chain.get(i));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the diff layers up to the state with the given root to the disk layer, so that the
+     * state is known after a restart. Does nothing if the state is unknown.
+     *
+     * @param root the root of the state to keep
+     */
+    public void persist(byte[] root) {
+        ByteArrayWrapper current = ByteArrayWrapper.wrap(root);
+
+        lock.writeLock().lock();
+        try {
+            if (!isKnown(current)) {
+                return;
+            }
+            List<Layer> chain = chain(current);
+            for (int i = chain.size() - 1; i >= 0; i--) {
+                flatten(chain.get(i));
+            }
+            if (chain.isEmpty() && !cached.isEmpty()) {
+                awaitClear();
+                writeCached(Map.of(), Set.of());
+                database.commit();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Declares that the disk layer holds every value of its state, so that the values missing from
+     * the snapshot are known not to exist. Must only be called when the state trie is empty, so
+     * that the snapshot is built together with the state from the genesis. Does nothing unless the
+     * disk layer holds the empty state without any values.
+     */
+    public void markComplete() {
+        lock.writeLock().lock();
+        try {
+            if (complete
+                    || clearing
+                    || !layers.isEmpty()
+                    || !cached.isEmpty()
+                    || !diskRoot.equals(ByteArrayWrapper.wrap(ConstantUtil.EMPTY_TRIE_HASH))) {
+                return;
+            }
+            Iterator<byte[]> keys = database.keys();
+            while (keys.hasNext()) {
+                if (!Arrays.equals(keys.next(), ROOT_KEY)) {
+                    return;
+                }
+            }
+            database.put(ROOT_KEY, meta(diskRoot, true));
+            database.commit();
+            complete = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** @return the root of the state held by the disk layer */
+    public byte[] getDiskRoot() {
+        lock.readLock().lock();
+        try {
+            return diskRoot.toBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** @return the number of diff layers held in memory */
+    public int getLayerCount() {
+        lock.readLock().lock();
+        try {
+            return layers.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean isKnown(ByteArrayWrapper root) {
+        return root.equals(diskRoot) || layers.containsKey(root);
+    }
+
+    /** @return the diff layers from the one with the given root down to the disk layer */
+    private List<Layer> chain(ByteArrayWrapper root) {
+        List<Layer> chain = new ArrayList<>();
+        ByteArrayWrapper current = root;
+        while (!current.equals(diskRoot)) {
+            Layer layer = layers.get(current);
+            chain.add(layer);
+            current = layer.parent;
+        }
+        return chain;
+    }
+
+    private byte[] readDisk(ByteArrayWrapper key) {
+        byte[] cachedValue = cached.get(key);
+        if (cachedValue != null) {
+            return cachedValue;
+        }
+        if (clearing) {
+            return null;
+        }
+        Optional<byte[]> value = database.get(key.toBytes());
+        if (value.isPresent()) {
+            return value.get();
+        }
+        return complete ? ABSENT : null;
+    }
+
+    /** Writes the given layer, whose parent must be the disk layer, to the disk layer. */
+    private void flatten(Layer layer) {
+        awaitClear();
+
+        Diff diff = layer.diff;
+        Map<ByteArrayWrapper, byte[]> entries = diff.entries();
+        writeCached(entries, diff.destructed);
+
+        for (AionAddress address : diff.destructed) {
+            Iterator<Map.Entry<byte[], byte[]>> stored = database.iteratePrefix(storagePrefix(address).toBytes());
+            while (stored.hasNext()) {
+                byte[] key = stored.next().getKey();
+                if (!entries.containsKey(ByteArrayWrapper.wrap(key))) {
+                    database.delete(key);
+                }
+            }
+        }
+        for (Map.Entry<ByteArrayWrapper, byte[]> entry : entries.entrySet()) {
+            database.put(entry.getKey().toBytes(), entry.getValue());
+        }
+        database.put(ROOT_KEY, meta(layer.root, complete));
+        database.commit();
+
+        diskRoot = layer.root;
+        remove(layer);
+
+        // the layers built on the previous disk layer cannot be read anymore
+        Set<ByteArrayWrapper> valid = new HashSet<>();
+        valid.add(diskRoot);
+        List<Layer> stale = new ArrayList<>();
+        for (Layer other : layers.values()) {
+            if (!descendsFromDisk(other, valid)) {
+                stale.add(other);
+            }
+        }
+        for (Layer other : stale) {
+            remove(other);
+        }
+    }
+
+    private boolean descendsFromDisk(Layer layer, Set<ByteArrayWrapper> valid) {
+        List<ByteArrayWrapper> visited = new ArrayList<>();
+        Layer current = layer;
+        while (current != null) {
+            if (valid.contains(current.root)) {
+                valid.addAll(visited);
+                return true;
+            }
+            visited.add(current.root);
+            if (valid.contains(current.parent)) {
+                valid.addAll(visited);
+                return true;
+            }
+            current = layers.get(current.parent);
+        }
+        return false;
+    }
+
+    private void remove(Layer layer) {
+        layers.remove(layer.root);
+        for (ByteArrayWrapper key : layer.diff.keys()) {
+            changes.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    /**
+     * Writes the cached values to the disk layer, except the ones replaced by the given entries or
+     * dropped with the storage of the given accounts. Does not commit the writes.
+     */
+    private void writeCached(Map<ByteArrayWrapper, byte[]> entries, Set<AionAddress> destructed) {
+        Set<ByteArrayWrapper> dropped = new HashSet<>();
+        for (AionAddress address : destructed) {
+            dropped.add(storagePrefix(address));
+        }
+        for (Map.Entry<ByteArrayWrapper, byte[]> entry : cached.entrySet()) {
+            byte[] key = entry.getKey().toBytes();
+            if (entries.containsKey(entry.getKey())) {
+                continue;
+            }
+            if (!dropped.isEmpty()
+                    && key[0] == STORAGE_PREFIX
+                    && dropped.contains(ByteArrayWrapper.wrap(Arrays.copyOf(key, 1 + AionAddress.LENGTH)))) {
+                continue;
+            }
+            database.put(key, entry.getValue());
+        }
+        cached.clear();
+    }
+
+    /**
+     * Moves the disk layer to the given state, of which it knows no values. The stored values are
+     * deleted by a background thread, since the lock of the repository may be held.
+     */
+    private void reset(ByteArrayWrapper root) {
+        log.info("<state-snapshot: moving from unknown root {} to {}, clearing the snapshot>", diskRoot, root);
+
+        awaitClear();
+        layers.clear();
+        changes.clear();
+        cached.clear();
+
+        database.put(ROOT_KEY, CLEARING);
+        database.commit();
+
+        diskRoot = root;
+        complete = false;
+        clearing = true;
+
+        clear =
+                new FutureTask<>(
+                        () -> {
+                            clearDisk();
+                            database.put(ROOT_KEY, meta(root, false));
+                            database.commit();
+                            clearing = false;
+                            return null;
+                        });
+        Thread thread = new Thread(clear, "state-snapshot-clear");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Deletes all the values of the disk layer, keeping the root key. */
+    private void clearDisk() {
+        List<byte[]> batch = new ArrayList<>();
+        boolean more;
+        do {
+            batch.clear();
+            Iterator<byte[]> keys = database.keys();
+            while (keys.hasNext() && batch.size() < CLEAR_BATCH_SIZE) {
+                byte[] key = keys.next();
+                if (!Arrays.equals(key, ROOT_KEY)) {
+                    batch.add(key);
+                }
+            }
+            more = keys.hasNext();
+            database.deleteBatch(batch);
+            database.commit();
+        } while (more);
+    }
+
+    /** Waits for the clear of the disk layer started by the last reset. */
+    private void awaitClear() {
+        if (clear == null) {
+            return;
+        }
+        try {
+            clear.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while clearing the state snapshot.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unable to clear the state snapshot.", e.getCause());
+        }
+        clear = null;
+    }
+
+    private static byte[] meta(ByteArrayWrapper root, boolean complete) {
+        byte[] rootBytes = root.toBytes();
+        byte[] meta = Arrays.copyOf(rootBytes, rootBytes.length + 1);
+        meta[rootBytes.length] = (byte) (complete ? 1 : 0);
+        return meta;
+    }
+
+    private static ByteArrayWrapper accountKey(AionAddress address) {
+        return prefixed(ACCOUNT_PREFIX, address.toByteArray(), null);
+    }
+
+    private static ByteArrayWrapper storagePrefix(AionAddress address) {
+        return prefixed(STORAGE_PREFIX, address.toByteArray(), null);
+    }
+
+    private static ByteArrayWrapper storageKey(AionAddress address, ByteArrayWrapper storageKey) {
+        return prefixed(STORAGE_PREFIX, address.toByteArray(), storageKey.toBytes());
+    }
+
+    private static ByteArrayWrapper prefixed(byte prefix, byte[] address, byte[] suffix) {
+        int suffixLength = suffix == null ? 0 : suffix.length;
+        byte[] key = new byte[1 + address.length + suffixLength];
+        key[0] = prefix;
+        System.arraycopy(address, 0, key, 1, address.length);
+        if (suffix != null) {
+            System.arraycopy(suffix, 0, key, 1 + address.length, suffixLength);
+        }
+        return ByteArrayWrapper.wrap(key);
+    }
+
+    /** A diff layer, identified by the root of the state after its changes. */
+    private static final class Layer {
+        private final ByteArrayWrapper root;
+        private final ByteArrayWrapper parent;
+        private final Diff diff;
+
+        private Layer(ByteArrayWrapper root, ByteArrayWrapper parent, Diff diff) {
+            this.root = root;
+            this.parent = parent;
+            this.diff = diff;
+        }
+
+        @Override
+        public String toString() {
+            return Hex.toHexString(root.toBytes());
+        }
+    }
+
+    /**
+     * The changes made to the accounts and storage values of a state. Not thread safe: the changes
+     * must be made under the lock of the repository collecting them.
+     */
+    public static final class Diff {
+        private final Map<AionAddress, byte[]> accounts = new HashMap<>();
+        private final Map<AionAddress, Map<ByteArrayWrapper, byte[]>> storage = new HashMap<>();
+        // the accounts whose storage was dropped before applying the storage changes
+        private final Set<AionAddress> destructed = new HashSet<>();
+
+        /** @param encoding the encoding of the updated account */
+        public void updateAccount(AionAddress address, byte[] encoding) {
+            accounts.put(address, encoding);
+        }
+
+        /** Deletes the account together with its storage. */
+        public void deleteAccount(AionAddress address) {
+            accounts.put(address, ABSENT);
+            clearStorage(address);
+        }
+
+        /** Drops all the storage values of the account, for example when its storage is replaced. */
+        public void clearStorage(AionAddress address) {
+            storage.remove(address);
+            destructed.add(address);
+        }
+
+        /** @param encoding the encoding of the new value or {@code null} if the key is deleted */
+        public void updateStorage(AionAddress address, ByteArrayWrapper storageKey, byte[] encoding) {
+            storage.computeIfAbsent(address, a -> new HashMap<>()).put(storageKey, encoding == null ? ABSENT : encoding);
+        }
+
+        /** @return the account encoding, {@link #ABSENT} if deleted or {@code null} if unchanged */
+        public byte[] getAccount(AionAddress address) {
+            return accounts.get(address);
+        }
+
+        /** @return the value encoding, {@link #ABSENT} if deleted or {@code null} if unchanged */
+        public byte[] getStorage(AionAddress address, ByteArrayWrapper storageKey) {
+            Map<ByteArrayWrapper, byte[]> values = storage.get(address);
+            byte[] value = values == null ? null : values.get(storageKey);
+            return value == null && destructed.contains(address) ? ABSENT : value;
+        }
+
+        public boolean isEmpty() {
+            return accounts.isEmpty() && storage.isEmpty() && destructed.isEmpty();
+        }
+
+        /** @return the changed keys of the disk layer, including the prefixes of dropped storage */
+        private List<ByteArrayWrapper> keys() {
+            List<ByteArrayWrapper> keys = new ArrayList<>(entries().keySet());
+            for (AionAddress address : destructed) {
+                keys.add(storagePrefix(address));
+            }
+            return keys;
+        }
+
+        /** @return the changed entries of the disk layer */
+        private Map<ByteArrayWrapper, byte[]> entries() {
+            Map<ByteArrayWrapper, byte[]> entries = new HashMap<>();
+            for (Map.Entry<AionAddress, byte[]> account : accounts.entrySet()) {
+                entries.put(accountKey(account.getKey()), account.getValue());
+            }
+            for (Map.Entry<AionAddress, Map<ByteArrayWrapper, byte[]>> values : storage.entrySet()) {
+                for (Map.Entry<ByteArrayWrapper, byte[]> value : values.getValue().entrySet()) {
+                    entries.put(storageKey(values.getKey(), value.getKey()), value.getValue());
+                }
+            }
+            return entries;
+        }
+    }
+}
@@ -21,7 +21,9 @@ import org.aion.types.AionAddress;
 import org.aion.util.conversions.Hex;
 import org.aion.util.types.ByteArrayWrapper;
 import org.aion.zero.impl.db.DetailsDataStore.RLPContractDetails;
+import org.aion.zero.impl.trie.Cache;
 import org.aion.zero.impl.trie.SecureTrie;
+import org.aion.zero.impl.trie.TrieNodeCache;
 
 /**
  * Stores contract details as required by the FVM.
@@ -45,6 +47,7 @@ public class FvmContractDetails implements StoredContractDetails {
     public final AionAddress address;
 
     private SecureTrie storageTrie;
+    private final TrieNodeCache trieNodeCache;
 
     /**
      * Creates an object with attached database access for the external storage.
@@ -54,11 +57,28 @@ public class FvmContractDetails implements StoredContractDetails {
      * @throws NullPointerException when any of the given parameters are null
      */
     public FvmContractDetails(AionAddress address, ByteArrayKeyValueStore externalStorageSource) {
+        this(address, externalStorageSource, TrieNodeCache.DISABLED);
+    }
+
+    /**
+     * Creates an object with attached database access for the external storage.
+     *
+     * @param externalStorageSource the external storage data source associated with the given
+     *     contract address
+     * @param trieNodeCache the cache sharing the clean nodes of the storage trie
+     * @throws NullPointerException when any of the given parameters are null
+     */
+    public FvmContractDetails(
+            AionAddress address,
+            ByteArrayKeyValueStore externalStorageSource,
+            TrieNodeCache trieNodeCache) {
         Objects.requireNonNull(address, "The address cannot be null!");
         Objects.requireNonNull(externalStorageSource,"The storage data source cannot be null!");
+        Objects.requireNonNull(trieNodeCache, "The trie node cache cannot be null!");
         this.address = address;
         this.externalStorageSource = externalStorageSource;
-        this.storageTrie = new SecureTrie(this.externalStorageSource);
+        this.trieNodeCache = trieNodeCache;
+        this.storageTrie = new SecureTrie(new Cache(this.externalStorageSource, trieNodeCache), "");
     }
 
     @Override
@@ -209,6 +229,15 @@ public class FvmContractDetails implements StoredContractDetails {
         return storageTrie.getRootHash();
     }
 
+    /**
+     * Decodes a snapshot of the contract details whose storage trie does not share its nodes.
+     *
+     * @see #decodeAtRoot(RLPContractDetails, ByteArrayKeyValueStore, byte[], TrieNodeCache)
+     */
+    public static FvmContractDetails decodeAtRoot(RLPContractDetails input, ByteArrayKeyValueStore storageSource, byte[] consensusRoot) {
+        return decodeAtRoot(input, storageSource, consensusRoot, TrieNodeCache.DISABLED);
+    }
+
     /**
      * Decodes an FvmContractDetails object from the RLP encoding and returns a snapshot to the
      * specific point in the blockchain history given by the consensus root hash.
@@ -217,15 +246,21 @@ public class FvmContractDetails implements StoredContractDetails {
      * @param storageSource the data source for the contract storage data
      * @param consensusRoot the consensus root linking to specific external storage and object graph
      *     data at the point of interest in the blockchain history
+     * @param trieNodeCache the cache sharing the clean nodes of the storage trie
      * @return a snapshot of the contract details with the information it contained at the specified
      *     point in the blockchain history
      */
-    public static FvmContractDetails decodeAtRoot(RLPContractDetails input, ByteArrayKeyValueStore storageSource, byte[] consensusRoot) {
+    public static FvmContractDetails decodeAtRoot(
+            RLPContractDetails input,
+            ByteArrayKeyValueStore storageSource,
+            byte[] consensusRoot,
+            TrieNodeCache trieNodeCache) {
         Objects.requireNonNull(input, "The contract data for the snapshot cannot be null.");
         Objects.requireNonNull(consensusRoot, "The consensus root for the snapshot cannot be null.");
 
         // additional null check are performed by the constructor
-        FvmContractDetails details = new FvmContractDetails(input.address, storageSource);
+        FvmContractDetails details =
+                new FvmContractDetails(input.address, storageSource, trieNodeCache);
 
         RLPElement code = input.code;
         if (code instanceof SharedRLPList) {
@@ -250,7 +285,10 @@ public class FvmContractDetails implements StoredContractDetails {
 
         // load/deserialize storage trie
         if (input.isExternalStorage) { // ensure transition from old encoding
-            details.storageTrie = new SecureTrie(details.externalStorageSource, consensusRoot);
+            details.storageTrie =
+                    new SecureTrie(
+                            new Cache(details.externalStorageSource, details.trieNodeCache),
+                            consensusRoot);
         } else {
             details.storageTrie = new SecureTrie(null);
             details.storageTrie.deserialize((SharedRLPList) storage);
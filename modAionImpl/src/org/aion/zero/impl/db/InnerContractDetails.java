@@ -6,6 +6,7 @@ import static org.aion.util.bytes.ByteUtil.EMPTY_BYTE_ARRAY;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -141,6 +142,16 @@ public class InnerContractDetails implements ContractDetails {
         return storage;
     }
 
+    /**
+     * Returns the storage values read or written through this object, with {@code null} values for
+     * the deleted keys.
+     *
+     * @return an unmodifiable view of the cached storage
+     */
+    Map<ByteArrayWrapper, ByteArrayWrapper> getCachedStorage() {
+        return Collections.unmodifiableMap(storage);
+    }
+
     /**
      * Inserts the key-value pair key and value, or if value consists only of zero bytes, deletes
      * any key-value pair whose key is key.
@@ -2,6 +2,7 @@ package org.aion.zero.impl.db;
 
 import java.util.Properties;
 import org.aion.zero.impl.config.PruneConfig;
+import org.aion.zero.impl.trie.TrieNodeCache;
 
 /**
  * Represents a configuration interface accepted that should be accepted by the repository to
@@ -17,4 +18,17 @@ public interface RepositoryConfig {
     PruneConfig getPruneConfig();
 
     Properties getDatabaseConfig(String db_name);
+
+    /** @return the size in MB of the trie node cache shared by all the tries */
+    default int getTrieCacheSize() {
+        return TrieNodeCache.DEFAULT_SIZE_MB;
+    }
+
+    /**
+     * @return the number of imported blocks whose writes are flushed to the databases together,
+     *     where {@code 1} disables buffering the writes
+     */
+    default int getWriteBehindBlocks() {
+        return 1;
+    }
 }
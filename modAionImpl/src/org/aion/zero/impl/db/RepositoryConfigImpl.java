@@ -10,6 +10,8 @@ public class RepositoryConfigImpl implements RepositoryConfig {
     private final String dbPath;
     private final PruneConfig cfgPrune;
     private final Map<String, Properties> cfg;
+    private final int trieCacheSize;
+    private final int writeBehindBlocks;
 
     @Override
     public String getDbPath() {
@@ -21,6 +23,16 @@ public class RepositoryConfigImpl implements RepositoryConfig {
         return cfgPrune;
     }
 
+    @Override
+    public int getTrieCacheSize() {
+        return trieCacheSize;
+    }
+
+    @Override
+    public int getWriteBehindBlocks() {
+        return writeBehindBlocks;
+    }
+
     @Override
     public Properties getDatabaseConfig(String db_name) {
         Properties prop = cfg.get(db_name);
@@ -34,5 +46,7 @@ public class RepositoryConfigImpl implements RepositoryConfig {
         this.dbPath = dbPath;
         this.cfg = cfgDb.asProperties();
         this.cfgPrune = cfgDb.getPrune();
+        this.trieCacheSize = cfgDb.getTrieCacheSize();
+        this.writeBehindBlocks = cfgDb.getWriteBehindBlocks();
     }
 }
@@ -1,10 +1,18 @@
 package org.aion.zero.impl.db;
 
+import static org.aion.zero.impl.db.AionTransactionStoreSerializer.locationSerializer;
+
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -15,17 +23,38 @@ import org.aion.db.store.Stores;
 import org.aion.types.InternalTransaction;
 import org.aion.util.types.ByteArrayWrapper;
 import org.aion.zero.impl.types.AionTxInfo;
+import org.slf4j.Logger;
 
+/**
+ * Stores the information about the executed transactions. For each transaction a small location
+ * record, keyed by the transaction hash, lists the blocks including the transaction with its index
+ * in each block, while the receipt and internal transactions are stored apart for each block, keyed
+ * by the transaction hash followed by the block hash. The receipts are decoded only when requested.
+ *
+ * <p>The records written by the previous versions, which store the full information for all the
+ * blocks under the transaction hash, are still read and are rewritten when the transaction is
+ * stored again or by {@link #migrateLegacyRecords(Logger)}.
+ */
 public class TransactionStore implements Closeable {
-    private final ObjectStore<Map<ByteArrayWrapper, AionTxInfo>> txInfoSource;
+    // the records and the aliases share the database
+    private final ByteArrayKeyValueDatabase txInfoDatabase;
+    private final Serializer<Map<ByteArrayWrapper, AionTxInfo>> legacySerializer;
     private final ObjectStore<Set<ByteArrayWrapper>> aliasSource;
 
     private final ReadWriteLock lock = new ReentrantReadWriteLock();
 
-    public TransactionStore(ByteArrayKeyValueDatabase txInfoSrc, Serializer<Map<ByteArrayWrapper, AionTxInfo>> serializer) {
+    private static final int TX_HASH_SIZE = 32;
+    private static final int MIGRATION_BATCH_SIZE = 10_000;
+
+    /**
+     * @param txInfoSrc the database storing the transaction records
+     * @param legacySerializer the serializer for the records written by the previous versions
+     */
+    public TransactionStore(ByteArrayKeyValueDatabase txInfoSrc, Serializer<Map<ByteArrayWrapper, AionTxInfo>> legacySerializer) {
         // TODO AKI-436: introduce caching of recent transactions
-        txInfoSource = Stores.newObjectStore(txInfoSrc, serializer);
-        aliasSource = Stores.newObjectStore(txInfoSrc, aliasSerializer);
+        this.txInfoDatabase = txInfoSrc;
+        this.legacySerializer = legacySerializer;
+        this.aliasSource = Stores.newObjectStore(txInfoSrc, aliasSerializer);
     }
 
     public void putTxInfoToBatch(AionTxInfo tx) {
@@ -35,20 +64,53 @@ public class TransactionStore implements Closeable {
         try {
             byte[] txHash = tx.getReceipt().getTransaction().getTransactionHash();
 
-            Map<ByteArrayWrapper, AionTxInfo> existingInfos = txInfoSource.get(txHash);
-            if (existingInfos == null) {
-                existingInfos = new HashMap<>();
-            }
+            Map<ByteArrayWrapper, Integer> locations = getLocationsForUpdate(txHash);
 
             // overwrites existing entry to update it with/without internal transactions
             // depending on the chosen configuration at block import
-            existingInfos.put(tx.blockHash, tx);
-            txInfoSource.put(txHash, existingInfos);
+            locations.put(tx.blockHash, tx.getIndex());
+            txInfoDatabase.put(txHash, locationSerializer.serialize(locations));
+            txInfoDatabase.put(payloadKey(txHash, tx.blockHash), tx.getPayload());
         } finally {
             lock.writeLock().unlock();
         }
     }
 
+    /**
+     * Returns the locations stored for the given transaction, converting a record written by the
+     * previous versions into the current records.
+     */
+    private Map<ByteArrayWrapper, Integer> getLocationsForUpdate(byte[] txHash) {
+        Optional<byte[]> stored = txInfoDatabase.get(txHash);
+        if (stored.isPresent()) {
+            Map<ByteArrayWrapper, Integer> locations = locationSerializer.deserialize(stored.get());
+            if (locations != null) {
+                return locations;
+            }
+            Map<ByteArrayWrapper, AionTxInfo> legacy = legacySerializer.deserialize(stored.get());
+            if (legacy != null) {
+                return toCurrentRecords(txHash, legacy);
+            }
+        }
+        return new LinkedHashMap<>();
+    }
+
+    /** Writes the payloads of the given legacy infos and returns their locations. */
+    private Map<ByteArrayWrapper, Integer> toCurrentRecords(byte[] txHash, Map<ByteArrayWrapper, AionTxInfo> infos) {
+        Map<ByteArrayWrapper, Integer> locations = new LinkedHashMap<>();
+        for (AionTxInfo info : infos.values()) {
+            locations.put(info.blockHash, info.getIndex());
+            txInfoDatabase.put(payloadKey(txHash, info.blockHash), info.getPayload());
+        }
+        return locations;
+    }
+
+    private static byte[] payloadKey(byte[] txHash, ByteArrayWrapper blockHash) {
+        byte[] key = Arrays.copyOf(txHash, txHash.length + blockHash.length());
+        System.arraycopy(blockHash.toBytes(), 0, key, txHash.length, blockHash.length());
+        return key;
+    }
+
     public void putAliasesToBatch(AionTxInfo txInfo) {
         byte[] txHash = txInfo.getReceipt().getTransaction().getTransactionHash();
 
@@ -76,13 +138,16 @@ public class TransactionStore implements Closeable {
     public void flushBatch() {
         lock.writeLock().lock();
         try {
-            txInfoSource.commit();
-            aliasSource.commit();
+            txInfoDatabase.commit();
         } finally {
             lock.writeLock().unlock();
         }
     }
 
+    /**
+     * Returns the information about the transaction with the given hash included in the block with
+     * the given hash, reading only the record of that block.
+     */
     public AionTxInfo getTxInfo(byte[] txHash, byte[] blockHash) {
         // ensuring non-null input since this can be called with input from the API
         if (txHash == null || blockHash == null) return null;
@@ -90,26 +155,137 @@ public class TransactionStore implements Closeable {
         lock.readLock().lock();
 
         try {
-            return txInfoSource.get(txHash).get(ByteArrayWrapper.wrap(blockHash));
+            ByteArrayWrapper block = ByteArrayWrapper.wrap(blockHash);
+            Optional<byte[]> payload = txInfoDatabase.get(payloadKey(txHash, block));
+            if (payload.isPresent()) {
+                return AionTxInfo.newInstanceFromPayload(block, payload.get());
+            }
+
+            Optional<byte[]> stored = txInfoDatabase.get(txHash);
+            if (!stored.isPresent() || locationSerializer.deserialize(stored.get()) != null) {
+                return null;
+            }
+            Map<ByteArrayWrapper, AionTxInfo> legacy = legacySerializer.deserialize(stored.get());
+            return legacy == null ? null : legacy.get(block);
         } finally {
             lock.readLock().unlock();
         }
     }
 
+    /**
+     * Returns the information about the transaction with the given hash for all the blocks
+     * including it. The payloads of the blocks are read with a single request.
+     */
     public Map<ByteArrayWrapper, AionTxInfo> getTxInfo(byte[] key) {
         lock.readLock().lock();
         try {
-            return txInfoSource.get(key);
+            Optional<byte[]> stored = txInfoDatabase.get(key);
+            if (!stored.isPresent()) {
+                return null;
+            }
+            Map<ByteArrayWrapper, Integer> locations = locationSerializer.deserialize(stored.get());
+            if (locations == null) {
+                return legacySerializer.deserialize(stored.get());
+            }
+
+            List<ByteArrayWrapper> blockHashes = new ArrayList<>(locations.keySet());
+            List<byte[]> payloadKeys = new ArrayList<>(blockHashes.size());
+            for (ByteArrayWrapper blockHash : blockHashes) {
+                payloadKeys.add(payloadKey(key, blockHash));
+            }
+            List<byte[]> payloads = txInfoDatabase.getBatch(payloadKeys);
+
+            Map<ByteArrayWrapper, AionTxInfo> infos = new HashMap<>();
+            for (int i = 0; i < blockHashes.size(); i++) {
+                byte[] payload = payloads.get(i);
+                AionTxInfo info = payload == null ? null : AionTxInfo.newInstanceFromPayload(blockHashes.get(i), payload);
+                if (info != null) {
+                    infos.put(blockHashes.get(i), info);
+                }
+            }
+            return infos;
         } finally {
             lock.readLock().unlock();
         }
     }
 
+    /**
+     * Returns the hashes of the blocks including the transaction with the given hash together with
+     * the index of the transaction in each block, without reading the receipts.
+     *
+     * @return the transaction index by block hash or {@code null} if the transaction is unknown
+     */
+    public Map<ByteArrayWrapper, Integer> getTxLocations(byte[] txHash) {
+        lock.readLock().lock();
+        try {
+            Optional<byte[]> stored = txInfoDatabase.get(txHash);
+            if (!stored.isPresent()) {
+                return null;
+            }
+            Map<ByteArrayWrapper, Integer> locations = locationSerializer.deserialize(stored.get());
+            if (locations != null) {
+                return locations;
+            }
+
+            Map<ByteArrayWrapper, AionTxInfo> legacy = legacySerializer.deserialize(stored.get());
+            if (legacy == null) {
+                return null;
+            }
+            locations = new LinkedHashMap<>();
+            for (AionTxInfo info : legacy.values()) {
+                locations.put(info.blockHash, info.getIndex());
+            }
+            return locations;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites the records written by the previous versions using the current encoding.
+     *
+     * @return the number of migrated transactions
+     */
+    public long migrateLegacyRecords(Logger log) {
+        lock.writeLock().lock();
+        try {
+            long count = 0;
+            int batch = 0;
+            Iterator<Map.Entry<byte[], byte[]>> entries = txInfoDatabase.iterate(null, null);
+
+            while (entries.hasNext()) {
+                Map.Entry<byte[], byte[]> entry = entries.next();
+                byte[] txHash = entry.getKey();
+                // the alias records are kept as they are
+                if (txHash.length != TX_HASH_SIZE || !AionTransactionStoreSerializer.isLegacyRecord(entry.getValue())) {
+                    continue;
+                }
+
+                Map<ByteArrayWrapper, AionTxInfo> legacy = legacySerializer.deserialize(entry.getValue());
+                if (legacy == null) {
+                    continue;
+                }
+                txInfoDatabase.put(txHash, locationSerializer.serialize(toCurrentRecords(txHash, legacy)));
+                count++;
+                batch++;
+
+                if (batch == MIGRATION_BATCH_SIZE) {
+                    txInfoDatabase.commit();
+                    batch = 0;
+                    log.info("Migrated {} transaction records.", count);
+                }
+            }
+            txInfoDatabase.commit();
+            return count;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
     @Override
     public void close() throws IOException {
         lock.writeLock().lock();
         try {
-            txInfoSource.close();
             aliasSource.close();
         }
         finally {
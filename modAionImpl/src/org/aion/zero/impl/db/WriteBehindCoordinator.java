@@ -0,0 +1,250 @@
+package org.aion.zero.impl.db;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.aion.db.impl.ByteArrayKeyValueDatabase;
+import org.aion.db.impl.rocksdb.SharedRocksDB;
+import org.slf4j.Logger;
+
+/**
+ * Groups the writes of several imported blocks to the repository databases into a single flush.
+ * The writes of each block are made between {@link #startSection()} and {@link #endSection()}, or
+ * {@link #discardSection()} when they are incomplete. The buffered writes are flushed once enough
+ * blocks or bytes were buffered, once the oldest buffered write is too old, or on {@link
+ * #close()}.
+ *
+ * <p>A flush writes the databases in the order they were wrapped, so a crash during a flush loses
+ * only writes that the databases wrapped earlier do not depend on. The index database must be
+ * wrapped last to never refer to blocks missing from the other databases. When the databases are
+ * column families of a {@link SharedRocksDB} instance, the whole flush is a single atomic write.
+ *
+ * @implNote The flushes triggered by time do not wait for the current section to end, they are
+ *     skipped until the following check instead, so a flush never contains a partial block.
+ */
+final class WriteBehindCoordinator {
+
+    static final long DEFAULT_MAX_BUFFERED_BYTES = 64L * 1024 * 1024; // 64mb
+    static final long DEFAULT_MAX_DELAY_MS = 5_000L;
+
+    private final int maxBufferedBlocks;
+    private final long maxBufferedBytes;
+    private final long maxDelayMs;
+    private final SharedRocksDB sharedInstance;
+    private final Logger log;
+
+    private final List<WriteBehindDatabase> databases = new CopyOnWriteArrayList<>();
+    // held by the sections and the flushes
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ScheduledExecutorService timer;
+
+    // guarded by the lock
+    private int bufferedBlocks = 0;
+    private long lastFlush = System.currentTimeMillis();
+    private boolean discarded = false;
+
+    /**
+     * @param maxBufferedBlocks the number of blocks buffered before a flush
+     * @param maxBufferedBytes the approximate size in bytes of the writes buffered before a flush
+     * @param maxDelayMs the maximum time in milliseconds between flushes when writes are buffered
+     * @param sharedInstance the instance shared by the databases, or {@code null} if the databases
+     *     are independent
+     * @param log the logger for the flushes
+     */
+    WriteBehindCoordinator(
+            int maxBufferedBlocks,
+            long maxBufferedBytes,
+            long maxDelayMs,
+            SharedRocksDB sharedInstance,
+            Logger log) {
+        if (maxBufferedBlocks < 1 || maxBufferedBytes < 1 || maxDelayMs < 1) {
+            throw new IllegalArgumentException("The write-behind limits must be positive.");
+        }
+        this.maxBufferedBlocks = maxBufferedBlocks;
+        this.maxBufferedBytes = maxBufferedBytes;
+        this.maxDelayMs = maxDelayMs;
+        this.sharedInstance = sharedInstance;
+        this.log = log;
+
+        timer =
+                Executors.newSingleThreadScheduledExecutor(
+                        r -> {
+                            Thread t = new Thread(r, "db-write-behind");
+                            t.setDaemon(true);
+                            return t;
+                        });
+        timer.scheduleWithFixedDelay(
+                this::flushIfDue, maxDelayMs, maxDelayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Wraps the given database so that its writes are flushed by this coordinator, after the writes
+     * of the databases wrapped before it.
+     */
+    ByteArrayKeyValueDatabase wrap(ByteArrayKeyValueDatabase database) {
+        WriteBehindDatabase wrapper = new WriteBehindDatabase(database);
+        databases.add(wrapper);
+        return wrapper;
+    }
+
+    /** @return the wrapper of the given database if it was wrapped, the database otherwise */
+    ByteArrayKeyValueDatabase wrapped(ByteArrayKeyValueDatabase database) {
+        for (WriteBehindDatabase wrapper : databases) {
+            if (wrapper.getDatabase() == database) {
+                return wrapper;
+            }
+        }
+        return database;
+    }
+
+    /** Starts a section grouping the writes of one block, which is never split between flushes. */
+    void startSection() {
+        lock.lock();
+        if (lock.getHoldCount() == 1) {
+            for (WriteBehindDatabase database : databases) {
+                database.startSection();
+            }
+        }
+    }
+
+    /** Ends the section started by the matching {@link #startSection()}, flushing if needed. */
+    void endSection() {
+        try {
+            // nested sections count as part of the outermost one
+            if (lock.getHoldCount() == 1) {
+                if (discarded) {
+                    revertSection();
+                    return;
+                }
+                for (WriteBehindDatabase database : databases) {
+                    database.endSection();
+                }
+                bufferedBlocks++;
+                if (bufferedBlocks >= maxBufferedBlocks
+                        || getBufferedBytes() >= maxBufferedBytes
+                        || System.currentTimeMillis() - lastFlush >= maxDelayMs) {
+                    flushLocked();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ends the section started by the matching {@link #startSection()} and reverts the writes made
+     * by the current thread during the section. A nested section reverts the outermost one.
+     */
+    void discardSection() {
+        try {
+            if (lock.getHoldCount() == 1) {
+                revertSection();
+            } else {
+                discarded = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void revertSection() {
+        discarded = false;
+        for (WriteBehindDatabase database : databases) {
+            database.discardSection();
+        }
+    }
+
+    /** Writes all the buffered writes to the underlying databases. */
+    void flush() {
+        lock.lock();
+        try {
+            flushLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Stops the time based flushes and writes all the buffered writes. */
+    void close() {
+        timer.shutdownNow();
+        flush();
+    }
+
+    /** @return the number of blocks buffered since the last flush */
+    int getBufferedBlocks() {
+        lock.lock();
+        try {
+            return bufferedBlocks;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return the approximate size in bytes of the buffered writes */
+    long getBufferedBytes() {
+        long bytes = 0;
+        for (WriteBehindDatabase database : databases) {
+            bytes += database.getBufferedBytes();
+        }
+        return bytes;
+    }
+
+    private void flushIfDue() {
+        // skipped while a block is being written, retried at the next check
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            if (System.currentTimeMillis() - lastFlush >= maxDelayMs) {
+                flushLocked();
+            }
+        } catch (Exception e) {
+            log.error("Unable to flush the buffered database writes.", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushLocked() {
+        lastFlush = System.currentTimeMillis();
+        if (databases.stream().allMatch(WriteBehindDatabase::isBufferEmpty)) {
+            bufferedBlocks = 0;
+            return;
+        }
+
+        long bytes = getBufferedBytes();
+        List<Map<byte[], byte[]>> written = new ArrayList<>(databases.size());
+
+        if (sharedInstance != null) {
+            sharedInstance.startAtomicWrite();
+        }
+        try {
+            for (WriteBehindDatabase database : databases) {
+                written.add(database.write());
+            }
+        } finally {
+            if (sharedInstance != null) {
+                sharedInstance.commitAtomicWrite();
+            }
+        }
+
+        // the entries remain readable from the buffers until all the databases are written
+        for (int i = 0; i < written.size(); i++) {
+            databases.get(i).evict(written.get(i));
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug(
+                    "Flushed the writes of {} blocks ({} bytes) in {} ms.",
+                    bufferedBlocks,
+                    bytes,
+                    System.currentTimeMillis() - lastFlush);
+        }
+        bufferedBlocks = 0;
+    }
+}
@@ -0,0 +1,444 @@
+package org.aion.zero.impl.db;
+
+import com.google.common.collect.Iterators;
+import com.google.common.primitives.UnsignedBytes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.aion.db.impl.AbstractDB;
+import org.aion.db.impl.ByteArrayKeyValueDatabase;
+import org.aion.db.impl.PersistenceMethod;
+
+/**
+ * Keeps the committed writes to a database in memory until they are flushed by the {@link
+ * WriteBehindCoordinator} together with the writes to the other databases of the repository.
+ *
+ * <p>The writes made with {@link #put(byte[], byte[])} and {@link #delete(byte[])} are held until
+ * {@link #commit()}, like the batches of the underlying database. Committed writes and the writes
+ * made with {@link #putBatch(Map)} and {@link #deleteBatch(Collection)} are added to a buffer that
+ * is visible to all reads.
+ *
+ * <p>The writes made by the thread owning a section of the coordinator are recorded so that they
+ * can be reverted with {@link #discardSection()}.
+ *
+ * @implNote A buffered entry is evicted after being flushed only if it was not overwritten in the
+ *     meantime, so writes made while flushing are kept for the following flush.
+ */
+final class WriteBehindDatabase implements ByteArrayKeyValueDatabase {
+
+    /** Marks the buffered deletions. */
+    private static final byte[] DELETED = new byte[0];
+    /** Marks the entries that were not buffered before a section. */
+    private static final byte[] ABSENT = new byte[0];
+
+    private final ByteArrayKeyValueDatabase database;
+
+    // writes waiting for a commit
+    private final Map<byte[], byte[]> uncommitted =
+            new TreeMap<>(UnsignedBytes.lexicographicalComparator());
+    // committed writes waiting for a flush
+    private final ConcurrentSkipListMap<byte[], byte[]> buffer =
+            new ConcurrentSkipListMap<>(UnsignedBytes.lexicographicalComparator());
+    private final AtomicLong bufferedBytes = new AtomicLong(0);
+
+    // the thread writing the current section, its uncommitted keys and the values it overwrote in
+    // the buffer, used only by that thread
+    private volatile Thread sectionOwner = null;
+    private final Set<byte[]> sectionUncommitted =
+            new TreeSet<>(UnsignedBytes.lexicographicalComparator());
+    private final Map<byte[], byte[]> sectionUndo =
+            new TreeMap<>(UnsignedBytes.lexicographicalComparator());
+
+    WriteBehindDatabase(ByteArrayKeyValueDatabase database) {
+        this.database = database;
+    }
+
+    /** @return the wrapped database */
+    ByteArrayKeyValueDatabase getDatabase() {
+        return database;
+    }
+
+    /** @return the approximate size in bytes of the writes waiting for a flush */
+    long getBufferedBytes() {
+        return bufferedBytes.get();
+    }
+
+    /** @return {@code true} if there are no writes waiting for a flush */
+    boolean isBufferEmpty() {
+        return buffer.isEmpty();
+    }
+
+    /**
+     * Writes the buffered entries to the underlying database without evicting them, so that the
+     * reads still find them until the writes of all the databases are complete.
+     *
+     * @return the written entries, to be passed to {@link #evict(Map)}
+     */
+    Map<byte[], byte[]> write() {
+        Map<byte[], byte[]> written = new TreeMap<>(UnsignedBytes.lexicographicalComparator());
+        written.putAll(buffer);
+        if (written.isEmpty()) {
+            return written;
+        }
+
+        for (Map.Entry<byte[], byte[]> entry : written.entrySet()) {
+            if (entry.getValue() == DELETED) {
+                database.delete(entry.getKey());
+            } else {
+                database.put(entry.getKey(), entry.getValue());
+            }
+        }
+        database.commit();
+        return written;
+    }
+
+    /** Removes the given entries from the buffer unless they were overwritten after the write. */
+    void evict(Map<byte[], byte[]> written) {
+        for (Map.Entry<byte[], byte[]> entry : written.entrySet()) {
+            if (buffer.remove(entry.getKey(), entry.getValue())) {
+                bufferedBytes.addAndGet(-size(entry.getKey(), entry.getValue()));
+            }
+        }
+    }
+
+    /** Starts recording the writes of the current thread. */
+    void startSection() {
+        sectionOwner = Thread.currentThread();
+    }
+
+    /** Keeps the writes made since {@link #startSection()}. */
+    void endSection() {
+        sectionOwner = null;
+        sectionUndo.clear();
+        synchronized (uncommitted) {
+            sectionUncommitted.clear();
+        }
+    }
+
+    /** Reverts the writes made by the current thread since {@link #startSection()}. */
+    void discardSection() {
+        synchronized (uncommitted) {
+            for (byte[] key : sectionUncommitted) {
+                uncommitted.remove(key);
+            }
+        }
+        for (Map.Entry<byte[], byte[]> entry : sectionUndo.entrySet()) {
+            byte[] key = entry.getKey();
+            byte[] previous = entry.getValue();
+            byte[] current = previous == ABSENT ? buffer.remove(key) : buffer.put(key, previous);
+            long restored = previous == ABSENT ? 0 : size(key, previous);
+            long reverted = current == null ? 0 : size(key, current);
+            bufferedBytes.addAndGet(restored - reverted);
+        }
+        endSection();
+    }
+
+    private void buffer(byte[] key, byte[] value) {
+        byte[] previous = buffer.put(key, value);
+        if (sectionOwner == Thread.currentThread()) {
+            sectionUndo.putIfAbsent(key, previous == null ? ABSENT : previous);
+        }
+        long delta = size(key, value) - (previous == null ? 0 : size(key, previous));
+        bufferedBytes.addAndGet(delta);
+    }
+
+    private static long size(byte[] key, byte[] value) {
+        return key.length + value.length;
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + " over " + database.toString();
+    }
+
+    // IDatabase functionality
+    // -----------------------------------------------------------------------------------------
+
+    @Override
+    public boolean open() {
+        return database.open();
+    }
+
+    /** Writes any remaining buffered entries before closing the underlying database. */
+    @Override
+    public void close() {
+        if (database.isOpen()) {
+            evict(write());
+        }
+        database.close();
+    }
+
+    @Override
+    public void compact() {
+        database.compact();
+    }
+
+    @Override
+    public void drop() {
+        synchronized (uncommitted) {
+            uncommitted.clear();
+        }
+        buffer.clear();
+        bufferedBytes.set(0);
+        database.drop();
+    }
+
+    @Override
+    public Optional<String> getName() {
+        return database.getName();
+    }
+
+    @Override
+    public Optional<String> getPath() {
+        return database.getPath();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return database.isOpen();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return database.isClosed();
+    }
+
+    @Override
+    public boolean isLocked() {
+        return database.isLocked();
+    }
+
+    @Override
+    public PersistenceMethod getPersistenceMethod() {
+        return database.getPersistenceMethod();
+    }
+
+    @Override
+    public boolean isCreatedOnDisk() {
+        return database.isCreatedOnDisk();
+    }
+
+    @Override
+    public long approximateSize() {
+        return database.approximateSize();
+    }
+
+    // IKeyValueStore functionality
+    // ------------------------------------------------------------------------------------
+
+    @Override
+    public boolean isEmpty() {
+        return !iterate(null, null).hasNext();
+    }
+
+    @Override
+    public Iterator<byte[]> keys() {
+        return Iterators.transform(iterate(null, null), Map.Entry::getKey);
+    }
+
+    @Override
+    public Optional<byte[]> get(byte[] key) {
+        AbstractDB.check(key);
+
+        byte[] value = buffer.get(key);
+        if (value == null) {
+            return database.get(key);
+        } else {
+            return value == DELETED ? Optional.empty() : Optional.of(value);
+        }
+    }
+
+    @Override
+    public List<byte[]> getBatch(Collection<byte[]> keys) {
+        AbstractDB.check(keys);
+
+        List<byte[]> values = new ArrayList<>(keys.size());
+        List<byte[]> missing = new ArrayList<>();
+        for (byte[] key : keys) {
+            byte[] value = buffer.get(key);
+            values.add(value);
+            if (value == null) {
+                missing.add(key);
+            }
+        }
+
+        Iterator<byte[]> stored =
+                missing.isEmpty()
+                        ? Collections.emptyIterator()
+                        : database.getBatch(missing).iterator();
+        for (int i = 0; i < values.size(); i++) {
+            byte[] value = values.get(i);
+            if (value == null) {
+                values.set(i, stored.next());
+            } else if (value == DELETED) {
+                values.set(i, null);
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public void put(byte[] key, byte[] value) {
+        AbstractDB.check(key);
+        AbstractDB.check(value);
+        database.check();
+
+        synchronized (uncommitted) {
+            uncommitted.put(key, value);
+            if (sectionOwner == Thread.currentThread()) {
+                sectionUncommitted.add(key);
+            }
+        }
+    }
+
+    @Override
+    public void delete(byte[] key) {
+        AbstractDB.check(key);
+        database.check();
+
+        synchronized (uncommitted) {
+            uncommitted.put(key, DELETED);
+            if (sectionOwner == Thread.currentThread()) {
+                sectionUncommitted.add(key);
+            }
+        }
+    }
+
+    @Override
+    public void commit() {
+        database.check();
+
+        synchronized (uncommitted) {
+            for (Map.Entry<byte[], byte[]> entry : uncommitted.entrySet()) {
+                buffer(entry.getKey(), entry.getValue());
+            }
+            uncommitted.clear();
+        }
+    }
+
+    @Override
+    public void putBatch(Map<byte[], byte[]> input) {
+        AbstractDB.check(input.keySet());
+        AbstractDB.check(input.values());
+        database.check();
+
+        for (Map.Entry<byte[], byte[]> entry : input.entrySet()) {
+            buffer(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public void deleteBatch(Collection<byte[]> keys) {
+        AbstractDB.check(keys);
+        database.check();
+
+        for (byte[] key : keys) {
+            buffer(key, DELETED);
+        }
+    }
+
+    @Override
+    public void check() {
+        database.check();
+    }
+
+    @Override
+    public Iterator<Map.Entry<byte[], byte[]>> iterate(byte[] fromKey, byte[] toKey) {
+        NavigableMap<byte[], byte[]> range = buffer;
+        if (fromKey != null) {
+            range = range.tailMap(fromKey, true);
+        }
+        if (toKey != null) {
+            range = range.headMap(toKey, false);
+        }
+
+        // the entries of a concurrent map are immutable snapshots
+        List<Map.Entry<byte[], byte[]>> buffered = new ArrayList<>(range.entrySet());
+        if (buffered.isEmpty()) {
+            return database.iterate(fromKey, toKey);
+        }
+        return new MergingIterator(buffered.iterator(), database.iterate(fromKey, toKey));
+    }
+
+    @Override
+    public Iterator<Map.Entry<byte[], byte[]>> iteratePrefix(byte[] prefix) {
+        AbstractDB.check(prefix);
+
+        return iterate(prefix, AbstractDB.upperBound(prefix));
+    }
+
+    /**
+     * Merges the sorted buffered entries into the sorted stored entries. Buffered entries replace
+     * stored entries with the same key and buffered deletions are skipped.
+     */
+    private static final class MergingIterator implements Iterator<Map.Entry<byte[], byte[]>> {
+        private final Iterator<Map.Entry<byte[], byte[]>> buffered;
+        private final Iterator<Map.Entry<byte[], byte[]>> stored;
+        private Map.Entry<byte[], byte[]> nextBuffered;
+        private Map.Entry<byte[], byte[]> nextStored;
+        private Map.Entry<byte[], byte[]> next;
+
+        private MergingIterator(
+                Iterator<Map.Entry<byte[], byte[]>> buffered,
+                Iterator<Map.Entry<byte[], byte[]>> stored) {
+            this.buffered = buffered;
+            this.stored = stored;
+            this.nextBuffered = buffered.hasNext() ? buffered.next() : null;
+            this.nextStored = stored.hasNext() ? stored.next() : null;
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (next == null && (nextBuffered != null || nextStored != null)) {
+                int order =
+                        nextBuffered == null
+                                ? 1
+                                : nextStored == null
+                                        ? -1
+                                        : AbstractDB.compare(
+                                                nextBuffered.getKey(), nextStored.getKey());
+
+                if (order > 0) {
+                    next = nextStored;
+                    nextStored = stored.hasNext() ? stored.next() : null;
+                } else {
+                    if (order == 0) {
+                        // the stored entry is replaced by the buffered one
+                        nextStored = stored.hasNext() ? stored.next() : null;
+                    }
+                    if (nextBuffered.getValue() != DELETED) {
+                        next = nextBuffered;
+                    }
+                    nextBuffered = buffered.hasNext() ? buffered.next() : null;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<byte[], byte[]> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<byte[], byte[]> current = next;
+            advance();
+            return current;
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package org.aion.zero.impl.pendingState;
 
 import java.math.BigInteger;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -25,6 +28,7 @@ import org.aion.util.types.ByteArrayWrapper;
 import org.aion.zero.impl.blockchain.AionImpl.NetworkBestBlockCallback;
 import org.aion.zero.impl.blockchain.AionImpl.PendingTxCallback;
 import org.aion.zero.impl.blockchain.AionImpl.TransactionBroadcastCallback;
+import org.aion.zero.impl.db.AionRepositoryCache;
 import org.aion.zero.impl.pendingState.v1.PendingTxCacheV1;
 import org.aion.zero.impl.types.AionTxInfo;
 import org.aion.zero.impl.types.PendingTxDetails;
@@ -61,7 +65,13 @@ public final class AionPendingStateImpl implements IPendingState {
     private final AtomicReference<Block> currentBestBlock;
     private final PendingTxCacheV1 pendingTxCache;
 
-    private RepositoryCache pendingState;
+    private AionRepositoryCache pendingState;
+
+    /**
+     * The accounts read or written by each transaction applied to the pending state, used to find
+     * the transactions that must be executed again after a new best block.
+     */
+    private final Map<ByteArrayWrapper, Set<AionAddress>> pendingTxAccounts = new HashMap<>();
 
     /**
      * This buffer stores txs that come in with double the energy price as an existing tx with the same nonce
@@ -188,6 +198,24 @@ public final class AionPendingStateImpl implements IPendingState {
         return isSeedMode ? 0 : this.txPool.size();
     }
 
+    /**
+     * Returns the pooled transaction with the given hash, or {@code null} when the pool does not
+     * contain it.
+     */
+    public AionTransaction getPendingTransaction(ByteArrayWrapper txHash) {
+        if (isSeedMode) {
+            return null;
+        }
+
+        PooledTransaction pooledTx = txPool.getPoolTx(txHash);
+        return pooledTx == null ? null : pooledTx.tx;
+    }
+
+    /** Returns all the pooled transactions, including the ones not ready for the next block. */
+    public List<AionTransaction> getPooledTransactions() {
+        return isSeedMode ? new ArrayList<>() : this.txPool.getPoolTransactions();
+    }
+
     @Override
     public synchronized List<AionTransaction> getPendingTransactions() {
         return isSeedMode ? new ArrayList<>() : this.txPool.snapshot();
@@ -221,10 +249,22 @@ public final class AionPendingStateImpl implements IPendingState {
      * @param transactions transaction list come from the network.
      */
     public synchronized void addTransactionsFromNetwork(List<AionTransaction> transactions) {
-        List<AionTransaction> validTransactions = new ArrayList<>();
-
+        // skip the transactions validated before, including the repeated ones
+        List<AionTransaction> newTransactions = new ArrayList<>();
+        Set<ByteArrayWrapper> newHashes = new HashSet<>();
         for (AionTransaction tx : transactions) {
-            if (!TXValidator.isInCache(ByteArrayWrapper.wrap(tx.getTransactionHash())) && !validateTx(tx).isFail()) {
+            ByteArrayWrapper hash = ByteArrayWrapper.wrap(tx.getTransactionHash());
+            if (!TXValidator.isInCache(hash) && newHashes.add(hash)) {
+                newTransactions.add(tx);
+            }
+        }
+
+        // the signatures of the received transactions are verified together
+        List<TxResponse> responses = TXValidator.validateTxBatch(newTransactions, blockchain.isUnityForkEnabledAtNextBlock(), blockchain.isSignatureSwapForkEnabledAtNextBlock());
+        List<AionTransaction> validTransactions = new ArrayList<>();
+        for (int i = 0; i < newTransactions.size(); i++) {
+            AionTransaction tx = newTransactions.get(i);
+            if (!responses.get(i).isFail() && !validateTxForPendingState(tx).isFail()) {
                 validTransactions.add(tx);
             }
         }
@@ -243,6 +283,11 @@ public final class AionPendingStateImpl implements IPendingState {
             return response;
         }
 
+        return validateTxForPendingState(tx);
+    }
+
+    /** Performs the validations specific to the pending state after the transaction validation. */
+    private TxResponse validateTxForPendingState(AionTransaction tx) {
         if (!TransactionTypeValidator.isValid(tx)) {
             return TxResponse.INVALID_TX_TYPE;
         }
@@ -559,13 +604,21 @@ public final class AionPendingStateImpl implements IPendingState {
      */
     @Override
     public synchronized void applyBlockUpdate(Block newBlock, List<AionTxReceipt> receipts) {
+        applyBlockUpdate(newBlock, receipts, null);
+    }
+
+    @Override
+    public synchronized void applyBlockUpdate(
+            Block newBlock, List<AionTxReceipt> receipts, Set<AionAddress> touchedAccounts) {
 
         if (isSeedMode) {
             // seed mode doesn't need to update the pendingState
             return;
         }
 
-        if (currentBestBlock.get().isParentOf(newBlock)) {
+        Block previousBest = currentBestBlock.get();
+        boolean isChild = previousBest.isParentOf(newBlock);
+        if (isChild) {
             LOGGER_TX.info("PendingStateImpl.processBest: {}", newBlock.getShortDescr());
             processBestInternal(newBlock, receipts);
         } else {
@@ -589,9 +642,16 @@ public final class AionPendingStateImpl implements IPendingState {
         checkNetworkFullSynced();
         checkCloseToNetworkBest();
 
-        // Should update the pendingState before re run the transactions in txPool.
-        pendingState = blockchain.getRepository().startTracking();
-        rerunTxsInPool(currentBestBlock.get());
+        if (isChild
+                && touchedAccounts != null
+                && haveSameExecutionRules(previousBest.getNumber() + 1, newBlock.getNumber() + 1)) {
+            rerunAffectedTxsInPool(previousBest, currentBestBlock.get(), touchedAccounts);
+        } else {
+            // Should update the pendingState before re run the transactions in txPool.
+            pendingState = blockchain.getRepository().startTracking();
+            pendingTxAccounts.clear();
+            rerunTxsInPool(currentBestBlock.get());
+        }
 
         flushCachedTx();
         backupPendingTx();
@@ -852,6 +912,117 @@ public final class AionPendingStateImpl implements IPendingState {
         List<AionTransaction> pendingTxl = txPool.snapshotAll();
         LOGGER_TX.info("rerunTxsInPool - snapshotAll tx[{}]", pendingTxl.size());
 
+        rerunTxs(pendingTxl, block);
+    }
+
+    /**
+     * Re-executes only the pooled transactions affected by the new best block, which must be a
+     * child of the previous best block. The pending state of the accounts touched by the block is
+     * discarded, together with the state of all the accounts used by the transactions that used
+     * them, transitively. The transactions that used none of these accounts keep their results,
+     * since their accounts have the same state on top of the new block.
+     *
+     * @implNote The fees paid to the assumed miner are not tracked since every transaction pays
+     *     them, so the pending balance of the miner only includes the fees of the re-executed
+     *     transactions. All the transactions are executed again when the miner has pooled
+     *     transactions.
+     */
+    private void rerunAffectedTxsInPool(
+            Block previousBest, Block block, Set<AionAddress> touchedAccounts) {
+
+        addRepayTxToTxPool();
+
+        List<AionTransaction> pooled = txPool.snapshotAll();
+
+        Set<AionAddress> dirty = new HashSet<>(touchedAccounts);
+        dirty.add(previousBest.getCoinbase());
+        dirty.add(block.getCoinbase());
+        for (AionTransaction tx : pooled) {
+            if (tx.getSenderAddress().equals(previousBest.getCoinbase())
+                    || tx.getSenderAddress().equals(block.getCoinbase())) {
+                LOGGER_TX.debug("rerunAffectedTxsInPool - the miner has pooled transactions");
+                pendingState = blockchain.getRepository().startTracking();
+                pendingTxAccounts.clear();
+                rerunTxs(pooled, block);
+                return;
+            }
+        }
+
+        List<AionTransaction> affected = findAffectedTxs(pooled, dirty);
+        LOGGER_TX.info(
+                "rerunAffectedTxsInPool - affected tx[{}] of tx[{}], dirty accounts[{}]",
+                affected.size(),
+                pooled.size(),
+                dirty.size());
+
+        pendingState.evict(dirty);
+        rerunTxs(affected, block);
+    }
+
+    /**
+     * Finds the pooled transactions that must be executed again: the transactions that used any
+     * of the given accounts, the transactions that used any account used by them, and so on, and
+     * the transactions that were never executed on the pending state. The given set is extended
+     * with all the accounts used by these transactions and by the transactions no longer pooled.
+     *
+     * @return the affected transactions, in pool order
+     */
+    private List<AionTransaction> findAffectedTxs(
+            List<AionTransaction> pooled, Set<AionAddress> dirty) {
+        Set<ByteArrayWrapper> pooledHashes = new HashSet<>();
+        for (AionTransaction tx : pooled) {
+            pooledHashes.add(ByteArrayWrapper.wrap(tx.getTransactionHash()));
+        }
+
+        // the effects of the transactions that left the pool must be discarded
+        Iterator<Map.Entry<ByteArrayWrapper, Set<AionAddress>>> executed =
+                pendingTxAccounts.entrySet().iterator();
+        while (executed.hasNext()) {
+            Map.Entry<ByteArrayWrapper, Set<AionAddress>> entry = executed.next();
+            if (!pooledHashes.contains(entry.getKey())) {
+                dirty.addAll(entry.getValue());
+                executed.remove();
+            }
+        }
+
+        Set<ByteArrayWrapper> affected = new HashSet<>();
+        Map<AionAddress, List<ByteArrayWrapper>> txsByAccount = new HashMap<>();
+        Deque<AionAddress> toVisit = new ArrayDeque<>(dirty);
+        for (AionTransaction tx : pooled) {
+            ByteArrayWrapper hash = ByteArrayWrapper.wrap(tx.getTransactionHash());
+            Set<AionAddress> accounts = pendingTxAccounts.get(hash);
+            if (accounts == null) {
+                // not executed on the pending state yet, e.g. a repaid transaction
+                affected.add(hash);
+                if (dirty.add(tx.getSenderAddress())) {
+                    toVisit.add(tx.getSenderAddress());
+                }
+            } else {
+                for (AionAddress account : accounts) {
+                    txsByAccount.computeIfAbsent(account, a -> new ArrayList<>()).add(hash);
+                }
+            }
+        }
+
+        while (!toVisit.isEmpty()) {
+            for (ByteArrayWrapper hash :
+                    txsByAccount.getOrDefault(toVisit.poll(), Collections.emptyList())) {
+                if (affected.add(hash)) {
+                    for (AionAddress account : pendingTxAccounts.remove(hash)) {
+                        if (dirty.add(account)) {
+                            toVisit.add(account);
+                        }
+                    }
+                }
+            }
+        }
+
+        return pooled.stream()
+                .filter(tx -> affected.contains(ByteArrayWrapper.wrap(tx.getTransactionHash())))
+                .collect(Collectors.toList());
+    }
+
+    private void rerunTxs(List<AionTransaction> pendingTxl, Block block) {
         if (!pendingTxl.isEmpty()) {
             for (AionTransaction tx : pendingTxl) {
                 LOGGER_TX.debug("rerunTxsInPool - loop: {}", tx);
@@ -918,14 +1089,16 @@ public final class AionPendingStateImpl implements IPendingState {
             // assuming same person will mine the future block
             AionAddress miner = bestBlk.getCoinbase();
 
-            return BulkExecutor.executeTransactionWithNoPostExecutionWork(
+            // executed on a separate cache to find the accounts used by the transaction
+            AionRepositoryCache txTrack = pendingState.startTracking();
+            AionTxExecSummary summary = BulkExecutor.executeTransactionWithNoPostExecutionWork(
                     difficulty,
                     currentBlockNumber,
                     timestamp,
                     blockNrgLimit,
                     miner,
                     tx,
-                    pendingState,
+                    txTrack,
                     isLocalCall,
                     incrementSenderNonce,
                     blockchain.forkUtility.is040ForkActive(currentBlockNumber),
@@ -935,6 +1108,14 @@ public final class AionPendingStateImpl implements IPendingState {
                     bestBlk.getNumber(),
                     blockchain.forkUtility.isUnityForkActive(currentBlockNumber),
                     blockchain.forkUtility.isSignatureSwapForkActive(currentBlockNumber));
+
+            if (!summary.isRejected()) {
+                pendingTxAccounts.put(
+                        ByteArrayWrapper.wrap(tx.getTransactionHash()),
+                        accountsUsedBy(tx, txTrack.getCachedAddresses(), miner));
+                txTrack.flushTo(pendingState, true);
+            }
+            return summary;
         } catch (VmFatalException e) {
             LOGGER_VM.error("Shutdown due to a VM fatal error.", e);
             System.exit(SystemExitCodes.FATAL_VM_ERROR);
@@ -942,6 +1123,35 @@ public final class AionPendingStateImpl implements IPendingState {
         }
     }
 
+    /**
+     * @return the given accounts used by the transaction, with its sender and recipient, without
+     *     the miner unless the miner is the sender or recipient
+     */
+    private static Set<AionAddress> accountsUsedBy(
+            AionTransaction tx, Set<AionAddress> accounts, AionAddress miner) {
+        if (!miner.equals(tx.getSenderAddress()) && !miner.equals(tx.getDestinationAddress())) {
+            accounts.remove(miner);
+        }
+        accounts.add(tx.getSenderAddress());
+        if (tx.getDestinationAddress() != null) {
+            accounts.add(tx.getDestinationAddress());
+        }
+        return accounts;
+    }
+
+    /**
+     * @return {@code true} if the transactions are executed with the same fork rules in the two
+     *     given blocks
+     */
+    private boolean haveSameExecutionRules(long blockNumber, long otherBlockNumber) {
+        return blockchain.forkUtility.is040ForkActive(blockNumber)
+                        == blockchain.forkUtility.is040ForkActive(otherBlockNumber)
+                && blockchain.forkUtility.isUnityForkActive(blockNumber)
+                        == blockchain.forkUtility.isUnityForkActive(otherBlockNumber)
+                && blockchain.forkUtility.isSignatureSwapForkActive(blockNumber)
+                        == blockchain.forkUtility.isSignatureSwapForkActive(otherBlockNumber);
+    }
+
     public synchronized BigInteger bestPendingStateNonce(AionAddress addr) {
         // Because the seedmode has no pendingPool concept, it only pass the transaction to the network directly.
         // So we will return the chainRepo nonce instead of pendingState nonce.
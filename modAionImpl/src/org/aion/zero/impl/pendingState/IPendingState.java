@@ -1,8 +1,10 @@
 package org.aion.zero.impl.pendingState;
 
 import java.util.List;
+import java.util.Set;
 import org.aion.base.AionTransaction;
 import org.aion.base.AionTxReceipt;
+import org.aion.types.AionAddress;
 import org.aion.zero.impl.types.Block;
 import org.aion.zero.impl.blockchain.RepoState;
 
@@ -11,5 +13,15 @@ public interface IPendingState extends RepoState {
 
     void applyBlockUpdate(Block newBlock, List<AionTxReceipt> receipts);
 
+    /**
+     * Updates the pending state for a new best block, re-executing only the pending transactions
+     * affected by the accounts touched by the block when possible.
+     *
+     * @param touchedAccounts the accounts read or written by the execution of the new block, or
+     *     {@code null} if they are not known
+     */
+    void applyBlockUpdate(
+            Block newBlock, List<AionTxReceipt> receipts, Set<AionAddress> touchedAccounts);
+
     void setNewPendingReceiveForMining(boolean newPendingTxReceived);
 }
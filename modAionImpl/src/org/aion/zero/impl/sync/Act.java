@@ -26,4 +26,16 @@ public final class Act {
     public static final byte REQUEST_BLOCKS = 12;
 
     public static final byte RESPONSE_BLOCKS = 13;
+
+    public static final byte ANNOUNCE_TX_HASHES = 14;
+
+    public static final byte REQUEST_TXS = 15;
+
+    public static final byte SEND_COMPACT_BLOCKS = 16;
+
+    public static final byte COMPACT_BLOCK = 17;
+
+    public static final byte REQUEST_BLOCK_TXS = 18;
+
+    public static final byte RESPONSE_BLOCK_TXS = 19;
 }
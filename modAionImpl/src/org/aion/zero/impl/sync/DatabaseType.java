@@ -3,10 +3,17 @@ package org.aion.zero.impl.sync;
 /**
  * Lists the different databases for which trie nodes can be requested.
  *
+ * <p>The {@link #DETAILS} and {@link #CONTRACT_INDEX} entries are keyed by contract address. The
+ * contract details can also be requested by the hash of the address, which is the key of the
+ * account in the state trie. The {@link #STORAGE} and {@link #GRAPH} entries are keyed by their
+ * hash combined with the contract specific key used by the repository.
+ *
  * @author Alexandra Roatis
  */
 public enum DatabaseType {
     STATE,
     DETAILS,
-    STORAGE
+    STORAGE,
+    GRAPH,
+    CONTRACT_INDEX
 }
@@ -0,0 +1,896 @@
+package org.aion.zero.impl.sync;
+
+import static org.aion.p2p.V1Constants.BLOCKS_REQUEST_MAXIMUM_BATCH_SIZE;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.aion.db.impl.ByteArrayKeyValueDatabase;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.aion.p2p.INode;
+import org.aion.p2p.IP2pMgr;
+import org.aion.rlp.RLP;
+import org.aion.rlp.SharedRLPList;
+import org.aion.util.bytes.ByteUtil;
+import org.aion.util.types.ByteArrayWrapper;
+import org.aion.zero.impl.blockchain.AionBlockchainImpl;
+import org.aion.zero.impl.blockchain.ChainConfiguration;
+import org.aion.zero.impl.core.FastImportResult;
+import org.aion.zero.impl.db.AionRepositoryImpl;
+import org.aion.zero.impl.sync.msg.RequestBlocks;
+import org.aion.zero.impl.sync.msg.RequestTrieData;
+import org.aion.zero.impl.sync.msg.ResponseBlocks;
+import org.aion.zero.impl.trie.TrieNodeResult;
+import org.aion.zero.impl.types.Block;
+import org.aion.zero.impl.types.BlockUtil;
+import org.aion.zero.impl.valid.BlockDetailsValidator;
+import org.aion.zero.impl.valid.BlockHeaderValidator;
+import org.apache.commons.lang3.tuple.Pair;
+import org.slf4j.Logger;
+
+/**
+ * Synchronizes an empty database by downloading the world state of a recent block, called the
+ * pivot, instead of executing all the blocks from the genesis.
+ *
+ * <p>The fast sync goes through the following phases:
+ *
+ * <ol>
+ *   <li>{@link Phase#PIVOT}: the pivot is chosen a number of blocks below the best block of the
+ *       peers and must be returned with the same hash by several peers. A pivot whose chain fails
+ *       the checks of the {@link Phase#BLOCKS} phase is not chosen again.
+ *   <li>{@link Phase#STATE}: the state trie of the pivot, the contract details, the contract index
+ *       entries, the storage tries and the object graphs are traversed using {@link
+ *       RequestTrieData} messages. The requests are distributed over all the peers, with several
+ *       requests in flight for each peer. Every received value is verified against the hash
+ *       referencing it before being imported. The requests that time out are retried with other
+ *       peers. If some values cannot be retrieved any more, a newer pivot is chosen and the values
+ *       already imported are reused.
+ *   <li>{@link Phase#BLOCKS}: the pivot is stored and its ancestors are downloaded in parallel
+ *       batches and imported without execution, after checking that they are linked by their
+ *       hashes down to the genesis and their headers, including the rules depending on the three
+ *       ancestors of each header, such as the difficulty. The rules depending on the state of the
+ *       parent, such as the stake of the staker, cannot be checked. When a header is invalid, a
+ *       new pivot is chosen.
+ *   <li>{@link Phase#COMPLETE}: the state of the pivot is traversed in the local database and
+ *       downloaded again if any value is missing. Then the total difficulty of the imported blocks
+ *       is set, the pivot becomes the best block and the regular block sync continues from it.
+ * </ol>
+ *
+ * <p>The regular block sync is paused until the fast sync completes. The progress is stored in
+ * the fast sync database so that the fast sync resumes after a restart. When the peers do not
+ * answer the pivot and state requests for a while, the fast sync is abandoned and the regular
+ * block sync starts from the genesis.
+ */
+public final class FastSyncManager {
+
+    private static final Logger log = AionLoggerFactory.getLogger(LogEnum.SYNC.name());
+
+    /** The stages of the fast sync. */
+    enum Phase {
+        PIVOT,
+        STATE,
+        BLOCKS,
+        COMPLETE
+    }
+
+    // the pivot is chosen this many blocks below the best block of the peers
+    @VisibleForTesting static final int PIVOT_DISTANCE = 128;
+    // the number of peers that must agree on the pivot
+    @VisibleForTesting static final int MIN_PIVOT_PEERS = 3;
+    private static final int MAX_PIVOT_PEERS = 5;
+    // the number of ancestors needed to check a header
+    private static final int ANCESTOR_DEPTH = 3;
+    // the number of requests sent to a peer before receiving the responses
+    private static final int MAX_REQUESTS_PER_PEER = 16;
+    private static final long REQUEST_TIMEOUT_MS = 10_000L;
+    // the peers that fail or time out this many times are not used for a while
+    private static final int MAX_PEER_FAILURES = 5;
+    private static final long PEER_BACKOFF_MS = 60_000L;
+    // a request that times out this many times indicates that the pivot state was pruned
+    private static final int MAX_TASK_ATTEMPTS = 10;
+    // the number of values read from the local database at each step, when resuming
+    private static final int MAX_LOCAL_TASKS = 10_000;
+    private static final long STEP_DELAY_MS = 50L;
+    private static final long PROGRESS_LOG_MS = 10_000L;
+    // the fast sync is abandoned when no valid response is received for this long
+    private static final long NO_RESPONSE_TIMEOUT_MS = 300_000L;
+
+    private static final byte[] PHASE_KEY = "phase".getBytes();
+    private static final byte[] PIVOT_KEY = "pivot".getBytes();
+    private static final byte TASK_PREFIX = 0x01;
+
+    private final AionBlockchainImpl chain;
+    private final IP2pMgr p2pMgr;
+    private final SyncMgr syncMgr;
+    private final ByteArrayKeyValueDatabase database;
+    private final BlockHeaderValidator headerValidator;
+
+    // filled by the message handlers and consumed by the fast sync thread
+    private final BlockingQueue<TrieNodeWrapper> receivedNodes = new LinkedBlockingQueue<>();
+    private final BlockingQueue<BlocksWrapper> receivedBlocks = new LinkedBlockingQueue<>();
+
+    private final ScheduledExecutorService executor;
+
+    // the remaining fields are accessed only by the fast sync thread
+    private volatile Phase phase;
+    private Block pivot;
+    private Block pivotParent;
+
+    // pivot selection
+    private long pivotRequestTime;
+    private final Map<Integer, Pair<Block, Block>> pivotCandidates = new HashMap<>();
+    // the pivots whose chain contains invalid headers
+    private final Set<ByteArrayWrapper> rejectedPivots = new HashSet<>();
+
+    // state download, the pending tasks are processed in depth first order to limit their number
+    private final Deque<StateSyncTask> pendingTasks = new ArrayDeque<>();
+    private final Set<ByteArrayWrapper> taskIds = new HashSet<>();
+    private final Map<ByteArrayWrapper, StateRequest> stateRequests = new HashMap<>();
+    private final Map<ByteArrayWrapper, Integer> taskAttempts = new HashMap<>();
+    private long importedNodes = 0;
+
+    // block download, the batches are identified by the number of their first (highest) block
+    private long lowestNumber;
+    private byte[] lowestParentHash;
+    private final Map<Long, BlockRequest> blockRequests = new HashMap<>();
+    private final TreeMap<Long, BlocksWrapper> downloadedBatches = new TreeMap<>();
+    // the lowest blocks linked to the pivot, lowest first, whose headers are checked once their
+    // ancestors are downloaded; the blocks not yet stored are imported after the check
+    private final Deque<Block> uncheckedBlocks = new ArrayDeque<>();
+
+    // peer management
+    private final Map<Integer, Integer> peerRequests = new HashMap<>();
+    private final Map<Integer, Integer> peerFailures = new HashMap<>();
+    private final Map<Integer, Long> peerBackoff = new HashMap<>();
+
+    private long lastProgressLog = 0;
+    private long lastResponse;
+
+    /**
+     * @param chain the blockchain storing the downloaded state and blocks
+     * @param p2pMgr the peer to peer manager used to send the requests
+     * @param syncMgr the regular block sync, paused during the fast sync
+     * @param database the database storing the progress of the fast sync
+     */
+    public FastSyncManager(
+            AionBlockchainImpl chain,
+            IP2pMgr p2pMgr,
+            SyncMgr syncMgr,
+            ByteArrayKeyValueDatabase database) {
+        this.chain = chain;
+        this.p2pMgr = p2pMgr;
+        this.syncMgr = syncMgr;
+        this.database = database;
+        this.headerValidator = new ChainConfiguration().createBlockHeaderValidator();
+        this.executor =
+                Executors.newSingleThreadScheduledExecutor(
+                        r -> {
+                            Thread t = new Thread(r, "sync-fast");
+                            t.setDaemon(true);
+                            return t;
+                        });
+
+        this.phase = loadProgress();
+    }
+
+    /**
+     * Starts or resumes the fast sync. The fast sync only starts when the database contains only
+     * the genesis block, otherwise the regular block sync is used.
+     */
+    public void start() {
+        if (phase == Phase.COMPLETE) {
+            log.info("<fast-sync not required>");
+            return;
+        }
+
+        log.info("<fast-sync starting phase={}>", phase);
+        lastResponse = System.currentTimeMillis();
+        syncMgr.setFastSyncActive(true);
+        executor.scheduleWithFixedDelay(this::step, 0L, STEP_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.error("<fast-sync did not stop in time>");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** @return {@code true} while the fast sync is downloading the state or the blocks */
+    public boolean isActive() {
+        return phase != Phase.COMPLETE;
+    }
+
+    /** @return the queue receiving the trie data responses */
+    public BlockingQueue<TrieNodeWrapper> getReceivedNodes() {
+        return receivedNodes;
+    }
+
+    /**
+     * Queues the blocks received from a peer to be checked by the fast sync thread.
+     *
+     * @param peerId the identifier of the peer that sent the blocks
+     * @param displayId the display identifier of the peer that sent the blocks
+     * @param response the blocks received from the peer
+     */
+    public void validateAndAddBlocks(int peerId, String displayId, ResponseBlocks response) {
+        if (isActive() && !response.getBlocks().isEmpty()) {
+            receivedBlocks.add(new BlocksWrapper(peerId, displayId, response.getBlocks()));
+        }
+    }
+
+    private Phase loadProgress() {
+        byte[] stored = database.get(PHASE_KEY).orElse(null);
+        if (stored == null) {
+            // only an empty database is synchronized using the state of a pivot block
+            return chain.getBestBlock().getNumber() == 0 ? Phase.PIVOT : Phase.COMPLETE;
+        }
+
+        Phase loaded = Phase.values()[stored[0]];
+        if (loaded == Phase.STATE || loaded == Phase.BLOCKS) {
+            SharedRLPList blocks = (SharedRLPList) RLP.decode2SharedList(database.get(PIVOT_KEY).get()).get(0);
+            pivot = BlockUtil.newBlockFromRlp(blocks.get(0).getRLPData());
+            pivotParent = BlockUtil.newBlockFromRlp(blocks.get(1).getRLPData());
+        }
+
+        if (loaded == Phase.STATE) {
+            Iterator<byte[]> keys = database.keys();
+            while (keys.hasNext()) {
+                byte[] key = keys.next();
+                if (key.length > 0 && key[0] == TASK_PREFIX) {
+                    StateSyncTask task = StateSyncTask.decode(database.get(key).orElse(null));
+                    if (task != null && taskIds.add(task.getId())) {
+                        pendingTasks.add(task);
+                    }
+                }
+            }
+            if (pendingTasks.isEmpty()) {
+                addTask(StateSyncTask.forStateRoot(pivot.getStateRoot()));
+                database.commit();
+            }
+            log.info("<fast-sync resuming state download pivot={} tasks={}>", pivot.getNumber(), pendingTasks.size());
+        } else if (loaded == Phase.BLOCKS) {
+            initBlockDownload();
+        }
+        return loaded;
+    }
+
+    private void setPhase(Phase phase) {
+        this.phase = phase;
+        database.put(PHASE_KEY, new byte[] {(byte) phase.ordinal()});
+        database.commit();
+        log.info("<fast-sync phase={}>", phase);
+    }
+
+    private void step() {
+        try {
+            switch (phase) {
+                case PIVOT:
+                    selectPivot();
+                    break;
+                case STATE:
+                    downloadState();
+                    break;
+                case BLOCKS:
+                    downloadBlocks();
+                    break;
+                default:
+                    break;
+            }
+            checkResponses();
+            logProgress();
+        } catch (Exception e) {
+            log.error("<fast-sync step failed>", e);
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // pivot selection
+    // ---------------------------------------------------------------------------------------------
+
+    private void selectPivot() {
+        long now = System.currentTimeMillis();
+
+        BlocksWrapper received;
+        while ((received = receivedBlocks.poll()) != null) {
+            List<Block> blocks = received.blocks;
+            if (blocks.size() == 2
+                    && Arrays.equals(blocks.get(1).getParentHash(), blocks.get(0).getHash())
+                    && isValidBlock(blocks.get(0))
+                    && isValidBlock(blocks.get(1))) {
+                pivotCandidates.put(received.nodeId, Pair.of(blocks.get(1), blocks.get(0)));
+                lastResponse = now;
+            } else {
+                penalize(received.nodeId, received.displayId);
+            }
+        }
+
+        // accept the pivot once enough peers returned the same block
+        Map<ByteArrayWrapper, Integer> votes = new HashMap<>();
+        for (Pair<Block, Block> candidate : pivotCandidates.values()) {
+            if (rejectedPivots.contains(candidate.getLeft().getHashWrapper())) {
+                continue;
+            }
+            int count = votes.merge(candidate.getLeft().getHashWrapper(), 1, Integer::sum);
+            if (count >= MIN_PIVOT_PEERS) {
+                startStateDownload(candidate.getLeft(), candidate.getRight());
+                return;
+            }
+        }
+
+        if (now - pivotRequestTime < REQUEST_TIMEOUT_MS) {
+            return;
+        }
+
+        // request the pivot from the peers with the highest best blocks
+        List<INode> peers = new ArrayList<>(p2pMgr.getActiveNodes().values());
+        peers.sort((a, b) -> Long.compare(b.getBestBlockNumber(), a.getBestBlockNumber()));
+        if (peers.size() < MIN_PIVOT_PEERS) {
+            return;
+        }
+
+        // the number known to at least the minimum number of peers
+        long pivotNumber = peers.get(MIN_PIVOT_PEERS - 1).getBestBlockNumber() - PIVOT_DISTANCE;
+        if (pivotNumber < 2) {
+            return;
+        }
+
+        pivotCandidates.clear();
+        pivotRequestTime = now;
+        for (INode peer : peers.subList(0, Math.min(peers.size(), MAX_PIVOT_PEERS))) {
+            p2pMgr.send(peer.getIdHash(), peer.getIdShort(), new RequestBlocks(pivotNumber - 1, 2, false));
+        }
+        log.debug("<fast-sync requesting pivot={} peers={}>", pivotNumber, Math.min(peers.size(), MAX_PIVOT_PEERS));
+    }
+
+    private void startStateDownload(Block pivot, Block parent) {
+        this.pivot = pivot;
+        this.pivotParent = parent;
+        pivotCandidates.clear();
+
+        clearTasks();
+        addTask(StateSyncTask.forStateRoot(pivot.getStateRoot()));
+        database.put(PIVOT_KEY, RLP.encodeList(RLP.encodeElement(pivot.getEncoded()), RLP.encodeElement(parent.getEncoded())));
+        setPhase(Phase.STATE);
+        log.info("<fast-sync pivot number={} hash={} state-root={}>", pivot.getNumber(), pivot.getShortHash(), ByteArrayWrapper.wrap(pivot.getStateRoot()));
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // state download
+    // ---------------------------------------------------------------------------------------------
+
+    private void downloadState() {
+        processReceivedNodes();
+        expireStateRequests();
+
+        if (pendingTasks.isEmpty() && stateRequests.isEmpty()) {
+            log.info("<fast-sync state downloaded nodes={}>", importedNodes);
+            chain.storeFastSyncPivot(pivot, pivotParent);
+            setPhase(Phase.BLOCKS);
+            initBlockDownload();
+            return;
+        }
+
+        if (phase == Phase.STATE) {
+            processLocalTasks();
+            sendStateRequests();
+        }
+        database.commit();
+    }
+
+    private void processReceivedNodes() {
+        TrieNodeWrapper received;
+        while ((received = receivedNodes.poll()) != null) {
+            ByteArrayWrapper requestKey = requestKey(received.getDbType(), received.getNodeKey().toBytes());
+            StateRequest request = stateRequests.get(requestKey);
+            if (request == null || request.peerId != received.getPeerId()) {
+                // a late response for a request that timed out
+                continue;
+            }
+            stateRequests.remove(requestKey);
+            releasePeer(request.peerId);
+
+            boolean valid = true;
+            for (StateSyncTask task : request.tasks) {
+                valid &= complete(task, received.getNodeValue(), received.getReferencedNodes(), true);
+            }
+
+            if (valid) {
+                peerFailures.remove(request.peerId);
+                lastResponse = System.currentTimeMillis();
+            } else {
+                penalize(request.peerId, request.displayId);
+            }
+        }
+    }
+
+    /**
+     * Verifies and imports the value of a task and adds the tasks for the values it references.
+     * The referenced nodes received with the value are completed immediately.
+     *
+     * @return {@code false} if the value is invalid, in which case the task is requested again
+     */
+    private boolean complete(StateSyncTask task, byte[] value, Map<ByteArrayWrapper, byte[]> referencedNodes, boolean store) {
+        StateSyncTask.Result result = task.process(value);
+        if (result == null) {
+            log.debug("<fast-sync invalid value for task={}>", task);
+            pendingTasks.add(task);
+            return false;
+        }
+
+        if (store) {
+            TrieNodeResult imported = chain.importTrieNode(result.getImportKey(), value, task.getType());
+            if (imported == TrieNodeResult.IMPORTED) {
+                importedNodes++;
+            } else if (!imported.isSuccessful()) {
+                // the local value was stored by the regular sync and is kept
+                log.debug("<fast-sync import result={} task={}>", imported, task);
+            }
+        }
+
+        // all the children are stored before completing the received ones, so that the children
+        // are not lost when one of them is invalid or the node stops
+        removeTask(task);
+        List<StateSyncTask> receivedChildren = new ArrayList<>();
+        for (StateSyncTask child : result.getChildren()) {
+            if (child.getType() == DatabaseType.STATE && referencedNodes.containsKey(ByteArrayWrapper.wrap(child.getKey()))) {
+                if (storeTask(child)) {
+                    receivedChildren.add(child);
+                }
+            } else {
+                addTask(child);
+            }
+        }
+
+        boolean valid = true;
+        for (StateSyncTask child : receivedChildren) {
+            // an invalid child is queued again and its siblings are still completed
+            valid &= complete(child, referencedNodes.get(ByteArrayWrapper.wrap(child.getKey())), referencedNodes, true);
+        }
+        return valid;
+    }
+
+    /** Completes the pending tasks whose values are already present in the local database. */
+    private void processLocalTasks() {
+        int processed = 0;
+        List<StateSyncTask> missing = new ArrayList<>();
+        while (processed < MAX_LOCAL_TASKS && !pendingTasks.isEmpty()) {
+            StateSyncTask task = pendingTasks.pollLast();
+            byte[] value = chain.getRepository().getTrieNode(task.getKey(), task.getType());
+            if (value == null || task.process(value) == null) {
+                missing.add(task);
+                if (missing.size() >= MAX_REQUESTS_PER_PEER * Math.max(1, p2pMgr.getActiveNodes().size())) {
+                    break;
+                }
+            } else {
+                complete(task, value, Map.of(), false);
+                processed++;
+            }
+        }
+        pendingTasks.addAll(missing);
+    }
+
+    private void sendStateRequests() {
+        long now = System.currentTimeMillis();
+        for (INode peer : availablePeers(pivot.getNumber())) {
+            int requests = peerRequests.getOrDefault(peer.getIdHash(), 0);
+            while (requests < MAX_REQUESTS_PER_PEER && !pendingTasks.isEmpty()) {
+                StateSyncTask task = pendingTasks.pollLast();
+                ByteArrayWrapper requestKey = requestKey(task.getType(), task.getKey());
+                StateRequest existing = stateRequests.get(requestKey);
+                if (existing != null) {
+                    // the same value is requested for another path
+                    existing.tasks.add(task);
+                    continue;
+                }
+
+                // only the state trie nodes are returned with the nodes they reference
+                int limit = task.getType() == DatabaseType.STATE ? 0 : 1;
+                p2pMgr.send(peer.getIdHash(), peer.getIdShort(), new RequestTrieData(task.getKey(), task.getType(), limit));
+                stateRequests.put(requestKey, new StateRequest(peer.getIdHash(), peer.getIdShort(), now, task));
+                requests++;
+            }
+            peerRequests.put(peer.getIdHash(), requests);
+        }
+    }
+
+    private void expireStateRequests() {
+        long now = System.currentTimeMillis();
+        Iterator<StateRequest> iterator = stateRequests.values().iterator();
+        boolean pruned = false;
+        while (iterator.hasNext()) {
+            StateRequest request = iterator.next();
+            if (now - request.sentAt > REQUEST_TIMEOUT_MS) {
+                iterator.remove();
+                releasePeer(request.peerId);
+                penalize(request.peerId, request.displayId);
+                for (StateSyncTask task : request.tasks) {
+                    int attempts = taskAttempts.merge(task.getId(), 1, Integer::sum);
+                    pruned |= attempts >= MAX_TASK_ATTEMPTS;
+                    pendingTasks.add(task);
+                }
+            }
+        }
+
+        if (pruned) {
+            // the peers no longer have the state of the pivot, the values already imported are
+            // found in the local database when traversing the state of the new pivot
+            log.info("<fast-sync the state of pivot={} is no longer available, choosing a new pivot>", pivot.getNumber());
+            clearTasks();
+            stateRequests.clear();
+            peerRequests.clear();
+            setPhase(Phase.PIVOT);
+        }
+    }
+
+    private void addTask(StateSyncTask task) {
+        if (storeTask(task)) {
+            pendingTasks.add(task);
+        }
+    }
+
+    /**
+     * Stores a task without queuing it, for the tasks processed immediately.
+     *
+     * @return {@code false} if the task is already known
+     */
+    private boolean storeTask(StateSyncTask task) {
+        if (taskIds.add(task.getId())) {
+            database.put(taskKey(task), task.encode());
+            return true;
+        }
+        return false;
+    }
+
+    private void removeTask(StateSyncTask task) {
+        taskIds.remove(task.getId());
+        taskAttempts.remove(task.getId());
+        database.delete(taskKey(task));
+    }
+
+    private void clearTasks() {
+        for (ByteArrayWrapper id : taskIds) {
+            database.delete(ByteUtil.merge(new byte[] {TASK_PREFIX}, id.toBytes()));
+        }
+        pendingTasks.clear();
+        taskIds.clear();
+        taskAttempts.clear();
+        database.commit();
+    }
+
+    private static byte[] taskKey(StateSyncTask task) {
+        return ByteUtil.merge(new byte[] {TASK_PREFIX}, task.getId().toBytes());
+    }
+
+    private static ByteArrayWrapper requestKey(DatabaseType type, byte[] key) {
+        return ByteArrayWrapper.wrap(ByteUtil.merge(new byte[] {(byte) type.ordinal()}, key));
+    }
+
+    /**
+     * Traverses the world state with the given root in the local database, including the contract
+     * details, the storage tries and the object graphs.
+     *
+     * @param repository the repository storing the world state
+     * @param stateRoot the root of the world state
+     * @return a task whose value is missing or invalid, or {@code null} if the state is complete
+     */
+    @VisibleForTesting
+    static StateSyncTask findMissingValue(AionRepositoryImpl repository, byte[] stateRoot) {
+        Deque<StateSyncTask> tasks = new ArrayDeque<>();
+        Set<ByteArrayWrapper> visited = new HashSet<>();
+        tasks.add(StateSyncTask.forStateRoot(stateRoot));
+        while (!tasks.isEmpty()) {
+            StateSyncTask task = tasks.pollLast();
+            if (!visited.add(task.getId())) {
+                continue;
+            }
+            StateSyncTask.Result result = task.process(repository.getTrieNode(task.getKey(), task.getType()));
+            if (result == null) {
+                return task;
+            }
+            tasks.addAll(result.getChildren());
+        }
+        return null;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // block download
+    // ---------------------------------------------------------------------------------------------
+
+    private void initBlockDownload() {
+        Pair<ByteArrayWrapper, Long> missing = chain.findMissingAncestor(pivot);
+        if (missing == null) {
+            lowestNumber = 0;
+            lowestParentHash = null;
+        } else {
+            lowestNumber = missing.getRight() + 1;
+            lowestParentHash = missing.getLeft().toBytes();
+        }
+        blockRequests.clear();
+        downloadedBatches.clear();
+
+        // the lowest stored blocks are checked again once their ancestors are downloaded
+        uncheckedBlocks.clear();
+        byte[] parentHash = lowestParentHash;
+        for (long number = lowestNumber; lowestNumber > 0 && number <= pivot.getNumber() && uncheckedBlocks.size() < ANCESTOR_DEPTH; number++) {
+            Block child = null;
+            for (Block block : chain.getBlocksByNumber(number)) {
+                if (Arrays.equals(block.getParentHash(), parentHash)) {
+                    child = block;
+                    break;
+                }
+            }
+            if (child == null) {
+                break;
+            }
+            uncheckedBlocks.addLast(child);
+            parentHash = child.getHash();
+        }
+    }
+
+    private void downloadBlocks() {
+        BlocksWrapper received;
+        while ((received = receivedBlocks.poll()) != null) {
+            BlockRequest request = blockRequests.get(received.firstBlockNumber);
+            if (request != null && request.peerId == received.nodeId) {
+                blockRequests.remove(received.firstBlockNumber);
+                releasePeer(request.peerId);
+                downloadedBatches.put(received.firstBlockNumber, received);
+            }
+        }
+
+        importBatches();
+
+        if (lowestNumber == 0) {
+            StateSyncTask missing = findMissingValue(chain.getRepository(), pivot.getStateRoot());
+            if (missing != null) {
+                // the values lost by a crash are downloaded again, the blocks are already stored
+                log.warn("<fast-sync incomplete state pivot={} missing={}, resuming the state download>", pivot.getNumber(), missing);
+                clearTasks();
+                addTask(StateSyncTask.forStateRoot(pivot.getStateRoot()));
+                setPhase(Phase.STATE);
+                return;
+            }
+
+            chain.completeFastSync(pivot);
+            setPhase(Phase.COMPLETE);
+            syncMgr.setFastSyncActive(false);
+            executor.shutdown();
+            return;
+        }
+
+        // expire the requests that timed out
+        long now = System.currentTimeMillis();
+        Iterator<BlockRequest> iterator = blockRequests.values().iterator();
+        while (iterator.hasNext()) {
+            BlockRequest request = iterator.next();
+            if (now - request.sentAt > REQUEST_TIMEOUT_MS) {
+                iterator.remove();
+                releasePeer(request.peerId);
+                penalize(request.peerId, request.displayId);
+            }
+        }
+
+        sendBlockRequests();
+    }
+
+    /** Imports the downloaded batches that continue the imported blocks down to the genesis. */
+    private void importBatches() {
+        while (lowestNumber > 0 && downloadedBatches.containsKey(lowestNumber - 1)) {
+            BlocksWrapper batch = downloadedBatches.remove(lowestNumber - 1);
+            for (Block block : batch.blocks) {
+                if (block.getNumber() != lowestNumber - 1
+                        || !Arrays.equals(block.getHash(), lowestParentHash)
+                        || !isValidBlock(block)) {
+                    // the rest of the batch is requested again
+                    log.debug("<fast-sync invalid block number={} peer={}>", block.getNumber(), batch.displayId);
+                    penalize(batch.nodeId, batch.displayId);
+                    break;
+                }
+
+                if (!checkAndImport(block)) {
+                    return;
+                }
+
+                if (block.getNumber() == 0) {
+                    // the genesis is already stored and its hash matched
+                    lowestNumber = 0;
+                    break;
+                }
+                lowestNumber = block.getNumber();
+                lowestParentHash = block.getParentHash();
+            }
+        }
+
+        // the batches that no longer match the imported blocks are discarded
+        downloadedBatches.tailMap(lowestNumber, true).clear();
+    }
+
+    /**
+     * Adds the given block below the unchecked blocks and imports the highest ones once their
+     * ancestors are known. At the genesis, the remaining blocks are checked against the ancestors
+     * they have.
+     *
+     * @return {@code false} if the download was reset, either for a new pivot after finding an
+     *     invalid header or because a block could not be imported
+     */
+    private boolean checkAndImport(Block lowest) {
+        uncheckedBlocks.addFirst(lowest);
+        while (uncheckedBlocks.size() > ANCESTOR_DEPTH || (lowest.getNumber() == 0 && uncheckedBlocks.size() > 1)) {
+            // the highest block followed by its ancestors
+            Iterator<Block> blocks = uncheckedBlocks.descendingIterator();
+            Block block = blocks.next();
+            Block parent = blocks.next();
+            Block grandparent = blocks.hasNext() ? blocks.next() : null;
+            Block greatGrandparent = blocks.hasNext() ? blocks.next() : null;
+
+            if (!chain.isValidWithAncestorsWithoutState(block.getHeader(), parent, grandparent, greatGrandparent)) {
+                rejectPivot(block);
+                return false;
+            }
+
+            FastImportResult result = chain.tryFastImport(block);
+            if (!result.isSuccessful() && !result.isKnown()) {
+                // the blocks above the stored ones are downloaded again
+                log.debug("<fast-sync import result={} block number={}>", result, block.getNumber());
+                initBlockDownload();
+                return false;
+            }
+            uncheckedBlocks.pollLast();
+        }
+        return true;
+    }
+
+    /** Abandons the current pivot, whose chain contains the given invalid block. */
+    private void rejectPivot(Block invalid) {
+        log.warn("<fast-sync invalid header number={} hash={} below pivot={}, choosing a new pivot>", invalid.getNumber(), invalid.getShortHash(), pivot.getNumber());
+        rejectedPivots.add(pivot.getHashWrapper());
+        blockRequests.clear();
+        downloadedBatches.clear();
+        uncheckedBlocks.clear();
+        peerRequests.clear();
+        clearTasks();
+        setPhase(Phase.PIVOT);
+    }
+
+    private void sendBlockRequests() {
+        long now = System.currentTimeMillis();
+        // the next batch to request, skipping the batches already requested or downloaded
+        long first = lowestNumber - 1;
+        for (INode peer : availablePeers(lowestNumber)) {
+            int requests = peerRequests.getOrDefault(peer.getIdHash(), 0);
+            while (requests < MAX_REQUESTS_PER_PEER && first >= 0) {
+                if (!blockRequests.containsKey(first) && !downloadedBatches.containsKey(first)) {
+                    int count = (int) Math.min(BLOCKS_REQUEST_MAXIMUM_BATCH_SIZE, first + 1);
+                    p2pMgr.send(peer.getIdHash(), peer.getIdShort(), new RequestBlocks(first, count, true));
+                    blockRequests.put(first, new BlockRequest(peer.getIdHash(), peer.getIdShort(), now));
+                    requests++;
+                }
+                first -= BLOCKS_REQUEST_MAXIMUM_BATCH_SIZE;
+            }
+            peerRequests.put(peer.getIdHash(), requests);
+        }
+    }
+
+    private boolean isValidBlock(Block block) {
+        return headerValidator.validate(block.getHeader(), log)
+                && BlockDetailsValidator.isValidTxTrieRoot(block.getTxTrieRoot(), block.getTransactionsList(), block.getNumber(), log);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // peer management
+    // ---------------------------------------------------------------------------------------------
+
+    /** @return the peers that have the given block and are not backed off */
+    private List<INode> availablePeers(long number) {
+        long now = System.currentTimeMillis();
+        List<INode> peers = new ArrayList<>();
+        for (INode peer : p2pMgr.getActiveNodes().values()) {
+            Long backoff = peerBackoff.get(peer.getIdHash());
+            if (backoff != null && backoff > now) {
+                continue;
+            }
+            if (peer.getBestBlockNumber() >= number) {
+                peers.add(peer);
+            }
+        }
+        return peers;
+    }
+
+    private void releasePeer(int peerId) {
+        peerRequests.computeIfPresent(peerId, (id, requests) -> requests > 1 ? requests - 1 : null);
+    }
+
+    private void penalize(int peerId, String displayId) {
+        int failures = peerFailures.merge(peerId, 1, Integer::sum);
+        if (failures >= MAX_PEER_FAILURES) {
+            log.debug("<fast-sync backing off peer={} failures={}>", displayId, failures);
+            peerFailures.remove(peerId);
+            peerBackoff.put(peerId, System.currentTimeMillis() + PEER_BACKOFF_MS);
+            p2pMgr.errCheck(peerId, displayId);
+        }
+    }
+
+    /**
+     * Abandons the fast sync when the peers stopped answering the pivot or state requests, for
+     * example when they do not support them. The time without connected peers is not counted.
+     * Once the blocks are being stored the fast sync is completed instead.
+     */
+    private void checkResponses() {
+        long now = System.currentTimeMillis();
+        if (phase == Phase.BLOCKS || phase == Phase.COMPLETE || p2pMgr.getActiveNodes().isEmpty()) {
+            lastResponse = now;
+            return;
+        }
+        if (now - lastResponse < NO_RESPONSE_TIMEOUT_MS) {
+            return;
+        }
+
+        log.warn("<fast-sync no response from the peers for {} seconds, continuing with the regular block sync>", (now - lastResponse) / 1000);
+        clearTasks();
+        stateRequests.clear();
+        peerRequests.clear();
+        setPhase(Phase.COMPLETE);
+        syncMgr.setFastSyncActive(false);
+        executor.shutdown();
+    }
+
+    private void logProgress() {
+        long now = System.currentTimeMillis();
+        if (now - lastProgressLog > PROGRESS_LOG_MS) {
+            lastProgressLog = now;
+            if (phase == Phase.STATE) {
+                log.info("<fast-sync state pivot={} imported={} pending={} requests={} peers={}>", pivot.getNumber(), importedNodes, pendingTasks.size(), stateRequests.size(), peerRequests.size());
+            } else if (phase == Phase.BLOCKS) {
+                log.info("<fast-sync blocks pivot={} lowest={} requests={} peers={}>", pivot.getNumber(), lowestNumber, blockRequests.size(), peerRequests.size());
+            }
+        }
+    }
+
+    /** A trie data request in flight, for one or more tasks with the same key. */
+    private static final class StateRequest {
+        private final int peerId;
+        private final String displayId;
+        private final long sentAt;
+        private final List<StateSyncTask> tasks = new ArrayList<>();
+
+        private StateRequest(int peerId, String displayId, long sentAt, StateSyncTask task) {
+            this.peerId = peerId;
+            this.displayId = displayId;
+            this.sentAt = sentAt;
+            this.tasks.add(task);
+        }
+    }
+
+    /** A block request in flight. */
+    private static final class BlockRequest {
+        private final int peerId;
+        private final String displayId;
+        private final long sentAt;
+
+        private BlockRequest(int peerId, String displayId, long sentAt) {
+            this.peerId = peerId;
+            this.displayId = displayId;
+            this.sentAt = sentAt;
+        }
+    }
+}
@@ -0,0 +1,442 @@
+package org.aion.zero.impl.sync;
+
+import static org.aion.crypto.HashUtil.EMPTY_DATA_HASH;
+import static org.aion.crypto.HashUtil.h256;
+import static org.aion.util.bytes.ByteUtil.EMPTY_BYTE_ARRAY;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.aion.base.AccountState;
+import org.aion.base.ConstantUtil;
+import org.aion.base.InternalVmType;
+import org.aion.precompiled.ContractInfo;
+import org.aion.rlp.CompactEncoder;
+import org.aion.rlp.RLP;
+import org.aion.rlp.RLPElement;
+import org.aion.rlp.SharedRLPList;
+import org.aion.rlp.Value;
+import org.aion.types.AionAddress;
+import org.aion.util.bytes.ByteUtil;
+import org.aion.util.types.ByteArrayWrapper;
+import org.aion.zero.impl.db.ContractInformation;
+import org.aion.zero.impl.db.DetailsDataStore;
+import org.aion.zero.impl.db.DetailsDataStore.RLPContractDetails;
+
+/**
+ * A value of the world state to be downloaded by the fast sync, together with the information
+ * required to verify it and to find the values it references.
+ *
+ * <p>The world state of a block is downloaded by traversing the state trie from its root. The
+ * leaves of the state trie reference the contract details, the contract index entries, the storage
+ * tries and, for AVM contracts, the object graphs, which are traversed in the same way.
+ *
+ * <p>Each task stores the key requested from the peers and the hash expected for the received
+ * value, which differ for the storage and graph entries that are keyed by their hash combined with
+ * the contract specific key. The state trie nodes also store their path in the trie, which gives
+ * the hash of the account address when a leaf is reached.
+ */
+final class StateSyncTask {
+
+    private static final byte[] EMPTY_TRIE_HASH = ConstantUtil.EMPTY_TRIE_HASH;
+    private static final int BRANCH_SIZE = 17;
+    private static final int PAIR_SIZE = 2;
+    private static final int TERMINATOR = 16;
+    // the accounts are stored under the hash of their address
+    private static final int ACCOUNT_PATH_LENGTH = 64;
+
+    private final DatabaseType type;
+    // the key requested from the peers
+    private final byte[] key;
+    // the hash of the value, or of the address for the details; empty if not verified by hash
+    private final byte[] hash;
+    // the nibbles from the root of the state trie to this node
+    private final byte[] path;
+    // the contract that owns the value, empty for the state trie nodes
+    private final byte[] address;
+    // the code hash and storage root of the contract account
+    private final byte[] codeHash;
+    private final byte[] root;
+
+    private StateSyncTask(
+            DatabaseType type,
+            byte[] key,
+            byte[] hash,
+            byte[] path,
+            byte[] address,
+            byte[] codeHash,
+            byte[] root) {
+        this.type = type;
+        this.key = key;
+        this.hash = hash;
+        this.path = path;
+        this.address = address;
+        this.codeHash = codeHash;
+        this.root = root;
+    }
+
+    /**
+     * Creates the task for the root node of a world state.
+     *
+     * @param stateRoot the state root of the pivot block
+     * @return the task downloading the given root node
+     */
+    static StateSyncTask forStateRoot(byte[] stateRoot) {
+        return new StateSyncTask(
+                DatabaseType.STATE,
+                stateRoot,
+                stateRoot,
+                EMPTY_BYTE_ARRAY,
+                EMPTY_BYTE_ARRAY,
+                EMPTY_BYTE_ARRAY,
+                EMPTY_BYTE_ARRAY);
+    }
+
+    DatabaseType getType() {
+        return type;
+    }
+
+    /** @return the key requested from the peers */
+    byte[] getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the identifier of the task. State trie nodes are identified by their path in
+     * addition to their hash, since equal nodes located at different paths refer to different
+     * accounts.
+     *
+     * @return the identifier of the task
+     */
+    ByteArrayWrapper getId() {
+        return ByteArrayWrapper.wrap(
+                ByteUtil.merge(new byte[] {(byte) type.ordinal()}, key, path));
+    }
+
+    /**
+     * Verifies a value received for this task and determines the values it references.
+     *
+     * @param value the value received from a peer or read from the local database
+     * @return the result of the verification, or {@code null} if the value is invalid
+     */
+    Result process(byte[] value) {
+        if (value == null || value.length == 0) {
+            return null;
+        }
+
+        try {
+            switch (type) {
+                case STATE:
+                    return processStateNode(value);
+                case DETAILS:
+                    return processDetails(value);
+                case CONTRACT_INDEX:
+                    return processContractIndex(value);
+                case STORAGE:
+                    return processStorageNode(value);
+                case GRAPH:
+                    return processGraph(value);
+                default:
+                    return null;
+            }
+        } catch (RuntimeException e) {
+            // the value could not be decoded
+            return null;
+        }
+    }
+
+    private Result processStateNode(byte[] value) {
+        if (!Arrays.equals(h256(value), hash)) {
+            return null;
+        }
+
+        List<StateSyncTask> children = new ArrayList<>();
+        List<Object> items = Value.fromRlpEncoded(value).asList();
+        if (items.size() == PAIR_SIZE) {
+            byte[] encodedKey = (byte[]) items.get(0);
+            byte[] nibbles = CompactEncoder.unpackToNibbles(encodedKey);
+            if (CompactEncoder.hasTerminator(encodedKey)) {
+                // a leaf storing an account
+                byte[] fullPath = ByteUtil.merge(path, Arrays.copyOf(nibbles, nibbles.length - 1));
+                if (nibbles[nibbles.length - 1] != TERMINATOR || fullPath.length != ACCOUNT_PATH_LENGTH) {
+                    return null;
+                }
+                StateSyncTask details = forAccount(packNibbles(fullPath), new AccountState((byte[]) items.get(1)));
+                if (details != null) {
+                    children.add(details);
+                }
+            } else {
+                Value child = new Value(items.get(1));
+                if (child.isHashCode()) {
+                    children.add(stateNode(child.asBytes(), ByteUtil.merge(path, nibbles)));
+                }
+            }
+        } else if (items.size() == BRANCH_SIZE) {
+            for (int index = 0; index < BRANCH_SIZE - 1; index++) {
+                Value child = new Value(items.get(index));
+                if (child.isHashCode()) {
+                    children.add(stateNode(child.asBytes(), ByteUtil.merge(path, new byte[] {(byte) index})));
+                }
+            }
+        } else {
+            return null;
+        }
+        return new Result(key, children);
+    }
+
+    private StateSyncTask stateNode(byte[] nodeHash, byte[] nodePath) {
+        return new StateSyncTask(
+                DatabaseType.STATE,
+                nodeHash,
+                nodeHash,
+                nodePath,
+                EMPTY_BYTE_ARRAY,
+                EMPTY_BYTE_ARRAY,
+                EMPTY_BYTE_ARRAY);
+    }
+
+    /** @return the task for the details of the account, or {@code null} if it has no details */
+    private static StateSyncTask forAccount(byte[] addressHash, AccountState account) {
+        boolean hasCode = !Arrays.equals(account.getCodeHash(), EMPTY_DATA_HASH);
+        boolean hasStorage = !Arrays.equals(account.getStateRoot(), EMPTY_TRIE_HASH);
+        if (!hasCode && !hasStorage) {
+            return null;
+        }
+
+        // requested by the hash of the address which is known to the peers
+        return new StateSyncTask(
+                DatabaseType.DETAILS,
+                addressHash,
+                addressHash,
+                EMPTY_BYTE_ARRAY,
+                EMPTY_BYTE_ARRAY,
+                account.getCodeHash(),
+                account.getStateRoot());
+    }
+
+    private Result processDetails(byte[] value) {
+        RLPContractDetails details = DetailsDataStore.fromEncoding(value);
+        AionAddress contract = details.address;
+        byte[] contractAddress = contract.toByteArray();
+        if (!Arrays.equals(h256(contractAddress), hash) || !containsCode(details.code)) {
+            return null;
+        }
+
+        List<StateSyncTask> children = new ArrayList<>();
+        if (Arrays.equals(codeHash, EMPTY_DATA_HASH)) {
+            // only the precompiled contracts have storage without code
+            if (ContractInfo.isPrecompiledContract(contract) && details.isExternalStorage) {
+                children.addAll(storageRoot(contractAddress, root));
+            }
+        } else {
+            // the storage of the old encoding is part of the details and is not downloaded
+            byte[] storageRoot = details.isExternalStorage ? root : EMPTY_TRIE_HASH;
+            children.add(
+                    new StateSyncTask(
+                            DatabaseType.CONTRACT_INDEX,
+                            contractAddress,
+                            EMPTY_BYTE_ARRAY,
+                            EMPTY_BYTE_ARRAY,
+                            contractAddress,
+                            codeHash,
+                            storageRoot));
+        }
+
+        // stored by address rather than by the requested hash
+        return new Result(contractAddress, children);
+    }
+
+    private boolean containsCode(RLPElement code) {
+        if (Arrays.equals(codeHash, EMPTY_DATA_HASH)) {
+            return true;
+        }
+
+        if (code.isList()) {
+            for (RLPElement element : (SharedRLPList) code) {
+                if (Arrays.equals(h256(element.getRLPData()), codeHash)) {
+                    return true;
+                }
+            }
+            return false;
+        } else {
+            return Arrays.equals(h256(code.getRLPData()), codeHash);
+        }
+    }
+
+    private Result processContractIndex(byte[] value) {
+        ContractInformation information = ContractInformation.RLP_SERIALIZER.deserialize(value);
+        if (information == null) {
+            return null;
+        }
+
+        InternalVmType vm = information.getVmUsed(codeHash);
+        if (vm == InternalVmType.FVM) {
+            return new Result(key, storageRoot(address, root));
+        } else if (vm == InternalVmType.AVM) {
+            // the storage root of the account links to the storage root and the object graph
+            return new Result(key, Collections.singletonList(graphEntry(root)));
+        } else {
+            return null;
+        }
+    }
+
+    private Result processStorageNode(byte[] value) {
+        if (!Arrays.equals(h256(value), hash)) {
+            return null;
+        }
+
+        List<StateSyncTask> children = new ArrayList<>();
+        List<Object> items = Value.fromRlpEncoded(value).asList();
+        if (items.size() == PAIR_SIZE) {
+            byte[] encodedKey = (byte[]) items.get(0);
+            Value child = new Value(items.get(1));
+            if (!CompactEncoder.hasTerminator(encodedKey) && child.isHashCode()) {
+                children.addAll(storageRoot(address, child.asBytes()));
+            }
+        } else if (items.size() == BRANCH_SIZE) {
+            for (int index = 0; index < BRANCH_SIZE - 1; index++) {
+                Value child = new Value(items.get(index));
+                if (child.isHashCode()) {
+                    children.addAll(storageRoot(address, child.asBytes()));
+                }
+            }
+        } else {
+            return null;
+        }
+        return new Result(key, children);
+    }
+
+    private static List<StateSyncTask> storageRoot(byte[] contract, byte[] nodeHash) {
+        if (Arrays.equals(nodeHash, EMPTY_TRIE_HASH)) {
+            return Collections.emptyList();
+        }
+
+        byte[] subKey = h256(("details-storage/" + new AionAddress(contract).toString()).getBytes());
+        return Collections.singletonList(
+                new StateSyncTask(
+                        DatabaseType.STORAGE,
+                        ByteUtil.xorAlignRight(nodeHash, subKey),
+                        nodeHash,
+                        EMPTY_BYTE_ARRAY,
+                        contract,
+                        EMPTY_BYTE_ARRAY,
+                        EMPTY_BYTE_ARRAY));
+    }
+
+    private StateSyncTask graphEntry(byte[] entryHash) {
+        byte[] subKey = h256(("details-graph/" + new AionAddress(address).toString()).getBytes());
+        return new StateSyncTask(
+                DatabaseType.GRAPH,
+                ByteUtil.xorAlignRight(entryHash, subKey),
+                entryHash,
+                EMPTY_BYTE_ARRAY,
+                address,
+                EMPTY_BYTE_ARRAY,
+                EMPTY_BYTE_ARRAY);
+    }
+
+    /**
+     * The graph database stores both the object graphs, keyed by their hash, and the pairs of
+     * storage root and object graph hash, keyed by the hash of their concatenation which is the
+     * storage root of the AVM contract account.
+     */
+    private Result processGraph(byte[] value) {
+        if (Arrays.equals(h256(value), hash)) {
+            // an object graph
+            return new Result(key, Collections.emptyList());
+        }
+
+        SharedRLPList pair = (SharedRLPList) RLP.decode2SharedList(value).get(0);
+        if (pair.size() != 2) {
+            return null;
+        }
+        byte[] storageRoot = pair.get(0).getRLPData();
+        byte[] graphHash = pair.get(1).getRLPData();
+        if (!Arrays.equals(h256(ByteUtil.merge(storageRoot, graphHash)), hash)) {
+            return null;
+        }
+
+        List<StateSyncTask> children = new ArrayList<>(storageRoot(address, storageRoot));
+        if (!Arrays.equals(graphHash, EMPTY_DATA_HASH)) {
+            children.add(graphEntry(graphHash));
+        }
+        return new Result(key, children);
+    }
+
+    private static byte[] packNibbles(byte[] nibbles) {
+        byte[] packed = new byte[nibbles.length / 2];
+        for (int i = 0; i < packed.length; i++) {
+            packed[i] = (byte) ((nibbles[2 * i] << 4) | nibbles[2 * i + 1]);
+        }
+        return packed;
+    }
+
+    /**
+     * Encodes the task to be stored with the progress of the fast sync.
+     *
+     * @return the RLP encoding of the task
+     */
+    byte[] encode() {
+        return RLP.encodeList(
+                RLP.encodeByte((byte) type.ordinal()),
+                RLP.encodeElement(key),
+                RLP.encodeElement(hash),
+                RLP.encodeElement(path),
+                RLP.encodeElement(address),
+                RLP.encodeElement(codeHash),
+                RLP.encodeElement(root));
+    }
+
+    /**
+     * Decodes a task stored with the progress of the fast sync.
+     *
+     * @param encoding the RLP encoding of the task
+     * @return the decoded task, or {@code null} if the encoding is invalid
+     */
+    static StateSyncTask decode(byte[] encoding) {
+        try {
+            SharedRLPList list = (SharedRLPList) RLP.decode2SharedList(encoding).get(0);
+            byte[] type = list.get(0).getRLPData();
+            if (list.size() != 7 || type.length > 1) {
+                return null;
+            }
+            return new StateSyncTask(
+                    DatabaseType.values()[type.length == 0 ? 0 : type[0]],
+                    list.get(1).getRLPData(),
+                    list.get(2).getRLPData(),
+                    list.get(3).getRLPData(),
+                    list.get(4).getRLPData(),
+                    list.get(5).getRLPData(),
+                    list.get(6).getRLPData());
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return type + ":" + ByteArrayWrapper.wrap(key);
+    }
+
+    /** The outcome of processing a valid value. */
+    static final class Result {
+        private final byte[] importKey;
+        private final List<StateSyncTask> children;
+
+        private Result(byte[] importKey, List<StateSyncTask> children) {
+            this.importKey = importKey;
+            this.children = children;
+        }
+
+        /** @return the key used to store the value in the local database */
+        byte[] getImportKey() {
+            return importKey;
+        }
+
+        /** @return the tasks for the values referenced by the processed value */
+        List<StateSyncTask> getChildren() {
+            return children;
+        }
+    }
+}
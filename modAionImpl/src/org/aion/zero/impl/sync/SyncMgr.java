@@ -85,6 +85,8 @@ public final class SyncMgr {
 
     private BlockHeaderValidator blockHeaderValidator;
     private volatile long timeUpdated = 0;
+    // set while the fast sync is downloading the world state and the past blocks
+    private volatile boolean fastSyncActive = false;
 
     private static final ReqStatus cachedReqStatus = new ReqStatus();
 
@@ -207,7 +209,7 @@ public final class SyncMgr {
         BigInteger selfTd = this.chain.getTotalDifficulty();
 
         // trigger send headers routine immediately
-        if (_remoteTotalDiff.compareTo(selfTd) > 0) {
+        if (!fastSyncActive && _remoteTotalDiff.compareTo(selfTd) > 0) {
             this.getHeaders(selfTd);
         }
 
@@ -258,6 +260,16 @@ public final class SyncMgr {
         }
     }
 
+    /**
+     * Pauses or resumes the regular block sync while the fast sync imports the world state and the
+     * blocks without executing them.
+     *
+     * @param active {@code true} to pause the regular block sync, {@code false} to resume it
+     */
+    public void setFastSyncActive(boolean active) {
+        this.fastSyncActive = active;
+    }
+
     private void setupEventHandler() {
         List<IEvent> events = new ArrayList<>();
         events.add(new EventConsensus(EventConsensus.CALLBACK.ON_SYNC_DONE));
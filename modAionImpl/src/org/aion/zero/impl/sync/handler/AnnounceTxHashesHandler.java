@@ -0,0 +1,62 @@
+package org.aion.zero.impl.sync.handler;
+
+import org.aion.p2p.Ctrl;
+import org.aion.p2p.Handler;
+import org.aion.p2p.IP2pMgr;
+import org.aion.p2p.Ver;
+import org.aion.zero.impl.sync.Act;
+import org.aion.zero.impl.sync.msg.AnnounceTxHashes;
+import org.aion.zero.impl.tx.TxFetcher;
+import org.slf4j.Logger;
+
+/** Handler for the transaction hashes announced by the network. */
+public final class AnnounceTxHashesHandler extends Handler {
+
+    private final Logger log;
+
+    private final TxFetcher fetcher;
+
+    private final IP2pMgr p2p;
+
+    private final boolean isSyncOnlyNode;
+
+    /**
+     * Constructor.
+     *
+     * @param log logger for reporting execution information
+     * @param fetcher requests the bodies of the unknown transactions
+     * @param p2p peer manager used to report invalid messages
+     * @param isSyncOnlyNode whether the node ignores the transactions from the network
+     */
+    public AnnounceTxHashesHandler(
+            final Logger log,
+            final TxFetcher fetcher,
+            final IP2pMgr p2p,
+            final boolean isSyncOnlyNode) {
+        super(Ver.V1, Ctrl.SYNC, Act.ANNOUNCE_TX_HASHES);
+        this.log = log;
+        this.fetcher = fetcher;
+        this.p2p = p2p;
+        this.isSyncOnlyNode = isSyncOnlyNode;
+    }
+
+    @Override
+    public void receive(int peerId, String displayId, final byte[] message) {
+        if (isSyncOnlyNode) return;
+
+        AnnounceTxHashes announcement = AnnounceTxHashes.decode(message);
+        if (announcement == null) {
+            p2p.errCheck(peerId, displayId);
+            log.debug("<announce-tx-hashes decode-error peer={}>", displayId);
+            return;
+        }
+
+        fetcher.onAnnouncement(peerId, displayId, announcement.getHashes());
+    }
+
+    @Override
+    public void shutDown() {
+        log.info("AnnounceTxHashesHandler shutting down!");
+        fetcher.shutdown();
+    }
+}
@@ -1,22 +1,37 @@
 package org.aion.zero.impl.sync.handler;
 
 import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import org.aion.base.AionTransaction;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.aion.zero.impl.types.Block;
+import org.aion.zero.impl.types.BlockHeader;
+import org.aion.zero.impl.types.BlockUtil;
 import org.aion.zero.impl.blockchain.BlockWrapper;
 import org.aion.zero.impl.pendingState.AionPendingStateImpl;
 import org.aion.zero.impl.core.ImportResult;
 import org.aion.zero.impl.valid.BlockHeaderValidator;
+import org.aion.p2p.INode;
 import org.aion.p2p.IP2pMgr;
+import org.aion.p2p.Msg;
 import org.aion.util.types.ByteArrayWrapper;
 import org.aion.zero.impl.config.CfgAion;
 import org.aion.zero.impl.blockchain.IAionBlockchain;
 import org.aion.zero.impl.sync.SyncStats;
 import org.aion.zero.impl.sync.msg.BroadcastNewBlock;
+import org.aion.zero.impl.sync.msg.CompactBlock;
+import org.aion.zero.impl.sync.msg.RequestBlockTxs;
+import org.aion.zero.impl.sync.msg.ResponseBlockTxs;
 import org.aion.zero.impl.sync.msg.ResStatus;
+import org.aion.zero.impl.sync.msg.SendCompactBlocks;
 import org.aion.zero.impl.sync.statistics.BlockType;
 import org.apache.commons.collections4.map.LRUMap;
 import org.slf4j.Logger;
@@ -32,7 +47,27 @@ public class BlockPropagationHandler {
         DROPPED, // block was invalid, drop no propagation
         PROPAGATED, // block was propagated, but was not connected
         CONNECTED, // block was ONLY connected, not propagated
-        PROP_CONNECTED // block propagated and connected
+        PROP_CONNECTED, // block propagated and connected
+        REQUESTED // missing transactions of a compact block were requested
+    }
+
+    /** A compact block waiting for the transactions missing from the pool. */
+    private static final class PartialBlock {
+        private final BlockHeader header;
+        private final AionTransaction[] transactions;
+        private final int[] missing;
+        private final int peerId;
+
+        private PartialBlock(BlockHeader header, AionTransaction[] transactions, int[] missing, int peerId) {
+            this.header = header;
+            this.transactions = transactions;
+            this.missing = missing;
+            this.peerId = peerId;
+        }
+
+        private boolean isComplete() {
+            return missing.length == transactions.length;
+        }
     }
 
     /** Connection to blockchain */
@@ -57,6 +92,15 @@ public class BlockPropagationHandler {
 
     private final AionPendingStateImpl pendingState;
 
+    /** Peers that accept new blocks as compact blocks. */
+    private final Set<Integer> compactPeers = ConcurrentHashMap.newKeySet();
+
+    /** Peers that were told that this node accepts compact blocks. */
+    private final Set<Integer> notifiedPeers = ConcurrentHashMap.newKeySet();
+
+    /** Compact blocks waiting for their missing transactions, guarded by the map itself. */
+    private final Map<ByteArrayWrapper, PartialBlock> partialBlocks = new LRUMap<>(16);
+
     public BlockPropagationHandler(
             final int cacheSize,
             final IAionBlockchain blockchain,
@@ -101,10 +145,10 @@ public class BlockPropagationHandler {
             this.cacheMap.put(hashWrapped, true);
         }
 
-        this.p2pManager
-                .getActiveNodes()
-                .values()
-                .forEach(
+        Collection<INode> activeNodes = this.p2pManager.getActiveNodes().values();
+        forgetInactivePeers(activeNodes);
+        BlockMessages messages = new BlockMessages(block);
+        activeNodes.forEach(
                         n -> {
                             if (log.isDebugEnabled())
                                 log.debug(
@@ -114,10 +158,178 @@ public class BlockPropagationHandler {
                                                 + n.getIdShort()
                                                 + ">");
                             this.p2pManager.send(
-                                    n.getIdHash(), n.getIdShort(), new BroadcastNewBlock(block));
+                                    n.getIdHash(), n.getIdShort(), messages.forPeer(n.getIdHash()));
                         });
     }
 
+    /**
+     * Builds the full and the compact message of a block when first needed. The compact message is
+     * sent to the peers that accept it and the full block to the others.
+     */
+    private final class BlockMessages {
+        private final Block block;
+        private Msg full;
+        private Msg compact;
+
+        private BlockMessages(Block block) {
+            this.block = block;
+        }
+
+        private Msg forPeer(int nodeId) {
+            if (compactPeers.contains(nodeId)) {
+                if (compact == null) {
+                    compact = new CompactBlock(block);
+                }
+                return compact;
+            } else {
+                if (full == null) {
+                    full = new BroadcastNewBlock(block);
+                }
+                return full;
+            }
+        }
+    }
+
+    /** Drops the compact block status of the disconnected peers, which may reconnect with an older version. */
+    private void forgetInactivePeers(Collection<INode> activeNodes) {
+        if (compactPeers.isEmpty() && notifiedPeers.isEmpty()) {
+            return;
+        }
+        Set<Integer> active = new HashSet<>();
+        for (INode n : activeNodes) {
+            active.add(n.getIdHash());
+        }
+        compactPeers.retainAll(active);
+        notifiedPeers.retainAll(active);
+    }
+
+    /** Records that the given peer accepts new blocks as compact blocks. */
+    public void enableCompactBlocks(final int nodeId) {
+        compactPeers.add(nodeId);
+    }
+
+    /** Tells the given peer once that this node accepts new blocks as compact blocks. */
+    public void notifyCompactBlocks(final int nodeId, final String displayId) {
+        if (notifiedPeers.add(nodeId)) {
+            this.p2pManager.send(nodeId, displayId, new SendCompactBlocks());
+        }
+    }
+
+    /**
+     * Rebuilds the given compact block from the transaction pool and imports it, or requests the
+     * transactions missing from the pool from the sending peer.
+     */
+    public PropStatus processCompactBlock(
+            final int nodeId, final String displayId, final CompactBlock compact) {
+        if (compact == null) return PropStatus.DROPPED;
+
+        BlockHeader header = compact.getBlockHeader();
+        synchronized (this.cacheMap) {
+            if (this.cacheMap.get(header.getHashWrapper()) != null) {
+                return PropStatus.DROPPED;
+            }
+        }
+
+        if (!this.blockHeaderValidator.validate(header, log)) return PropStatus.DROPPED;
+
+        // the blocks far from the best block are retrieved by the sync
+        if (this.blockchain.skipTryToConnect(header.getNumber())) return PropStatus.DROPPED;
+
+        AionTransaction[] transactions =
+                compact.getTransactionCount() == 0
+                        ? new AionTransaction[0]
+                        : compact.match(this.pendingState.getPooledTransactions());
+        int[] missing = missingIndexes(transactions);
+
+        if (missing.length == 0) {
+            Block block = BlockUtil.newBlockWithHeaderAndTransactions(header, Arrays.asList(transactions));
+            if (block != null) {
+                return processIncomingBlock(nodeId, displayId, block);
+            }
+
+            // a short identifier matched the wrong transaction, all the transactions are requested
+            transactions = new AionTransaction[transactions.length];
+            missing = missingIndexes(transactions);
+        }
+
+        requestTransactions(displayId, new PartialBlock(header, transactions, missing, nodeId));
+        return PropStatus.REQUESTED;
+    }
+
+    /** Completes the compact block the given transactions were requested for and imports it. */
+    public PropStatus processBlockTransactions(
+            final int nodeId, final String displayId, final ResponseBlockTxs response) {
+        if (response == null) return PropStatus.DROPPED;
+
+        ByteArrayWrapper hashWrapped = ByteArrayWrapper.wrap(response.getBlockHash());
+        PartialBlock partial;
+        synchronized (this.partialBlocks) {
+            partial = this.partialBlocks.get(hashWrapped);
+            if (partial == null || partial.peerId != nodeId) {
+                return PropStatus.DROPPED;
+            }
+            this.partialBlocks.remove(hashWrapped);
+        }
+
+        List<AionTransaction> received = response.getTransactions();
+        if (received.size() != partial.missing.length) {
+            log.debug("<compact-block hash={} expected-txs={} received-txs={} node={}>", hashWrapped, partial.missing.length, received.size(), displayId);
+            return PropStatus.DROPPED;
+        }
+        for (int i = 0; i < partial.missing.length; i++) {
+            partial.transactions[partial.missing[i]] = received.get(i);
+        }
+
+        Block block = BlockUtil.newBlockWithHeaderAndTransactions(partial.header, Arrays.asList(partial.transactions));
+        if (block != null) {
+            return processIncomingBlock(nodeId, displayId, block);
+        }
+
+        if (partial.isComplete()) {
+            // the peer sent transactions that do not match the header
+            this.p2pManager.errCheck(nodeId, displayId);
+            return PropStatus.DROPPED;
+        }
+
+        // a transaction from the pool matched the wrong short identifier
+        AionTransaction[] transactions = new AionTransaction[partial.transactions.length];
+        requestTransactions(displayId, new PartialBlock(partial.header, transactions, missingIndexes(transactions), nodeId));
+        return PropStatus.REQUESTED;
+    }
+
+    private void requestTransactions(String displayId, PartialBlock partial) {
+        synchronized (this.partialBlocks) {
+            this.partialBlocks.put(partial.header.getHashWrapper(), partial);
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug(
+                    "<compact-block hash={} txs={} requested-txs={} node={}>",
+                    partial.header.getHashWrapper(),
+                    partial.transactions.length,
+                    partial.missing.length,
+                    displayId);
+        }
+        this.p2pManager.send(partial.peerId, displayId, new RequestBlockTxs(partial.header.getHash(), partial.missing));
+    }
+
+    private static int[] missingIndexes(AionTransaction[] transactions) {
+        int count = 0;
+        for (AionTransaction tx : transactions) {
+            if (tx == null) {
+                count++;
+            }
+        }
+
+        int[] missing = new int[count];
+        for (int i = 0, j = 0; i < transactions.length; i++) {
+            if (transactions[i] == null) {
+                missing[j++] = i;
+            }
+        }
+        return missing;
+    }
+
     public PropStatus processIncomingBlock(
             final int nodeId, final String displayId, final Block block) {
         if (block == null) return PropStatus.DROPPED;
@@ -243,7 +455,10 @@ public class BlockPropagationHandler {
 
         // current proposal is to send to all peers with lower blockNumbers
         AtomicBoolean sent = new AtomicBoolean();
-        this.p2pManager.getActiveNodes().values().stream()
+        Collection<INode> activeNodes = this.p2pManager.getActiveNodes().values();
+        forgetInactivePeers(activeNodes);
+        BlockMessages messages = new BlockMessages(block);
+        activeNodes.stream()
                 .filter(n -> n.getIdHash() != nodeId)
                 // peer is within 5 blocks of the block we're about to send
                 .filter(
@@ -261,7 +476,7 @@ public class BlockPropagationHandler {
                                                 + n.getIdShort()
                                                 + ">");
                             this.p2pManager.send(
-                                    n.getIdHash(), n.getIdShort(), new BroadcastNewBlock(block));
+                                    n.getIdHash(), n.getIdShort(), messages.forPeer(n.getIdHash()));
                             sent.getAndSet(true);
                         });
         return sent.get();
@@ -64,6 +64,9 @@ public final class BroadcastNewBlockHandler extends Handler {
                 // returns null when decoding failed
                 Block block = BlockUtil.newBlockFromUnsafeSource((SharedRLPList) element);
                 if (block != null) {
+                    // the peer may send the next blocks in compact form
+                    this.propHandler.notifyCompactBlocks(_nodeIdHashcode, _displayId);
+
                     BlockPropagationHandler.PropStatus result =
                         this.propHandler.processIncomingBlock(_nodeIdHashcode, _displayId, block);
 
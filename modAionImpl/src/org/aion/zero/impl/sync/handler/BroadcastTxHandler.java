@@ -17,6 +17,7 @@ import org.aion.p2p.IP2pMgr;
 import org.aion.p2p.Ver;
 import org.aion.zero.impl.sync.Act;
 import org.aion.zero.impl.sync.msg.BroadcastTx;
+import org.aion.zero.impl.tx.TxFetcher;
 import org.slf4j.Logger;
 
 /** @author chris handler for new transaction broadcasted from network */
@@ -28,6 +29,8 @@ public final class BroadcastTxHandler extends Handler {
 
     private final IP2pMgr p2pMgr;
 
+    private final TxFetcher fetcher;
+
     private LinkedBlockingQueue<AionTransaction> txQueue;
 
     private ScheduledExecutorService ex;
@@ -38,11 +41,13 @@ public final class BroadcastTxHandler extends Handler {
             final Logger _log,
             final AionPendingStateImpl _pendingState,
             final IP2pMgr _p2pMgr,
+            final TxFetcher _fetcher,
             final boolean isSyncOnlyNode) {
         super(Ver.V0, Ctrl.SYNC, Act.BROADCAST_TX);
         this.log = _log;
         this.pendingState = _pendingState;
         this.p2pMgr = _p2pMgr;
+        this.fetcher = _fetcher;
         this.txQueue = new LinkedBlockingQueue<>(50_000);
         this.isSyncOnlyNode = isSyncOnlyNode;
 
@@ -82,7 +87,11 @@ public final class BroadcastTxHandler extends Handler {
                 log.debug("<BroadcastTxHandler from: {} empty>", _displayId);
             }
 
-            for (AionTransaction tx : castRawTx(broadCastTx)) {
+            List<AionTransaction> transactions = castRawTx(broadCastTx);
+            // stops requesting the announced transactions received from any peer
+            fetcher.onTransactions(transactions);
+
+            for (AionTransaction tx : transactions) {
                 if (!txQueue.offer(tx)) {
                     log.debug("<BroadcastTxHandler txQueue full! {}>", _displayId);
                     break;
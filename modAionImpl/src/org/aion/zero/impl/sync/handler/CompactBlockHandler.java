@@ -0,0 +1,59 @@
+package org.aion.zero.impl.sync.handler;
+
+import org.aion.p2p.Ctrl;
+import org.aion.p2p.Handler;
+import org.aion.p2p.IP2pMgr;
+import org.aion.p2p.Ver;
+import org.aion.zero.impl.sync.Act;
+import org.aion.zero.impl.sync.msg.CompactBlock;
+import org.slf4j.Logger;
+
+/** Handler for new blocks broadcast from the network as compact blocks. */
+public final class CompactBlockHandler extends Handler {
+
+    private final Logger log;
+
+    private final BlockPropagationHandler propHandler;
+
+    private final IP2pMgr p2p;
+
+    /**
+     * Constructor.
+     *
+     * @param log logger for reporting execution information
+     * @param propHandler the handler rebuilding and importing the blocks
+     * @param p2p peer manager used to report invalid messages
+     */
+    public CompactBlockHandler(
+            final Logger log, final BlockPropagationHandler propHandler, final IP2pMgr p2p) {
+        super(Ver.V1, Ctrl.SYNC, Act.COMPACT_BLOCK);
+        this.log = log;
+        this.propHandler = propHandler;
+        this.p2p = p2p;
+    }
+
+    @Override
+    public void receive(int peerId, String displayId, final byte[] message) {
+        CompactBlock compact = CompactBlock.decode(message);
+        if (compact == null) {
+            p2p.errCheck(peerId, displayId);
+            log.debug("<compact-block decode-error peer={}>", displayId);
+            return;
+        }
+
+        // the peer sending compact blocks also accepts them
+        propHandler.enableCompactBlocks(peerId);
+
+        try {
+            BlockPropagationHandler.PropStatus result = propHandler.processCompactBlock(peerId, displayId, compact);
+            log.debug(
+                    "<compact-block node={} block-hash={} txs={} status={}>",
+                    displayId,
+                    compact.getBlockHeader().getHashWrapper(),
+                    compact.getTransactionCount(),
+                    result.name());
+        } catch (Exception e) {
+            log.error("<compact-block processing error>", e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.aion.zero.impl.sync.handler;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.aion.base.AionTransaction;
+import org.aion.p2p.Ctrl;
+import org.aion.p2p.Handler;
+import org.aion.p2p.IP2pMgr;
+import org.aion.p2p.Ver;
+import org.aion.zero.impl.blockchain.IAionBlockchain;
+import org.aion.zero.impl.sync.Act;
+import org.aion.zero.impl.sync.msg.RequestBlockTxs;
+import org.aion.zero.impl.sync.msg.ResponseBlockTxs;
+import org.aion.zero.impl.types.Block;
+import org.slf4j.Logger;
+
+/** Handler for the requests of transactions missing from compact blocks sent to the network. */
+public final class RequestBlockTxsHandler extends Handler {
+
+    private final Logger log;
+
+    private final IAionBlockchain chain;
+
+    private final IP2pMgr p2p;
+
+    /**
+     * Constructor.
+     *
+     * @param log logger for reporting execution information
+     * @param chain the blockchain used by the application
+     * @param p2p peer manager used to submit messages
+     */
+    public RequestBlockTxsHandler(final Logger log, final IAionBlockchain chain, final IP2pMgr p2p) {
+        super(Ver.V1, Ctrl.SYNC, Act.REQUEST_BLOCK_TXS);
+        this.log = log;
+        this.chain = chain;
+        this.p2p = p2p;
+    }
+
+    @Override
+    public void receive(int peerId, String displayId, final byte[] message) {
+        RequestBlockTxs request = RequestBlockTxs.decode(message);
+        if (request == null) {
+            p2p.errCheck(peerId, displayId);
+            log.debug("<request-block-txs decode-error peer={}>", displayId);
+            return;
+        }
+
+        Block block = chain.getBlockByHash(request.getBlockHash());
+        if (block == null) {
+            log.debug("<request-block-txs unknown block peer={}>", displayId);
+            return;
+        }
+
+        List<AionTransaction> blockTxs = block.getTransactionsList();
+        List<AionTransaction> transactions = new ArrayList<>(request.getIndexes().length);
+        for (int index : request.getIndexes()) {
+            if (index >= blockTxs.size()) {
+                p2p.errCheck(peerId, displayId);
+                log.debug("<request-block-txs invalid index={} txs={} peer={}>", index, blockTxs.size(), displayId);
+                return;
+            }
+            transactions.add(blockTxs.get(index));
+        }
+
+        p2p.send(peerId, displayId, new ResponseBlockTxs(request.getBlockHash(), transactions));
+    }
+}
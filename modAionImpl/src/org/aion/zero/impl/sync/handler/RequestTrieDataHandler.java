@@ -74,8 +74,9 @@ public final class RequestTrieDataHandler extends Handler {
             if (value != null) {
                 ResponseTrieData response;
 
-                if (limit == 1) {
+                if (limit == 1 || dbType != DatabaseType.STATE) {
                     // generate response without referenced nodes
+                    // the other databases use keys that cannot be found by traversing the values
                     response = new ResponseTrieData(key, value, dbType);
                 } else {
                     // check for internal limit on the request
@@ -0,0 +1,68 @@
+package org.aion.zero.impl.sync.handler;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.aion.base.AionTransaction;
+import org.aion.p2p.Ctrl;
+import org.aion.p2p.Handler;
+import org.aion.p2p.IP2pMgr;
+import org.aion.p2p.Ver;
+import org.aion.util.types.ByteArrayWrapper;
+import org.aion.zero.impl.sync.Act;
+import org.aion.zero.impl.sync.msg.BroadcastTx;
+import org.aion.zero.impl.sync.msg.RequestTxs;
+import org.aion.zero.impl.tx.TxFetcher;
+import org.slf4j.Logger;
+
+/**
+ * Handler for the requests of announced transactions from the network. The transactions found are
+ * sent back in a {@link BroadcastTx} message, while the unknown hashes are ignored.
+ */
+public final class RequestTxsHandler extends Handler {
+
+    private final Logger log;
+
+    private final TxFetcher fetcher;
+
+    private final IP2pMgr p2p;
+
+    /**
+     * Constructor.
+     *
+     * @param log logger for reporting execution information
+     * @param fetcher provides the pooled and recently received transactions
+     * @param p2p peer manager used to submit messages
+     */
+    public RequestTxsHandler(final Logger log, final TxFetcher fetcher, final IP2pMgr p2p) {
+        super(Ver.V1, Ctrl.SYNC, Act.REQUEST_TXS);
+        this.log = log;
+        this.fetcher = fetcher;
+        this.p2p = p2p;
+    }
+
+    @Override
+    public void receive(int peerId, String displayId, final byte[] message) {
+        RequestTxs request = RequestTxs.decode(message);
+        if (request == null) {
+            p2p.errCheck(peerId, displayId);
+            log.debug("<request-txs decode-error peer={}>", displayId);
+            return;
+        }
+
+        List<AionTransaction> transactions = new ArrayList<>();
+        for (byte[] hash : request.getHashes()) {
+            AionTransaction tx = fetcher.getTransaction(ByteArrayWrapper.wrap(hash));
+            if (tx != null) {
+                transactions.add(tx);
+            }
+        }
+
+        if (log.isTraceEnabled()) {
+            log.trace("<request-txs requested={} found={} peer={}>", request.getHashes().size(), transactions.size(), displayId);
+        }
+
+        if (!transactions.isEmpty()) {
+            p2p.send(peerId, displayId, new BroadcastTx(transactions));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.aion.zero.impl.sync.handler;
+
+import org.aion.p2p.Ctrl;
+import org.aion.p2p.Handler;
+import org.aion.p2p.IP2pMgr;
+import org.aion.p2p.Ver;
+import org.aion.zero.impl.sync.Act;
+import org.aion.zero.impl.sync.msg.ResponseBlockTxs;
+import org.slf4j.Logger;
+
+/** Handler for the transactions missing from compact blocks received from the network. */
+public final class ResponseBlockTxsHandler extends Handler {
+
+    private final Logger log;
+
+    private final BlockPropagationHandler propHandler;
+
+    private final IP2pMgr p2p;
+
+    /**
+     * Constructor.
+     *
+     * @param log logger for reporting execution information
+     * @param propHandler the handler completing and importing the blocks
+     * @param p2p peer manager used to report invalid messages
+     */
+    public ResponseBlockTxsHandler(
+            final Logger log, final BlockPropagationHandler propHandler, final IP2pMgr p2p) {
+        super(Ver.V1, Ctrl.SYNC, Act.RESPONSE_BLOCK_TXS);
+        this.log = log;
+        this.propHandler = propHandler;
+        this.p2p = p2p;
+    }
+
+    @Override
+    public void receive(int peerId, String displayId, final byte[] message) {
+        ResponseBlockTxs response = ResponseBlockTxs.decode(message);
+        if (response == null) {
+            p2p.errCheck(peerId, displayId);
+            log.debug("<response-block-txs decode-error peer={}>", displayId);
+            return;
+        }
+
+        try {
+            BlockPropagationHandler.PropStatus result = propHandler.processBlockTransactions(peerId, displayId, response);
+            log.debug("<response-block-txs node={} txs={} status={}>", displayId, response.getTransactions().size(), result.name());
+        } catch (Exception e) {
+            log.error("<response-block-txs processing error>", e);
+        }
+    }
+}
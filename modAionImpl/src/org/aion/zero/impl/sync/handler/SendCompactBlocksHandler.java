@@ -0,0 +1,40 @@
+package org.aion.zero.impl.sync.handler;
+
+import org.aion.p2p.Ctrl;
+import org.aion.p2p.Handler;
+import org.aion.p2p.Ver;
+import org.aion.zero.impl.sync.Act;
+import org.aion.zero.impl.sync.msg.SendCompactBlocks;
+import org.slf4j.Logger;
+
+/** Handler for the peers announcing that they accept new blocks as compact blocks. */
+public final class SendCompactBlocksHandler extends Handler {
+
+    private final Logger log;
+
+    private final BlockPropagationHandler propHandler;
+
+    /**
+     * Constructor.
+     *
+     * @param log logger for reporting execution information
+     * @param propHandler the handler sending the new blocks to the peers
+     */
+    public SendCompactBlocksHandler(final Logger log, final BlockPropagationHandler propHandler) {
+        super(Ver.V1, Ctrl.SYNC, Act.SEND_COMPACT_BLOCKS);
+        this.log = log;
+        this.propHandler = propHandler;
+    }
+
+    @Override
+    public void receive(int peerId, String displayId, final byte[] message) {
+        SendCompactBlocks notice = SendCompactBlocks.decode(message);
+        if (notice == null) {
+            log.debug("<send-compact-blocks decode-error peer={}>", displayId);
+            return;
+        }
+
+        log.debug("<send-compact-blocks version={} peer={}>", notice.getVersion(), displayId);
+        propHandler.enableCompactBlocks(peerId);
+    }
+}
@@ -0,0 +1,55 @@
+package org.aion.zero.impl.sync.msg;
+
+import java.util.List;
+import org.aion.p2p.Ctrl;
+import org.aion.p2p.Msg;
+import org.aion.p2p.Ver;
+import org.aion.zero.impl.sync.Act;
+
+/**
+ * Announces the hashes of transactions available on the sender. The receiver requests the ones it
+ * does not know with a {@link RequestTxs} message.
+ */
+public final class AnnounceTxHashes extends Msg {
+
+    private final List<byte[]> hashes;
+
+    /**
+     * Constructor for transaction announcements.
+     *
+     * @param hashes the hashes of the announced transactions
+     * @throws NullPointerException if the list or any of the hashes is {@code null}
+     * @throws IllegalArgumentException if the list is empty, exceeds {@link
+     *     org.aion.p2p.V1Constants#TX_HASHES_MAXIMUM_BATCH_SIZE} or contains invalid hashes
+     */
+    public AnnounceTxHashes(final List<byte[]> hashes) {
+        super(Ver.V1, Ctrl.SYNC, Act.ANNOUNCE_TX_HASHES);
+        this.hashes = TxHashes.validate(hashes);
+    }
+
+    /**
+     * Decodes a message into a transaction announcement.
+     *
+     * @param message a {@code byte} array representing a transaction announcement
+     * @return the decoded announcement if valid or {@code null} when the decoding encounters
+     *     invalid input
+     */
+    public static AnnounceTxHashes decode(final byte[] message) {
+        List<byte[]> hashes = TxHashes.decode(message);
+        return hashes == null ? null : new AnnounceTxHashes(hashes);
+    }
+
+    @Override
+    public byte[] encode() {
+        return TxHashes.encode(hashes);
+    }
+
+    /**
+     * Returns the hashes of the announced transactions.
+     *
+     * @return the hashes of the announced transactions
+     */
+    public List<byte[]> getHashes() {
+        return hashes;
+    }
+}
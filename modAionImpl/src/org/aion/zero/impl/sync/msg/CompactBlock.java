@@ -0,0 +1,182 @@
+package org.aion.zero.impl.sync.msg;
+
+import static org.aion.p2p.V1Constants.COMPACT_BLOCK_MAXIMUM_TRANSACTIONS;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.aion.base.AionTransaction;
+import org.aion.p2p.Ctrl;
+import org.aion.p2p.Msg;
+import org.aion.p2p.Ver;
+import org.aion.rlp.RLP;
+import org.aion.rlp.RLPCursor;
+import org.aion.rlp.RLPElement;
+import org.aion.rlp.RLPWriter;
+import org.aion.rlp.SharedRLPList;
+import org.aion.zero.impl.sync.Act;
+import org.aion.zero.impl.types.Block;
+import org.aion.zero.impl.types.BlockHeader;
+import org.aion.zero.impl.types.BlockUtil;
+
+/**
+ * A new block given by its header and short identifiers of its transactions, which the receiver
+ * matches against its transaction pool. The transactions not found are requested with a {@link
+ * RequestBlockTxs} message.
+ *
+ * <p>The short identifiers are the lowest 48 bits of the SipHash-2-4 of the transaction hash keyed
+ * with the block hash, so that collisions cannot be prepared ahead of the block. A collision makes
+ * the rebuilt block fail the transaction root check, in which case all its transactions are
+ * requested.
+ */
+public final class CompactBlock extends Msg {
+
+    private static final long SHORT_ID_MASK = 0xffff_ffff_ffffL;
+
+    private final BlockHeader header;
+    private final long[] shortIds;
+
+    /**
+     * Constructor for the compact form of the given block.
+     *
+     * @param block the block to be sent
+     * @throws NullPointerException if the block is {@code null}
+     */
+    public CompactBlock(final Block block) {
+        this(block.getHeader(), shortIds(block));
+    }
+
+    private CompactBlock(final BlockHeader header, final long[] shortIds) {
+        super(Ver.V1, Ctrl.SYNC, Act.COMPACT_BLOCK);
+        this.header = header;
+        this.shortIds = shortIds;
+    }
+
+    private static long[] shortIds(Block block) {
+        HashFunction function = shortIdFunction(block.getHash());
+        List<AionTransaction> transactions = block.getTransactionsList();
+        long[] ids = new long[transactions.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = shortId(function, transactions.get(i).getTransactionHash());
+        }
+        return ids;
+    }
+
+    private static HashFunction shortIdFunction(byte[] blockHash) {
+        ByteBuffer key = ByteBuffer.wrap(blockHash);
+        return Hashing.sipHash24(key.getLong(0), key.getLong(8));
+    }
+
+    private static long shortId(HashFunction function, byte[] txHash) {
+        return function.hashBytes(txHash).asLong() & SHORT_ID_MASK;
+    }
+
+    /**
+     * Decodes a message into a compact block.
+     *
+     * @param message a {@code byte} array representing a compact block
+     * @return the decoded compact block if valid or {@code null} when the decoding encounters
+     *     invalid input
+     */
+    public static CompactBlock decode(final byte[] message) {
+        if (message == null || message.length == 0) {
+            return null;
+        }
+
+        try {
+            RLPCursor list = new RLPCursor(message).nextList();
+
+            RLPElement headerRlp = RLP.decode2SharedList(list.nextEncoded()).get(0);
+            if (!headerRlp.isList()) {
+                return null;
+            }
+            BlockHeader header = BlockUtil.newHeaderFromUnsafeSource((SharedRLPList) headerRlp);
+            if (header == null) {
+                return null;
+            }
+
+            RLPCursor ids = list.nextList();
+            int count = ids.remaining();
+            if (count > COMPACT_BLOCK_MAXIMUM_TRANSACTIONS || list.hasNext()) {
+                return null;
+            }
+            long[] shortIds = new long[count];
+            for (int i = 0; i < count; i++) {
+                shortIds[i] = ids.nextLong();
+            }
+
+            return new CompactBlock(header, shortIds);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public byte[] encode() {
+        byte[] headerEncoding = header.getEncoded();
+        RLPWriter writer = new RLPWriter(headerEncoding.length + shortIds.length * 7 + 16);
+        writer.startList().writeEncoded(headerEncoding).startList();
+        for (long id : shortIds) {
+            writer.writeLong(id);
+        }
+        return writer.endList().endList().toByteArray();
+    }
+
+    /**
+     * Returns the header of the block.
+     *
+     * @return the header of the block
+     */
+    public BlockHeader getBlockHeader() {
+        return header;
+    }
+
+    /**
+     * Returns the number of transactions in the block.
+     *
+     * @return the number of transactions in the block
+     */
+    public int getTransactionCount() {
+        return shortIds.length;
+    }
+
+    /**
+     * Matches the short identifiers of the block to the given transactions.
+     *
+     * @param candidates the transactions that may be included in the block
+     * @return the transactions of the block in order, with {@code null} for the ones not found or
+     *     whose identifier matches several candidates
+     */
+    public AionTransaction[] match(List<AionTransaction> candidates) {
+        Objects.requireNonNull(candidates);
+
+        Set<Long> wanted = new HashSet<>();
+        for (long id : shortIds) {
+            wanted.add(id);
+        }
+
+        HashFunction function = shortIdFunction(header.getHash());
+        Map<Long, AionTransaction> found = new HashMap<>();
+        Set<Long> ambiguous = new HashSet<>();
+        for (AionTransaction tx : candidates) {
+            long id = shortId(function, tx.getTransactionHash());
+            if (wanted.contains(id) && found.put(id, tx) != null) {
+                ambiguous.add(id);
+            }
+        }
+
+        AionTransaction[] transactions = new AionTransaction[shortIds.length];
+        for (int i = 0; i < shortIds.length; i++) {
+            if (!ambiguous.contains(shortIds[i])) {
+                transactions[i] = found.get(shortIds[i]);
+            }
+        }
+        return transactions;
+    }
+}
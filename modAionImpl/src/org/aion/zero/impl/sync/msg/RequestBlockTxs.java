@@ -0,0 +1,120 @@
+package org.aion.zero.impl.sync.msg;
+
+import static org.aion.p2p.V1Constants.COMPACT_BLOCK_MAXIMUM_TRANSACTIONS;
+import static org.aion.p2p.V1Constants.HASH_SIZE;
+
+import java.util.Objects;
+import org.aion.p2p.Ctrl;
+import org.aion.p2p.Msg;
+import org.aion.p2p.Ver;
+import org.aion.rlp.RLPCursor;
+import org.aion.rlp.RLPWriter;
+import org.aion.util.conversions.Hex;
+import org.aion.zero.impl.sync.Act;
+
+/**
+ * Requests the transactions at the given positions of a block received as a {@link CompactBlock}.
+ * The transactions are sent back in a {@link ResponseBlockTxs} message.
+ */
+public final class RequestBlockTxs extends Msg {
+
+    private final byte[] blockHash;
+    private final int[] indexes;
+
+    /**
+     * Constructor for block transaction requests.
+     *
+     * @param blockHash the hash of the block
+     * @param indexes the positions of the requested transactions in the block
+     * @throws NullPointerException if either of the given parameters is {@code null}
+     * @throws IllegalArgumentException if the hash is not valid, no transactions are requested or
+     *     the indexes are negative
+     */
+    public RequestBlockTxs(final byte[] blockHash, final int[] indexes) {
+        super(Ver.V1, Ctrl.SYNC, Act.REQUEST_BLOCK_TXS);
+
+        Objects.requireNonNull(blockHash);
+        Objects.requireNonNull(indexes);
+
+        if (blockHash.length != HASH_SIZE) {
+            throw new IllegalArgumentException(
+                    "The given value " + Hex.toHexString(blockHash) + " is not a correct block hash.");
+        }
+        if (indexes.length == 0 || indexes.length > COMPACT_BLOCK_MAXIMUM_TRANSACTIONS) {
+            throw new IllegalArgumentException(
+                    "The request must contain between 1 and " + COMPACT_BLOCK_MAXIMUM_TRANSACTIONS + " indexes.");
+        }
+        for (int index : indexes) {
+            if (index < 0) {
+                throw new IllegalArgumentException("The transaction indexes must not be negative.");
+            }
+        }
+
+        this.blockHash = blockHash;
+        this.indexes = indexes;
+    }
+
+    /**
+     * Decodes a message into a block transactions request.
+     *
+     * @param message a {@code byte} array representing a block transactions request
+     * @return the decoded request if valid or {@code null} when the decoding encounters invalid
+     *     input
+     */
+    public static RequestBlockTxs decode(final byte[] message) {
+        if (message == null || message.length == 0) {
+            return null;
+        }
+
+        try {
+            RLPCursor list = new RLPCursor(message).nextList();
+            byte[] hash = list.nextBytes();
+
+            RLPCursor encodedIndexes = list.nextList();
+            int count = encodedIndexes.remaining();
+            if (hash.length != HASH_SIZE || list.hasNext() || count == 0 || count > COMPACT_BLOCK_MAXIMUM_TRANSACTIONS) {
+                return null;
+            }
+            int[] indexes = new int[count];
+            for (int i = 0; i < count; i++) {
+                long index = encodedIndexes.nextLong();
+                if (index > COMPACT_BLOCK_MAXIMUM_TRANSACTIONS) {
+                    return null;
+                }
+                indexes[i] = (int) index;
+            }
+
+            return new RequestBlockTxs(hash, indexes);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public byte[] encode() {
+        RLPWriter writer = new RLPWriter(HASH_SIZE + indexes.length * 3 + 16);
+        writer.startList().writeElement(blockHash).startList();
+        for (int index : indexes) {
+            writer.writeInt(index);
+        }
+        return writer.endList().endList().toByteArray();
+    }
+
+    /**
+     * Returns the hash of the block.
+     *
+     * @return the hash of the block
+     */
+    public byte[] getBlockHash() {
+        return blockHash;
+    }
+
+    /**
+     * Returns the positions of the requested transactions in the block.
+     *
+     * @return the positions of the requested transactions in the block
+     */
+    public int[] getIndexes() {
+        return indexes;
+    }
+}
@@ -0,0 +1,56 @@
+package org.aion.zero.impl.sync.msg;
+
+import java.util.List;
+import org.aion.p2p.Ctrl;
+import org.aion.p2p.Msg;
+import org.aion.p2p.Ver;
+import org.aion.zero.impl.sync.Act;
+
+/**
+ * Requests the transactions with the given hashes, previously announced by the receiver with an
+ * {@link AnnounceTxHashes} message. The transactions are sent back in a {@link BroadcastTx}
+ * message.
+ */
+public final class RequestTxs extends Msg {
+
+    private final List<byte[]> hashes;
+
+    /**
+     * Constructor for transaction requests.
+     *
+     * @param hashes the hashes of the requested transactions
+     * @throws NullPointerException if the list or any of the hashes is {@code null}
+     * @throws IllegalArgumentException if the list is empty, exceeds {@link
+     *     org.aion.p2p.V1Constants#TX_HASHES_MAXIMUM_BATCH_SIZE} or contains invalid hashes
+     */
+    public RequestTxs(final List<byte[]> hashes) {
+        super(Ver.V1, Ctrl.SYNC, Act.REQUEST_TXS);
+        this.hashes = TxHashes.validate(hashes);
+    }
+
+    /**
+     * Decodes a message into a transaction request.
+     *
+     * @param message a {@code byte} array representing a transaction request
+     * @return the decoded request if valid or {@code null} when the decoding encounters invalid
+     *     input
+     */
+    public static RequestTxs decode(final byte[] message) {
+        List<byte[]> hashes = TxHashes.decode(message);
+        return hashes == null ? null : new RequestTxs(hashes);
+    }
+
+    @Override
+    public byte[] encode() {
+        return TxHashes.encode(hashes);
+    }
+
+    /**
+     * Returns the hashes of the requested transactions.
+     *
+     * @return the hashes of the requested transactions
+     */
+    public List<byte[]> getHashes() {
+        return hashes;
+    }
+}
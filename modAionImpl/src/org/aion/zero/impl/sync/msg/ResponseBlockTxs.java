@@ -0,0 +1,114 @@
+package org.aion.zero.impl.sync.msg;
+
+import static org.aion.p2p.V1Constants.COMPACT_BLOCK_MAXIMUM_TRANSACTIONS;
+import static org.aion.p2p.V1Constants.HASH_SIZE;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import org.aion.base.AionTransaction;
+import org.aion.base.TxUtil;
+import org.aion.p2p.Ctrl;
+import org.aion.p2p.Msg;
+import org.aion.p2p.Ver;
+import org.aion.rlp.RLPCursor;
+import org.aion.rlp.RLPWriter;
+import org.aion.util.conversions.Hex;
+import org.aion.zero.impl.sync.Act;
+
+/**
+ * Response to a {@link RequestBlockTxs} message containing the requested transactions in the order
+ * of the request.
+ */
+public final class ResponseBlockTxs extends Msg {
+
+    private final byte[] blockHash;
+    private final List<AionTransaction> transactions;
+
+    /**
+     * Constructor for block transaction responses.
+     *
+     * @param blockHash the hash of the block
+     * @param transactions the requested transactions
+     * @throws NullPointerException if either of the given parameters is {@code null}
+     * @throws IllegalArgumentException if the hash is not valid
+     */
+    public ResponseBlockTxs(final byte[] blockHash, final List<AionTransaction> transactions) {
+        super(Ver.V1, Ctrl.SYNC, Act.RESPONSE_BLOCK_TXS);
+
+        Objects.requireNonNull(blockHash);
+        Objects.requireNonNull(transactions);
+
+        if (blockHash.length != HASH_SIZE) {
+            throw new IllegalArgumentException(
+                    "The given value " + Hex.toHexString(blockHash) + " is not a correct block hash.");
+        }
+
+        this.blockHash = blockHash;
+        this.transactions = Collections.unmodifiableList(transactions);
+    }
+
+    /**
+     * Decodes a message into a block transactions response.
+     *
+     * @param message a {@code byte} array representing a block transactions response
+     * @return the decoded response if valid or {@code null} when the decoding encounters invalid
+     *     input, including invalid transactions
+     */
+    public static ResponseBlockTxs decode(final byte[] message) {
+        if (message == null || message.length == 0) {
+            return null;
+        }
+
+        try {
+            RLPCursor list = new RLPCursor(message).nextList();
+            byte[] hash = list.nextBytes();
+
+            RLPCursor encodedTxs = list.nextList();
+            if (hash.length != HASH_SIZE || list.hasNext() || encodedTxs.remaining() > COMPACT_BLOCK_MAXIMUM_TRANSACTIONS) {
+                return null;
+            }
+            List<AionTransaction> transactions = new ArrayList<>();
+            while (encodedTxs.hasNext()) {
+                AionTransaction tx = TxUtil.decodeUsingRlpCursor(encodedTxs.nextList());
+                if (tx == null) {
+                    return null;
+                }
+                transactions.add(tx);
+            }
+
+            return new ResponseBlockTxs(hash, transactions);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public byte[] encode() {
+        RLPWriter writer = new RLPWriter();
+        writer.startList().writeElement(blockHash).startList();
+        for (AionTransaction tx : transactions) {
+            writer.writeEncoded(tx.getEncoded());
+        }
+        return writer.endList().endList().toByteArray();
+    }
+
+    /**
+     * Returns the hash of the block.
+     *
+     * @return the hash of the block
+     */
+    public byte[] getBlockHash() {
+        return blockHash;
+    }
+
+    /**
+     * Returns the requested transactions.
+     *
+     * @return the requested transactions
+     */
+    public List<AionTransaction> getTransactions() {
+        return transactions;
+    }
+}
@@ -0,0 +1,64 @@
+package org.aion.zero.impl.sync.msg;
+
+import org.aion.p2p.Ctrl;
+import org.aion.p2p.Msg;
+import org.aion.p2p.Ver;
+import org.aion.rlp.RLP;
+import org.aion.rlp.RLPCursor;
+import org.aion.zero.impl.sync.Act;
+
+/**
+ * Informs the receiver that the sender accepts new blocks as {@link CompactBlock} messages. Peers
+ * that do not know this message ignore it and keep receiving the full blocks.
+ */
+public final class SendCompactBlocks extends Msg {
+
+    /** The version of the compact block messages supported by the sender. */
+    public static final int VERSION = 1;
+
+    private final int version;
+
+    public SendCompactBlocks() {
+        this(VERSION);
+    }
+
+    private SendCompactBlocks(int version) {
+        super(Ver.V1, Ctrl.SYNC, Act.SEND_COMPACT_BLOCKS);
+        this.version = version;
+    }
+
+    /**
+     * Decodes a message into a compact blocks notice.
+     *
+     * @param message a {@code byte} array representing a compact blocks notice
+     * @return the decoded notice if valid or {@code null} when the decoding encounters invalid
+     *     input
+     */
+    public static SendCompactBlocks decode(final byte[] message) {
+        if (message == null || message.length == 0) {
+            return null;
+        }
+
+        try {
+            RLPCursor list = new RLPCursor(message).nextList();
+            int version = list.nextInt();
+            return version < VERSION ? null : new SendCompactBlocks(version);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public byte[] encode() {
+        return RLP.encodeList(RLP.encodeInt(version));
+    }
+
+    /**
+     * Returns the version of the compact block messages supported by the sender.
+     *
+     * @return the version of the compact block messages supported by the sender
+     */
+    public int getVersion() {
+        return version;
+    }
+}
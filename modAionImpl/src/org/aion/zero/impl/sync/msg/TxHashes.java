@@ -0,0 +1,92 @@
+package org.aion.zero.impl.sync.msg;
+
+import static org.aion.p2p.V1Constants.HASH_SIZE;
+import static org.aion.p2p.V1Constants.TX_HASHES_MAXIMUM_BATCH_SIZE;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import org.aion.rlp.RLPCursor;
+import org.aion.rlp.RLPWriter;
+import org.aion.util.conversions.Hex;
+
+/**
+ * Encoding shared by the messages carrying a list of transaction hashes.
+ *
+ * @see AnnounceTxHashes
+ * @see RequestTxs
+ */
+final class TxHashes {
+
+    private TxHashes() {}
+
+    /**
+     * Ensures the given list can be sent in a message and returns an unmodifiable copy of it.
+     *
+     * @throws NullPointerException if the list or any of its elements is {@code null}
+     * @throws IllegalArgumentException if the list is empty, exceeds {@link
+     *     org.aion.p2p.V1Constants#TX_HASHES_MAXIMUM_BATCH_SIZE} or contains invalid hashes
+     */
+    static List<byte[]> validate(List<byte[]> hashes) {
+        Objects.requireNonNull(hashes);
+        if (hashes.isEmpty() || hashes.size() > TX_HASHES_MAXIMUM_BATCH_SIZE) {
+            throw new IllegalArgumentException(
+                    "The message must contain between 1 and " + TX_HASHES_MAXIMUM_BATCH_SIZE + " hashes.");
+        }
+        for (byte[] hash : hashes) {
+            if (Objects.requireNonNull(hash).length != HASH_SIZE) {
+                throw new IllegalArgumentException(
+                        "The given value " + Hex.toHexString(hash) + " is not a correct transaction hash.");
+            }
+        }
+        return Collections.unmodifiableList(new ArrayList<>(hashes));
+    }
+
+    static byte[] encode(List<byte[]> hashes) {
+        RLPWriter writer = new RLPWriter(hashes.size() * (HASH_SIZE + 1) + 4);
+        writer.startList();
+        for (byte[] hash : hashes) {
+            writer.writeElement(hash);
+        }
+        return writer.endList().toByteArray();
+    }
+
+    /**
+     * Decodes a list of transaction hashes.
+     *
+     * @return the decoded hashes or {@code null} when the message is not a valid list
+     */
+    static List<byte[]> decode(final byte[] message) {
+        if (message == null || message.length == 0) {
+            return null;
+        }
+
+        try {
+            RLPCursor cursor = new RLPCursor(message);
+            if (!cursor.isNextList()) {
+                return null;
+            }
+            RLPCursor list = cursor.nextList();
+            if (cursor.hasNext()) {
+                return null;
+            }
+
+            List<byte[]> hashes = new ArrayList<>();
+            while (list.hasNext()) {
+                if (list.isNextList() || hashes.size() == TX_HASHES_MAXIMUM_BATCH_SIZE) {
+                    return null;
+                }
+                byte[] hash = list.nextBytes();
+                if (hash.length != HASH_SIZE) {
+                    return null;
+                }
+                hashes.add(hash);
+            }
+            return hashes.isEmpty() ? null : hashes;
+        } catch (IllegalArgumentException | NoSuchElementException e) {
+            return null;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import static org.aion.util.types.ByteArrayWrapper.wrap;
 
 import com.google.common.annotations.VisibleForTesting;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -29,8 +30,20 @@ public class Cache {
     private Set<ByteArrayWrapper> removedNodes = new HashSet<>();
     private boolean isDirty;
 
+    // clean nodes shared with all the other tries; survives commits
+    private final TrieNodeCache sharedNodes;
+
     public Cache(ByteArrayKeyValueStore dataSource) {
+        this(dataSource, TrieNodeCache.DISABLED);
+    }
+
+    /**
+     * Creates a cache over the given data source that shares its clean nodes with the other tries
+     * using the given node cache.
+     */
+    public Cache(ByteArrayKeyValueStore dataSource, TrieNodeCache sharedNodes) {
         this.dataSource = dataSource;
+        this.sharedNodes = sharedNodes;
     }
 
     public void markRemoved(byte[] key) {
@@ -54,27 +67,79 @@ public class Cache {
     }
 
     public Node get(byte[] key) {
+        return get(key, true);
+    }
+
+    /**
+     * Retrieves the node with the given hash from the local nodes, the shared node cache or the
+     * data source, in this order.
+     *
+     * @param key the hash of the node
+     * @param useSharedCache when {@code false} the shared cache is skipped; used by operations that
+     *     must confirm the node is present in <i>this</i> data source (e.g. when checking for
+     *     missing or pruned nodes)
+     * @return the node or {@code null} if it cannot be found
+     */
+    public Node get(byte[] key, boolean useSharedCache) {
         ByteArrayWrapper wrappedKey = wrap(key);
         Node node = nodes.get(wrappedKey);
         if (node != null) {
-            // cachehits++;
             return node;
         } else if (this.dataSource != null) {
-            Optional<byte[]> data = this.dataSource.get(key);
-            if (data.isPresent()) {
-                // dbhits++;
-                node = new Node(fromRlpEncoded(data.get()), false);
-                nodes.put(wrappedKey, node);
-                return node;
+            byte[] encoding = useSharedCache ? sharedNodes.get(wrappedKey) : null;
+            if (encoding == null) {
+                Optional<byte[]> data = this.dataSource.get(key);
+                if (!data.isPresent()) {
+                    return null;
+                }
+                encoding = data.get();
+                sharedNodes.put(wrappedKey, encoding);
             }
+            node = new Node(fromRlpEncoded(encoding), false);
+            nodes.put(wrappedKey, node);
+            return node;
         }
 
         return null;
     }
 
+    /**
+     * Loads the nodes with the given hashes that are not already cached using a single batch read
+     * from the data source. Nodes missing from the data source are ignored.
+     *
+     * @param keys the hashes of the nodes to be loaded
+     */
+    public void prefetch(Collection<byte[]> keys) {
+        if (this.dataSource == null) {
+            return;
+        }
+
+        List<byte[]> missing = new ArrayList<>();
+        for (byte[] key : keys) {
+            ByteArrayWrapper wrappedKey = wrap(key);
+            if (!nodes.containsKey(wrappedKey) && sharedNodes.get(wrappedKey) == null) {
+                missing.add(key);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        List<byte[]> encodings = this.dataSource.getBatch(missing);
+        for (int i = 0; i < missing.size(); i++) {
+            byte[] encoding = encodings.get(i);
+            if (encoding != null) {
+                ByteArrayWrapper wrappedKey = wrap(missing.get(i));
+                sharedNodes.put(wrappedKey, encoding);
+                nodes.put(wrappedKey, new Node(fromRlpEncoded(encoding), false));
+            }
+        }
+    }
+
     public void delete(byte[] key) {
         ByteArrayWrapper wrappedKey = wrap(key);
         this.nodes.remove(wrappedKey);
+        this.sharedNodes.invalidate(wrappedKey);
 
         if (dataSource != null) {
             this.dataSource.delete(key);
@@ -105,6 +170,7 @@ public class Cache {
         }
 
         Map<byte[], byte[]> batch = new HashMap<>();
+        Map<ByteArrayWrapper, byte[]> written = new HashMap<>();
         List<byte[]> deleteBatch = new ArrayList<>();
         for (ByteArrayWrapper nodeKey : this.nodes.keySet()) {
             Node node = this.nodes.get(nodeKey);
@@ -121,6 +187,7 @@ public class Cache {
                 byte[] key = nodeKey.toBytes();
 
                 batch.put(key, value);
+                written.put(nodeKey, value);
             }
         }
         for (ByteArrayWrapper removedNode : removedNodes) {
@@ -129,6 +196,18 @@ public class Cache {
 
         this.dataSource.putBatch(batch);
         this.dataSource.deleteBatch(deleteBatch);
+
+        // the committed nodes are clean and can be shared with the other tries
+        for (Map.Entry<ByteArrayWrapper, byte[]> entry : written.entrySet()) {
+            if (entry.getValue() == null) {
+                sharedNodes.invalidate(entry.getKey());
+            } else {
+                sharedNodes.put(entry.getKey(), entry.getValue());
+            }
+        }
+        for (ByteArrayWrapper removedNode : removedNodes) {
+            sharedNodes.invalidate(removedNode);
+        }
         this.isDirty = false;
         if (flushCache) {
             this.nodes.clear();
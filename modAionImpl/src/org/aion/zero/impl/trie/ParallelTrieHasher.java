@@ -0,0 +1,127 @@
+package org.aion.zero.impl.trie;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import org.aion.crypto.HashUtil;
+import org.aion.crypto.HashUtil.H256Context;
+import org.aion.rlp.Value;
+import org.aion.util.bytes.ByteUtil;
+import org.aion.util.types.ByteArrayWrapper;
+
+/**
+ * Computes the hashes of the dirty nodes of a trie built with deferred hashing.
+ *
+ * <p>With deferred hashing the {@link TrieImpl} keeps modified nodes inline (as {@code Object[]})
+ * inside their parents instead of replacing them with their hash on every insert or delete. When
+ * the root hash is requested the inline nodes are resolved bottom-up: each node with an encoding of
+ * at least 32 bytes is replaced by its hash, while smaller nodes stay embedded in their parents as
+ * required by the trie specification. The children of branch nodes in the top levels of the trie
+ * are resolved in parallel using fork-join tasks.
+ */
+final class ParallelTrieHasher {
+
+    /** Branch nodes deeper than this are resolved on the current thread. */
+    private static final int FORK_DEPTH = 3;
+
+    private final ForkJoinPool pool;
+
+    ParallelTrieHasher(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Replaces all the inline nodes reachable from the given node with their hashes.
+     *
+     * @param node the node reference to be resolved
+     * @param hashed collects the nodes that were hashed, mapped by their hash
+     * @return the hash of the node if its encoding has at least 32 bytes, the node itself otherwise
+     */
+    Object resolve(Object node, Map<ByteArrayWrapper, Value> hashed) {
+        if (!isInline(node)) {
+            return node;
+        }
+        // the tasks hash with the context of the calling thread
+        return pool.invoke(new HashTask(node, 0, hashed, HashUtil.getContext()));
+    }
+
+    /** @return a map that can be safely shared by the tasks resolving the nodes */
+    static Map<ByteArrayWrapper, Value> newResultMap() {
+        return new ConcurrentHashMap<>();
+    }
+
+    private static boolean isInline(Object node) {
+        return node instanceof Object[] || (node instanceof Value && ((Value) node).isList());
+    }
+
+    private static Object resolve(Object node, int depth, Map<ByteArrayWrapper, Value> hashed, H256Context context) {
+        if (!isInline(node)) {
+            return node;
+        }
+        if (node instanceof Value) {
+            node = ((Value) node).asObj();
+        }
+
+        // the array may be part of a node decoded from the database and must not be modified
+        Object[] items = ((Object[]) node).clone();
+
+        if (items.length == Node.BRANCH_SIZE && depth < FORK_DEPTH) {
+            List<HashTask> forked = new ArrayList<>();
+            int[] indexes = new int[Node.BRANCH_SIZE];
+            for (int i = 0; i < Node.BRANCH_SIZE - 1; i++) {
+                if (isInline(items[i])) {
+                    indexes[forked.size()] = i;
+                    forked.add(new HashTask(items[i], depth + 1, hashed, context));
+                }
+            }
+
+            if (forked.size() == 1) {
+                items[indexes[0]] = forked.get(0).compute();
+            } else if (!forked.isEmpty()) {
+                for (int i = 1; i < forked.size(); i++) {
+                    forked.get(i).fork();
+                }
+                // the first child is resolved on the current thread
+                items[indexes[0]] = forked.get(0).compute();
+                for (int i = 1; i < forked.size(); i++) {
+                    items[indexes[i]] = forked.get(i).join();
+                }
+            }
+        } else {
+            for (int i = 0; i < items.length; i++) {
+                items[i] = resolve(items[i], depth + 1, hashed, context);
+            }
+        }
+
+        Value value = new Value(items);
+        byte[] encoding = value.encode();
+        if (encoding.length >= ByteUtil.EMPTY_WORD.length) {
+            byte[] hash = HashUtil.h256(context, encoding);
+            hashed.put(ByteArrayWrapper.wrap(hash), value);
+            return hash;
+        }
+        return items;
+    }
+
+    private static final class HashTask extends RecursiveTask<Object> {
+        private final Object node;
+        private final int depth;
+        private final Map<ByteArrayWrapper, Value> hashed;
+        private final H256Context context;
+
+        HashTask(Object node, int depth, Map<ByteArrayWrapper, Value> hashed, H256Context context) {
+            this.node = node;
+            this.depth = depth;
+            this.hashed = hashed;
+            this.context = context;
+        }
+
+        @Override
+        protected Object compute() {
+            return resolve(node, depth, hashed, context);
+        }
+    }
+}
@@ -2,6 +2,9 @@ package org.aion.zero.impl.trie;
 
 import static org.aion.crypto.HashUtil.h256;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import org.aion.db.impl.ByteArrayKeyValueStore;
 
 public class SecureTrie extends TrieImpl implements Trie {
@@ -23,6 +26,15 @@ public class SecureTrie extends TrieImpl implements Trie {
         return super.get(h256(key));
     }
 
+    @Override
+    public void prefetch(Collection<byte[]> keys) {
+        List<byte[]> hashedKeys = new ArrayList<>(keys.size());
+        for (byte[] key : keys) {
+            hashedKeys.add(h256(key));
+        }
+        super.prefetch(hashedKeys);
+    }
+
     @Override
     public void update(byte[] key, byte[] value) {
         super.update(h256(key), value);
@@ -1,5 +1,6 @@
 package org.aion.zero.impl.trie;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 import org.aion.db.impl.ByteArrayKeyValueDatabase;
@@ -75,6 +76,15 @@ public interface Trie {
     // never used
     //    boolean validate();
 
+    /**
+     * Loads the nodes on the paths to the given keys, reading the nodes at the same depth with a
+     * single batch request to the database. Subsequent calls to {@link #get(byte[])} for these keys
+     * are served from the cache.
+     *
+     * @param keys the keys that will be retrieved
+     */
+    void prefetch(Collection<byte[]> keys);
+
     /**
      * Traverse the trie starting from the given node. Return the keys for all the missing branches
      * that are encountered during the traversal.
@@ -19,9 +19,11 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.locks.ReentrantLock;
 import org.aion.base.ConstantUtil;
 import org.aion.crypto.HashUtil;
@@ -73,6 +75,10 @@ public class TrieImpl implements Trie {
     private boolean pruningEnabled;
     private ReentrantLock lock;
 
+    // when enabled, modified nodes are kept inline and hashed only when the root is requested
+    private boolean deferredHashing;
+    private static final ParallelTrieHasher hasher = new ParallelTrieHasher(ForkJoinPool.commonPool());
+
     public TrieImpl(ByteArrayKeyValueStore db) {
         this(db, "");
     }
@@ -137,6 +143,30 @@ public class TrieImpl implements Trie {
         return this;
     }
 
+    public boolean isDeferredHashingEnabled() {
+        return deferredHashing;
+    }
+
+    /**
+     * Enables or disables deferred hashing. When enabled, the nodes modified by {@link
+     * #update(byte[], byte[])} and {@link #delete(byte[])} are kept inline in their parents and
+     * marked dirty, instead of being encoded and hashed immediately. The dirty nodes are hashed in
+     * parallel by the {@link ParallelTrieHasher} when the root hash is requested or the trie is
+     * synced.
+     */
+    public TrieImpl withDeferredHashing(boolean deferredHashing) {
+        lock.lock();
+        try {
+            if (this.deferredHashing && !deferredHashing) {
+                resolveRoot();
+            }
+            this.deferredHashing = deferredHashing;
+            return this;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     /** Retrieve a value from a key as String. */
     @VisibleForTesting
     byte[] get(String key) {
@@ -162,6 +192,73 @@ public class TrieImpl implements Trie {
         }
     }
 
+    @Override
+    public void prefetch(Collection<byte[]> keys) {
+        lock.lock();
+        try {
+            // the paths are walked in lock-step, one level at a time
+            List<Object> nodes = new ArrayList<>();
+            List<byte[]> paths = new ArrayList<>();
+            List<Integer> positions = new ArrayList<>();
+            for (byte[] key : keys) {
+                nodes.add(this.root);
+                paths.add(binToNibbles(key));
+                positions.add(0);
+            }
+
+            while (!nodes.isEmpty()) {
+                List<byte[]> hashes = new ArrayList<>();
+                for (int i = 0; i < nodes.size(); i++) {
+                    Object node = nodes.get(i);
+                    // values reached at the end of the path are not node references
+                    if (positions.get(i) < paths.get(i).length
+                            && node instanceof byte[]
+                            && ((byte[]) node).length == ByteUtil.EMPTY_WORD.length) {
+                        hashes.add((byte[]) node);
+                    }
+                }
+                cache.prefetch(hashes);
+
+                List<Object> nextNodes = new ArrayList<>();
+                List<byte[]> nextPaths = new ArrayList<>();
+                List<Integer> nextPositions = new ArrayList<>();
+                for (int i = 0; i < nodes.size(); i++) {
+                    Object node = nodes.get(i);
+                    byte[] key = paths.get(i);
+                    int keypos = positions.get(i);
+                    if (key.length == keypos || isEmptyNode(node)) {
+                        continue;
+                    }
+
+                    Value currentNode = this.getNode(node);
+                    if (currentNode == null) {
+                        continue;
+                    }
+
+                    if (currentNode.length() == Node.PAIR_SIZE) {
+                        byte[] k = unpackToNibbles(currentNode.get(0).asBytes());
+                        if (key.length - keypos >= k.length
+                                && Arrays.equals(k, copyOfRange(key, keypos, k.length + keypos))) {
+                            nextNodes.add(currentNode.get(1).asObj());
+                            nextPositions.add(keypos + k.length);
+                            nextPaths.add(key);
+                        }
+                    } else {
+                        nextNodes.add(currentNode.get(key[keypos]).asObj());
+                        nextPositions.add(keypos + 1);
+                        nextPaths.add(key);
+                    }
+                }
+
+                nodes = nextNodes;
+                paths = nextPaths;
+                positions = nextPositions;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
     /** Insert key/value pair into trie. */
     @VisibleForTesting
     void update(String key, String value) {
@@ -200,7 +297,8 @@ public class TrieImpl implements Trie {
     public boolean isValidRoot(byte[] root) {
         lock.lock();
         try {
-            return this.getNode(root) != null;
+            // the shared node cache is skipped to confirm the root is present in the database
+            return this.getNode(root, false) != null;
         } finally {
             lock.unlock();
         }
@@ -239,6 +337,7 @@ public class TrieImpl implements Trie {
     }
 
     private byte[] getRootHashInner() {
+        resolveRoot();
         if (root == null
             || (root instanceof byte[] && ((byte[]) root).length == 0)
             || (root instanceof String && "".equals(root))) {
@@ -250,6 +349,20 @@ public class TrieImpl implements Trie {
         }
     }
 
+    /**
+     * Hashes the nodes left inline by the updates performed with deferred hashing and adds them to
+     * the cache as dirty nodes.
+     */
+    private void resolveRoot() {
+        if (deferredHashing && root instanceof Object[]) {
+            Map<ByteArrayWrapper, Value> hashed = ParallelTrieHasher.newResultMap();
+            root = hasher.resolve(root, hashed);
+            for (Map.Entry<ByteArrayWrapper, Value> entry : hashed.entrySet()) {
+                this.cache.put(entry.getKey(), new Node(entry.getValue(), true));
+            }
+        }
+    }
+
     private Object get(Object node, byte[] key) {
         int keypos = 0;
         while (key.length - keypos != 0 && !isEmptyNode(node)) {
@@ -336,7 +449,7 @@ public class TrieImpl implements Trie {
                 newHash = this.putToCache(scaledSlice);
             }
 
-            markRemoved(HashUtil.h256(currentNode.encode()));
+            markRemoved(node, currentNode);
 
             if (matchingLength == 0) {
                 // End of the chain, return
@@ -358,11 +471,10 @@ public class TrieImpl implements Trie {
                             copyOfRange(key, 1, key.length),
                             value);
 
-            if (!Arrays.equals(
-                    HashUtil.h256(getNode(newNode).encode()),
-                    HashUtil.h256(currentNode.encode()))) {
-                markRemoved(HashUtil.h256(currentNode.encode()));
-                if (!isEmptyNode(currentNode.get(key[0]))) {
+            if (pruningEnabled && !sameEncoding(newNode, currentNode)) {
+                markRemoved(node, currentNode);
+                if (!isEmptyNode(currentNode.get(key[0]))
+                        && !isDeferred(currentNode.get(key[0]).asObj())) {
                     markRemoved(currentNode.get(key[0]).asBytes());
                 }
             }
@@ -403,7 +515,7 @@ public class TrieImpl implements Trie {
                 } else {
                     newNode = new Object[] {currentNode.get(0), hash};
                 }
-                markRemoved(HashUtil.h256(currentNode.encode()));
+                markRemoved(node, currentNode);
                 return this.putToCache(newNode);
             } else {
                 return node;
@@ -441,10 +553,8 @@ public class TrieImpl implements Trie {
                 newNode = itemList;
             }
 
-            if (!Arrays.equals(
-                    HashUtil.h256(getNode(newNode).encode()),
-                    HashUtil.h256(currentNode.encode()))) {
-                markRemoved(HashUtil.h256(currentNode.encode()));
+            if (pruningEnabled && !sameEncoding(newNode, currentNode)) {
+                markRemoved(node, currentNode);
             }
 
             return this.putToCache(newNode);
@@ -457,11 +567,66 @@ public class TrieImpl implements Trie {
         }
     }
 
+    /**
+     * Marks the given node for removal. Nodes kept inline by deferred hashing were never stored,
+     * so they are skipped without computing their hash.
+     */
+    private void markRemoved(Object node, Value currentNode) {
+        if (pruningEnabled && !isDeferred(node)) {
+            cache.markRemoved(HashUtil.h256(currentNode.encode()));
+        }
+    }
+
+    /** @return {@code true} for nodes not yet hashed due to deferred hashing */
+    private boolean isDeferred(Object node) {
+        return deferredHashing
+                && (node instanceof Object[] || (node instanceof Value && ((Value) node).isList()));
+    }
+
+    /**
+     * Checks if the two nodes have the same encoding. The children shared by both nodes are
+     * skipped, so the inline subtrees left unchanged under deferred hashing are not encoded.
+     */
+    private static boolean sameEncoding(Object first, Object second) {
+        if (first instanceof Value) {
+            first = ((Value) first).asObj();
+        }
+        if (second instanceof Value) {
+            second = ((Value) second).asObj();
+        }
+        if (first == second) {
+            return true;
+        }
+
+        if (first instanceof Object[] && second instanceof Object[]) {
+            Object[] firstItems = (Object[]) first;
+            Object[] secondItems = (Object[]) second;
+            if (firstItems.length != secondItems.length) {
+                return false;
+            }
+            for (int i = 0; i < firstItems.length; i++) {
+                if (!sameEncoding(firstItems[i], secondItems[i])) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (first instanceof Object[] || second instanceof Object[]) {
+            // an inline list never encodes like a hash or a value
+            return false;
+        } else {
+            return Arrays.equals(new Value(first).encode(), new Value(second).encode());
+        }
+    }
+
     /**
      * Helper method to retrieve the actual node. If the node is not a list and length is > 32 bytes
      * get the actual node from the db.
      */
     private Value getNode(Object node) {
+        return getNode(node, true);
+    }
+
+    private Value getNode(Object node, boolean useSharedCache) {
 
         Value val = new Value(node);
 
@@ -477,11 +642,16 @@ public class TrieImpl implements Trie {
         } else if (keyBytes.length < ByteUtil.EMPTY_WORD.length) {
             return new Value(keyBytes);
         }
-        Node nodeFromCache = this.cache.get(keyBytes);
+        Node nodeFromCache = this.cache.get(keyBytes, useSharedCache);
         return nodeFromCache == null ? null : nodeFromCache.getValue();
     }
 
     private Object putToCache(Object node) {
+        if (deferredHashing) {
+            // the node stays inline and is hashed when the root is requested
+            return node;
+        }
+
         Value value = new Value(node);
         byte[] enc = value.encode();
         if (enc.length >= ByteUtil.EMPTY_WORD.length) {
@@ -510,6 +680,7 @@ public class TrieImpl implements Trie {
     public void sync() {
         lock.lock();
         try {
+            resolveRoot();
             this.cache.commit();
         } finally {
             lock.unlock();
@@ -520,6 +691,7 @@ public class TrieImpl implements Trie {
     public void syncWithoutFlush() {
         lock.lock();
         try {
+            resolveRoot();
             this.cache.commitWithoutFlush();
         } finally {
             lock.unlock();
@@ -651,6 +823,7 @@ public class TrieImpl implements Trie {
     public byte[] serialize() {
         lock.lock();
         try {
+            resolveRoot();
             Map<ByteArrayWrapper, Node> map = getCache().getNodes();
 
             int keysTotalSize = 0;
@@ -764,6 +937,7 @@ public class TrieImpl implements Trie {
     public String getTrieDump() {
         lock.lock();
         try {
+            resolveRoot();
             TraceAllNodes traceAction = new TraceAllNodes();
             Value value = new Value(root);
             if (value.isHashCode()) {
@@ -834,7 +1008,8 @@ public class TrieImpl implements Trie {
             int items = hashes.size();
             for (int i = 0; i < items; i++) {
                 byte[] hash = hashes.get(i);
-                Node node = this.getCache().get(hash);
+                // nodes must be present in the database, not only in the shared cache
+                Node node = this.getCache().get(hash, false);
                 if (node == null) {
                     // performs action for missing nodes
                     scanAction.doOnNode(hash, null);
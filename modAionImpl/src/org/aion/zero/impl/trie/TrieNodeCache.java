@@ -0,0 +1,127 @@
+package org.aion.zero.impl.trie;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.google.common.annotations.VisibleForTesting;
+import java.util.Collection;
+import org.aion.util.types.ByteArrayWrapper;
+
+/**
+ * A size-bounded cache of <b>clean</b> trie nodes owned by the repository and shared by the tries
+ * created over its databases (the world state, contract storage and repository snapshots). The
+ * tries receive the cache through their {@link Cache} and the tries created without one do not
+ * share their nodes.
+ *
+ * <p>Trie nodes are content-addressed, so a node with a given hash has the same encoding regardless
+ * of the trie or data source it belongs to. The cache stores the RLP encoding of nodes that are
+ * known to be persisted (either read from or written to a data source) and uses a Window-TinyLfu
+ * eviction policy bounded by the total byte size of the cached entries (<a
+ * href=https://github.com/ben-manes/caffeine/wiki/Efficiency>efficiency details</a>).
+ *
+ * <p>The encoded value is cached instead of the {@link Node} object because the decoding done by
+ * {@link org.aion.rlp.Value} is lazy and not thread safe, while the shared cache is accessed
+ * concurrently by different tries.
+ *
+ * <p>The nodes deleted from the databases, either by the tries or by the state pruning, must be
+ * invalidated to release their memory and to keep the checks for missing nodes accurate.
+ */
+public final class TrieNodeCache {
+
+    /** Default cache size in megabytes. */
+    public static final int DEFAULT_SIZE_MB = 64;
+
+    /** Rough per entry overhead of the wrapper objects and the cache entry itself. */
+    private static final int ENTRY_OVERHEAD = 96;
+
+    /** A cache that holds no nodes, used by the tries that do not share their nodes. */
+    public static final TrieNodeCache DISABLED = new TrieNodeCache(0);
+
+    private final com.github.benmanes.caffeine.cache.Cache<ByteArrayWrapper, byte[]> nodes;
+    private final long maxBytes;
+
+    /**
+     * Creates a cache bounded by the given size.
+     *
+     * @param maxBytes the maximum size of the cached nodes in bytes; zero disables caching
+     * @throws IllegalArgumentException when the given size is negative
+     */
+    public TrieNodeCache(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("The trie node cache size cannot be negative.");
+        }
+        this.maxBytes = maxBytes;
+        this.nodes =
+                Caffeine.newBuilder()
+                        .maximumWeight(maxBytes)
+                        .weigher((ByteArrayWrapper k, byte[] v) -> k.length() + v.length + ENTRY_OVERHEAD)
+                        .recordStats()
+                        // evict on the calling thread to keep the size bound strict
+                        .executor(Runnable::run)
+                        .build();
+    }
+
+    /** @return the encoding of the node with the given hash or {@code null} if not cached */
+    byte[] get(ByteArrayWrapper key) {
+        return nodes.getIfPresent(key);
+    }
+
+    /** Caches the encoding of a node that is present in (or was just written to) the database. */
+    void put(ByteArrayWrapper key, byte[] encoding) {
+        if (maxBytes > 0) {
+            nodes.put(key, encoding);
+        }
+    }
+
+    /** Removes a node that was deleted from the database. */
+    void invalidate(ByteArrayWrapper key) {
+        nodes.invalidate(key);
+    }
+
+    /** Removes the nodes with the given hashes, deleted from the database by pruning. */
+    public void invalidate(Collection<byte[]> keys) {
+        for (byte[] key : keys) {
+            nodes.invalidate(ByteArrayWrapper.wrap(key));
+        }
+    }
+
+    @VisibleForTesting
+    void clear() {
+        nodes.invalidateAll();
+    }
+
+    /** @return the maximum size in bytes of the cached entries */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /** @return the (approximate) number of cached nodes */
+    public long getEntryCount() {
+        return nodes.estimatedSize();
+    }
+
+    public long getHitCount() {
+        return nodes.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return nodes.stats().missCount();
+    }
+
+    public long getEvictionCount() {
+        return nodes.stats().evictionCount();
+    }
+
+    /** @return a single line summary of the cache statistics suitable for logging */
+    public String getStatsSummary() {
+        CacheStats stats = nodes.stats();
+        return String.format(
+                "trie node cache: entries=%d, hits=%d, misses=%d, hitRate=%.2f%%, evictions=%d, evictedBytes=%d, maxBytes=%d",
+                nodes.estimatedSize(),
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate() * 100,
+                stats.evictionCount(),
+                stats.evictionWeight(),
+                maxBytes);
+    }
+}
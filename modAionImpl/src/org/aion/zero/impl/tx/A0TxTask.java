@@ -1,8 +1,11 @@
 package org.aion.zero.impl.tx;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.function.IntPredicate;
 
 import org.aion.base.AionTransaction;
 import org.aion.p2p.INode;
@@ -14,11 +17,30 @@ public class A0TxTask implements Callable<List<AionTransaction>> {
     protected final List<AionTransaction> tx;
     protected final IP2pMgr p2pMgr;
     protected final Msg msg;
+    protected final List<Msg> announcements;
+    protected final IntPredicate acceptsAnnouncements;
 
     public A0TxTask(List<AionTransaction> _tx, IP2pMgr _p2pMgr, Msg _msg) {
+        this(_tx, _p2pMgr, _msg, Collections.emptyList(), peerId -> false);
+    }
+
+    /**
+     * Sends the transactions to the square root of the peers known to handle announcements and the
+     * announcements of their hashes to the others, which request the transactions they do not have
+     * yet. The remaining peers receive both the transactions, since they may drop the
+     * announcements, and the announcements, which let them know that this node handles them.
+     */
+    public A0TxTask(
+            List<AionTransaction> _tx,
+            IP2pMgr _p2pMgr,
+            Msg _msg,
+            List<Msg> _announcements,
+            IntPredicate _acceptsAnnouncements) {
         this.tx = _tx;
         this.p2pMgr = _p2pMgr;
         this.msg = _msg;
+        this.announcements = _announcements;
+        this.acceptsAnnouncements = _acceptsAnnouncements;
     }
 
     /** Class fails silently */
@@ -29,8 +51,25 @@ public class A0TxTask implements Callable<List<AionTransaction>> {
         try {
             Map<Integer, INode> activeNodes = this.p2pMgr.getActiveNodes();
             if (activeNodes != null) {
+                List<Map.Entry<Integer, INode>> announcing = new ArrayList<>();
                 for (Map.Entry<Integer, INode> e : activeNodes.entrySet()) {
-                    this.p2pMgr.send(e.getKey(), e.getValue().getIdShort(), this.msg);
+                    if (!announcements.isEmpty() && acceptsAnnouncements.test(e.getKey())) {
+                        announcing.add(e);
+                    } else {
+                        this.p2pMgr.send(e.getKey(), e.getValue().getIdShort(), this.msg);
+                        sendAnnouncements(e);
+                    }
+                }
+
+                Collections.shuffle(announcing);
+                int fullCount = (int) Math.ceil(Math.sqrt(announcing.size()));
+                for (int i = 0; i < announcing.size(); i++) {
+                    Map.Entry<Integer, INode> e = announcing.get(i);
+                    if (i < fullCount) {
+                        this.p2pMgr.send(e.getKey(), e.getValue().getIdShort(), this.msg);
+                    } else {
+                        sendAnnouncements(e);
+                    }
                 }
             }
 
@@ -42,4 +81,10 @@ public class A0TxTask implements Callable<List<AionTransaction>> {
 
         return null;
     }
+
+    private void sendAnnouncements(Map.Entry<Integer, INode> e) {
+        for (Msg announcement : announcements) {
+            this.p2pMgr.send(e.getKey(), e.getValue().getIdShort(), announcement);
+        }
+    }
 }
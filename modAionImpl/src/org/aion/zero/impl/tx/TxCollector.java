@@ -1,5 +1,7 @@
 package org.aion.zero.impl.tx;
 
+import static org.aion.p2p.V1Constants.TX_HASHES_MAXIMUM_BATCH_SIZE;
+
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Executors;
@@ -9,8 +11,11 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntPredicate;
 import org.aion.base.AionTransaction;
 import org.aion.p2p.IP2pMgr;
+import org.aion.p2p.Msg;
+import org.aion.zero.impl.sync.msg.AnnounceTxHashes;
 import org.aion.zero.impl.sync.msg.BroadcastTx;
 import org.slf4j.Logger;
 
@@ -18,7 +23,8 @@ import org.slf4j.Logger;
  * Aion Tx Collector
  *
  * <p>Rather than broadcast tx out as soon as they come in; the TxCollector buffers tx and
- * broadcasts them out in batches
+ * broadcasts them out in batches. The bodies go to a subset of the peers handling announcements
+ * while the others receive the hashes and request the transactions they miss.
  */
 public class TxCollector {
 
@@ -33,6 +39,7 @@ public class TxCollector {
     private final int offerTimeout = 100;
 
     private IP2pMgr p2p;
+    private IntPredicate acceptsAnnouncements;
 
     private TxBroadcaster txBroadcaster;
 
@@ -43,8 +50,13 @@ public class TxCollector {
     private ReentrantLock broadcastLock = new ReentrantLock();
     private Logger LOG;
 
-    public TxCollector(IP2pMgr p2p, final Logger logTx) {
+    /**
+     * @param acceptsAnnouncements tells if a peer is known to handle the announcements of the
+     *     transaction hashes, otherwise it always receives the transaction bodies
+     */
+    public TxCollector(IP2pMgr p2p, IntPredicate acceptsAnnouncements, final Logger logTx) {
         this.p2p = p2p;
+        this.acceptsAnnouncements = acceptsAnnouncements;
         this.LOG = logTx;
 
         // TODO AKI-547: Leave unbounded for now, may need to restrict queue size and drop tx until able to process tx
@@ -120,8 +132,25 @@ public class TxCollector {
             }
 
             txBroadcaster.submitTransaction(
-                    new A0TxTask(transactions, this.p2p, new BroadcastTx(transactions)));
+                    new A0TxTask(transactions, this.p2p, new BroadcastTx(transactions), announce(transactions), acceptsAnnouncements));
+        }
+    }
+
+    /** Splits the hashes of the transactions into messages of the maximum accepted size. */
+    private static List<Msg> announce(List<AionTransaction> transactions) {
+        List<Msg> announcements = new ArrayList<>();
+        List<byte[]> hashes = new ArrayList<>();
+        for (AionTransaction tx : transactions) {
+            hashes.add(tx.getTransactionHash());
+            if (hashes.size() == TX_HASHES_MAXIMUM_BATCH_SIZE) {
+                announcements.add(new AnnounceTxHashes(hashes));
+                hashes.clear();
+            }
+        }
+        if (!hashes.isEmpty()) {
+            announcements.add(new AnnounceTxHashes(hashes));
         }
+        return announcements;
     }
 
     /*
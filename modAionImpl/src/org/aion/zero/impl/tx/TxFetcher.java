@@ -0,0 +1,277 @@
+package org.aion.zero.impl.tx;
+
+import static org.aion.p2p.V1Constants.TX_HASHES_MAXIMUM_BATCH_SIZE;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.aion.base.AionTransaction;
+import org.aion.p2p.INode;
+import org.aion.p2p.IP2pMgr;
+import org.aion.util.types.ByteArrayWrapper;
+import org.aion.zero.impl.pendingState.AionPendingStateImpl;
+import org.aion.zero.impl.sync.msg.RequestTxs;
+import org.aion.zero.impl.valid.TXValidator;
+import org.apache.commons.collections4.map.LRUMap;
+import org.slf4j.Logger;
+
+/**
+ * Requests the bodies of the transactions announced by the peers with their hashes.
+ *
+ * <p>The announced hashes are skipped when the transaction is in the pool, was validated recently
+ * or was received recently. Each remaining hash is queued for the first peer announcing it and
+ * requested in batches, with at most one request sent to a peer every {@link #REQUEST_INTERVAL}
+ * milliseconds. When a peer does not deliver a requested transaction in time, the hash is moved to
+ * the next peer that announced it.
+ *
+ * <p>The transactions received recently are kept to answer the requests of the peers this node
+ * forwarded the announcements to, since seed and syncing nodes do not add them to their pool.
+ *
+ * <p>The peers which announced transactions are recorded, since only those are known to handle
+ * the announcements. The older nodes drop the routes they do not know, so the other peers must
+ * still receive the transaction bodies.
+ */
+public final class TxFetcher {
+
+    // number of received transactions kept to filter announcements and answer requests
+    private static final int RECENT_TRANSACTIONS = 8_192;
+    // announcements are ignored while a peer has this many hashes waiting to be requested
+    private static final int MAX_QUEUED_PER_PEER = 4_096;
+    // peers announcing a hash that the transaction can be requested from
+    private static final int MAX_ANNOUNCERS = 4;
+    private static final long REQUEST_INTERVAL = 250;
+    private static final long REQUEST_TIMEOUT = 5_000;
+
+    private final Logger log;
+    private final AionPendingStateImpl pendingState;
+    private final IP2pMgr p2p;
+
+    private final Map<ByteArrayWrapper, AionTransaction> recent = new LRUMap<>(RECENT_TRANSACTIONS);
+    private final Map<ByteArrayWrapper, Fetch> fetches = new HashMap<>();
+    private final Map<Integer, Peer> peers = new HashMap<>();
+    // the requested hashes in the order of their deadlines
+    private final ArrayDeque<ByteArrayWrapper> requested = new ArrayDeque<>();
+    // the peers known to handle announcements, read by the broadcasting threads
+    private final Set<Integer> announcingPeers = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService ex;
+
+    /** A transaction to be requested or waiting for its body. */
+    private static final class Fetch {
+        private final List<Integer> announcers = new ArrayList<>();
+        // zero while the hash is queued
+        private long deadline;
+
+        private int peerId() {
+            return announcers.get(0);
+        }
+    }
+
+    private static final class Peer {
+        private final String displayId;
+        private final ArrayDeque<ByteArrayWrapper> queued = new ArrayDeque<>();
+        private long nextRequest;
+
+        private Peer(String displayId) {
+            this.displayId = displayId;
+        }
+    }
+
+    public TxFetcher(
+            final Logger log, final AionPendingStateImpl pendingState, final IP2pMgr p2p) {
+        this.log = log;
+        this.pendingState = pendingState;
+        this.p2p = p2p;
+    }
+
+    /** Starts sending the transaction requests periodically. */
+    public void start() {
+        ex =
+                Executors.newSingleThreadScheduledExecutor(
+                        r -> {
+                            Thread t = new Thread(r, "tx-fetcher");
+                            t.setDaemon(true);
+                            return t;
+                        });
+        ex.scheduleWithFixedDelay(this::requestTransactions, 1000, 100, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        if (ex != null) {
+            ex.shutdown();
+        }
+    }
+
+    /** Queues the unknown transactions from the hashes announced by the given peer. */
+    public synchronized void onAnnouncement(int peerId, String displayId, List<byte[]> hashes) {
+        announcingPeers.add(peerId);
+        Peer peer = peers.computeIfAbsent(peerId, id -> new Peer(displayId));
+
+        int queued = 0;
+        for (byte[] bytes : hashes) {
+            ByteArrayWrapper hash = ByteArrayWrapper.wrap(bytes);
+
+            Fetch fetch = fetches.get(hash);
+            if (fetch != null) {
+                if (fetch.announcers.size() < MAX_ANNOUNCERS && !fetch.announcers.contains(peerId)) {
+                    fetch.announcers.add(peerId);
+                }
+            } else if (!isKnown(hash)) {
+                if (peer.queued.size() >= MAX_QUEUED_PER_PEER) {
+                    log.debug("<tx-fetcher queue full for peer={}>", displayId);
+                    break;
+                }
+                fetch = new Fetch();
+                fetch.announcers.add(peerId);
+                fetches.put(hash, fetch);
+                peer.queued.add(hash);
+                queued++;
+            }
+        }
+
+        if (log.isTraceEnabled()) {
+            log.trace("<tx-fetcher announced={} queued={} peer={}>", hashes.size(), queued, displayId);
+        }
+    }
+
+    /** Records the received transactions, which are no longer requested from any peer. */
+    public synchronized void onTransactions(List<AionTransaction> transactions) {
+        for (AionTransaction tx : transactions) {
+            ByteArrayWrapper hash = ByteArrayWrapper.wrap(tx.getTransactionHash());
+            recent.put(hash, tx);
+            fetches.remove(hash);
+        }
+    }
+
+    /**
+     * Returns the transaction with the given hash if it is in the pool or was received recently,
+     * otherwise {@code null}.
+     */
+    public AionTransaction getTransaction(ByteArrayWrapper hash) {
+        AionTransaction tx = pendingState.getPendingTransaction(hash);
+        if (tx == null) {
+            synchronized (this) {
+                tx = recent.get(hash);
+            }
+        }
+        return tx;
+    }
+
+    /**
+     * Returns {@code true} if the given peer announced transactions to this node, in which case it
+     * can receive announcements instead of the transaction bodies.
+     */
+    public boolean isAnnouncingPeer(int peerId) {
+        return announcingPeers.contains(peerId);
+    }
+
+    private boolean isKnown(ByteArrayWrapper hash) {
+        return recent.containsKey(hash)
+                || TXValidator.isInCache(hash)
+                || pendingState.getPendingTransaction(hash) != null;
+    }
+
+    /** Sends the queued hashes to the peers allowed to receive a request. */
+    void requestTransactions() {
+        try {
+            Map<Integer, INode> activeNodes = p2p.getActiveNodes();
+            Map<Integer, RequestTxs> requests = new HashMap<>();
+
+            synchronized (this) {
+                long now = System.currentTimeMillis();
+                removeInactivePeers(activeNodes.keySet());
+                expireRequests(now);
+
+                for (Map.Entry<Integer, Peer> entry : peers.entrySet()) {
+                    Peer peer = entry.getValue();
+                    if (peer.queued.isEmpty() || peer.nextRequest > now) {
+                        continue;
+                    }
+
+                    List<byte[]> hashes = new ArrayList<>();
+                    while (hashes.size() < TX_HASHES_MAXIMUM_BATCH_SIZE && !peer.queued.isEmpty()) {
+                        ByteArrayWrapper hash = peer.queued.poll();
+                        Fetch fetch = fetches.get(hash);
+                        // skip the transactions received or moved to another peer meanwhile
+                        if (fetch != null && fetch.deadline == 0 && fetch.peerId() == entry.getKey()) {
+                            fetch.deadline = now + REQUEST_TIMEOUT;
+                            requested.add(hash);
+                            hashes.add(hash.toBytes());
+                        }
+                    }
+
+                    if (!hashes.isEmpty()) {
+                        requests.put(entry.getKey(), new RequestTxs(hashes));
+                        peer.nextRequest = now + REQUEST_INTERVAL;
+                    }
+                }
+            }
+
+            for (Map.Entry<Integer, RequestTxs> entry : requests.entrySet()) {
+                INode node = activeNodes.get(entry.getKey());
+                if (node != null) {
+                    log.trace("<tx-fetcher requesting={} peer={}>", entry.getValue().getHashes().size(), node.getIdShort());
+                    p2p.send(entry.getKey(), node.getIdShort(), entry.getValue());
+                }
+            }
+        } catch (Exception e) {
+            log.error("<tx-fetcher request exception>", e);
+        }
+    }
+
+    private void removeInactivePeers(Set<Integer> activePeers) {
+        announcingPeers.retainAll(activePeers);
+        Iterator<Map.Entry<Integer, Peer>> iterator = peers.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, Peer> entry = iterator.next();
+            if (!activePeers.contains(entry.getKey())) {
+                iterator.remove();
+                for (ByteArrayWrapper hash : entry.getValue().queued) {
+                    Fetch fetch = fetches.get(hash);
+                    if (fetch != null && fetch.deadline == 0 && fetch.peerId() == entry.getKey()) {
+                        reassign(hash, fetch);
+                    }
+                }
+            }
+        }
+    }
+
+    private void expireRequests(long now) {
+        while (!requested.isEmpty()) {
+            ByteArrayWrapper hash = requested.peek();
+            Fetch fetch = fetches.get(hash);
+            if (fetch == null || fetch.deadline == 0) {
+                // received or already reassigned
+                requested.poll();
+            } else if (fetch.deadline <= now) {
+                requested.poll();
+                reassign(hash, fetch);
+            } else {
+                break;
+            }
+        }
+    }
+
+    /** Moves the hash to the next connected peer that announced it or forgets it. */
+    private void reassign(ByteArrayWrapper hash, Fetch fetch) {
+        fetch.announcers.remove(0);
+        fetch.deadline = 0;
+        while (!fetch.announcers.isEmpty()) {
+            Peer peer = peers.get(fetch.peerId());
+            if (peer != null && peer.queued.size() < MAX_QUEUED_PER_PEER) {
+                peer.queued.add(hash);
+                return;
+            }
+            fetch.announcers.remove(0);
+        }
+        fetches.remove(hash);
+    }
+}
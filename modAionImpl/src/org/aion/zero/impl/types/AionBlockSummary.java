@@ -4,6 +4,7 @@ import java.math.BigInteger;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.aion.types.AionAddress;
@@ -24,6 +25,7 @@ public class AionBlockSummary implements BlockSummary {
     private final List<AionTxReceipt> receipts;
     private final List<AionTxExecSummary> summaries;
     private BigInteger totalDifficulty = BigInteger.ZERO;
+    private Set<AionAddress> touchedAccounts = null;
 
     private final Logger LOG = AionLoggerFactory.getLogger(LogEnum.CONS.toString());
 
@@ -70,6 +72,18 @@ public class AionBlockSummary implements BlockSummary {
         return totalDifficulty;
     }
 
+    public void setTouchedAccounts(Set<AionAddress> touchedAccounts) {
+        this.touchedAccounts = touchedAccounts;
+    }
+
+    /**
+     * @return the accounts read or written by the execution of the block, or {@code null} if they
+     *     were not recorded
+     */
+    public Set<AionAddress> getTouchedAccounts() {
+        return touchedAccounts;
+    }
+
     public String toString() {
         StringBuilder s = new StringBuilder();
         s.append("rewards [\n");
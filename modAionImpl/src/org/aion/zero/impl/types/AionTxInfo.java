@@ -1,7 +1,9 @@
 package org.aion.zero.impl.types;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import org.aion.base.AionTransaction;
@@ -27,12 +29,16 @@ public class AionTxInfo {
     private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.TX.toString());
 
     // note that the receipt is modified to set the transaction
-    private final AionTxReceipt receipt;
+    private AionTxReceipt receipt;
     public final ByteArrayWrapper blockHash;
     private final int index;
-    private final List<InternalTransaction> internalTransactions;
+    private List<InternalTransaction> internalTransactions;
     private final boolean createdWithInternalTransactions;
 
+    // the encodings of the receipt and internal transactions which have not been decoded yet
+    private byte[] encodedReceipt;
+    private byte[] encodedInternalTransactions;
+
     /** @implNote Instance creation should be done through the static factory methods. */
     private AionTxInfo(AionTxReceipt receipt, ByteArrayWrapper blockHash, int index, List<InternalTransaction> internalTransactions, boolean createdWithInternalTransactions) {
         this.receipt = receipt;
@@ -42,6 +48,14 @@ public class AionTxInfo {
         this.createdWithInternalTransactions = createdWithInternalTransactions;
     }
 
+    private AionTxInfo(byte[] encodedReceipt, ByteArrayWrapper blockHash, int index, byte[] encodedInternalTransactions, boolean createdWithInternalTransactions) {
+        this.encodedReceipt = encodedReceipt;
+        this.blockHash = blockHash;
+        this.index = index;
+        this.encodedInternalTransactions = encodedInternalTransactions;
+        this.createdWithInternalTransactions = createdWithInternalTransactions;
+    }
+
     /**
      * Creates an instance with the base data: receipt, block hash and index. Does not stored
      * information regarding internal transactions.
@@ -88,6 +102,46 @@ public class AionTxInfo {
         }
     }
 
+    // define the layout of the payload encoding
+    private static final int PAYLOAD_FLAGS = 0,
+            PAYLOAD_TX_INDEX = 1,
+            PAYLOAD_RECEIPT_LENGTH = 5,
+            PAYLOAD_RECEIPT = 9;
+
+    private static final byte FLAG_CREATED_WITH_INTERNAL_TX = 1;
+
+    /**
+     * Creates an instance from the encoding returned by {@link #getPayload()}. Only the fixed size
+     * header is read, the receipt and the internal transactions are decoded when first requested.
+     *
+     * @param blockHash the hash of the block the payload was stored for
+     * @param payload the payload encoding
+     */
+    public static AionTxInfo newInstanceFromPayload(ByteArrayWrapper blockHash, byte[] payload) {
+        Objects.requireNonNull(blockHash);
+        Objects.requireNonNull(payload);
+
+        if (payload.length < PAYLOAD_RECEIPT) {
+            LOG.error("The given payload is too short to be a valid AionTxInfo object.");
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        boolean createdWithInternalTx = (buffer.get(PAYLOAD_FLAGS) & FLAG_CREATED_WITH_INTERNAL_TX) != 0;
+        int index = buffer.getInt(PAYLOAD_TX_INDEX);
+        int receiptLength = buffer.getInt(PAYLOAD_RECEIPT_LENGTH);
+        if (receiptLength <= 0 || receiptLength > payload.length - PAYLOAD_RECEIPT) {
+            LOG.error("The given payload has an invalid receipt length {}.", receiptLength);
+            return null;
+        }
+
+        int receiptEnd = PAYLOAD_RECEIPT + receiptLength;
+        byte[] receipt = Arrays.copyOfRange(payload, PAYLOAD_RECEIPT, receiptEnd);
+        // the internal transactions are stored only when there are some
+        byte[] internal = receiptEnd == payload.length ? null : Arrays.copyOfRange(payload, receiptEnd, payload.length);
+
+        return new AionTxInfo(receipt, blockHash, index, internal, createdWithInternalTx);
+    }
+
     private static AionTxInfo decodeToTxInfo(SharedRLPList rlpTxInfo) {
         Objects.requireNonNull(rlpTxInfo);
 
@@ -136,13 +190,13 @@ public class AionTxInfo {
     }
 
     public void setTransaction(AionTransaction tx) {
-        receipt.setTransaction(tx);
+        getReceipt().setTransaction(tx);
     }
 
     /* [receipt, blockHash, index] */
     public byte[] getEncoded() {
 
-        byte[] receiptRLP = this.receipt.toBytes();
+        byte[] receiptRLP = getReceiptEncoding();
         byte[] blockHashRLP = RLP.encodeElement(blockHash.toBytes());
         byte[] indexRLP = RLP.encodeInt(index);
         byte[] completeRLP = RLP.encodeByte(createdWithInternalTransactions ? (byte) 1 : (byte) 0);
@@ -150,11 +204,7 @@ public class AionTxInfo {
         byte[] rlpEncoded;
 
         if (hasInternalTransactions()) {
-            byte[][] internal = new byte[internalTransactions.size()][];
-            for (int i = 0; i < internalTransactions.size(); i++) {
-                internal[i] = toRlp(internalTransactions.get(i));
-            }
-            rlpEncoded = RLP.encodeList(receiptRLP, blockHashRLP, indexRLP, completeRLP, RLP.encodeList(internal));
+            rlpEncoded = RLP.encodeList(receiptRLP, blockHashRLP, indexRLP, completeRLP, getInternalTransactionsEncoding());
         } else {
             rlpEncoded = RLP.encodeList(receiptRLP, blockHashRLP, indexRLP, completeRLP);
         }
@@ -162,7 +212,49 @@ public class AionTxInfo {
         return rlpEncoded;
     }
 
-    public AionTxReceipt getReceipt() {
+    /**
+     * Returns the encoding used by the transaction store, which keeps the block hash in the key:
+     *
+     * <pre>
+     * [flags: 1 byte][index: 4 bytes][receipt length: 4 bytes][receipt][internal transactions]
+     * </pre>
+     *
+     * where the internal transactions are present only when there are some. The fixed size header
+     * allows reading the index without decoding the receipt.
+     */
+    public byte[] getPayload() {
+        byte[] receiptRLP = getReceiptEncoding();
+        byte[] internalRLP = hasInternalTransactions() ? getInternalTransactionsEncoding() : new byte[0];
+
+        return ByteBuffer.allocate(PAYLOAD_RECEIPT + receiptRLP.length + internalRLP.length)
+                .put(createdWithInternalTransactions ? FLAG_CREATED_WITH_INTERNAL_TX : 0)
+                .putInt(index)
+                .putInt(receiptRLP.length)
+                .put(receiptRLP)
+                .put(internalRLP)
+                .array();
+    }
+
+    private synchronized byte[] getReceiptEncoding() {
+        return receipt == null ? encodedReceipt : receipt.toBytes();
+    }
+
+    private synchronized byte[] getInternalTransactionsEncoding() {
+        if (internalTransactions == null) {
+            return encodedInternalTransactions;
+        }
+        byte[][] internal = new byte[internalTransactions.size()][];
+        for (int i = 0; i < internalTransactions.size(); i++) {
+            internal[i] = toRlp(internalTransactions.get(i));
+        }
+        return RLP.encodeList(internal);
+    }
+
+    public synchronized AionTxReceipt getReceipt() {
+        if (receipt == null) {
+            receipt = new AionTxReceipt(encodedReceipt);
+            encodedReceipt = null;
+        }
         return receipt;
     }
 
@@ -174,7 +266,15 @@ public class AionTxInfo {
         return index;
     }
 
-    public List<InternalTransaction> getInternalTransactions() {
+    public synchronized List<InternalTransaction> getInternalTransactions() {
+        if (encodedInternalTransactions != null) {
+            List<InternalTransaction> decoded = new ArrayList<>();
+            for (RLPElement item : (SharedRLPList) RLP.decode2SharedList(encodedInternalTransactions).get(0)) {
+                decoded.add(fromRlp((SharedRLPList) item));
+            }
+            internalTransactions = decoded;
+            encodedInternalTransactions = null;
+        }
         return internalTransactions;
     }
 
@@ -183,8 +283,9 @@ public class AionTxInfo {
         return createdWithInternalTransactions;
     }
 
-    public boolean hasInternalTransactions() {
-        return !(internalTransactions == null || internalTransactions.isEmpty());
+    public synchronized boolean hasInternalTransactions() {
+        // the encoding is kept only for non-empty lists
+        return encodedInternalTransactions != null || !(internalTransactions == null || internalTransactions.isEmpty());
     }
 
     private static byte[] toRlp(InternalTransaction transaction) {
@@ -282,13 +383,14 @@ public class AionTxInfo {
         StringBuilder toStringBuff = new StringBuilder();
         toStringBuff.setLength(0);
         toStringBuff.append("  ").append("index=").append(index).append("\n");
-        toStringBuff.append("  ").append(receipt.toString()).append("\n");
+        toStringBuff.append("  ").append(getReceipt().toString()).append("\n");
         if (hasInternalTransactions()) {
+            List<InternalTransaction> internal = getInternalTransactions();
             toStringBuff
                     .append("\n  produced ")
-                    .append(internalTransactions.size())
+                    .append(internal.size())
                     .append(" internal transactions:\n");
-            for (InternalTransaction itx : internalTransactions) {
+            for (InternalTransaction itx : internal) {
                 toStringBuff.append("\t- ").append(itx).append("\n");
             }
         } else {
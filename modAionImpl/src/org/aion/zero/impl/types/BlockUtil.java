@@ -13,6 +13,7 @@ import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.aion.zero.impl.types.BlockHeader.Seal;
 import org.aion.rlp.RLP;
+import org.aion.rlp.RLPCursor;
 import org.aion.rlp.RLPElement;
 import org.aion.rlp.SharedRLPList;
 import org.aion.util.types.ByteArrayWrapper;
@@ -52,17 +53,16 @@ public final class BlockUtil {
 
         // attempt decoding, return null if it fails
         try {
-            SharedRLPList params = RLP.decode2SharedList(rlp);
-            SharedRLPList block = (SharedRLPList) params.get(0);
-            SharedRLPList header = (SharedRLPList) block.get(0);
-            List<AionTransaction> txs = parseTransactions((SharedRLPList) block.get(1));
-            byte[] sealType = header.get(0).getRLPData();
+            // the fields are decoded directly from the encoding in their order
+            RLPCursor block = new RLPCursor(rlp).nextList();
+            RLPCursor header = block.nextList();
+            byte[] sealType = header.duplicate().nextBytes();
             if (sealType[0] == Seal.PROOF_OF_WORK.getSealId()) {
-                MiningBlockHeader miningHeader = MiningBlockHeader.Builder.newInstance().withRlpList(header).build();
-                return new MiningBlock(miningHeader, txs);
+                MiningBlockHeader miningHeader = MiningBlockHeader.Builder.newInstance().withRlpCursor(header).build();
+                return new MiningBlock(miningHeader, parseTransactions(block.nextList()));
             } else if (sealType[0] == Seal.PROOF_OF_STAKE.getSealId()) {
-                StakingBlockHeader stakingHeader = StakingBlockHeader.Builder.newInstance().withRlpList(header).build();
-                return new StakingBlock(stakingHeader, txs);
+                StakingBlockHeader stakingHeader = StakingBlockHeader.Builder.newInstance().withRlpCursor(header).build();
+                return new StakingBlock(stakingHeader, parseTransactions(block.nextList()));
             } else {
                 return null;
             }
@@ -179,6 +179,30 @@ public final class BlockUtil {
         }
     }
 
+    /**
+     * Assembles a new block instance given its header and transactions. Returns {@code null} when
+     * the transactions do not match the transaction root of the header.
+     *
+     * @param header the block header
+     * @param txs the transactions of the block
+     * @return a new instance of a block or {@code null} when given invalid data
+     */
+    public static Block newBlockWithHeaderAndTransactions(BlockHeader header, List<AionTransaction> txs) {
+        if (header == null || txs == null) {
+            return null;
+        }
+        if (!BlockDetailsValidator.isValidTxTrieRoot(header.getTxTrieRoot(), txs, header.getNumber(), syncLog)) {
+            return null;
+        }
+        if (header.getSealType() == Seal.PROOF_OF_WORK) {
+            return new MiningBlock((MiningBlockHeader) header, txs);
+        } else if (header.getSealType() == Seal.PROOF_OF_STAKE) {
+            return new StakingBlock((StakingBlockHeader) header, txs);
+        } else {
+            return null;
+        }
+    }
+
     public static byte[] getTxTrieRootFromUnsafeSource(SharedRLPList txList) {
         Objects.requireNonNull(txList);
 
@@ -237,6 +261,14 @@ public final class BlockUtil {
     }
 
     /** Decodes the give transactions. */
+    private static List<AionTransaction> parseTransactions(RLPCursor rlpTxs) {
+        List<AionTransaction> transactionsList = new ArrayList<>();
+        while (rlpTxs.hasNext()) {
+            transactionsList.add(TxUtil.decodeUsingRlpCursor(rlpTxs.nextList()));
+        }
+        return transactionsList;
+    }
+
     private static List<AionTransaction> parseTransactions(SharedRLPList rlpTxs) {
         List<AionTransaction> transactionsList = new ArrayList<>();
         for (RLPElement rlpTx : rlpTxs) {
@@ -11,6 +11,7 @@ import java.math.BigInteger;
 import org.aion.base.ConstantUtil;
 import org.aion.crypto.HashUtil;
 import org.aion.rlp.RLP;
+import org.aion.rlp.RLPCursor;
 import org.aion.rlp.SharedRLPList;
 import org.aion.types.AionAddress;
 import org.aion.util.bytes.ByteUtil;
@@ -459,6 +460,47 @@ public final class MiningBlockHeader implements BlockHeader {
             return this;
         }
 
+        /**
+         * Construct a block header from a cursor over the items of the RLP encoded header, which
+         * reads the fields in order without building the intermediate {@link SharedRLPList}.
+         *
+         * @param rlpHeader cursor over the items of the RLP encoded block header
+         * @return the Builder
+         */
+        public Builder withRlpCursor(RLPCursor rlpHeader) {
+            if (rlpHeader == null) {
+                throw new NullPointerException("rlpHeader can not be null");
+            }
+
+            byte[] sealType = rlpHeader.nextBytes();
+            if (isFromUnsafeSource) {
+                if (sealType.length != 1) {
+                    throw new IllegalArgumentException("Invalid Sealtype data length");
+                }
+
+                if (sealType[0] != Seal.PROOF_OF_WORK.getSealId()) {
+                    throw new IllegalArgumentException("Invalid Seal type");
+                }
+            }
+
+            withNumber(rlpHeader.nextBytes());
+            withParentHash(rlpHeader.nextBytes());
+            withCoinbase(new AionAddress(rlpHeader.nextBytes()));
+            withStateRoot(rlpHeader.nextBytes());
+            withTxTrieRoot(rlpHeader.nextBytes());
+            withReceiptTrieRoot(rlpHeader.nextBytes());
+            withLogsBloom(rlpHeader.nextBytes());
+            withDifficulty(rlpHeader.nextBytes());
+            withExtraData(rlpHeader.nextBytes());
+            withEnergyConsumed(rlpHeader.nextBytes());
+            withEnergyLimit(rlpHeader.nextBytes());
+            withTimestamp(rlpHeader.nextBytes());
+            withNonce(rlpHeader.nextBytes());
+            withSolution(rlpHeader.nextBytes());
+
+            return this;
+        }
+
         public Builder withSolution(byte[] solution) {
             if (isFromUnsafeSource) {
 
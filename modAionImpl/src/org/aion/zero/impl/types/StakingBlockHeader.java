@@ -5,6 +5,7 @@ import org.aion.base.ConstantUtil;
 import org.aion.crypto.HashUtil;
 import org.aion.crypto.vrf.VRF_Ed25519;
 import org.aion.rlp.RLP;
+import org.aion.rlp.RLPCursor;
 import org.aion.rlp.SharedRLPList;
 import org.aion.types.AionAddress;
 import org.aion.util.bytes.ByteUtil;
@@ -575,6 +576,48 @@ public class StakingBlockHeader  implements BlockHeader {
             return this;
         }
 
+        /**
+         * Construct a block header from a cursor over the items of the RLP encoded header, which
+         * reads the fields in order without building the intermediate {@link SharedRLPList}.
+         *
+         * @param rlpHeader cursor over the items of the RLP encoded block header
+         * @return the Builder
+         */
+        public Builder withRlpCursor(RLPCursor rlpHeader) {
+            if (rlpHeader == null) {
+                throw new NullPointerException("rlpHeader can not be null");
+            }
+
+            // the seal type
+            rlpHeader.skip();
+
+            withNumber(rlpHeader.nextBytes());
+            withParentHash(rlpHeader.nextBytes());
+            withCoinbase(new AionAddress(rlpHeader.nextBytes()));
+            withStateRoot(rlpHeader.nextBytes());
+            withTxTrieRoot(rlpHeader.nextBytes());
+            withReceiptTrieRoot(rlpHeader.nextBytes());
+            withLogsBloom(rlpHeader.nextBytes());
+            withDifficulty(rlpHeader.nextBytes());
+            withExtraData(rlpHeader.nextBytes());
+            withEnergyConsumed(rlpHeader.nextBytes());
+            withEnergyLimit(rlpHeader.nextBytes());
+            withTimestamp(rlpHeader.nextBytes());
+            byte[] data = rlpHeader.nextBytes();
+            if (data.length == SEED_LENGTH) {
+                withSeed(data);
+            } else if (data.length == PROOF_LENGTH) {
+                withProof(data);
+            } else {
+                throw new IllegalArgumentException("incorrect seed or proof length");
+            }
+
+            withSignature(rlpHeader.nextBytes());
+            withSigningPublicKey(rlpHeader.nextBytes());
+
+            return this;
+        }
+
         public StakingBlockHeader build() {
             // Formalize the data
             if (parentHash == null) {
@@ -7,7 +7,10 @@ import static org.aion.zero.impl.vm.common.TxNrgRule.isValidNrgContractCreateAft
 import static org.aion.zero.impl.vm.common.TxNrgRule.isValidNrgTx;
 import static org.aion.zero.impl.vm.common.TxNrgRule.isValidNrgTxAfterUnity;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import org.aion.base.AionTransaction;
 import org.aion.crypto.ISignature;
@@ -28,31 +31,85 @@ public class TXValidator {
 
     private static final Logger LOG = LoggerFactory.getLogger(LogEnum.TX.name());
 
+    // sized to hold the transactions of a range of blocks validated ahead of their import
     private static final Map<ByteArrayWrapper, TxResponse> cache =
-            Collections.synchronizedMap(new LRUMap<>(4096));
+            Collections.synchronizedMap(new LRUMap<>(16_384));
 
     public static TxResponse validateTx(AionTransaction tx, boolean unityForkEnabled, boolean signatureSwapForkEnabled) {
         TxResponse valid = cache.get(ByteArrayWrapper.wrap(tx.getTransactionHash()));
         if (valid != null) {
             return valid;
         } else {
-            if (signatureSwapForkEnabled) {
-                if (isValidAfterSignatureSwap(tx)) {
-                    valid = isValidAfterUnity(tx);
-                } else {
-                    LOG.error("invalid tx destination!");
-                    valid = TxResponse.INVALID_TX_DESTINATION;
-                }
-            } else if (unityForkEnabled) {
-                valid = isValidAfterUnity(tx);
-            } else {
-                valid = isValid0(tx);
+            valid = validateTxFields(tx, unityForkEnabled, signatureSwapForkEnabled);
+            if (valid.isSuccess()) {
+                valid = verifySignature(tx);
             }
             cache.put(ByteArrayWrapper.wrap(tx.getTransactionHash()), valid);
             return valid;
         }
     }
 
+    /**
+     * Validates the given transactions as {@link #validateTx(AionTransaction, boolean, boolean)}
+     * does, verifying the signatures of all the transactions that are not cached together with
+     * {@link SignatureFac#verifyBatch(List, List)}.
+     *
+     * @return the validation results in the order of the given transactions
+     */
+    public static List<TxResponse> validateTxBatch(List<AionTransaction> txs, boolean unityForkEnabled, boolean signatureSwapForkEnabled) {
+        TxResponse[] responses = new TxResponse[txs.size()];
+        List<Integer> toVerify = new ArrayList<>();
+        List<byte[]> messages = new ArrayList<>();
+        List<ISignature> signatures = new ArrayList<>();
+
+        for (int i = 0; i < txs.size(); i++) {
+            AionTransaction tx = txs.get(i);
+            TxResponse valid = cache.get(ByteArrayWrapper.wrap(tx.getTransactionHash()));
+            if (valid == null) {
+                valid = validateTxFields(tx, unityForkEnabled, signatureSwapForkEnabled);
+                if (valid.isSuccess()) {
+                    // the signature is verified with the rest of the batch
+                    toVerify.add(i);
+                    messages.add(tx.getTransactionHashWithoutSignature());
+                    signatures.add(tx.getSignature());
+                    continue;
+                }
+                cache.put(ByteArrayWrapper.wrap(tx.getTransactionHash()), valid);
+            }
+            responses[i] = valid;
+        }
+
+        if (!toVerify.isEmpty()) {
+            boolean[] verified = SignatureFac.verifyBatch(messages, signatures);
+            for (int j = 0; j < verified.length; j++) {
+                int i = toVerify.get(j);
+                if (!verified[j]) {
+                    LOG.error("invalid tx signature!");
+                }
+                responses[i] = verified[j] ? TxResponse.SUCCESS : TxResponse.INVALID_TX_SIGNATURE;
+                cache.put(ByteArrayWrapper.wrap(txs.get(i).getTransactionHash()), responses[i]);
+            }
+        }
+
+        return Arrays.asList(responses);
+    }
+
+    /** Performs all the validations except for the verification of the signature. */
+    private static TxResponse validateTxFields(AionTransaction tx, boolean unityForkEnabled, boolean signatureSwapForkEnabled) {
+        if (signatureSwapForkEnabled) {
+            if (isValidAfterSignatureSwap(tx)) {
+                return isValidAfterUnity(tx);
+            } else {
+                LOG.error("invalid tx destination!");
+                return TxResponse.INVALID_TX_DESTINATION;
+            }
+        } else if (unityForkEnabled) {
+            return isValidAfterUnity(tx);
+        } else {
+            return isValid0(tx);
+        }
+    }
+
     private static boolean isValidAfterSignatureSwap(AionTransaction tx) {
         if (isPrecompiledContract(tx.getDestinationAddress()) || tx.getDestinationAddress().equals(ZERO_ADDRESS)) {
             return true;
@@ -135,14 +192,17 @@ public class TXValidator {
             return TxResponse.INVALID_TX_HASH;
         }
 
-        ISignature sig = tx.getSignature();
-        if (sig == null) {
+        if (tx.getSignature() == null) {
             LOG.error("invalid tx signature!");
             return TxResponse.INVALID_TX_SIGNATURE;
         }
 
+        return TxResponse.SUCCESS;
+    }
+
+    private static TxResponse verifySignature(AionTransaction tx) {
         try {
-            return SignatureFac.verify(hash, sig) ? TxResponse.SUCCESS : TxResponse.INVALID_TX_SIGNATURE;
+            return SignatureFac.verify(tx.getTransactionHashWithoutSignature(), tx.getSignature()) ? TxResponse.SUCCESS : TxResponse.INVALID_TX_SIGNATURE;
         } catch (Exception ex) {
             ex.printStackTrace();
             return TxResponse.INVALID_TX_SIGNATURE;
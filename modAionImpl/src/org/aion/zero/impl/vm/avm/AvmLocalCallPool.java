@@ -0,0 +1,297 @@
+package org.aion.zero.impl.vm.avm;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.aion.avm.stub.AvmExecutionType;
+import org.aion.avm.stub.AvmVersion;
+import org.aion.avm.stub.IAionVirtualMachine;
+import org.aion.avm.stub.IAvmExternalState;
+import org.aion.avm.stub.IAvmFutureResult;
+import org.aion.avm.stub.IAvmResourceFactory;
+import org.aion.avm.stub.IEnergyRules;
+import org.aion.base.db.RepositoryCache;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.aion.types.AionAddress;
+import org.aion.types.Transaction;
+import org.aion.types.TransactionResult;
+import org.aion.zero.impl.vm.avm.internal.AvmResourcesVersion1;
+import org.aion.zero.impl.vm.avm.internal.AvmResourcesVersion2;
+import org.slf4j.Logger;
+
+/**
+ * A pool of avm instances that run local calls (ie. transactions that cause no state changes)
+ * concurrently with each other and with the avm used for block import.
+ *
+ * Each pooled avm is loaded in its own classloader and does not share any resources with the avm
+ * managed by {@link AvmProvider}, so running a local call does not require the provider's lock.
+ * An avm is created for a specific version and coinbase locking mode the first time a call needs
+ * it and is replaced by an avm for another version when the pool is full.
+ *
+ * The pool is disabled until {@link #configure(int, long)} is called with a positive size, in
+ * which case local calls are run by the avm of the provider.
+ *
+ * This class is thread-safe.
+ */
+public final class AvmLocalCallPool {
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.VM.toString());
+
+    public static final int DEFAULT_POOL_SIZE = 4;
+    public static final long DEFAULT_CALL_TIMEOUT_MS = 10_000L;
+
+    private static volatile AvmLocalCallPool instance = null;
+
+    private final int poolSize;
+    private final long callTimeoutMs;
+    // one permit per avm instance, acquired by the caller and released by the worker
+    private final Semaphore permits;
+    private final ExecutorService workers;
+    // guarded by itself
+    private final Deque<PooledAvm> idle = new ArrayDeque<>();
+
+    private AvmLocalCallPool(int poolSize, long callTimeoutMs) {
+        this.poolSize = poolSize;
+        this.callTimeoutMs = callTimeoutMs;
+        this.permits = new Semaphore(poolSize, true);
+
+        AtomicInteger count = new AtomicInteger(0);
+        this.workers =
+                Executors.newFixedThreadPool(
+                        poolSize,
+                        r -> {
+                            Thread t = new Thread(r, "avm-local-call-" + count.incrementAndGet());
+                            t.setDaemon(true);
+                            return t;
+                        });
+    }
+
+    /**
+     * Enables the pool with the given number of avm instances, replacing any previously configured
+     * pool. A non-positive size disables the pool.
+     *
+     * @param poolSize The maximum number of local calls executed concurrently.
+     * @param callTimeoutMs The maximum time in milliseconds a caller waits for a local call.
+     */
+    public static synchronized void configure(int poolSize, long callTimeoutMs) {
+        if (poolSize > 0 && callTimeoutMs < 1) {
+            throw new IllegalArgumentException("The local call timeout must be positive.");
+        }
+
+        shutdown();
+        if (poolSize > 0) {
+            instance = new AvmLocalCallPool(poolSize, callTimeoutMs);
+            LOG.info("Local avm calls use a pool of {} instances with a timeout of {} ms.", poolSize, callTimeoutMs);
+        }
+    }
+
+    /**
+     * Disables the pool and shuts down its idle avm instances. The instances still running calls
+     * are shut down once their calls complete.
+     */
+    public static synchronized void shutdown() {
+        AvmLocalCallPool pool = instance;
+        instance = null;
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    /**
+     * Returns the pool if it is enabled, otherwise {@code null}.
+     *
+     * @return the pool or null.
+     */
+    static AvmLocalCallPool get() {
+        return instance;
+    }
+
+    /**
+     * Runs the given transactions as local calls on one of the pooled avm instances and returns
+     * their results.
+     *
+     * @param version The version of the avm to use.
+     * @param coinbaseLocking Whether the avm locks the coinbase address.
+     * @param repository The current world state, which is not modified.
+     * @param blockDifficulty The block difficulty.
+     * @param blockNumber The current block number.
+     * @param blockTimestamp The block timestamp.
+     * @param blockEnergyLimit The energy limit of the block.
+     * @param miner The miner address.
+     * @param transactions The transactions to execute.
+     * @param energyRules The energy limit rules.
+     * @param allowNonceIncrement Whether to increment the sender's nonce or not.
+     * @param executionType The avm execution type.
+     * @param cachedBlockNumber The cached block number.
+     * @return the results of the transactions, or null if the pool was shut down.
+     * @throws TimeoutException If the calls did not complete within the configured timeout.
+     */
+    TransactionResult[] run(AvmVersion version, boolean coinbaseLocking, RepositoryCache repository, BigInteger blockDifficulty, long blockNumber, long blockTimestamp, long blockEnergyLimit, AionAddress miner, Transaction[] transactions, IEnergyRules energyRules, boolean allowNonceIncrement, AvmExecutionType executionType, long cachedBlockNumber) throws TimeoutException, InterruptedException, ExecutionException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(callTimeoutMs);
+
+        if (!permits.tryAcquire(callTimeoutMs, TimeUnit.MILLISECONDS)) {
+            throw new TimeoutException("Timed out waiting for an idle avm instance!");
+        }
+
+        Future<TransactionResult[]> results;
+        try {
+            results = workers.submit(() -> {
+                PooledAvm avm = null;
+                try {
+                    avm = acquire(version, coinbaseLocking);
+
+                    IAvmExternalState externalState = avm.resources().newExternalStateBuilder()
+                        .withRepository(repository.startTracking())
+                        .withMiner(miner)
+                        .withDifficulty(blockDifficulty)
+                        .withBlockNumber(blockNumber)
+                        .withBlockTimestamp(blockTimestamp)
+                        .withBlockEnergyLimit(blockEnergyLimit)
+                        .withEnergyRules(energyRules)
+                        .allowNonceIncrement(allowNonceIncrement)
+                        .isLocalCall(true)
+                        .build();
+
+                    IAvmFutureResult[] futures = avm.avm().run(externalState, transactions, executionType, cachedBlockNumber);
+                    TransactionResult[] transactionResults = new TransactionResult[futures.length];
+                    for (int i = 0; i < futures.length; i++) {
+                        transactionResults[i] = futures[i].getResult();
+                    }
+                    return transactionResults;
+                } catch (Throwable e) {
+                    // The state of the avm is unknown after an unexpected error, so it is not reused.
+                    if (avm != null) {
+                        avm.close();
+                        avm = null;
+                    }
+                    throw e;
+                } finally {
+                    if (avm != null) {
+                        release(avm);
+                    }
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // the pool was shut down after this call started
+            permits.release();
+            return null;
+        }
+
+        long remaining = deadline - System.nanoTime();
+        // The worker keeps its permit until the avm completes the calls, even if the caller gave up.
+        return results.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+    }
+
+    private PooledAvm acquire(AvmVersion version, boolean coinbaseLocking) throws IOException, IllegalAccessException, ClassNotFoundException, InstantiationException {
+        synchronized (idle) {
+            Iterator<PooledAvm> iterator = idle.iterator();
+            while (iterator.hasNext()) {
+                PooledAvm avm = iterator.next();
+                if (avm.matches(version, coinbaseLocking)) {
+                    iterator.remove();
+                    return avm;
+                }
+            }
+
+            // Make room for the new instance by discarding the least recently used one. The calls
+            // in progress, including this one, hold the permits missing from the semaphore.
+            int inProgress = poolSize - permits.availablePermits();
+            if (idle.size() + inProgress > poolSize) {
+                idle.removeLast().close();
+            }
+        }
+
+        LOG.debug("Starting a local call avm for {} with coinbase locking {}.", version, coinbaseLocking);
+        return PooledAvm.start(version, coinbaseLocking);
+    }
+
+    private void release(PooledAvm avm) {
+        synchronized (idle) {
+            if (workers.isShutdown()) {
+                avm.close();
+            } else {
+                idle.addFirst(avm);
+            }
+        }
+    }
+
+    private void close() {
+        synchronized (idle) {
+            workers.shutdown();
+            for (PooledAvm avm : idle) {
+                avm.close();
+            }
+            idle.clear();
+        }
+    }
+
+    /** A running avm with the resources it was loaded from. */
+    private static final class PooledAvm {
+        private final AvmVersion version;
+        private final boolean coinbaseLocking;
+        private final AvmResourcesVersion1 resourcesVersion1;
+        private final AvmResourcesVersion2 resourcesVersion2;
+
+        private PooledAvm(AvmVersion version, boolean coinbaseLocking, AvmResourcesVersion1 resourcesVersion1, AvmResourcesVersion2 resourcesVersion2) {
+            this.version = version;
+            this.coinbaseLocking = coinbaseLocking;
+            this.resourcesVersion1 = resourcesVersion1;
+            this.resourcesVersion2 = resourcesVersion2;
+        }
+
+        private static PooledAvm start(AvmVersion version, boolean coinbaseLocking) throws IOException, IllegalAccessException, ClassNotFoundException, InstantiationException {
+            String projectRootDir = AvmConfigurations.getProjectRootDirectory();
+            if (version == AvmVersion.VERSION_1) {
+                AvmResourcesVersion1 resources = AvmResourcesVersion1.loadResources(projectRootDir);
+                resources.initializeAndStartNewAvm();
+                return new PooledAvm(version, false, resources, null);
+            } else if (version == AvmVersion.VERSION_2) {
+                AvmResourcesVersion2 resources = AvmResourcesVersion2.loadResources(projectRootDir);
+                resources.initializeAndStartNewAvm(coinbaseLocking);
+                return new PooledAvm(version, coinbaseLocking, null, resources);
+            } else {
+                throw new IllegalStateException("Unknown avm version: " + version);
+            }
+        }
+
+        private boolean matches(AvmVersion version, boolean coinbaseLocking) {
+            // coinbase locking only exists in version 2
+            return this.version == version && (version == AvmVersion.VERSION_1 || this.coinbaseLocking == coinbaseLocking);
+        }
+
+        private IAvmResourceFactory resources() {
+            return version == AvmVersion.VERSION_1 ? resourcesVersion1.resourceFactory : resourcesVersion2.resourceFactory;
+        }
+
+        private IAionVirtualMachine avm() {
+            return version == AvmVersion.VERSION_1 ? resourcesVersion1.getAvm() : resourcesVersion2.getAvm();
+        }
+
+        private void close() {
+            Closeable resources = version == AvmVersion.VERSION_1 ? resourcesVersion1 : resourcesVersion2;
+            try {
+                if (version == AvmVersion.VERSION_1) {
+                    resourcesVersion1.shutdownAvm();
+                } else {
+                    resourcesVersion2.shutdownAvm();
+                }
+                resources.close();
+            } catch (Exception e) {
+                LOG.error("Failed to shut down a local call avm.", e);
+            }
+        }
+    }
+}
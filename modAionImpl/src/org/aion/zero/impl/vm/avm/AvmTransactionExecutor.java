@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import org.aion.log.AionLoggerFactory;
@@ -16,6 +17,7 @@ import org.aion.avm.stub.AvmVersion;
 import org.aion.avm.stub.IAionVirtualMachine;
 import org.aion.avm.stub.IAvmExternalState;
 import org.aion.avm.stub.IAvmFutureResult;
+import org.aion.avm.stub.IEnergyRules;
 import org.aion.base.AionTransaction;
 import org.aion.base.AionTxExecSummary;
 import org.aion.base.AionTxReceipt;
@@ -64,6 +66,32 @@ public final class AvmTransactionExecutor {
      * @throws VmFatalException If a fatal error occurred and the kernel must be shut down.
      */
     public static List<AionTxExecSummary> executeTransactions(RepositoryCache repository, BigInteger blockDifficulty, long blockNumber, long blockTimestamp, long blockEnergyLimit, AionAddress miner, AionTransaction[] transactions, PostExecutionWork postExecutionWork, boolean decrementBlockEnergyLimit, boolean allowNonceIncrement, boolean isLocalCall, long remainingBlockEnergy, AvmExecutionType executionType, long cachedBlockNumber, boolean unityForkEnabled, boolean signatureSchemeSwapEnabled) throws VmFatalException {
+        // Local calls run on the pooled avm instances, if enabled, to not wait for the provider's lock.
+        if (isLocalCall && postExecutionWork == null) {
+            AvmLocalCallPool pool = AvmLocalCallPool.get();
+            if (pool != null) {
+                List<AionTxExecSummary> summaries = executeLocalCalls(pool, repository, blockDifficulty, blockNumber, blockTimestamp, blockEnergyLimit, miner, transactions, decrementBlockEnergyLimit, allowNonceIncrement, remainingBlockEnergy, executionType, cachedBlockNumber, unityForkEnabled, signatureSchemeSwapEnabled);
+                if (summaries != null) {
+                    return summaries;
+                }
+            }
+        }
+
+        return executeTransactionsOnProvider(repository, blockDifficulty, blockNumber, blockTimestamp, blockEnergyLimit, miner, transactions, postExecutionWork, decrementBlockEnergyLimit, allowNonceIncrement, isLocalCall, remainingBlockEnergy, executionType, cachedBlockNumber, unityForkEnabled, signatureSchemeSwapEnabled);
+    }
+
+    /**
+     * Executes the specified transactions using the avm managed by {@link AvmProvider}, waiting for
+     * its lock, and returns the execution summaries of each of the transactions.
+     *
+     * Unlike {@link #executeTransactions}, local calls never run on the {@link AvmLocalCallPool}
+     * and so never time out. This is required by the local calls made during block validation.
+     * The parameters are the same as those of {@link #executeTransactions}.
+     *
+     * @return the execution summaries of the transactions.
+     * @throws VmFatalException If a fatal error occurred and the kernel must be shut down.
+     */
+    public static List<AionTxExecSummary> executeTransactionsOnProvider(RepositoryCache repository, BigInteger blockDifficulty, long blockNumber, long blockTimestamp, long blockEnergyLimit, AionAddress miner, AionTransaction[] transactions, PostExecutionWork postExecutionWork, boolean decrementBlockEnergyLimit, boolean allowNonceIncrement, boolean isLocalCall, long remainingBlockEnergy, AvmExecutionType executionType, long cachedBlockNumber, boolean unityForkEnabled, boolean signatureSchemeSwapEnabled) throws VmFatalException {
         List<AionTxExecSummary> transactionSummaries = new ArrayList<>();
         long blockEnergy = remainingBlockEnergy;
 
@@ -120,6 +148,77 @@ public final class AvmTransactionExecutor {
         return transactionSummaries;
     }
 
+    /**
+     * Executes the specified local calls on the given pool and returns their execution summaries.
+     * The calls that time out are rejected. The parameters are the same as those of
+     * {@link #executeTransactions}.
+     *
+     * @return the execution summaries of the transactions, or null if the pool was shut down.
+     * @throws VmFatalException If a fatal error occurred and the kernel must be shut down.
+     */
+    private static List<AionTxExecSummary> executeLocalCalls(AvmLocalCallPool pool, RepositoryCache repository, BigInteger blockDifficulty, long blockNumber, long blockTimestamp, long blockEnergyLimit, AionAddress miner, AionTransaction[] transactions, boolean decrementBlockEnergyLimit, boolean allowNonceIncrement, long remainingBlockEnergy, AvmExecutionType executionType, long cachedBlockNumber, boolean unityForkEnabled, boolean signatureSchemeSwapEnabled) throws VmFatalException {
+        List<AionTxExecSummary> transactionSummaries = new ArrayList<>();
+        long blockEnergy = remainingBlockEnergy;
+
+        try {
+            AvmVersion versionToUse = AvmConfigurations.getAvmVersionSchedule().whichVersionToRunWith(blockNumber);
+            if (versionToUse == null) {
+                throw new IllegalStateException("Attempted to invoke the avm at a block that has no avm support!");
+            }
+
+            // The same coinbase locking as set by updateAvmsAndGetVersionToUse, including the AKI-636 workaround.
+            boolean coinbaseLocking = signatureSchemeSwapEnabled || blockNumber == 4820587;
+            IEnergyRules energyRules = unityForkEnabled ? AvmConfigurations.getEnergyLimitRulesAfterUnityFork() : AvmConfigurations.getEnergyLimitRules();
+
+            TransactionResult[] results;
+            try {
+                results = pool.run(versionToUse, coinbaseLocking, repository, blockDifficulty, blockNumber, blockTimestamp, blockEnergyLimit, miner, toAionTypesTransactions(transactions), energyRules, allowNonceIncrement, executionType, cachedBlockNumber);
+            } catch (TimeoutException e) {
+                results = new TransactionResult[transactions.length];
+                for (int i = 0; i < transactions.length; i++) {
+                    results[i] = new TransactionResult(TransactionStatus.rejection("Rejected: local call timed out"), new ArrayList<>(), new ArrayList<>(), transactions[i].getEnergyLimit(), new byte[0]);
+                }
+            }
+
+            if (results == null) {
+                return null;
+            }
+
+            int index = 0;
+            for (TransactionResult result : results) {
+                if (result.transactionStatus.isFatal()) {
+                    throw new VmFatalException(result.transactionStatus.causeOfError);
+                }
+
+                // Check the block energy limit and reject if necessary.
+                AionTransaction transaction = transactions[index];
+                if (result.energyUsed > blockEnergy) {
+                    result = markAsBlockEnergyLimitExceeded(result, transaction.getEnergyLimit());
+                }
+
+                AionTxExecSummary summary = buildTransactionSummary(transaction, result);
+
+                // Update the remaining block energy.
+                if (!result.transactionStatus.isRejected() && decrementBlockEnergyLimit) {
+                    blockEnergy -= summary.getReceipt().getEnergyUsed();
+                }
+
+                transactionSummaries.add(summary);
+                index++;
+            }
+        } catch (VmFatalException e) {
+            throw e;
+        } catch (ExecutionException e) {
+            System.err.println("Encountered an unexpected error while processing the local calls in the avm: " + e.getCause().toString());
+            throw new VmFatalException(e.getCause());
+        } catch (Throwable e) {
+            System.err.println("Encountered an unexpected error while processing the local calls in the avm: " + e.toString());
+            throw new VmFatalException(e);
+        }
+
+        return transactionSummaries;
+    }
+
     /**
      * Updates the state of the avm versions depending on the current block number.
      *
@@ -1,8 +1,10 @@
 package org.aion.zero.impl.vm.fvm;
 
 import java.math.BigInteger;
+import java.util.Objects;
 import org.aion.base.TxUtil;
 import org.aion.crypto.HashUtil;
+import org.aion.crypto.HashUtil.H256Context;
 import org.aion.fastvm.IExternalCapabilities;
 import org.aion.types.AionAddress;
 
@@ -11,6 +13,13 @@ import org.aion.types.AionAddress;
  */
 public final class ExternalCapabilitiesForFvm implements IExternalCapabilities {
 
+    private final H256Context hashContext;
+
+    /** @param hashContext the hashing context of the block the transactions are executed for */
+    public ExternalCapabilitiesForFvm(H256Context hashContext) {
+        this.hashContext = Objects.requireNonNull(hashContext);
+    }
+
     @Override
     public AionAddress computeNewContractAddress(AionAddress sender, BigInteger senderNonce) {
         return TxUtil.calculateContractAddress(sender.toByteArray(), senderNonce);
@@ -18,6 +27,6 @@ public final class ExternalCapabilitiesForFvm implements IExternalCapabilities {
 
     @Override
     public byte[] hash256(byte[] payload) {
-        return HashUtil.h256(payload);
+        return HashUtil.h256(hashContext, payload);
     }
 }
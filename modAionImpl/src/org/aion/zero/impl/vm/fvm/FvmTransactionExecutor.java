@@ -7,6 +7,7 @@ import java.util.List;
 import org.aion.zero.impl.vm.common.PostExecutionWork;
 import org.aion.zero.impl.vm.common.VmFatalException;
 import org.aion.base.AionTransaction;
+import org.aion.crypto.HashUtil.H256Context;
 import org.aion.fastvm.FastVirtualMachine;
 import org.aion.fastvm.FvmDataWord;
 import org.aion.fastvm.FvmWrappedTransactionResult;
@@ -94,10 +95,12 @@ public final class FvmTransactionExecutor {
                         unityForkEnabled,
                         signatureSwapForkEnabled);
 
+        ExternalCapabilitiesForFvm capabilities = new ExternalCapabilitiesForFvm(H256Context.forSignatureSwap(signatureSwapForkEnabled));
+
         // Process the results of the transactions.
         for (AionTransaction transaction : transactions) {
             FvmWrappedTransactionResult wrappedResult =
-                    FastVirtualMachine.run(externalState, new ExternalCapabilitiesForFvm(), toAionTypesTransaction(transaction), fork040enabled);
+                    FastVirtualMachine.run(externalState, capabilities, toAionTypesTransaction(transaction), fork040enabled);
 
             TransactionResult result = wrappedResult.result;
             List<AionAddress> deletedAddresses = wrappedResult.deletedAddresses;
@@ -6,12 +6,20 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.Set;
+import org.aion.crypto.ECKey;
+import org.aion.util.types.ByteArrayWrapper;
 import org.aion.zero.impl.config.CfgAion;
 import org.aion.zero.impl.core.ImportResult;
+import org.aion.zero.impl.types.Block;
+import org.aion.zero.impl.types.BlockUtil;
 import org.aion.zero.impl.types.MiningBlock;
 import org.aion.zero.impl.types.AionBlockSummary;
+import org.aion.zero.impl.types.MiningBlockHeader;
 import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
 import org.junit.After;
 import org.junit.Test;
 
@@ -122,4 +130,75 @@ public class AionBlockchainImplTest {
 
         assertEquals(0, blockchain.miningBlockTemplate.size());
     }
+
+    @Test
+    public void testImportRange() {
+        List<ECKey> accounts = BlockchainTestUtils.generateAccounts(10);
+        StandaloneBlockchain sourceChain =
+            new StandaloneBlockchain.Builder()
+                .withValidatorConfiguration("simple")
+                .withDefaultAccounts(accounts)
+                .build()
+                .bc;
+        this.blockchain =
+            new StandaloneBlockchain.Builder()
+                .withValidatorConfiguration("simple")
+                .withDefaultAccounts(accounts)
+                .build()
+                .bc;
+
+        List<Block> range = new ArrayList<>();
+        Block parent = sourceChain.getGenesis();
+        for (int i = 0; i < 8; i++) {
+            parent = BlockchainTestUtils.addMiningBlock(sourceChain, parent, BlockchainTestUtils.generateTransactions(20, accounts, sourceChain.getRepository())).getLeft();
+            range.add(parent);
+        }
+
+        Triple<Long, Set<ByteArrayWrapper>, ImportResult> result = blockchain.tryToConnect(range, "test");
+        assertEquals(8L, (long) result.getLeft());
+        assertEquals(8, result.getMiddle().size());
+        assertEquals(ImportResult.IMPORTED_BEST, result.getRight());
+        assertTrue(blockchain.isBlockStored(parent.getHash(), parent.getNumber()));
+    }
+
+    @Test
+    public void testImportRangeStopsAtInvalidBlock() {
+        List<ECKey> accounts = BlockchainTestUtils.generateAccounts(10);
+        StandaloneBlockchain sourceChain =
+            new StandaloneBlockchain.Builder()
+                .withValidatorConfiguration("simple")
+                .withDefaultAccounts(accounts)
+                .build()
+                .bc;
+        this.blockchain =
+            new StandaloneBlockchain.Builder()
+                .withValidatorConfiguration("simple")
+                .withDefaultAccounts(accounts)
+                .build()
+                .bc;
+
+        List<Block> range = new ArrayList<>();
+        Block parent = sourceChain.getGenesis();
+        for (int i = 0; i < 8; i++) {
+            parent = BlockchainTestUtils.addMiningBlock(sourceChain, parent, BlockchainTestUtils.generateTransactions(20, accounts, sourceChain.getRepository())).getLeft();
+            range.add(parent);
+        }
+
+        // the extra data of the fourth block exceeds the size allowed by the header rules
+        MiningBlock invalid = (MiningBlock) BlockUtil.newBlockFromRlp(range.get(3).getEncoded());
+        invalid.updateHeader(MiningBlockHeader.Builder.newInstance().withHeader(invalid.getHeader()).withExtraData(new byte[64]).build());
+        range.set(3, invalid);
+
+        Triple<Long, Set<ByteArrayWrapper>, ImportResult> result = blockchain.tryToConnect(range, "test");
+        assertEquals(3L, (long) result.getLeft());
+        assertEquals(3, result.getMiddle().size());
+        assertEquals(ImportResult.INVALID_BLOCK, result.getRight());
+        assertEquals(range.get(2).getHashWrapper(), blockchain.getBestBlock().getHashWrapper());
+
+        // the rest of the range is imported once the block is replaced
+        range.set(3, sourceChain.getBlockByNumber(4));
+        result = blockchain.tryToConnect(range.subList(3, range.size()), "test");
+        assertEquals(8L, (long) result.getLeft());
+        assertEquals(ImportResult.IMPORTED_BEST, result.getRight());
+    }
 }
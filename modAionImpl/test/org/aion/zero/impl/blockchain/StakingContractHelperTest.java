@@ -0,0 +1,113 @@
+package org.aion.zero.impl.blockchain;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+import org.aion.avm.stub.AvmVersion;
+import org.aion.base.AionTransaction;
+import org.aion.base.AionTxReceipt;
+import org.aion.types.AionAddress;
+import org.aion.util.types.AddressUtils;
+import org.aion.zero.impl.types.Block;
+import org.aion.zero.impl.vm.AvmPathManager;
+import org.aion.zero.impl.vm.AvmTestConfig;
+import org.aion.zero.impl.vm.TestResourceProvider;
+import org.aion.zero.impl.vm.avm.AvmProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests the caching of the effective stakes by {@link StakingContractHelper}. */
+public class StakingContractHelperTest {
+    private static final BigInteger STAKE = BigInteger.valueOf(1_000_000L);
+
+    private TestResourceProvider resourceProvider;
+    private StakingContractHelper helper;
+    private AionAddress signingAddress;
+    private AionAddress coinbase;
+
+    @Before
+    public void setup() throws Exception {
+        resourceProvider = TestResourceProvider.initializeAndCreateNewProvider(AvmPathManager.getPathOfProjectRootDirectory());
+        AvmTestConfig.supportBothAvmVersions(0, 1, 0);
+
+        AionAddress contract = AddressUtils.wrapAddress("a0" + "11".repeat(31));
+        helper = spy(new StakingContractHelper(contract, mock(AionBlockchainImpl.class)));
+        signingAddress = AddressUtils.wrapAddress("a0" + "22".repeat(31));
+        coinbase = AddressUtils.wrapAddress("a0" + "33".repeat(31));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (!AvmProvider.holdsLock()) {
+            assertThat(AvmProvider.tryAcquireLock(1, TimeUnit.MINUTES)).isTrue();
+        }
+        AvmProvider.disableAvmVersion(AvmVersion.VERSION_2);
+        AvmProvider.releaseLock();
+
+        AvmTestConfig.clearConfigurations();
+        resourceProvider.close();
+    }
+
+    @Test
+    public void testCachedByStateRoot() throws Exception {
+        doReturn(receipt(STAKE)).when(helper).callConstant(any(AionTransaction.class), any(Block.class));
+        Block block = block((byte) 1);
+
+        assertThat(helper.getEffectiveStake(signingAddress, coinbase, block)).isEqualTo(STAKE);
+        assertThat(helper.getEffectiveStake(signingAddress, coinbase, block)).isEqualTo(STAKE);
+        // another block with the same state root shares the entry
+        assertThat(helper.getEffectiveStake(signingAddress, coinbase, block((byte) 1))).isEqualTo(STAKE);
+        verify(helper, times(1)).callConstant(any(AionTransaction.class), any(Block.class));
+
+        // a new state root misses the cache
+        assertThat(helper.getEffectiveStake(signingAddress, coinbase, block((byte) 2))).isEqualTo(STAKE);
+        verify(helper, times(2)).callConstant(any(AionTransaction.class), any(Block.class));
+
+        // as does another staker at the same state root
+        assertThat(helper.getEffectiveStake(signingAddress, signingAddress, block)).isEqualTo(STAKE);
+        verify(helper, times(3)).callConstant(any(AionTransaction.class), any(Block.class));
+    }
+
+    @Test
+    public void testFailedCallsAreNotCached() throws Exception {
+        Block block = block((byte) 1);
+
+        doReturn(null).when(helper).callConstant(any(AionTransaction.class), any(Block.class));
+        assertThat(helper.getEffectiveStake(signingAddress, coinbase, block)).isEqualTo(BigInteger.ZERO);
+
+        // empty output
+        doReturn(new AionTxReceipt()).when(helper).callConstant(any(AionTransaction.class), any(Block.class));
+        assertThat(helper.getEffectiveStake(signingAddress, coinbase, block)).isEqualTo(BigInteger.ZERO);
+        verify(helper, times(2)).callConstant(any(AionTransaction.class), any(Block.class));
+
+        // the call is retried and its successful result cached
+        doReturn(receipt(STAKE)).when(helper).callConstant(any(AionTransaction.class), any(Block.class));
+        assertThat(helper.getEffectiveStake(signingAddress, coinbase, block)).isEqualTo(STAKE);
+        assertThat(helper.getEffectiveStake(signingAddress, coinbase, block)).isEqualTo(STAKE);
+        verify(helper, times(3)).callConstant(any(AionTransaction.class), any(Block.class));
+    }
+
+    private static Block block(byte stateRoot) {
+        byte[] root = new byte[32];
+        root[0] = stateRoot;
+
+        Block block = mock(Block.class);
+        when(block.getStateRoot()).thenReturn(root);
+        return block;
+    }
+
+    private AionTxReceipt receipt(BigInteger stake) {
+        AionTxReceipt receipt = new AionTxReceipt();
+        receipt.setExecutionResult(resourceProvider.factoryForVersion2.newStreamingEncoder().encodeOneBigInteger(stake).getEncoding());
+        return receipt;
+    }
+}
@@ -1385,6 +1385,11 @@ public class CliTest {
         skippedTasks = new HashSet<>();
         skippedTasks.add("--db-compact");
         parameters.add(new Object[] {input, TaskPriority.DEV, skippedTasks});
+
+        input = new String[] {"--db-compact", "--db-migrate"};
+        skippedTasks = new HashSet<>();
+        skippedTasks.add("--db-migrate");
+        parameters.add(new Object[] {input, TaskPriority.DB_COMPACT, skippedTasks});
         return parameters.toArray();
     }
 
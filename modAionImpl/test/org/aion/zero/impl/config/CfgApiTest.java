@@ -0,0 +1,43 @@
+package org.aion.zero.impl.config;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.io.CharSource;
+import java.io.IOException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.junit.Test;
+
+/** Test {@link CfgApi} */
+public class CfgApiTest {
+
+    private static CfgApi fromXML(String xml) throws IOException, XMLStreamException {
+        XMLStreamReader xmlStream =
+                XMLInputFactory.newInstance().createXMLStreamReader(CharSource.wrap(xml).openStream());
+        // positions the reader inside the api element
+        xmlStream.nextTag();
+
+        CfgApi unit = new CfgApi();
+        unit.fromXML(xmlStream);
+        return unit;
+    }
+
+    @Test
+    public void testLocalCallSettingsRoundTrip() throws Exception {
+        CfgApi unit =
+                fromXML(
+                        "<api><local-call-pool-size>7</local-call-pool-size>"
+                                + "<local-call-timeout>2500</local-call-timeout></api>");
+        assertThat(unit.getLocalCallPoolSize()).isEqualTo(7);
+        assertThat(unit.getLocalCallTimeout()).isEqualTo(2500L);
+
+        String xml = unit.toXML();
+        assertThat(xml).contains("<local-call-pool-size>7</local-call-pool-size>");
+        assertThat(xml).contains("<local-call-timeout>2500</local-call-timeout>");
+
+        CfgApi reloaded = fromXML(xml);
+        assertThat(reloaded.getLocalCallPoolSize()).isEqualTo(7);
+        assertThat(reloaded.getLocalCallTimeout()).isEqualTo(2500L);
+    }
+}
@@ -3,8 +3,13 @@ package org.aion.zero.impl.db;
 import static com.google.common.truth.Truth.assertThat;
 
 import java.math.BigInteger;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
+import org.aion.base.AionTransaction;
+import org.aion.base.TransactionTypes;
+import org.aion.crypto.ECKey;
 import org.aion.crypto.HashUtil;
 import org.aion.db.impl.ByteArrayKeyValueDatabase;
 import org.aion.db.impl.DBVendor;
@@ -20,7 +25,10 @@ import org.aion.types.AionAddress;
 import org.aion.util.bytes.ByteUtil;
 import org.aion.util.types.AddressUtils;
 import org.aion.util.types.ByteArrayWrapper;
+import org.aion.zero.impl.blockchain.StandaloneBlockchain;
+import org.aion.zero.impl.core.ImportResult;
 import org.aion.zero.impl.sync.DatabaseType;
+import org.aion.zero.impl.types.MiningBlock;
 import org.junit.FixMethodOrder;
 import org.junit.Test;
 import org.junit.runners.MethodSorters;
@@ -368,6 +376,47 @@ public class AionRepositoryImplTest {
         assertThat(repository.getBalance(account3)).isLessThan(snapshot.getBalance(account3));
     }
 
+    @Test
+    public void testGetCommittedView() {
+        AionRepositoryImpl repository = AionRepositoryImpl.createForTesting(repoConfig);
+        final AionAddress account = AddressUtils.wrapAddress(value1);
+
+        RepositoryCache track = repository.startTracking();
+        track.addBalance(account, BigInteger.ONE);
+        track.flushTo(repository, true);
+        repository.commitBlock(ByteArrayWrapper.wrap(HashUtil.h256(new byte[] {1})), 1, repository.getRoot());
+
+        Repository committed = repository.getCommittedView();
+        assertThat(committed.getBalance(account)).isEqualTo(BigInteger.ONE);
+
+        // the updates of a block being imported are not visible before its commit
+        track = repository.startTracking();
+        track.addBalance(account, BigInteger.ONE);
+        track.incrementNonce(account);
+        track.flushTo(repository, true);
+        assertThat(repository.getBalance(account)).isEqualTo(BigInteger.TWO);
+        assertThat(repository.getCommittedView().getBalance(account)).isEqualTo(BigInteger.ONE);
+        assertThat(repository.getCommittedView().getNonce(account)).isEqualTo(BigInteger.ZERO);
+
+        repository.commitBlock(ByteArrayWrapper.wrap(HashUtil.h256(new byte[] {2})), 2, repository.getRoot());
+        assertThat(repository.getCommittedView().getRoot()).isEqualTo(repository.getRoot());
+        assertThat(repository.getCommittedView().getBalance(account)).isEqualTo(BigInteger.TWO);
+        assertThat(repository.getCommittedView().getNonce(account)).isEqualTo(BigInteger.ONE);
+
+        // the view handed out earlier still reads the state it was created for
+        assertThat(committed.getBalance(account)).isEqualTo(BigInteger.ONE);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testCommittedViewIsReadOnly() {
+        AionRepositoryImpl repository = AionRepositoryImpl.createForTesting(repoConfig);
+        Repository committed = repository.getCommittedView();
+
+        RepositoryCache track = committed.startTracking();
+        track.addBalance(AddressUtils.wrapAddress(value1), BigInteger.ONE);
+        track.flushTo(committed, true);
+    }
+
     @Test
     public void testImportTrieNode() {
         AionRepositoryImpl repository = AionRepositoryImpl.createForTesting(repoConfig);
@@ -446,4 +495,65 @@ public class AionRepositoryImplTest {
         value = db.get(altNodeKey);
         assertThat(value.isPresent()).isFalse();
     }
+
+    @Test
+    public void testReadsAcrossImportAndReorg() {
+        StandaloneBlockchain.Bundle bundle =
+                new StandaloneBlockchain.Builder()
+                        .withValidatorConfiguration("simple")
+                        .withDefaultAccounts()
+                        .build();
+        StandaloneBlockchain bc = bundle.bc;
+        AionRepositoryImpl repository = bc.getRepository();
+        ECKey sender = bundle.privateKeys.get(0);
+        AionAddress senderAddress = new AionAddress(sender.getAddress());
+        AionAddress receiver = AddressUtils.wrapAddress(value1);
+
+        // main chain: genesis <- a1
+        MiningBlock a1 = bc.createNewMiningBlock(bc.getGenesis(), List.of(transfer(sender, 0, receiver, 100)), true);
+        assertThat(bc.tryToConnect(a1)).isEqualTo(ImportResult.IMPORTED_BEST);
+        assertThat(repository.getBalance(receiver)).isEqualTo(BigInteger.valueOf(100));
+        assertThat(repository.getNonce(senderAddress)).isEqualTo(BigInteger.ONE);
+
+        // importing a side chain block does not change the reads of the best state
+        MiningBlock b1 = bc.createNewMiningBlock(bc.getGenesis(), List.of(transfer(sender, 0, receiver, 200)), true);
+        assertThat(bc.tryToConnect(b1)).isEqualTo(ImportResult.IMPORTED_NOT_BEST);
+        assertThat(repository.getBalance(receiver)).isEqualTo(BigInteger.valueOf(100));
+
+        // the longer side chain genesis <- b1 <- b2 becomes the main chain
+        MiningBlock b2 = bc.createNewMiningBlock(b1, List.of(transfer(sender, 1, receiver, 50)), true);
+        assertThat(bc.tryToConnect(b2)).isEqualTo(ImportResult.IMPORTED_BEST);
+        assertThat(bc.getBestBlockHash()).isEqualTo(b2.getHash());
+        assertThat(repository.getRoot()).isEqualTo(b2.getStateRoot());
+        assertThat(repository.getBalance(receiver)).isEqualTo(BigInteger.valueOf(250));
+        assertThat(repository.getNonce(senderAddress)).isEqualTo(BigInteger.TWO);
+
+        // the states of both branches stay readable
+        assertThat(repository.getSnapshotTo(a1.getStateRoot()).getBalance(receiver)).isEqualTo(BigInteger.valueOf(100));
+        assertThat(repository.getSnapshotTo(b1.getStateRoot()).getBalance(receiver)).isEqualTo(BigInteger.valueOf(200));
+
+        // reorg back to the extended first branch genesis <- a1 <- a2 <- a3
+        MiningBlock a2 = bc.createNewMiningBlock(a1, List.of(transfer(sender, 1, receiver, 1000)), true);
+        bc.tryToConnect(a2);
+        MiningBlock a3 = bc.createNewMiningBlock(a2, Collections.emptyList(), true);
+        assertThat(bc.tryToConnect(a3)).isEqualTo(ImportResult.IMPORTED_BEST);
+        assertThat(bc.getBestBlockHash()).isEqualTo(a3.getHash());
+        assertThat(repository.getRoot()).isEqualTo(a3.getStateRoot());
+        assertThat(repository.getBalance(receiver)).isEqualTo(BigInteger.valueOf(1100));
+        assertThat(repository.getNonce(senderAddress)).isEqualTo(BigInteger.TWO);
+        assertThat(repository.getSnapshotTo(b2.getStateRoot()).getBalance(receiver)).isEqualTo(BigInteger.valueOf(250));
+    }
+
+    private static AionTransaction transfer(ECKey sender, long nonce, AionAddress receiver, long value) {
+        return AionTransaction.create(
+                sender,
+                BigInteger.valueOf(nonce).toByteArray(),
+                receiver,
+                BigInteger.valueOf(value).toByteArray(),
+                ByteUtil.EMPTY_BYTE_ARRAY,
+                21000L,
+                10_000_000_000L,
+                TransactionTypes.DEFAULT,
+                null);
+    }
 }
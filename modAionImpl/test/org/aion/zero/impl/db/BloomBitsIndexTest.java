@@ -0,0 +1,127 @@
+package org.aion.zero.impl.db;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import org.aion.base.Bloom;
+import org.aion.db.impl.ByteArrayKeyValueDatabase;
+import org.aion.db.impl.mockdb.MockDB;
+import org.aion.util.bytes.ByteUtil;
+import org.aion.zero.impl.core.BloomFilter;
+import org.aion.zero.impl.types.Block;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Unit tests for {@link BloomBitsIndex}. */
+public class BloomBitsIndexTest {
+
+    private static final Logger log = LoggerFactory.getLogger("DB");
+
+    private static final byte[] address = ByteUtil.hexStringToBytes("a0112233445566778899aabbccddeeff00112233445566778899aabbccddeeff");
+    private static final byte[] topic = ByteUtil.hexStringToBytes("0102030405060708091011121314151617181920212223242526272829303132");
+    private static final byte[] otherTopic = ByteUtil.hexStringToBytes("ff02030405060708091011121314151617181920212223242526272829303132");
+
+    private ByteArrayKeyValueDatabase database;
+    private List<Block> chain;
+    private BloomBitsIndex index;
+
+    @Before
+    public void setup() {
+        database = new MockDB("bloomBits", log);
+        database.open();
+        chain = new ArrayList<>();
+        index = new BloomBitsIndex(database, this::getBlock, 4, 2, log);
+    }
+
+    @After
+    public void teardown() {
+        index.close();
+    }
+
+    @Test
+    public void testIndexesConfirmedSections() {
+        addBlocks(9, 0, new Bloom());
+        index.update(chain.size() - 1);
+
+        // the second section is confirmed by two blocks, the third one is incomplete
+        assertThat(index.getIndexedBlocks()).isEqualTo(4L);
+
+        addBlocks(1, 0, new Bloom());
+        index.update(chain.size() - 1);
+
+        assertThat(index.getIndexedBlocks()).isEqualTo(8L);
+        assertThat(index.getCandidates(2, new Bloom[0][])).isNull();
+    }
+
+    @Test
+    public void testCandidatesMatchTheFilter() {
+        addBlocks(1, 0, BloomFilter.create(address, topic));
+        addBlocks(1, 0, BloomFilter.create(address));
+        addBlocks(1, 0, BloomFilter.create(address, otherTopic));
+        addBlocks(5, 0, new Bloom());
+        index.update(chain.size() - 1);
+
+        BitSet candidates = index.getCandidates(0, new Bloom[][] {{BloomFilter.create(address)}, {BloomFilter.create(topic)}});
+        assertThat(candidates.stream().toArray()).asList().containsExactly(0);
+
+        candidates = index.getCandidates(0, new Bloom[][] {{BloomFilter.create(address)}, {BloomFilter.create(topic), BloomFilter.create(otherTopic)}});
+        assertThat(candidates.stream().toArray()).asList().containsExactly(0, 2).inOrder();
+
+        // an empty element matches all the blocks
+        candidates = index.getCandidates(0, new Bloom[][] {{new Bloom()}, {}});
+        assertThat(candidates.cardinality()).isEqualTo(4);
+    }
+
+    @Test
+    public void testReopenedIndexKeepsTheSections() {
+        addBlocks(6, 0, BloomFilter.create(address));
+        index.update(chain.size() - 1);
+        assertThat(index.getIndexedBlocks()).isEqualTo(4L);
+
+        BloomBitsIndex reopened = new BloomBitsIndex(database, this::getBlock, 4, 2, log);
+        assertThat(reopened.getIndexedBlocks()).isEqualTo(4L);
+        assertThat(reopened.getCandidates(0, new Bloom[][] {{BloomFilter.create(address)}}).cardinality()).isEqualTo(4);
+    }
+
+    @Test
+    public void testRollbackAfterReorganization() {
+        addBlocks(10, 0, BloomFilter.create(address));
+        index.update(chain.size() - 1);
+        assertThat(index.getIndexedBlocks()).isEqualTo(8L);
+
+        // replace the chain from block #6 with blocks that have different logs
+        chain.subList(6, chain.size()).clear();
+        addBlocks(4, 1, BloomFilter.create(topic));
+        index.update(chain.size() - 1);
+
+        assertThat(index.getIndexedBlocks()).isEqualTo(8L);
+        BitSet candidates = index.getCandidates(1, new Bloom[][] {{BloomFilter.create(topic)}});
+        assertThat(candidates.stream().toArray()).asList().containsExactly(2, 3).inOrder();
+        candidates = index.getCandidates(1, new Bloom[][] {{BloomFilter.create(address)}});
+        assertThat(candidates.stream().toArray()).asList().containsExactly(0, 1).inOrder();
+    }
+
+    private Block getBlock(long number) {
+        return number < chain.size() ? chain.get((int) number) : null;
+    }
+
+    /** Appends blocks with the given log bloom, the fork number makes their hashes distinct. */
+    private void addBlocks(int count, int fork, Bloom bloom) {
+        for (int i = 0; i < count; i++) {
+            int number = chain.size();
+            byte[] parentHash = number == 0 ? new byte[0] : chain.get(number - 1).getHash();
+            Block block = mock(Block.class);
+            when(block.getHash()).thenReturn(new byte[] {(byte) fork, (byte) number});
+            when(block.getParentHash()).thenReturn(parentHash);
+            when(block.getLogBloom()).thenReturn(bloom.getBloomFilterBytes());
+            chain.add(block);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package org.aion.zero.impl.db;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.aion.base.ConstantUtil;
+import org.aion.db.impl.ByteArrayKeyValueDatabase;
+import org.aion.db.impl.mockdb.MockDB;
+import org.aion.types.AionAddress;
+import org.aion.util.bytes.ByteUtil;
+import org.aion.util.types.ByteArrayWrapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Unit tests for {@link FlatStateSnapshot}. */
+public class FlatStateSnapshotTest {
+
+    private static final Logger log = LoggerFactory.getLogger("DB");
+
+    private static final AionAddress account = new AionAddress(ByteUtil.hexStringToBytes("a0112233445566778899aabbccddeeff00112233445566778899aabbccddeeff"));
+    private static final AionAddress other = new AionAddress(ByteUtil.hexStringToBytes("a0ff2233445566778899aabbccddeeff00112233445566778899aabbccddeeff"));
+    private static final ByteArrayWrapper key = ByteArrayWrapper.wrap(ByteUtil.hexStringToBytes("01"));
+    private static final byte[] empty = ConstantUtil.EMPTY_TRIE_HASH;
+
+    private ByteArrayKeyValueDatabase database;
+    private FlatStateSnapshot snapshot;
+
+    @Before
+    public void setup() {
+        database = new MockDB("stateSnapshot", log);
+        database.open();
+        snapshot = new FlatStateSnapshot(database, 2, log);
+        snapshot.markComplete();
+    }
+
+    @Test
+    public void testReadsTheStateOfEachLayer() {
+        snapshot.addLayer(empty, root(1), accountDiff(account, 1));
+        snapshot.addLayer(root(1), root(2), accountDiff(account, 2));
+
+        assertThat(snapshot.getAccount(root(2), account)).isEqualTo(encoding(2));
+        assertThat(snapshot.getAccount(root(1), account)).isEqualTo(encoding(1));
+        assertThat(snapshot.getAccount(empty, account)).isEqualTo(FlatStateSnapshot.ABSENT);
+        // the snapshot built from the empty state knows all the accounts
+        assertThat(snapshot.getAccount(root(2), other)).isEqualTo(FlatStateSnapshot.ABSENT);
+        assertThat(snapshot.getAccount(root(9), account)).isNull();
+    }
+
+    @Test
+    public void testFlattensTheLayersBelowTheLimit() {
+        snapshot.addLayer(empty, root(1), accountDiff(account, 1));
+        snapshot.addLayer(root(1), root(2), accountDiff(account, 2));
+        snapshot.addLayer(root(2), root(3), accountDiff(other, 3));
+
+        assertThat(snapshot.getDiskRoot()).isEqualTo(root(1));
+        assertThat(snapshot.getLayerCount()).isEqualTo(2);
+        assertThat(snapshot.getAccount(root(3), account)).isEqualTo(encoding(2));
+        assertThat(snapshot.getAccount(root(1), account)).isEqualTo(encoding(1));
+        assertThat(snapshot.getAccount(empty, account)).isNull();
+    }
+
+    @Test
+    public void testDiscardsTheSideChainsOfTheFlattenedLayer() {
+        snapshot.addLayer(empty, root(1), accountDiff(account, 1));
+        snapshot.addLayer(empty, root(11), accountDiff(account, 11));
+        snapshot.addLayer(root(1), root(2), accountDiff(account, 2));
+
+        assertThat(snapshot.getAccount(root(11), account)).isEqualTo(encoding(11));
+
+        snapshot.addLayer(root(2), root(3), accountDiff(account, 3));
+
+        assertThat(snapshot.getAccount(root(11), account)).isNull();
+        assertThat(snapshot.getAccount(root(3), account)).isEqualTo(encoding(3));
+    }
+
+    @Test
+    public void testDeletedAccountDropsItsStorage() {
+        FlatStateSnapshot.Diff diff = accountDiff(account, 1);
+        diff.updateStorage(account, key, encoding(5));
+        snapshot.addLayer(empty, root(1), diff);
+
+        FlatStateSnapshot.Diff deletion = new FlatStateSnapshot.Diff();
+        deletion.deleteAccount(account);
+        snapshot.addLayer(root(1), root(2), deletion);
+
+        assertThat(snapshot.getStorage(root(1), account, key)).isEqualTo(encoding(5));
+        assertThat(snapshot.getStorage(root(2), account, key)).isEqualTo(FlatStateSnapshot.ABSENT);
+        assertThat(snapshot.getAccount(root(2), account)).isEqualTo(FlatStateSnapshot.ABSENT);
+
+        // also after writing both layers to disk
+        snapshot.persist(root(2));
+
+        assertThat(snapshot.getLayerCount()).isEqualTo(0);
+        assertThat(snapshot.getStorage(root(2), account, key)).isEqualTo(FlatStateSnapshot.ABSENT);
+    }
+
+    @Test
+    public void testUnknownParentResetsTheSnapshot() {
+        snapshot.addLayer(empty, root(1), accountDiff(account, 1));
+        snapshot.persist(root(1));
+
+        snapshot.addLayer(root(7), root(8), accountDiff(other, 8));
+
+        assertThat(snapshot.getDiskRoot()).isEqualTo(root(7));
+        assertThat(snapshot.getAccount(root(8), other)).isEqualTo(encoding(8));
+        // the values of the new disk layer are unknown until read from the trie
+        assertThat(snapshot.getAccount(root(8), account)).isNull();
+
+        snapshot.cacheAccount(root(8), account, encoding(4));
+        assertThat(snapshot.getAccount(root(7), account)).isEqualTo(encoding(4));
+        // a value changed by a diff layer is not cached
+        snapshot.cacheAccount(root(8), other, encoding(5));
+        assertThat(snapshot.getAccount(root(7), other)).isNull();
+    }
+
+    @Test
+    public void testResetClearsTheDiskLayer() {
+        snapshot.addLayer(empty, root(1), accountDiff(account, 1));
+        snapshot.persist(root(1));
+
+        snapshot.addLayer(root(7), root(8), accountDiff(other, 8));
+        snapshot.persist(root(8));
+
+        FlatStateSnapshot reloaded = new FlatStateSnapshot(database, 2, log);
+        assertThat(reloaded.getDiskRoot()).isEqualTo(root(8));
+        assertThat(reloaded.getAccount(root(8), other)).isEqualTo(encoding(8));
+        assertThat(reloaded.getAccount(root(8), account)).isNull();
+    }
+
+    @Test
+    public void testCachedValuesAreWrittenWithTheNextLayer() {
+        byte[] accountKey = ByteUtil.merge(new byte[] {1}, account.toByteArray());
+        snapshot.addLayer(root(7), root(8), accountDiff(other, 8));
+
+        snapshot.cacheAccount(root(8), account, encoding(4));
+        assertThat(snapshot.getAccount(root(8), account)).isEqualTo(encoding(4));
+        assertThat(database.get(accountKey).isPresent()).isFalse();
+
+        snapshot.persist(root(8));
+
+        assertThat(database.get(accountKey).get()).isEqualTo(encoding(4));
+        assertThat(new FlatStateSnapshot(database, 2, log).getAccount(root(8), account)).isEqualTo(encoding(4));
+    }
+
+    @Test
+    public void testDiskLayerIsReloaded() {
+        snapshot.addLayer(empty, root(1), accountDiff(account, 1));
+        snapshot.persist(root(1));
+
+        FlatStateSnapshot reloaded = new FlatStateSnapshot(database, 2, log);
+
+        assertThat(reloaded.getDiskRoot()).isEqualTo(root(1));
+        assertThat(reloaded.getAccount(root(1), account)).isEqualTo(encoding(1));
+        assertThat(reloaded.getAccount(root(1), other)).isEqualTo(FlatStateSnapshot.ABSENT);
+    }
+
+    @Test
+    public void testNewSnapshotIsIncompleteUntilMarked() {
+        MockDB otherDatabase = new MockDB("otherSnapshot", log);
+        otherDatabase.open();
+        FlatStateSnapshot unmarked = new FlatStateSnapshot(otherDatabase, 2, log);
+        unmarked.addLayer(empty, root(1), accountDiff(account, 1));
+
+        // the missing values may exist in the trie
+        assertThat(unmarked.getAccount(root(1), account)).isEqualTo(encoding(1));
+        assertThat(unmarked.getAccount(root(1), other)).isNull();
+        FlatStateSnapshot reloaded = new FlatStateSnapshot(otherDatabase, 2, log);
+        assertThat(reloaded.getAccount(empty, account)).isNull();
+
+        // the marked snapshot stays complete after a restart
+        assertThat(new FlatStateSnapshot(database, 2, log).getAccount(empty, account))
+                .isEqualTo(FlatStateSnapshot.ABSENT);
+    }
+
+    @Test
+    public void testStoredValuesPreventMarkingComplete() {
+        MockDB otherDatabase = new MockDB("otherSnapshot", log);
+        otherDatabase.open();
+        FlatStateSnapshot unmarked = new FlatStateSnapshot(otherDatabase, 2, log);
+        unmarked.cacheAccount(empty, account, encoding(4));
+        unmarked.persist(empty);
+
+        unmarked.markComplete();
+
+        assertThat(unmarked.getAccount(empty, account)).isEqualTo(encoding(4));
+        assertThat(unmarked.getAccount(empty, other)).isNull();
+    }
+
+    private static FlatStateSnapshot.Diff accountDiff(AionAddress address, int value) {
+        FlatStateSnapshot.Diff diff = new FlatStateSnapshot.Diff();
+        diff.updateAccount(address, encoding(value));
+        return diff;
+    }
+
+    private static byte[] root(int value) {
+        byte[] root = new byte[32];
+        root[31] = (byte) value;
+        return root;
+    }
+
+    private static byte[] encoding(int value) {
+        return new byte[] {(byte) value, 1};
+    }
+}
@@ -0,0 +1,184 @@
+package org.aion.zero.impl.db;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+import org.aion.base.AionTransaction;
+import org.aion.base.AionTxReceipt;
+import org.aion.crypto.ECKey;
+import org.aion.crypto.ECKeyFac;
+import org.aion.db.impl.ByteArrayKeyValueDatabase;
+import org.aion.db.impl.mockdb.MockDB;
+import org.aion.types.AionAddress;
+import org.aion.types.InternalTransaction;
+import org.aion.types.InternalTransaction.RejectedStatus;
+import org.aion.types.Log;
+import org.aion.util.bytes.ByteUtil;
+import org.aion.util.types.ByteArrayWrapper;
+import org.aion.zero.impl.types.AionTxInfo;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Unit tests for {@link TransactionStore}. */
+public class TransactionStoreTest {
+
+    private static final Logger log = LoggerFactory.getLogger("DB");
+
+    private static final byte[] topic = ByteUtil.hexStringToBytes("0102030405060708091011121314151617181920212223242526272829303132");
+
+    private ByteArrayKeyValueDatabase database;
+    private TransactionStore store;
+    private AionTransaction transaction;
+
+    @Before
+    public void setup() {
+        database = new MockDB("transaction", log);
+        database.open();
+        store = new TransactionStore(database, AionTransactionStoreSerializer.serializer);
+
+        ECKey key = ECKeyFac.inst().create();
+        transaction =
+                AionTransaction.create(
+                        key,
+                        BigInteger.ZERO.toByteArray(),
+                        new AionAddress(key.getAddress()),
+                        BigInteger.ONE.toByteArray(),
+                        new byte[0],
+                        21_000L,
+                        10_000_000_000L,
+                        (byte) 0x01,
+                        null);
+    }
+
+    @Test
+    public void testStoredInfoIsDecodedLazily() {
+        AionTxInfo info = info(blockHash(1), 3, true);
+        store.putTxInfoToBatch(info);
+        store.flushBatch();
+
+        AionTxInfo stored = store.getTxInfo(transaction.getTransactionHash(), blockHash(1).toBytes());
+
+        assertThat(stored).isNotNull();
+        assertThat(stored.getIndex()).isEqualTo(3);
+        assertThat(stored.getBlockHash()).isEqualTo(blockHash(1).toBytes());
+        assertThat(stored.isCreatedWithInternalTransactions()).isTrue();
+        assertThat(stored.hasInternalTransactions()).isTrue();
+        assertThat(stored.getReceipt().toBytes()).isEqualTo(info.getReceipt().toBytes());
+        assertThat(stored.getReceipt().getLogInfoList()).isEqualTo(info.getReceipt().getLogInfoList());
+        assertThat(stored.getInternalTransactions()).isEqualTo(info.getInternalTransactions());
+        assertThat(stored.getEncoded()).isEqualTo(info.getEncoded());
+    }
+
+    @Test
+    public void testInfoWithoutInternalTransactions() {
+        store.putTxInfoToBatch(info(blockHash(1), 0, false));
+        store.flushBatch();
+
+        AionTxInfo stored = store.getTxInfo(transaction.getTransactionHash(), blockHash(1).toBytes());
+
+        assertThat(stored.isCreatedWithInternalTransactions()).isFalse();
+        assertThat(stored.hasInternalTransactions()).isFalse();
+        assertThat(stored.getInternalTransactions()).isNull();
+    }
+
+    @Test
+    public void testInfosForSeveralBlocks() {
+        store.putTxInfoToBatch(info(blockHash(1), 0, false));
+        store.putTxInfoToBatch(info(blockHash(2), 5, false));
+        store.flushBatch();
+
+        Map<ByteArrayWrapper, AionTxInfo> infos = store.getTxInfo(transaction.getTransactionHash());
+        assertThat(infos.keySet()).containsExactly(blockHash(1), blockHash(2));
+        assertThat(infos.get(blockHash(2)).getIndex()).isEqualTo(5);
+
+        assertThat(store.getTxLocations(transaction.getTransactionHash())).containsExactly(blockHash(1), 0, blockHash(2), 5);
+        assertThat(store.getTxInfo(transaction.getTransactionHash(), blockHash(3).toBytes())).isNull();
+        assertThat(store.getTxInfo(new byte[32])).isNull();
+        assertThat(store.getTxLocations(new byte[32])).isNull();
+    }
+
+    @Test
+    public void testReadsLegacyRecords() {
+        putLegacy(info(blockHash(1), 2, true));
+
+        AionTxInfo stored = store.getTxInfo(transaction.getTransactionHash(), blockHash(1).toBytes());
+        assertThat(stored.getIndex()).isEqualTo(2);
+        assertThat(stored.hasInternalTransactions()).isTrue();
+        assertThat(store.getTxInfo(transaction.getTransactionHash())).containsKey(blockHash(1));
+        assertThat(store.getTxLocations(transaction.getTransactionHash())).containsExactly(blockHash(1), 2);
+    }
+
+    @Test
+    public void testConvertsLegacyRecordOnUpdate() {
+        putLegacy(info(blockHash(1), 2, false));
+
+        store.putTxInfoToBatch(info(blockHash(2), 4, false));
+        store.flushBatch();
+
+        byte[] record = database.get(transaction.getTransactionHash()).get();
+        assertThat(AionTransactionStoreSerializer.locationSerializer.deserialize(record)).containsExactly(blockHash(1), 2, blockHash(2), 4);
+        assertThat(store.getTxInfo(transaction.getTransactionHash(), blockHash(1).toBytes()).getIndex()).isEqualTo(2);
+    }
+
+    @Test
+    public void testMigrateLegacyRecords() {
+        putLegacy(info(blockHash(1), 2, true));
+        // an alias record is not a transaction record
+        byte[] alias = new byte[32];
+        alias[0] = (byte) 0xf8;
+        database.put(new byte[32], alias);
+        database.commit();
+
+        assertThat(store.migrateLegacyRecords(log)).isEqualTo(1);
+
+        byte[] record = database.get(transaction.getTransactionHash()).get();
+        assertThat(AionTransactionStoreSerializer.locationSerializer.deserialize(record)).containsExactly(blockHash(1), 2);
+        assertThat(database.get(new byte[32]).get()).isEqualTo(alias);
+
+        AionTxInfo stored = store.getTxInfo(transaction.getTransactionHash(), blockHash(1).toBytes());
+        assertThat(stored.getInternalTransactions()).hasSize(1);
+
+        // nothing left to migrate
+        assertThat(store.migrateLegacyRecords(log)).isEqualTo(0);
+    }
+
+    private void putLegacy(AionTxInfo info) {
+        database.put(transaction.getTransactionHash(), AionTransactionStoreSerializer.serializer.serialize(Map.of(info.blockHash, info)));
+        database.commit();
+    }
+
+    private AionTxInfo info(ByteArrayWrapper blockHash, int index, boolean withInternalTransactions) {
+        AionTxReceipt receipt = new AionTxReceipt();
+        receipt.setLogs(List.of(Log.topicsAndData(transaction.getDestinationAddress().toByteArray(), List.of(topic), new byte[] {1, 2, 3})));
+        receipt.setNrgUsed(21_000L);
+        receipt.setTransaction(transaction);
+
+        AionTxInfo info;
+        if (withInternalTransactions) {
+            InternalTransaction internal =
+                    InternalTransaction.contractCallTransaction(
+                            RejectedStatus.NOT_REJECTED,
+                            transaction.getDestinationAddress(),
+                            transaction.getSenderAddress(),
+                            BigInteger.ONE,
+                            BigInteger.TEN,
+                            new byte[] {4, 5},
+                            10_000L,
+                            1L);
+            info = AionTxInfo.newInstanceWithInternalTransactions(receipt, blockHash, index, List.of(internal));
+        } else {
+            info = AionTxInfo.newInstance(receipt, blockHash, index);
+        }
+        return info;
+    }
+
+    private static ByteArrayWrapper blockHash(int value) {
+        byte[] hash = new byte[32];
+        hash[31] = (byte) value;
+        return ByteArrayWrapper.wrap(hash);
+    }
+}
@@ -0,0 +1,192 @@
+package org.aion.zero.impl.db;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.Iterators;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.aion.db.impl.ByteArrayKeyValueDatabase;
+import org.aion.db.impl.mockdb.MockDB;
+import org.aion.util.types.ByteArrayWrapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Unit tests for {@link WriteBehindCoordinator} and {@link WriteBehindDatabase}. */
+public class WriteBehindCoordinatorTest {
+
+    private static final Logger log = LoggerFactory.getLogger("DB");
+
+    private static final byte[] k1 = new byte[] {1};
+    private static final byte[] k2 = new byte[] {2};
+    private static final byte[] k3 = new byte[] {3};
+    private static final byte[] v1 = new byte[] {10};
+    private static final byte[] v2 = new byte[] {20};
+    private static final byte[] v3 = new byte[] {30};
+
+    private ByteArrayKeyValueDatabase blocks, index;
+    private WriteBehindCoordinator coordinator;
+    private ByteArrayKeyValueDatabase bufferedBlocks, bufferedIndex;
+
+    @Before
+    public void setup() {
+        blocks = new MockDB("blocks", log);
+        index = new MockDB("index", log);
+        blocks.open();
+        index.open();
+
+        coordinator = new WriteBehindCoordinator(3, 1024, 60_000, null, log);
+        bufferedBlocks = coordinator.wrap(blocks);
+        bufferedIndex = coordinator.wrap(index);
+    }
+
+    @After
+    public void teardown() {
+        coordinator.close();
+        blocks.close();
+        index.close();
+    }
+
+    @Test
+    public void testReadsIncludeBufferedWrites() {
+        blocks.putBatch(Map.of(k1, v1, k2, v2));
+
+        coordinator.startSection();
+        bufferedBlocks.put(k3, v3);
+        bufferedBlocks.delete(k1);
+        // uncommitted writes are not visible
+        assertThat(bufferedBlocks.get(k3).isPresent()).isFalse();
+        bufferedBlocks.commit();
+        coordinator.endSection();
+
+        assertThat(bufferedBlocks.get(k1).isPresent()).isFalse();
+        assertThat(bufferedBlocks.get(k2).get()).isEqualTo(v2);
+        assertThat(bufferedBlocks.get(k3).get()).isEqualTo(v3);
+        List<byte[]> values = bufferedBlocks.getBatch(List.of(k1, k2, k3));
+        assertThat(values.get(0)).isNull();
+        assertThat(values.get(1)).isEqualTo(v2);
+        assertThat(values.get(2)).isEqualTo(v3);
+        assertThat(keys(bufferedBlocks.keys()))
+                .containsExactly(ByteArrayWrapper.wrap(k2), ByteArrayWrapper.wrap(k3))
+                .inOrder();
+        assertThat(keys(Iterators.transform(bufferedBlocks.iterate(k3, null), Map.Entry::getKey)))
+                .containsExactly(ByteArrayWrapper.wrap(k3));
+
+        // nothing was written to the underlying database
+        assertThat(blocks.get(k1).get()).isEqualTo(v1);
+        assertThat(blocks.get(k3).isPresent()).isFalse();
+    }
+
+    @Test
+    public void testFlushAfterMaxBlocks() {
+        for (int i = 0; i < 2; i++) {
+            coordinator.startSection();
+            bufferedBlocks.putBatch(Map.of(new byte[] {(byte) i}, v1));
+            bufferedIndex.putBatch(Map.of(new byte[] {(byte) i}, v2));
+            coordinator.endSection();
+        }
+        assertThat(coordinator.getBufferedBlocks()).isEqualTo(2);
+        assertThat(blocks.isEmpty()).isTrue();
+        assertThat(index.isEmpty()).isTrue();
+
+        coordinator.startSection();
+        bufferedBlocks.putBatch(Map.of(k2, v1));
+        bufferedIndex.putBatch(Map.of(k2, v2));
+        coordinator.endSection();
+
+        assertThat(coordinator.getBufferedBlocks()).isEqualTo(0);
+        assertThat(coordinator.getBufferedBytes()).isEqualTo(0L);
+        assertThat(keys(blocks.keys())).hasSize(3);
+        assertThat(keys(index.keys())).hasSize(3);
+        assertThat(bufferedIndex.get(k2).get()).isEqualTo(v2);
+    }
+
+    @Test
+    public void testFlushAfterMaxBytes() {
+        coordinator.startSection();
+        bufferedBlocks.putBatch(Map.of(k1, new byte[2048]));
+        coordinator.endSection();
+
+        assertThat(coordinator.getBufferedBlocks()).isEqualTo(0);
+        assertThat(blocks.get(k1).get().length).isEqualTo(2048);
+    }
+
+    @Test
+    public void testNestedSectionsCountAsOneBlock() {
+        coordinator.startSection();
+        coordinator.startSection();
+        bufferedBlocks.putBatch(Map.of(k1, v1));
+        coordinator.endSection();
+        coordinator.endSection();
+
+        assertThat(coordinator.getBufferedBlocks()).isEqualTo(1);
+    }
+
+    @Test
+    public void testDiscardSection() {
+        coordinator.startSection();
+        bufferedBlocks.putBatch(Map.of(k1, v1));
+        coordinator.endSection();
+
+        coordinator.startSection();
+        bufferedBlocks.putBatch(Map.of(k1, v2, k2, v2));
+        bufferedIndex.put(k3, v3);
+        coordinator.discardSection();
+        // the uncommitted writes of the section are discarded too
+        bufferedIndex.commit();
+
+        assertThat(bufferedBlocks.get(k1).get()).isEqualTo(v1);
+        assertThat(bufferedBlocks.get(k2).isPresent()).isFalse();
+        assertThat(bufferedIndex.get(k3).isPresent()).isFalse();
+        assertThat(coordinator.getBufferedBlocks()).isEqualTo(1);
+        assertThat(coordinator.getBufferedBytes()).isEqualTo(2L);
+
+        // a discarded nested section discards the outermost one
+        coordinator.startSection();
+        bufferedBlocks.putBatch(Map.of(k2, v2));
+        coordinator.startSection();
+        coordinator.discardSection();
+        coordinator.endSection();
+
+        assertThat(bufferedBlocks.get(k2).isPresent()).isFalse();
+        assertThat(coordinator.getBufferedBlocks()).isEqualTo(1);
+
+        coordinator.close();
+        assertThat(keys(blocks.keys())).containsExactly(ByteArrayWrapper.wrap(k1));
+        assertThat(index.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void testCloseFlushesBufferedWrites() {
+        blocks.putBatch(Map.of(k1, v1));
+
+        coordinator.startSection();
+        bufferedBlocks.deleteBatch(List.of(k1));
+        bufferedIndex.putBatch(Map.of(k1, v2));
+        coordinator.endSection();
+
+        coordinator.close();
+
+        assertThat(blocks.get(k1).isPresent()).isFalse();
+        assertThat(index.get(k1).get()).isEqualTo(v2);
+    }
+
+    @Test
+    public void testWrapped() {
+        ByteArrayKeyValueDatabase other = new MockDB("other", log);
+
+        assertThat(coordinator.wrapped(blocks)).isEqualTo(bufferedBlocks);
+        assertThat(coordinator.wrapped(index)).isEqualTo(bufferedIndex);
+        assertThat(coordinator.wrapped(other)).isEqualTo(other);
+    }
+
+    private static List<ByteArrayWrapper> keys(Iterator<byte[]> iterator) {
+        List<ByteArrayWrapper> keys = new ArrayList<>();
+        iterator.forEachRemaining(key -> keys.add(ByteArrayWrapper.wrap(key)));
+        return keys;
+    }
+}
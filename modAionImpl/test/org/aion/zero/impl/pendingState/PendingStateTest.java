@@ -18,12 +18,14 @@ import org.aion.base.TxUtil;
 import org.aion.crypto.ECKey;
 import org.aion.txpool.Constant;
 import org.aion.zero.impl.blockchain.AionHub;
+import org.aion.zero.impl.blockchain.BlockchainCallbackInterface;
 import org.aion.zero.impl.blockchain.AionImpl;
 import org.aion.zero.impl.blockchain.AionImpl.NetworkBestBlockCallback;
 import org.aion.zero.impl.blockchain.AionImpl.PendingTxCallback;
 import org.aion.zero.impl.blockchain.AionImpl.TransactionBroadcastCallback;
 import org.aion.zero.impl.blockchain.StandaloneBlockchain;
 import org.aion.zero.impl.blockchain.StandaloneBlockchain.Bundle;
+import org.aion.zero.impl.types.PendingTxDetails;
 import org.aion.zero.impl.types.TxResponse;
 import org.aion.zero.impl.core.ImportResult;
 import org.aion.base.TransactionTypeRule;
@@ -915,4 +917,96 @@ public class PendingStateTest {
         assertEquals(0 , pendingState.getCachePoolSize());
         assertEquals(cachedTx.get(1), pendingState.getPendingTransactions().get(0));
     }
+
+    @Test
+    public void applyBlockUpdateWithTouchedAccountsTest() {
+        List<PendingTxDetails> updates = new ArrayList<>();
+        pendingState = newPendingState(updates);
+
+        List<AionTransaction> sealed = getMockTransaction(0, 1, 0);
+        List<AionTransaction> pending = getMockTransaction(0, 1, 2);
+        List<AionTransaction> dependent = getMockTransaction(1, 1, 0);
+
+        assertEquals(TxResponse.SUCCESS, pendingState.addTransactionFromApiServer(sealed.get(0)));
+        assertEquals(TxResponse.SUCCESS, pendingState.addTransactionFromApiServer(pending.get(0)));
+        assertEquals(TxResponse.SUCCESS, pendingState.addTransactionFromApiServer(dependent.get(0)));
+        assertEquals(3, pendingState.getPendingTxSize());
+
+        MiningBlock block =
+            blockchain.createNewMiningBlock(
+                blockchain.getBestBlock(), sealed, false);
+        Pair<ImportResult, AionBlockSummary> connectResult = blockchain.tryToConnectAndFetchSummary(block);
+        assertEquals(connectResult.getLeft(), ImportResult.IMPORTED_BEST);
+        assertThat(connectResult.getRight().getTouchedAccounts())
+            .contains(new AionAddress(bundle.privateKeys.get(0).getAddress()));
+
+        updates.clear();
+        pendingState.applyBlockUpdate(
+            block,
+            connectResult.getRight().getReceipts(),
+            connectResult.getRight().getTouchedAccounts());
+
+        // the transaction of the untouched sender is kept and the dependent one is re-executed
+        assertEquals(2, pendingState.getPendingTxSize());
+        assertThat(pendingState.getPendingTransactions()).containsExactly(pending.get(0), dependent.get(0));
+        assertThat(executedTransactions(updates)).containsExactly(dependent.get(0));
+        assertEquals(
+            BigInteger.valueOf(2),
+            pendingState.bestPendingStateNonce(new AionAddress(bundle.privateKeys.get(0).getAddress())));
+
+        // the same state as re-executing every pooled transaction on top of the block
+        AionPendingStateImpl rerun = newPendingState(new ArrayList<>());
+        assertEquals(TxResponse.SUCCESS, rerun.addTransactionFromApiServer(pending.get(0)));
+        assertEquals(TxResponse.SUCCESS, rerun.addTransactionFromApiServer(dependent.get(0)));
+        for (int i = 0; i < 4; i++) {
+            AionAddress account = new AionAddress(bundle.privateKeys.get(i).getAddress());
+            if (account.equals(block.getCoinbase())) {
+                // the pending fees of the miner are only those of the re-executed transactions
+                continue;
+            }
+            assertEquals(rerun.getRepository().getNonce(account), pendingState.getRepository().getNonce(account));
+            assertEquals(rerun.getRepository().getBalance(account), pendingState.getRepository().getBalance(account));
+        }
+    }
+
+    private AionPendingStateImpl newPendingState(List<PendingTxDetails> updates) {
+        BlockchainCallbackInterface recorder =
+            new BlockchainCallbackInterface() {
+                @Override
+                public boolean isForApiServer() {
+                    return true;
+                }
+
+                @Override
+                public void pendingTxReceived(AionTransaction tx) {}
+
+                @Override
+                public void pendingTxUpdated(PendingTxDetails txDetails) {
+                    updates.add(txDetails);
+                }
+            };
+
+        return new AionPendingStateImpl(
+            blockchain,
+            CfgAion.inst().getConsensus().getEnergyStrategy().getUpperBound(),
+            CfgAion.inst().getTx().getTxPendingTimeout(),
+            false,
+            false,
+            false,
+            new PendingTxCallback(Collections.singletonList(recorder)),
+            new NetworkBestBlockCallback(AionImpl.inst()),
+            new TransactionBroadcastCallback(AionImpl.inst()),
+            true);
+    }
+
+    /** @return the transactions executed again on the pending state, in the order of the updates */
+    private static List<AionTransaction> executedTransactions(List<PendingTxDetails> updates) {
+        List<AionTransaction> executed = new ArrayList<>();
+        for (PendingTxDetails update : updates) {
+            if (update.state == PendingTransactionState.PENDING.getValue()) {
+                executed.add(update.receipt.getTransaction());
+            }
+        }
+        return executed;
+    }
 }
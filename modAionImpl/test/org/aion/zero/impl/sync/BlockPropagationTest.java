@@ -2,7 +2,9 @@ package org.aion.zero.impl.sync;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import java.io.IOException;
 import java.math.BigInteger;
+import java.net.ServerSocket;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -12,7 +14,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.ServiceLoader;
+import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
+import org.aion.base.AionTransaction;
+import org.aion.base.TransactionTypes;
 import org.aion.crypto.ECKey;
 import org.aion.crypto.ECKeyFac;
 import org.aion.crypto.HashUtil;
@@ -24,15 +29,28 @@ import org.aion.p2p.INode;
 import org.aion.p2p.IP2pMgr;
 import org.aion.p2p.IPeerMetric;
 import org.aion.p2p.Msg;
+import org.aion.p2p.impl1.P2pMgr;
+import org.aion.types.AionAddress;
+import org.aion.util.bytes.ByteUtil;
 import org.aion.zero.impl.blockchain.AionImpl;
 import org.aion.zero.impl.blockchain.AionImpl.NetworkBestBlockCallback;
 import org.aion.zero.impl.blockchain.AionImpl.PendingTxCallback;
 import org.aion.zero.impl.blockchain.AionImpl.TransactionBroadcastCallback;
 import org.aion.zero.impl.blockchain.StandaloneBlockchain;
 import org.aion.zero.impl.pendingState.AionPendingStateImpl;
+import org.aion.zero.impl.core.ImportResult;
 import org.aion.zero.impl.sync.handler.BlockPropagationHandler;
+import org.aion.zero.impl.sync.handler.CompactBlockHandler;
+import org.aion.zero.impl.sync.handler.RequestBlockTxsHandler;
+import org.aion.zero.impl.sync.handler.ResponseBlockTxsHandler;
+import org.aion.zero.impl.sync.msg.BroadcastNewBlock;
+import org.aion.zero.impl.sync.msg.CompactBlock;
+import org.aion.zero.impl.sync.msg.RequestBlockTxs;
+import org.aion.zero.impl.sync.msg.ResponseBlockTxs;
 import org.aion.zero.impl.types.MiningBlock;
 import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /** Unit tests for block propagation */
 public class BlockPropagationTest {
@@ -586,6 +604,262 @@ public class BlockPropagationTest {
         assertThat(sendCount.get()).isEqualTo(1);
     }
 
+    /** Test that a compact block is completed with the transactions requested from the sender */
+    @Test
+    public void testCompactBlockWithMissingTransactions() {
+        List<ECKey> accounts = generateDefaultAccounts();
+
+        StandaloneBlockchain.Bundle bundle =
+                new StandaloneBlockchain.Builder()
+                        .withValidatorConfiguration("simple")
+                        .withDefaultAccounts(accounts)
+                        .build();
+
+        AionTransaction tx =
+                AionTransaction.create(
+                        accounts.get(0),
+                        BigInteger.ZERO.toByteArray(),
+                        new AionAddress(accounts.get(1).getAddress()),
+                        BigInteger.valueOf(100).toByteArray(),
+                        ByteUtil.EMPTY_BYTE_ARRAY,
+                        21000L,
+                        10_000_000_000L,
+                        TransactionTypes.DEFAULT,
+                        null);
+        MiningBlock block =
+                bundle.bc.createNewMiningBlock(bundle.bc.getGenesis(), Collections.singletonList(tx), true);
+        assertThat(block.getTransactionsList()).hasSize(1);
+
+        byte[] sender = HashUtil.h256("node1".getBytes());
+        NodeMock senderMock = new NodeMock(sender, 1);
+
+        Map<Integer, INode> node = new HashMap<>();
+        node.put(1, senderMock);
+
+        List<Msg> sent = new ArrayList<>();
+        P2pMock p2pMock =
+                new P2pMock(node) {
+                    @Override
+                    public void send(int _nodeId, String s, Msg _msg) {
+                        if (_nodeId != senderMock.getIdHash()) {
+                            throw new RuntimeException("should only send to the sender");
+                        }
+                        sent.add(_msg);
+                    }
+                };
+
+        StandaloneBlockchain.Bundle anotherBundle =
+                new StandaloneBlockchain.Builder()
+                        .withValidatorConfiguration("simple")
+                        .withDefaultAccounts(accounts)
+                        .withEventManger(this.loadEventMgr())
+                        .build();
+
+        SyncStats syncStats = new SyncStats(bundle.bc.getBestBlock().getNumber(), true);
+        BlockPropagationHandler handler =
+                new BlockPropagationHandler(
+                        1024,
+                        anotherBundle.bc, // NOTE: not the same blockchain that generated the block
+                        syncStats,
+                        p2pMock,
+                        anotherBundle.bc.getBlockHeaderValidator(),
+                        false,
+                        (byte) 2,
+                        new AionPendingStateImpl(
+                                anotherBundle.bc,
+                                blockEnergyUpperBound,
+                                pendingTransactionTimeout,
+                                enablePoolBackup,
+                                enableSeedMode,
+                                enablePoolDump,
+                                new PendingTxCallback(new ArrayList<>()),
+                                new NetworkBestBlockCallback(AionImpl.inst()),
+                                new TransactionBroadcastCallback(AionImpl.inst()),
+                                true));
+
+        // the transaction is not in the pool so it is requested from the sender
+        CompactBlock compact = CompactBlock.decode(new CompactBlock(block).encode());
+        assertThat(handler.processCompactBlock(senderMock.getIdHash(), "test", compact))
+                .isEqualTo(BlockPropagationHandler.PropStatus.REQUESTED);
+        assertThat(sent).hasSize(1);
+        RequestBlockTxs request = (RequestBlockTxs) sent.get(0);
+        assertThat(request.getBlockHash()).isEqualTo(block.getHash());
+        assertThat(request.getIndexes()).isEqualTo(new int[] {0});
+
+        // a response from another peer is ignored
+        ResponseBlockTxs response = new ResponseBlockTxs(block.getHash(), block.getTransactionsList());
+        assertThat(handler.processBlockTransactions(senderMock.getIdHash() + 1, "other", response))
+                .isEqualTo(BlockPropagationHandler.PropStatus.DROPPED);
+
+        assertThat(handler.processBlockTransactions(senderMock.getIdHash(), "test", response))
+                .isEqualTo(BlockPropagationHandler.PropStatus.CONNECTED);
+        assertThat(anotherBundle.bc.getBestBlock().getHash()).isEqualTo(block.getHash());
+    }
+
+    /** Test that the peers accepting compact blocks do not receive the full block */
+    @Test
+    public void testPropagateCompactBlockToPeer() {
+        List<ECKey> accounts = generateDefaultAccounts();
+
+        StandaloneBlockchain.Bundle bundle =
+                new StandaloneBlockchain.Builder()
+                        .withValidatorConfiguration("simple")
+                        .withDefaultAccounts(accounts)
+                        .build();
+
+        MiningBlock block =
+                bundle.bc.createNewMiningBlock(bundle.bc.getGenesis(), Collections.EMPTY_LIST, true);
+
+        NodeMock compactMock = new NodeMock(HashUtil.h256("compact".getBytes()), 0);
+        NodeMock fullMock = new NodeMock(HashUtil.h256("full".getBytes()), 0);
+
+        Map<Integer, INode> node = new HashMap<>();
+        node.put(1, compactMock);
+        node.put(2, fullMock);
+
+        Map<Integer, Msg> sent = new HashMap<>();
+        P2pMock p2pMock =
+                new P2pMock(node) {
+                    @Override
+                    public void send(int _nodeId, String s, Msg _msg) {
+                        assertThat(sent.put(_nodeId, _msg)).isNull();
+                    }
+                };
+
+        SyncStats syncStats = new SyncStats(bundle.bc.getBestBlock().getNumber(), true);
+        BlockPropagationHandler handler =
+                new BlockPropagationHandler(
+                        1024,
+                        bundle.bc,
+                        syncStats,
+                        p2pMock,
+                        bundle.bc.getBlockHeaderValidator(),
+                        false,
+                        (byte) 2,
+                        new AionPendingStateImpl(
+                                bundle.bc,
+                                blockEnergyUpperBound,
+                                pendingTransactionTimeout,
+                                enablePoolBackup,
+                                enableSeedMode,
+                                enablePoolDump,
+                                new PendingTxCallback(new ArrayList<>()),
+                                new NetworkBestBlockCallback(AionImpl.inst()),
+                                new TransactionBroadcastCallback(AionImpl.inst()),
+                                true));
+
+        handler.enableCompactBlocks(compactMock.getIdHash());
+        handler.propagateNewBlock(block);
+
+        assertThat(sent).hasSize(2);
+        assertThat(sent.get(compactMock.getIdHash())).isInstanceOf(CompactBlock.class);
+        assertThat(sent.get(fullMock.getIdHash())).isInstanceOf(BroadcastNewBlock.class);
+    }
+
+    /**
+     * Test that a compact block with a missing transaction is completed and imported by a peer
+     * connected through the p2p layer, using the V1 compact block routes in both directions.
+     */
+    @Test
+    public void testCompactBlockThroughP2pMgr() throws Exception {
+        List<ECKey> accounts = generateDefaultAccounts();
+
+        StandaloneBlockchain.Bundle bundle =
+                new StandaloneBlockchain.Builder()
+                        .withValidatorConfiguration("simple")
+                        .withDefaultAccounts(accounts)
+                        .build();
+        StandaloneBlockchain.Bundle anotherBundle =
+                new StandaloneBlockchain.Builder()
+                        .withValidatorConfiguration("simple")
+                        .withDefaultAccounts(accounts)
+                        .withEventManger(this.loadEventMgr())
+                        .build();
+
+        AionTransaction tx =
+                AionTransaction.create(
+                        accounts.get(0),
+                        BigInteger.ZERO.toByteArray(),
+                        new AionAddress(accounts.get(1).getAddress()),
+                        BigInteger.valueOf(100).toByteArray(),
+                        ByteUtil.EMPTY_BYTE_ARRAY,
+                        21000L,
+                        10_000_000_000L,
+                        TransactionTypes.DEFAULT,
+                        null);
+        MiningBlock block =
+                bundle.bc.createNewMiningBlock(bundle.bc.getGenesis(), Collections.singletonList(tx), true);
+        assertThat(bundle.bc.tryToConnect(block)).isEqualTo(ImportResult.IMPORTED_BEST);
+
+        Logger log = LoggerFactory.getLogger("P2P");
+        String receiverId = UUID.randomUUID().toString();
+        int receiverPort = freePort();
+        P2pMgr receiverP2p =
+                new P2pMgr(log, log, 0, "test", receiverId, "127.0.0.1", receiverPort, new String[0], false, 128, 128, false, 50);
+        P2pMgr senderP2p =
+                new P2pMgr(log, log, 0, "test", UUID.randomUUID().toString(), "127.0.0.1", freePort(),
+                        new String[] {"p2p://" + receiverId + "@127.0.0.1:" + receiverPort}, false, 128, 128, false, 50);
+
+        BlockPropagationHandler sender = newPropagationHandler(bundle, senderP2p);
+        BlockPropagationHandler receiver = newPropagationHandler(anotherBundle, receiverP2p);
+        senderP2p.register(Collections.singletonList(new RequestBlockTxsHandler(log, bundle.bc, senderP2p)));
+        receiverP2p.register(
+                Arrays.asList(
+                        new CompactBlockHandler(log, receiver, receiverP2p),
+                        new ResponseBlockTxsHandler(log, receiver, receiverP2p)));
+
+        receiverP2p.run();
+        senderP2p.run();
+        try {
+            long deadline = System.currentTimeMillis() + 30_000L;
+            while (senderP2p.getActiveNodes().isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+            }
+            assertThat(senderP2p.getActiveNodes()).hasSize(1);
+
+            sender.enableCompactBlocks(senderP2p.getActiveNodes().keySet().iterator().next());
+            sender.propagateNewBlock(block);
+
+            // the transaction is not in the pool of the receiver and is requested from the sender
+            while (!Arrays.equals(anotherBundle.bc.getBestBlock().getHash(), block.getHash())
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+            }
+            assertThat(anotherBundle.bc.getBestBlock().getHash()).isEqualTo(block.getHash());
+        } finally {
+            senderP2p.shutdown();
+            receiverP2p.shutdown();
+        }
+    }
+
+    private BlockPropagationHandler newPropagationHandler(StandaloneBlockchain.Bundle bundle, IP2pMgr p2p) {
+        return new BlockPropagationHandler(
+                1024,
+                bundle.bc,
+                new SyncStats(bundle.bc.getBestBlock().getNumber(), true),
+                p2p,
+                bundle.bc.getBlockHeaderValidator(),
+                false,
+                (byte) 2,
+                new AionPendingStateImpl(
+                        bundle.bc,
+                        blockEnergyUpperBound,
+                        pendingTransactionTimeout,
+                        enablePoolBackup,
+                        enableSeedMode,
+                        enablePoolDump,
+                        new PendingTxCallback(new ArrayList<>()),
+                        new NetworkBestBlockCallback(AionImpl.inst()),
+                        new TransactionBroadcastCallback(AionImpl.inst()),
+                        true));
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
     private IEventMgr loadEventMgr() {
         ServiceLoader.load(EventMgrModule.class);
         IEventMgr eventMgr = null;
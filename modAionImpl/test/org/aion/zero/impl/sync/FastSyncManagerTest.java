@@ -0,0 +1,97 @@
+package org.aion.zero.impl.sync;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.math.BigInteger;
+import java.util.Properties;
+import org.aion.base.InternalVmType;
+import org.aion.base.db.RepositoryCache;
+import org.aion.crypto.HashUtil;
+import org.aion.db.impl.DBVendor;
+import org.aion.db.impl.DatabaseFactory;
+import org.aion.types.AionAddress;
+import org.aion.util.types.DataWord;
+import org.aion.zero.impl.config.CfgPrune;
+import org.aion.zero.impl.config.PruneConfig;
+import org.aion.zero.impl.db.AionRepositoryImpl;
+import org.aion.zero.impl.db.RepositoryConfig;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Unit tests for {@link FastSyncManager}. */
+public class FastSyncManagerTest {
+
+    private final RepositoryConfig repoConfig =
+            new RepositoryConfig() {
+                @Override
+                public String getDbPath() {
+                    return "";
+                }
+
+                @Override
+                public PruneConfig getPruneConfig() {
+                    return new CfgPrune(false);
+                }
+
+                @Override
+                public Properties getDatabaseConfig(String db_name) {
+                    Properties props = new Properties();
+                    props.setProperty(DatabaseFactory.Props.DB_TYPE, DBVendor.MOCKDB.toValue());
+                    return props;
+                }
+            };
+
+    private AionRepositoryImpl repository;
+    private byte[] stateRoot;
+
+    @Before
+    public void setup() {
+        repository = AionRepositoryImpl.createForTesting(repoConfig);
+        RepositoryCache track = repository.startTracking();
+
+        for (int i = 0; i < 16; i++) {
+            byte[] address = new byte[32];
+            address[0] = (byte) 0xa0;
+            address[31] = (byte) i;
+            track.addBalance(new AionAddress(address), BigInteger.valueOf(i + 1));
+        }
+
+        // a contract with code and storage
+        byte[] address = new byte[32];
+        address[0] = (byte) 0xa0;
+        address[1] = 1;
+        AionAddress contract = new AionAddress(address);
+        track.createAccount(contract);
+        track.saveCode(contract, new byte[] {1, 2, 3});
+        track.saveVmType(contract, InternalVmType.FVM);
+        track.addStorageRow(
+                contract,
+                new DataWord(HashUtil.blake128("key".getBytes())).toWrapper(),
+                new DataWord(HashUtil.blake128("value".getBytes())).toWrapper());
+
+        track.flushTo(repository, true);
+        repository.flush();
+        stateRoot = repository.getRoot();
+    }
+
+    @Test
+    public void testFindMissingValueInCompleteState() {
+        assertThat(FastSyncManager.findMissingValue(repository, stateRoot)).isNull();
+    }
+
+    @Test
+    public void testFindMissingValueInPartialState() {
+        AionRepositoryImpl partial = AionRepositoryImpl.createForTesting(repoConfig);
+
+        StateSyncTask missing = FastSyncManager.findMissingValue(partial, stateRoot);
+        assertThat(missing).isNotNull();
+        assertThat(missing.getType()).isEqualTo(DatabaseType.STATE);
+        assertThat(missing.getKey()).isEqualTo(stateRoot);
+
+        // the nodes referenced by the imported root are still missing
+        partial.importTrieNode(stateRoot, repository.getTrieNode(stateRoot, DatabaseType.STATE), DatabaseType.STATE);
+        missing = FastSyncManager.findMissingValue(partial, stateRoot);
+        assertThat(missing).isNotNull();
+        assertThat(missing.getKey()).isNotEqualTo(stateRoot);
+    }
+}
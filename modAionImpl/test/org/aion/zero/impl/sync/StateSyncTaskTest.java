@@ -0,0 +1,112 @@
+package org.aion.zero.impl.sync;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.aion.crypto.HashUtil.h256;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import org.aion.base.AccountState;
+import org.aion.db.impl.ByteArrayKeyValueDatabase;
+import org.aion.db.impl.mockdb.MockDB;
+import org.aion.util.types.ByteArrayWrapper;
+import org.aion.zero.impl.trie.SecureTrie;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Unit tests for {@link StateSyncTask}. */
+public class StateSyncTaskTest {
+
+    private static final Logger log = LoggerFactory.getLogger("SYNC");
+
+    private ByteArrayKeyValueDatabase database;
+    private byte[] stateRoot;
+    private byte[] contract;
+
+    @Before
+    public void setup() {
+        database = new MockDB("state", log);
+        database.open();
+
+        SecureTrie trie = new SecureTrie(database);
+        for (int i = 0; i < 32; i++) {
+            byte[] address = new byte[32];
+            address[0] = (byte) 0xa0;
+            address[31] = (byte) i;
+            trie.update(address, new AccountState(BigInteger.ONE, BigInteger.valueOf(i)).getEncoded());
+        }
+
+        // a single account with code
+        contract = new byte[32];
+        contract[0] = (byte) 0xa0;
+        contract[1] = 1;
+        AccountState account = new AccountState(BigInteger.ONE, BigInteger.TEN);
+        account.setCodeHash(h256(new byte[] {1, 2, 3}));
+        trie.update(contract, account.getEncoded());
+
+        trie.sync();
+        stateRoot = trie.getRootHash();
+    }
+
+    @Test
+    public void testTraversalFindsTheContractDetails() {
+        List<StateSyncTask> details = new ArrayList<>();
+        Deque<StateSyncTask> tasks = new ArrayDeque<>();
+        tasks.add(StateSyncTask.forStateRoot(stateRoot));
+        int nodes = 0;
+
+        while (!tasks.isEmpty()) {
+            StateSyncTask task = tasks.poll();
+            if (task.getType() == DatabaseType.DETAILS) {
+                details.add(task);
+                continue;
+            }
+
+            assertThat(task.getType()).isEqualTo(DatabaseType.STATE);
+            StateSyncTask.Result result = task.process(database.get(task.getKey()).get());
+            assertThat(result).isNotNull();
+            assertThat(result.getImportKey()).isEqualTo(task.getKey());
+            tasks.addAll(result.getChildren());
+            nodes++;
+        }
+
+        assertThat(nodes).isGreaterThan(1);
+        assertThat(details).hasSize(1);
+        assertThat(details.get(0).getKey()).isEqualTo(h256(contract));
+    }
+
+    @Test
+    public void testInvalidValuesAreRejected() {
+        StateSyncTask task = StateSyncTask.forStateRoot(stateRoot);
+        byte[] value = database.get(stateRoot).get();
+
+        byte[] modified = value.clone();
+        modified[modified.length - 1]++;
+
+        assertThat(task.process(modified)).isNull();
+        assertThat(task.process(new byte[0])).isNull();
+        assertThat(task.process(null)).isNull();
+        assertThat(task.process(value)).isNotNull();
+    }
+
+    @Test
+    public void testEncodingRoundTrip() {
+        StateSyncTask root = StateSyncTask.forStateRoot(stateRoot);
+        StateSyncTask child = root.process(database.get(stateRoot).get()).getChildren().get(0);
+
+        for (StateSyncTask task : List.of(root, child)) {
+            StateSyncTask decoded = StateSyncTask.decode(task.encode());
+
+            assertThat(decoded).isNotNull();
+            assertThat(decoded.getId()).isEqualTo(task.getId());
+            assertThat(decoded.getType()).isEqualTo(task.getType());
+            assertThat(ByteArrayWrapper.wrap(decoded.getKey())).isEqualTo(ByteArrayWrapper.wrap(task.getKey()));
+        }
+
+        assertThat(StateSyncTask.decode(new byte[] {1, 2, 3})).isNull();
+    }
+}
@@ -0,0 +1,101 @@
+package org.aion.zero.impl.sync.msg;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.aion.p2p.V1Constants.HASH_SIZE;
+import static org.aion.p2p.V1Constants.TX_HASHES_MAXIMUM_BATCH_SIZE;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.aion.p2p.Ver;
+import org.aion.rlp.RLP;
+import org.aion.zero.impl.sync.Act;
+import org.junit.Test;
+
+/** Unit tests for {@link AnnounceTxHashes} and {@link RequestTxs} messages. */
+public class AnnounceTxHashesTest {
+
+    private static byte[] hash(int value) {
+        byte[] hash = new byte[HASH_SIZE];
+        Arrays.fill(hash, (byte) value);
+        return hash;
+    }
+
+    private static List<byte[]> hashes(int count) {
+        List<byte[]> hashes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            hashes.add(hash(i));
+        }
+        return hashes;
+    }
+
+    @Test
+    public void testHeader() {
+        AnnounceTxHashes announcement = new AnnounceTxHashes(hashes(1));
+        assertThat(announcement.getHeader().getVer()).isEqualTo(Ver.V1);
+        assertThat(announcement.getHeader().getAction()).isEqualTo(Act.ANNOUNCE_TX_HASHES);
+
+        RequestTxs request = new RequestTxs(hashes(1));
+        assertThat(request.getHeader().getVer()).isEqualTo(Ver.V1);
+        assertThat(request.getHeader().getAction()).isEqualTo(Act.REQUEST_TXS);
+    }
+
+    @Test
+    public void testEncodeDecode() {
+        for (int count : new int[] {1, 2, TX_HASHES_MAXIMUM_BATCH_SIZE}) {
+            List<byte[]> hashes = hashes(count);
+            byte[] expected = RLP.encodeList(hashes.stream().map(RLP::encodeElement).toArray(byte[][]::new));
+
+            AnnounceTxHashes announcement = new AnnounceTxHashes(hashes);
+            assertThat(announcement.encode()).isEqualTo(expected);
+            assertThat(AnnounceTxHashes.decode(expected).getHashes().toArray()).isEqualTo(hashes.toArray());
+
+            RequestTxs request = new RequestTxs(hashes);
+            assertThat(request.encode()).isEqualTo(expected);
+            assertThat(RequestTxs.decode(expected).getHashes().toArray()).isEqualTo(hashes.toArray());
+        }
+    }
+
+    @Test
+    public void testDecode_invalidMessages() {
+        byte[][] invalid = {
+            null,
+            new byte[0],
+            RLP.encodeElement(hash(1)),
+            RLP.encodeList(),
+            RLP.encodeList(RLP.encodeElement(new byte[HASH_SIZE - 1])),
+            RLP.encodeList(RLP.encodeElement(hash(1)), RLP.encodeList(RLP.encodeElement(hash(2)))),
+            RLP.encodeList(hashes(TX_HASHES_MAXIMUM_BATCH_SIZE + 1).stream().map(RLP::encodeElement).toArray(byte[][]::new)),
+            // trailing data after the list
+            Arrays.copyOf(RLP.encodeList(RLP.encodeElement(hash(1))), 35),
+            // truncated list
+            Arrays.copyOf(RLP.encodeList(RLP.encodeElement(hash(1))), 20)
+        };
+
+        for (byte[] message : invalid) {
+            assertThat(AnnounceTxHashes.decode(message)).isNull();
+            assertThat(RequestTxs.decode(message)).isNull();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_empty() {
+        new AnnounceTxHashes(Collections.emptyList());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_tooManyHashes() {
+        new RequestTxs(hashes(TX_HASHES_MAXIMUM_BATCH_SIZE + 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_invalidHash() {
+        new AnnounceTxHashes(Collections.singletonList(new byte[HASH_SIZE + 1]));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testConstructor_nullHash() {
+        new RequestTxs(Collections.singletonList(null));
+    }
+}
@@ -0,0 +1,192 @@
+package org.aion.zero.impl.sync.msg;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.aion.p2p.V1Constants.HASH_SIZE;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.aion.base.AionTransaction;
+import org.aion.base.TransactionTypes;
+import org.aion.crypto.ECKey;
+import org.aion.p2p.Ver;
+import org.aion.rlp.RLP;
+import org.aion.types.AionAddress;
+import org.aion.util.bytes.ByteUtil;
+import org.aion.zero.impl.blockchain.StandaloneBlockchain;
+import org.aion.zero.impl.sync.Act;
+import org.aion.zero.impl.types.MiningBlock;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link CompactBlock}, {@link RequestBlockTxs}, {@link ResponseBlockTxs} and
+ * {@link SendCompactBlocks} messages.
+ */
+public class CompactBlockTest {
+
+    private static MiningBlock block;
+
+    @BeforeClass
+    public static void setup() {
+        StandaloneBlockchain.Bundle bundle =
+                new StandaloneBlockchain.Builder()
+                        .withValidatorConfiguration("simple")
+                        .withDefaultAccounts()
+                        .build();
+        ECKey key = bundle.privateKeys.get(0);
+        AionAddress receiver = new AionAddress(bundle.privateKeys.get(1).getAddress());
+
+        List<AionTransaction> transactions = new ArrayList<>();
+        for (int nonce = 0; nonce < 3; nonce++) {
+            transactions.add(
+                    AionTransaction.create(
+                            key,
+                            BigInteger.valueOf(nonce).toByteArray(),
+                            receiver,
+                            BigInteger.valueOf(100).toByteArray(),
+                            ByteUtil.EMPTY_BYTE_ARRAY,
+                            21000L,
+                            10_000_000_000L,
+                            TransactionTypes.DEFAULT,
+                            null));
+        }
+
+        block = bundle.bc.createNewMiningBlock(bundle.bc.getBestBlock(), transactions, true);
+        assertThat(block.getTransactionsList()).hasSize(3);
+    }
+
+    @Test
+    public void testHeader() {
+        assertThat(new CompactBlock(block).getHeader().getVer()).isEqualTo(Ver.V1);
+        assertThat(new CompactBlock(block).getHeader().getAction()).isEqualTo(Act.COMPACT_BLOCK);
+        assertThat(new RequestBlockTxs(block.getHash(), new int[] {0}).getHeader().getAction())
+                .isEqualTo(Act.REQUEST_BLOCK_TXS);
+        assertThat(new ResponseBlockTxs(block.getHash(), Collections.emptyList()).getHeader().getAction())
+                .isEqualTo(Act.RESPONSE_BLOCK_TXS);
+        assertThat(new SendCompactBlocks().getHeader().getAction()).isEqualTo(Act.SEND_COMPACT_BLOCKS);
+    }
+
+    @Test
+    public void testCompactBlock_encodeDecode() {
+        CompactBlock decoded = CompactBlock.decode(new CompactBlock(block).encode());
+
+        assertThat(decoded).isNotNull();
+        assertThat(decoded.getBlockHeader().getHash()).isEqualTo(block.getHash());
+        assertThat(decoded.getTransactionCount()).isEqualTo(3);
+        assertThat(decoded.encode()).isEqualTo(new CompactBlock(block).encode());
+    }
+
+    @Test
+    public void testCompactBlock_match() {
+        List<AionTransaction> transactions = block.getTransactionsList();
+        CompactBlock compact = CompactBlock.decode(new CompactBlock(block).encode());
+
+        // all found in any order
+        List<AionTransaction> shuffled = new ArrayList<>(transactions);
+        Collections.reverse(shuffled);
+        assertThat(compact.match(shuffled)).asList().containsExactlyElementsIn(transactions).inOrder();
+
+        // the missing transaction is reported as null
+        AionTransaction[] partial = compact.match(Arrays.asList(transactions.get(0), transactions.get(2)));
+        assertThat(partial).asList().containsExactly(transactions.get(0), null, transactions.get(2)).inOrder();
+
+        // a duplicate candidate makes its identifier ambiguous
+        AionTransaction[] duplicated = compact.match(Arrays.asList(transactions.get(0), transactions.get(0), transactions.get(1)));
+        assertThat(duplicated).asList().containsExactly(null, transactions.get(1), null).inOrder();
+    }
+
+    @Test
+    public void testCompactBlock_invalidMessages() {
+        byte[] header = block.getHeader().getEncoded();
+        byte[][] invalid = {
+            null,
+            new byte[0],
+            RLP.encodeElement(header),
+            RLP.encodeList(header),
+            RLP.encodeList(RLP.encodeElement(new byte[] {1, 2, 3}), RLP.encodeList()),
+            RLP.encodeList(header, RLP.encodeList(), RLP.encodeList()),
+            RLP.encodeList(header, RLP.encodeElement(new byte[] {1}))
+        };
+
+        for (byte[] message : invalid) {
+            assertThat(CompactBlock.decode(message)).isNull();
+        }
+    }
+
+    @Test
+    public void testRequestBlockTxs_encodeDecode() {
+        int[] indexes = {0, 2, 70_000};
+        RequestBlockTxs decoded = RequestBlockTxs.decode(new RequestBlockTxs(block.getHash(), indexes).encode());
+
+        assertThat(decoded).isNotNull();
+        assertThat(decoded.getBlockHash()).isEqualTo(block.getHash());
+        assertThat(decoded.getIndexes()).isEqualTo(indexes);
+    }
+
+    @Test
+    public void testRequestBlockTxs_invalidMessages() {
+        byte[][] invalid = {
+            null,
+            new byte[0],
+            RLP.encodeList(RLP.encodeElement(block.getHash())),
+            RLP.encodeList(RLP.encodeElement(block.getHash()), RLP.encodeList()),
+            RLP.encodeList(RLP.encodeElement(new byte[HASH_SIZE - 1]), RLP.encodeList(RLP.encodeInt(1))),
+            RLP.encodeList(RLP.encodeElement(block.getHash()), RLP.encodeList(RLP.encodeInt(1)), RLP.encodeList())
+        };
+
+        for (byte[] message : invalid) {
+            assertThat(RequestBlockTxs.decode(message)).isNull();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRequestBlockTxs_noIndexes() {
+        new RequestBlockTxs(block.getHash(), new int[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRequestBlockTxs_negativeIndex() {
+        new RequestBlockTxs(block.getHash(), new int[] {1, -1});
+    }
+
+    @Test
+    public void testResponseBlockTxs_encodeDecode() {
+        List<AionTransaction> transactions = block.getTransactionsList();
+        ResponseBlockTxs decoded = ResponseBlockTxs.decode(new ResponseBlockTxs(block.getHash(), transactions).encode());
+
+        assertThat(decoded).isNotNull();
+        assertThat(decoded.getBlockHash()).isEqualTo(block.getHash());
+        assertThat(decoded.getTransactions()).containsExactlyElementsIn(transactions).inOrder();
+    }
+
+    @Test
+    public void testResponseBlockTxs_invalidMessages() {
+        byte[][] invalid = {
+            null,
+            new byte[0],
+            RLP.encodeList(RLP.encodeElement(block.getHash())),
+            RLP.encodeList(RLP.encodeElement(block.getHash()), RLP.encodeList(RLP.encodeElement(new byte[] {1, 2, 3})))
+        };
+
+        for (byte[] message : invalid) {
+            assertThat(ResponseBlockTxs.decode(message)).isNull();
+        }
+    }
+
+    @Test
+    public void testSendCompactBlocks_encodeDecode() {
+        SendCompactBlocks decoded = SendCompactBlocks.decode(new SendCompactBlocks().encode());
+
+        assertThat(decoded).isNotNull();
+        assertThat(decoded.getVersion()).isEqualTo(SendCompactBlocks.VERSION);
+
+        // newer versions are accepted
+        assertThat(SendCompactBlocks.decode(RLP.encodeList(RLP.encodeInt(2))).getVersion()).isEqualTo(2);
+        assertThat(SendCompactBlocks.decode(RLP.encodeList(RLP.encodeInt(0)))).isNull();
+        assertThat(SendCompactBlocks.decode(RLP.encodeElement(new byte[] {1}))).isNull();
+        assertThat(SendCompactBlocks.decode(null)).isNull();
+    }
+}
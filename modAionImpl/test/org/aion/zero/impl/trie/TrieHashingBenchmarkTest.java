@@ -0,0 +1,82 @@
+package org.aion.zero.impl.trie;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.aion.db.impl.mockdb.MockDB;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Compares the state root computation with serial hashing and with deferred parallel hashing. */
+public class TrieHashingBenchmarkTest {
+
+    private final Logger log = LoggerFactory.getLogger("DB");
+    private final int accounts = 20_000;
+    private final int updatesPerBlock = 500;
+    private final int blocks = 50;
+
+    private List<byte[]> keys;
+    private List<byte[]> values;
+
+    @Before
+    public void setup() {
+        Random random = new Random(1);
+        keys = new ArrayList<>();
+        values = new ArrayList<>();
+        for (int i = 0; i < accounts; i++) {
+            byte[] key = new byte[32];
+            random.nextBytes(key);
+            keys.add(key);
+
+            byte[] value = new byte[80];
+            random.nextBytes(value);
+            values.add(value);
+        }
+    }
+
+    private long importBlocks(TrieImpl trie) {
+        // initial state
+        for (int i = 0; i < accounts; i++) {
+            trie.update(keys.get(i), values.get(i));
+        }
+        trie.sync();
+
+        Random random = new Random(2);
+        long start = System.nanoTime();
+        for (int block = 0; block < blocks; block++) {
+            for (int i = 0; i < updatesPerBlock; i++) {
+                byte[] value = new byte[80];
+                random.nextBytes(value);
+                trie.update(keys.get(random.nextInt(accounts)), value);
+            }
+            trie.getRootHash();
+            trie.sync();
+        }
+        return System.nanoTime() - start;
+    }
+
+    @Test
+    public void serialVsDeferredHashing() {
+        TrieImpl serial = new SecureTrie(new MockDB("serial", log));
+        ((MockDB) serial.getCache().getDb()).open();
+        long serialTime = importBlocks(serial);
+
+        TrieImpl deferred = new SecureTrie(new MockDB("deferred", log)).withDeferredHashing(true);
+        ((MockDB) deferred.getCache().getDb()).open();
+        long deferredTime = importBlocks(deferred);
+
+        assertThat(deferred.getRootHash()).isEqualTo(serial.getRootHash());
+
+        log.info(
+                "{} blocks with {} updates each: serial hashing {} ms, deferred parallel hashing {} ms",
+                blocks,
+                updatesPerBlock,
+                TimeUnit.NANOSECONDS.toMillis(serialTime),
+                TimeUnit.NANOSECONDS.toMillis(deferredTime));
+    }
+}
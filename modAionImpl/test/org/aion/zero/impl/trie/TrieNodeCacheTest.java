@@ -0,0 +1,166 @@
+package org.aion.zero.impl.trie;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.aion.db.impl.mockdb.MockDB;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class TrieNodeCacheTest {
+
+    private static final Logger log = LoggerFactory.getLogger("DB");
+
+    private MockDB mockDB;
+    private TrieNodeCache sharedCache;
+
+    @Before
+    public void setup() {
+        mockDB = new MockDB("temp", log);
+        mockDB.open();
+        sharedCache = new TrieNodeCache(1024 * 1024);
+    }
+
+    private byte[] buildTrie(int size) {
+        TrieImpl trie = new TrieImpl(new Cache(mockDB, sharedCache), "");
+        for (int i = 0; i < size; i++) {
+            trie.update(("key-" + i).getBytes(), ("value-0123456789abcdefghijklmnopqrstuvwxyz-" + i).getBytes());
+        }
+        trie.getCache().commitForTest();
+        return trie.getRootHash();
+    }
+
+    @Test
+    public void testCommittedNodesAreShared() {
+        byte[] root = buildTrie(100);
+        assertThat(sharedCache.getEntryCount()).isGreaterThan(0L);
+
+        // a new trie over the same database reads all the nodes from the shared cache
+        TrieImpl trie = new TrieImpl(new Cache(mockDB, sharedCache), root);
+        for (int i = 0; i < 100; i++) {
+            assertThat(trie.get(("key-" + i).getBytes())).isEqualTo(("value-0123456789abcdefghijklmnopqrstuvwxyz-" + i).getBytes());
+        }
+        assertThat(sharedCache.getHitCount()).isGreaterThan(0L);
+        assertThat(sharedCache.getMissCount()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testNodesSurviveSync() {
+        byte[] root = buildTrie(100);
+
+        TrieImpl trie = new TrieImpl(new Cache(mockDB, sharedCache), root);
+        trie.get("key-1".getBytes());
+        long hits = sharedCache.getHitCount();
+
+        // the local nodes are flushed on sync, but the shared nodes are kept
+        trie.sync();
+        trie.get("key-1".getBytes());
+        assertThat(sharedCache.getHitCount()).isGreaterThan(hits);
+        assertThat(sharedCache.getMissCount()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testIsValidRootSkipsSharedCache() {
+        byte[] root = buildTrie(10);
+
+        mockDB.deleteAndCommit(root);
+
+        TrieImpl trie = new TrieImpl(new Cache(mockDB, sharedCache), root);
+        assertThat(trie.isValidRoot(root)).isFalse();
+    }
+
+    @Test
+    public void testPrunedNodesAreInvalidated() {
+        byte[] root = buildTrie(10);
+        assertThat(sharedCache.getEntryCount()).isGreaterThan(0L);
+
+        // the nodes deleted by pruning bypass the tries
+        List<byte[]> pruned = new ArrayList<>();
+        mockDB.keys().forEachRemaining(pruned::add);
+        mockDB.deleteBatch(pruned);
+        mockDB.commit();
+        sharedCache.invalidate(pruned);
+
+        assertThat(sharedCache.getEntryCount()).isEqualTo(0L);
+        TrieImpl trie = new TrieImpl(new Cache(mockDB, sharedCache), root);
+        assertThat(trie.get("key-1".getBytes())).isEmpty();
+    }
+
+    @Test
+    public void testTriesWithoutCacheDoNotShareNodes() {
+        byte[] root = buildTrie(10);
+
+        TrieImpl trie = new TrieImpl(mockDB, root);
+        trie.get("key-1".getBytes());
+        assertThat(sharedCache.getHitCount()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testEvictionWhenFull() {
+        sharedCache = new TrieNodeCache(4 * 1024);
+        buildTrie(500);
+
+        assertThat(sharedCache.getEvictionCount()).isGreaterThan(0L);
+        assertThat(sharedCache.getEntryCount()).isLessThan(500L);
+
+        sharedCache.clear();
+        assertThat(sharedCache.getEntryCount()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testZeroSizeDisablesCaching() {
+        sharedCache = new TrieNodeCache(0);
+        buildTrie(100);
+        assertThat(sharedCache.getEntryCount()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testPrefetchReadsNodesInBatches() {
+        AtomicInteger gets = new AtomicInteger();
+        AtomicInteger batches = new AtomicInteger();
+        MockDB countingDB =
+                new MockDB("counting", log) {
+                    @Override
+                    public Optional<byte[]> get(byte[] key) {
+                        gets.incrementAndGet();
+                        return super.get(key);
+                    }
+
+                    @Override
+                    public List<byte[]> getBatch(Collection<byte[]> keys) {
+                        batches.incrementAndGet();
+                        return super.getBatch(keys);
+                    }
+                };
+        countingDB.open();
+        mockDB = countingDB;
+        byte[] root = buildTrie(500);
+
+        // the shared cache is disabled to count all the reads
+        TrieImpl trie = new TrieImpl(new Cache(mockDB, new TrieNodeCache(0)), root);
+        List<byte[]> keys = new ArrayList<>();
+        for (int i = 0; i < 500; i += 10) {
+            keys.add(("key-" + i).getBytes());
+        }
+        keys.add("missing-key".getBytes());
+        gets.set(0);
+        trie.prefetch(keys);
+
+        // one batch per trie level
+        assertThat(gets.get()).isEqualTo(0);
+        assertThat(batches.get()).isGreaterThan(0);
+        assertThat(batches.get()).isLessThan(10);
+
+        for (int i = 0; i < 500; i += 10) {
+            assertThat(trie.get(("key-" + i).getBytes())).isEqualTo(("value-0123456789abcdefghijklmnopqrstuvwxyz-" + i).getBytes());
+        }
+        assertThat(trie.get("missing-key".getBytes())).isEmpty();
+        assertThat(gets.get()).isEqualTo(0);
+    }
+}
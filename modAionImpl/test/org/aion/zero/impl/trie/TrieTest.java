@@ -1110,4 +1110,47 @@ public class TrieTest {
             }
         }
     }
+
+    @Test
+    public void testDeferredHashingMatchesSerialHashing() {
+        for (boolean pruning : new boolean[] {false, true}) {
+            Random random = new Random(42);
+            MockDB serialDB = new MockDB("serial", log);
+            serialDB.open();
+            MockDB deferredDB = new MockDB("deferred", log);
+            deferredDB.open();
+
+            TrieImpl serial = new SecureTrie(serialDB).withPruningEnabled(pruning);
+            TrieImpl deferred =
+                    new SecureTrie(deferredDB).withPruningEnabled(pruning).withDeferredHashing(true);
+            Map<ByteArrayWrapper, byte[]> expected = new HashMap<>();
+
+            for (int round = 0; round < 10; round++) {
+                for (int i = 0; i < 300; i++) {
+                    byte[] key = intToBytes(random.nextInt(1_000));
+                    if (random.nextInt(4) == 0) {
+                        serial.delete(key);
+                        deferred.delete(key);
+                        expected.remove(ByteArrayWrapper.wrap(key));
+                    } else {
+                        byte[] value = new byte[1 + random.nextInt(64)];
+                        random.nextBytes(value);
+                        serial.update(key, value);
+                        deferred.update(key, value);
+                        expected.put(ByteArrayWrapper.wrap(key), value);
+                    }
+                }
+                assertThat(deferred.getRootHash()).isEqualTo(serial.getRootHash());
+
+                serial.sync();
+                deferred.sync();
+
+                // all the values are readable from the database after the sync
+                TrieImpl reloaded = new SecureTrie(deferredDB, deferred.getRootHash());
+                for (Map.Entry<ByteArrayWrapper, byte[]> e : expected.entrySet()) {
+                    assertThat(reloaded.get(e.getKey().toBytes())).isEqualTo(e.getValue());
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,70 @@
+package org.aion.zero.impl.tx;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.aion.p2p.INode;
+import org.aion.p2p.IP2pMgr;
+import org.aion.p2p.Msg;
+import org.aion.zero.impl.sync.msg.AnnounceTxHashes;
+import org.aion.zero.impl.sync.msg.BroadcastTx;
+import org.junit.Test;
+
+/** Unit tests for {@link A0TxTask}. */
+public class A0TxTaskTest {
+
+    @Test
+    public void testAnnouncementsOnlyReplaceBodiesForAnnouncingPeers() {
+        Map<Integer, INode> activeNodes = new HashMap<>();
+        for (int peer = 1; peer <= 5; peer++) {
+            INode node = mock(INode.class);
+            when(node.getIdShort()).thenReturn("peer" + peer);
+            activeNodes.put(peer, node);
+        }
+
+        Map<Integer, List<Msg>> sent = new HashMap<>();
+        IP2pMgr p2p = mock(IP2pMgr.class);
+        when(p2p.getActiveNodes()).thenReturn(activeNodes);
+        doAnswer(
+                        invocation -> {
+                            sent.computeIfAbsent(invocation.getArgument(0), k -> new ArrayList<>())
+                                    .add(invocation.getArgument(2));
+                            return null;
+                        })
+                .when(p2p)
+                .send(anyInt(), anyString(), any());
+
+        Msg body = new BroadcastTx(Collections.emptyList());
+        Msg announcement = new AnnounceTxHashes(Collections.singletonList(new byte[32]));
+        Set<Integer> announcing = Set.of(1, 2, 3, 4);
+
+        new A0TxTask(Collections.emptyList(), p2p, body, Collections.singletonList(announcement), announcing::contains)
+                .call();
+
+        // the peer not known to handle announcements gets the body and an announcement
+        assertThat(sent.get(5)).containsExactly(body, announcement).inOrder();
+
+        // the square root of the announcing peers gets the body, the others the announcement
+        int bodies = 0;
+        for (int peer : announcing) {
+            assertThat(sent.get(peer)).hasSize(1);
+            if (sent.get(peer).get(0) == body) {
+                bodies++;
+            } else {
+                assertThat(sent.get(peer).get(0)).isSameAs(announcement);
+            }
+        }
+        assertThat(bodies).isEqualTo(2);
+    }
+}
@@ -0,0 +1,152 @@
+package org.aion.zero.impl.tx;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.aion.base.AionTransaction;
+import org.aion.p2p.INode;
+import org.aion.p2p.IP2pMgr;
+import org.aion.p2p.Msg;
+import org.aion.util.types.ByteArrayWrapper;
+import org.aion.zero.impl.pendingState.AionPendingStateImpl;
+import org.aion.zero.impl.sync.msg.RequestTxs;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.slf4j.Logger;
+
+/** Unit tests for {@link TxFetcher}. */
+public class TxFetcherTest {
+
+    private static final int peerA = 1;
+    private static final int peerB = 2;
+
+    private final byte[] hash1 = hash(1);
+    private final byte[] hash2 = hash(2);
+
+    private AionPendingStateImpl pendingState;
+    private IP2pMgr p2p;
+    private Map<Integer, INode> activeNodes;
+    private TxFetcher fetcher;
+
+    private static byte[] hash(int value) {
+        byte[] hash = new byte[32];
+        Arrays.fill(hash, (byte) value);
+        hash[0] = (byte) 0xfe;
+        return hash;
+    }
+
+    @Before
+    public void setup() {
+        pendingState = mock(AionPendingStateImpl.class);
+        p2p = mock(IP2pMgr.class);
+        activeNodes = new HashMap<>();
+        activeNodes.put(peerA, node("peerA"));
+        activeNodes.put(peerB, node("peerB"));
+        when(p2p.getActiveNodes()).thenReturn(activeNodes);
+        fetcher = new TxFetcher(mock(Logger.class), pendingState, p2p);
+    }
+
+    private static INode node(String displayId) {
+        INode node = mock(INode.class);
+        when(node.getIdShort()).thenReturn(displayId);
+        return node;
+    }
+
+    private List<byte[]> requestedFrom(int peerId, String displayId) {
+        ArgumentCaptor<Msg> captor = ArgumentCaptor.forClass(Msg.class);
+        verify(p2p, times(1)).send(eq(peerId), eq(displayId), captor.capture());
+        return ((RequestTxs) captor.getValue()).getHashes();
+    }
+
+    @Test
+    public void testRequestsAnnouncedTransactions() {
+        fetcher.onAnnouncement(peerA, "peerA", Arrays.asList(hash1, hash2));
+        fetcher.requestTransactions();
+
+        assertThat(requestedFrom(peerA, "peerA").toArray()).isEqualTo(new byte[][] {hash1, hash2});
+    }
+
+    @Test
+    public void testSkipsPooledTransactions() {
+        AionTransaction tx = mock(AionTransaction.class);
+        when(pendingState.getPendingTransaction(ByteArrayWrapper.wrap(hash1))).thenReturn(tx);
+
+        fetcher.onAnnouncement(peerA, "peerA", Arrays.asList(hash1, hash2));
+        fetcher.requestTransactions();
+
+        assertThat(requestedFrom(peerA, "peerA").toArray()).isEqualTo(new byte[][] {hash2});
+    }
+
+    @Test
+    public void testRequestsOnceFromTheFirstAnnouncer() {
+        fetcher.onAnnouncement(peerA, "peerA", Arrays.asList(hash1));
+        fetcher.onAnnouncement(peerB, "peerB", Arrays.asList(hash1, hash2));
+        fetcher.requestTransactions();
+
+        assertThat(requestedFrom(peerA, "peerA").toArray()).isEqualTo(new byte[][] {hash1});
+        assertThat(requestedFrom(peerB, "peerB").toArray()).isEqualTo(new byte[][] {hash2});
+    }
+
+    @Test
+    public void testSkipsReceivedTransactions() {
+        AionTransaction tx = mock(AionTransaction.class);
+        when(tx.getTransactionHash()).thenReturn(hash1);
+
+        fetcher.onAnnouncement(peerA, "peerA", Arrays.asList(hash1));
+        fetcher.onTransactions(Arrays.asList(tx));
+        fetcher.onAnnouncement(peerB, "peerB", Arrays.asList(hash1));
+        fetcher.requestTransactions();
+
+        verify(p2p, never()).send(anyInt(), anyString(), any());
+        assertThat(fetcher.getTransaction(ByteArrayWrapper.wrap(hash1))).isEqualTo(tx);
+    }
+
+    @Test
+    public void testMovesHashesOfDisconnectedPeers() {
+        fetcher.onAnnouncement(peerA, "peerA", Arrays.asList(hash1));
+        fetcher.onAnnouncement(peerB, "peerB", Arrays.asList(hash1));
+        activeNodes.remove(peerA);
+        fetcher.requestTransactions();
+
+        assertThat(requestedFrom(peerB, "peerB").toArray()).isEqualTo(new byte[][] {hash1});
+        verify(p2p, never()).send(eq(peerA), anyString(), any());
+    }
+
+    @Test
+    public void testLimitsTheRequestRate() {
+        fetcher.onAnnouncement(peerA, "peerA", Arrays.asList(hash1));
+        fetcher.requestTransactions();
+        fetcher.onAnnouncement(peerA, "peerA", Arrays.asList(hash2));
+        fetcher.requestTransactions();
+
+        // the second hash waits for the next request interval
+        assertThat(requestedFrom(peerA, "peerA").toArray()).isEqualTo(new byte[][] {hash1});
+    }
+
+    @Test
+    public void testRecordsAnnouncingPeers() {
+        assertThat(fetcher.isAnnouncingPeer(peerA)).isFalse();
+
+        fetcher.onAnnouncement(peerA, "peerA", Arrays.asList(hash1));
+        assertThat(fetcher.isAnnouncingPeer(peerA)).isTrue();
+        assertThat(fetcher.isAnnouncingPeer(peerB)).isFalse();
+
+        // forgotten on disconnect
+        activeNodes.remove(peerA);
+        fetcher.requestTransactions();
+        assertThat(fetcher.isAnnouncingPeer(peerA)).isFalse();
+    }
+}
@@ -0,0 +1,219 @@
+package org.aion.zero.impl.vm;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.aion.avm.stub.IContractFactory.AvmContract;
+import org.aion.base.AionTransaction;
+import org.aion.base.AionTxExecSummary;
+import org.aion.base.TransactionTypeRule;
+import org.aion.base.TransactionTypes;
+import org.aion.base.db.RepositoryCache;
+import org.aion.crypto.ECKey;
+import org.aion.types.AionAddress;
+import org.aion.zero.impl.blockchain.StandaloneBlockchain;
+import org.aion.zero.impl.core.ImportResult;
+import org.aion.zero.impl.types.AionBlockSummary;
+import org.aion.zero.impl.types.Block;
+import org.aion.zero.impl.types.MiningBlock;
+import org.aion.zero.impl.vm.avm.AvmLocalCallPool;
+import org.aion.zero.impl.vm.avm.AvmProvider;
+import org.aion.zero.impl.vm.avm.AvmTransactionExecutor;
+import org.aion.zero.impl.vm.common.BlockCachingContext;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class AvmLocalCallPoolTest {
+    private static TestResourceProvider resourceProvider;
+    private StandaloneBlockchain blockchain;
+    private ECKey deployerKey;
+    private AionAddress contract;
+    private long energyPrice = 10_000_000_000L;
+
+    @BeforeClass
+    public static void setupAvm() throws Exception {
+        resourceProvider = TestResourceProvider.initializeAndCreateNewProvider(AvmPathManager.getPathOfProjectRootDirectory());
+        AvmTestConfig.supportOnlyAvmVersion1();
+    }
+
+    @AfterClass
+    public static void tearDownAvm() throws Exception {
+        TransactionTypeRule.disallowAVMContractTransaction();
+        AvmTestConfig.clearConfigurations();
+        resourceProvider.close();
+    }
+
+    @Before
+    public void setup() {
+        StandaloneBlockchain.Bundle bundle =
+                new StandaloneBlockchain.Builder()
+                        .withDefaultAccounts()
+                        .withValidatorConfiguration("simple")
+                        .withAvmEnabled()
+                        .build();
+        this.blockchain = bundle.bc;
+        this.deployerKey = bundle.privateKeys.get(0);
+
+        TransactionTypeRule.allowAVMContractTransaction();
+        byte[] jar = resourceProvider.factoryForVersion1.newContractFactory().getDeploymentBytes(AvmContract.HELLO_WORLD);
+        AionTransaction transaction =
+                AionTransaction.create(
+                        deployerKey,
+                        new byte[0],
+                        null,
+                        new byte[0],
+                        jar,
+                        5_000_000,
+                        energyPrice,
+                        TransactionTypes.AVM_CREATE_CODE, null);
+
+        MiningBlock block =
+                this.blockchain.createNewMiningBlock(
+                        this.blockchain.getBestBlock(),
+                        Collections.singletonList(transaction),
+                        false);
+        Pair<ImportResult, AionBlockSummary> connectResult =
+                this.blockchain.tryToConnectAndFetchSummary(block);
+        assertThat(connectResult.getLeft()).isEqualTo(ImportResult.IMPORTED_BEST);
+        assertThat(connectResult.getRight().getReceipts().get(0).isSuccessful()).isTrue();
+
+        this.contract = new AionAddress(connectResult.getRight().getReceipts().get(0).getTransactionOutput());
+    }
+
+    @After
+    public void tearDown() {
+        AvmLocalCallPool.shutdown();
+        if (AvmProvider.holdsLock()) {
+            AvmProvider.releaseLock();
+        }
+        this.blockchain = null;
+        this.deployerKey = null;
+    }
+
+    @Test
+    public void testLocalCallDoesNotTakeTheProviderLock() throws Exception {
+        AvmLocalCallPool.configure(2, 60_000);
+
+        // Another thread holds the provider's lock, so the call only completes if it runs on the pool.
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch unlock = new CountDownLatch(1);
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        AionTxExecSummary pooled;
+        try {
+            Future<?> holder = threads.submit(() -> {
+                if (!AvmProvider.tryAcquireLock(1, TimeUnit.MINUTES)) {
+                    throw new IllegalStateException("Failed to acquire the avm provider lock!");
+                }
+                try {
+                    locked.countDown();
+                    unlock.await();
+                } finally {
+                    AvmProvider.releaseLock();
+                }
+                return null;
+            });
+            assertThat(locked.await(1, TimeUnit.MINUTES)).isTrue();
+
+            pooled = threads.submit(() -> executeLocalCall(newCall(BigInteger.ONE))).get(1, TimeUnit.MINUTES);
+
+            unlock.countDown();
+            holder.get(1, TimeUnit.MINUTES);
+        } finally {
+            unlock.countDown();
+            threads.shutdownNow();
+        }
+
+        AvmLocalCallPool.shutdown();
+        AionTxExecSummary provided = executeLocalCall(newCall(BigInteger.ONE));
+
+        assertThat(pooled.getReceipt().isSuccessful()).isTrue();
+        assertThat(pooled.getResult()).isEqualTo(provided.getResult());
+        assertThat(pooled.getReceipt().getEnergyUsed()).isEqualTo(provided.getReceipt().getEnergyUsed());
+    }
+
+    @Test
+    public void testConcurrentLocalCalls() throws Exception {
+        AvmLocalCallPool.configure(2, 60_000);
+        AionTxExecSummary expected = executeLocalCall(newCall(BigInteger.ONE));
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<AionTxExecSummary>> summaries = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                summaries.add(callers.submit(() -> executeLocalCall(newCall(BigInteger.ONE))));
+            }
+
+            for (Future<AionTxExecSummary> summary : summaries) {
+                AionTxExecSummary actual = summary.get(1, TimeUnit.MINUTES);
+                assertThat(actual.getReceipt().isSuccessful()).isTrue();
+                assertThat(actual.getResult()).isEqualTo(expected.getResult());
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testLocalCallTimeout() throws Exception {
+        // Loading a new avm instance takes much longer than the timeout.
+        AvmLocalCallPool.configure(1, 1);
+
+        AionTxExecSummary summary = executeLocalCall(newCall(BigInteger.ONE));
+
+        assertThat(summary.isRejected()).isTrue();
+        assertThat(summary.getReceipt().getError()).isEqualTo("Rejected: local call timed out");
+    }
+
+    private AionTransaction newCall(BigInteger nonce) {
+        byte[] call = resourceProvider.factoryForVersion1.newStreamingEncoder().encodeOneString("sayHello").getEncoding();
+        return AionTransaction.create(
+                deployerKey,
+                nonce.toByteArray(),
+                contract,
+                new byte[0],
+                call,
+                2_000_000,
+                energyPrice,
+                TransactionTypes.DEFAULT, null);
+    }
+
+    private AionTxExecSummary executeLocalCall(AionTransaction transaction) throws Exception {
+        Block block = blockchain.getBestBlock();
+        RepositoryCache repository = blockchain.getRepository().getSnapshotTo(block.getStateRoot()).startTracking();
+
+        try {
+            return AvmTransactionExecutor.executeTransactions(
+                            repository,
+                            block.getDifficultyBI(),
+                            block.getNumber(),
+                            block.getTimestamp(),
+                            block.getNrgLimit(),
+                            block.getCoinbase(),
+                            new AionTransaction[] {transaction},
+                            null,
+                            false,
+                            true,
+                            true,
+                            block.getNrgLimit(),
+                            BlockCachingContext.CALL.avmType,
+                            0,
+                            false,
+                            false)
+                    .get(0);
+        } finally {
+            repository.rollback();
+        }
+    }
+}
@@ -29,6 +29,7 @@ public abstract class RpcServer {
     protected char[] sslCertPass;
 
     protected boolean stuckThreadDetectorEnabled;
+    protected boolean metricsEnabled;
 
     private AccountManager accountManager;
     private ChainHolder chainHolder;
@@ -92,6 +93,7 @@ public abstract class RpcServer {
         ioPoolSize = builder.ioPoolSize;
         requestQueueSize = builder.requestQueueSize;
         stuckThreadDetectorEnabled = builder.stuckThreadDetectorEnabled;
+        metricsEnabled = builder.metricsEnabled;
     }
 
     // want to explicitly force user of this class to check for null values here.
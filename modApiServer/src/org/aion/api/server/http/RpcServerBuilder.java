@@ -33,6 +33,7 @@ public abstract class RpcServerBuilder<T extends RpcServerBuilder<T>> {
     Integer ioPoolSize = null;
     Integer requestQueueSize = null;
     boolean stuckThreadDetectorEnabled = false;
+    boolean metricsEnabled = false;
 
     AccountManager accountManager = null;
 
@@ -104,6 +105,11 @@ public abstract class RpcServerBuilder<T extends RpcServerBuilder<T>> {
         return self();
     }
 
+    public T setMetricsEnabled(boolean x) {
+        this.metricsEnabled = x;
+        return self();
+    }
+
     public T setAccountManager(AccountManager am) {
         this.accountManager = am;
         return self();
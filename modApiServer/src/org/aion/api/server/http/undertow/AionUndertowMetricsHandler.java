@@ -0,0 +1,47 @@
+package org.aion.api.server.http.undertow;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.util.Methods;
+import io.undertow.util.StatusCodes;
+import org.aion.util.metrics.MetricsRegistry;
+
+/**
+ * Serves the metrics of the kernel in the Prometheus text exposition format on {@code GET
+ * /metrics} and passes all the other requests to the next handler.
+ */
+class AionUndertowMetricsHandler implements HttpHandler {
+    private static final String PATH = "/metrics";
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final HttpHandler next;
+
+    AionUndertowMetricsHandler(HttpHandler next) {
+        this.next = next;
+    }
+
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+        if (!PATH.equals(exchange.getRequestPath())) {
+            next.handleRequest(exchange);
+            return;
+        }
+
+        if (!Methods.GET.equals(exchange.getRequestMethod())) {
+            exchange.setStatusCode(StatusCodes.METHOD_NOT_ALLOWED);
+            exchange.setPersistent(false);
+            exchange.endExchange();
+            return;
+        }
+
+        // the gauges are sampled while scraping, which must not happen on the io thread
+        if (exchange.isInIoThread()) {
+            exchange.dispatch(this);
+            return;
+        }
+
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, CONTENT_TYPE);
+        exchange.getResponseSender().send(MetricsRegistry.getDefault().scrape());
+    }
+}
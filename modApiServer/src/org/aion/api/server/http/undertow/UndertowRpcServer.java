@@ -1,6 +1,7 @@
 package org.aion.api.server.http.undertow;
 
 import io.undertow.Undertow;
+import io.undertow.server.HttpHandler;
 import io.undertow.util.HttpString;
 import java.io.FileInputStream;
 import java.security.KeyStore;
@@ -143,8 +144,13 @@ public class UndertowRpcServer extends RpcServer {
             AionUndertowRpcHandler rpcHandler =
                     new AionUndertowRpcHandler(corsEnabled, CORS_HEADERS, rpcProcessor);
 
-            undertowBuilder.setHandler(
-                    new AionUndertowRootHandler(rpcHandler, requestLimiting, stuckThreadDetector));
+            HttpHandler rootHandler =
+                    new AionUndertowRootHandler(rpcHandler, requestLimiting, stuckThreadDetector);
+            if (metricsEnabled) {
+                // the metrics are scraped outside of the request limiting of the rpc calls
+                rootHandler = new AionUndertowMetricsHandler(rootHandler);
+            }
+            undertowBuilder.setHandler(rootHandler);
 
             server = undertowBuilder.build();
             server.start();
@@ -171,6 +177,7 @@ public class UndertowRpcServer extends RpcServer {
             LOG.debug(
                     "Request Queue Size: {}",
                     isQueueBounded ? getRequestQueueSize().get() : "Unbounded");
+            LOG.debug("Metrics: {}", metricsEnabled ? "Enabled; Path = /metrics" : "Not Enabled");
             LOG.debug("----------------------------------------");
 
         } catch (Exception e) {
@@ -2,6 +2,7 @@ package org.aion.api.server.rpc;
 
 import static java.util.stream.Collectors.toList;
 import static org.aion.api.server.types.FltrLg.BLOCKS_QUERY_MAX;
+import static org.aion.api.server.types.FltrLg.INDEXED_BLOCKS_QUERY_MAX;
 import static org.aion.util.bytes.ByteUtil.EMPTY_BYTE_ARRAY;
 import static org.aion.util.conversions.Hex.toHexString;
 import static org.aion.util.types.HexConvert.hexStringToBytes;
@@ -17,6 +18,7 @@ import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -64,6 +66,7 @@ import org.aion.util.types.DataWord;
 import org.aion.zero.impl.Version;
 import org.aion.zero.impl.blockchain.AionBlockchainImpl;
 import org.aion.zero.impl.blockchain.AionImpl;
+import org.aion.zero.impl.blockchain.IAionBlockchain;
 import org.aion.zero.impl.blockchain.IAionChain;
 import org.aion.zero.impl.config.CfgAion;
 import org.aion.zero.impl.config.CfgApi;
@@ -78,6 +81,7 @@ import org.aion.zero.impl.config.CfgSsl;
 import org.aion.zero.impl.config.CfgSync;
 import org.aion.zero.impl.config.CfgTx;
 import org.aion.zero.impl.core.ImportResult;
+import org.aion.zero.impl.db.BloomBitsIndex;
 import org.aion.zero.impl.keystore.Keystore;
 import org.aion.zero.impl.sync.NodeWrapper;
 import org.aion.zero.impl.types.AionBlockSummary;
@@ -1169,13 +1173,24 @@ public class ApiWeb3Aion extends ApiAion {
             return filter;
         }
 
-        if (bnTo >= (bnFrom + BLOCKS_QUERY_MAX)) {
+        // the blocks covered by the bloom bits index are read only when they may match the filter
+        BloomBitsIndex bloomBitsIndex = getBloomBitsIndex();
+        long indexedBlocks = bloomBitsIndex == null ? 0L : bloomBitsIndex.getIndexedBlocks();
+
+        if (bnTo >= (Math.max(bnFrom, indexedBlocks) + BLOCKS_QUERY_MAX)) {
             String errLog = "jsonrpc - eth_newFilter(): can't query more than " + BLOCKS_QUERY_MAX + " blocks";
             LOG.debug(errLog);
             filter.setFilterError(errLog);
             return filter;
         }
 
+        if (bnTo >= (bnFrom + INDEXED_BLOCKS_QUERY_MAX)) {
+            String errLog = "jsonrpc - eth_newFilter(): can't query more than " + INDEXED_BLOCKS_QUERY_MAX + " indexed blocks";
+            LOG.debug(errLog);
+            filter.setFilterError(errLog);
+            return filter;
+        }
+
         Block fromBlock = this.getBlockByBN(bnFrom);
         Block toBlock = this.getBlockByBN(bnTo);
 
@@ -1191,19 +1206,47 @@ public class ApiWeb3Aion extends ApiAion {
             // installation.
 
             toBlock = toBlock == null ? getBestBlock() : toBlock;
-            for (long i = fromBlock.getNumber(); i <= toBlock.getNumber(); i++) {
-                if (filter.isFull()) {
-                    break;
+            long i = fromBlock.getNumber();
+            while (i <= toBlock.getNumber() && !filter.isFull()) {
+                BitSet candidates = null;
+                long section = 0L;
+                if (i < indexedBlocks) {
+                    section = i / bloomBitsIndex.getSectionSize();
+                    candidates = bloomBitsIndex.getCandidates(section, filter.getFilterBlooms());
+                }
+
+                if (candidates == null) {
+                    // the index does not cover the block, or was rolled back
+                    indexedBlocks = 0L;
+                    filter.onBlock(
+                            this.ac.getBlockchain().getBlockByNumber(i),
+                            this.ac.getAionHub().getBlockchain());
+                    i++;
+                } else {
+                    long sectionStart = section * bloomBitsIndex.getSectionSize();
+                    long sectionEnd = Math.min(sectionStart + bloomBitsIndex.getSectionSize() - 1, toBlock.getNumber());
+                    for (int offset = candidates.nextSetBit((int) (i - sectionStart));
+                            offset >= 0 && sectionStart + offset <= sectionEnd && !filter.isFull();
+                            offset = candidates.nextSetBit(offset + 1)) {
+                        filter.onBlock(
+                                this.ac.getBlockchain().getBlockByNumber(sectionStart + offset),
+                                this.ac.getAionHub().getBlockchain());
+                    }
+                    i = sectionEnd + 1;
                 }
-                filter.onBlock(
-                        this.ac.getBlockchain().getBlockByNumber(i),
-                        this.ac.getAionHub().getBlockchain());
             }
         }
 
         return filter;
     }
 
+    private BloomBitsIndex getBloomBitsIndex() {
+        IAionBlockchain chain = this.ac.getAionHub().getBlockchain();
+        return chain instanceof AionBlockchainImpl
+                ? ((AionBlockchainImpl) chain).getRepository().getBloomBitsIndex()
+                : null;
+    }
+
     public RpcMsg eth_newFilter(Object _params) {
         if (!isFilterEnabled) {
             return new RpcMsg(null, RpcError.NOT_ALLOWED, "Filters over rpc disabled.");
@@ -21,6 +21,8 @@ import org.aion.base.AionTxReceipt;
 public final class FltrLg extends Fltr {
 
     public static int BLOCKS_QUERY_MAX = 1000;
+    // applies to the blocks covered by the bloom bits index, which are not all read
+    public static int INDEXED_BLOCKS_QUERY_MAX = 1_000_000;
 
     private List<byte[][]> topics = new ArrayList<>(); //  [[addr1, addr2], null, [A, B], [C]]
     private byte[][] contractAddresses = new byte[0][];
@@ -141,6 +143,15 @@ public final class FltrLg extends Fltr {
         }
     }
 
+    /**
+     * Returns the blooms matched by this filter, such that a log bloom matches the filter when it
+     * contains at least one bloom of each element.
+     */
+    public Bloom[][] getFilterBlooms() {
+        initBlooms();
+        return filterBlooms;
+    }
+
     public boolean matchBloom(Bloom blockBloom) {
         initBlooms();
         for (Bloom[] andBloom : filterBlooms) {
@@ -26,6 +26,8 @@ public class AionTxReceipt {
 
     private Bloom bloomFilter = new Bloom();
     private List<Log> logInfoList = new ArrayList<>();
+    // the logs of a decoded receipt are decoded when first requested
+    private SharedRLPList encodedLogs;
 
     private byte[] executionResult = EMPTY_BYTE_ARRAY;
     private String error = "";
@@ -60,13 +62,7 @@ public class AionTxReceipt {
             error = errBytes != null ? new String(errBytes, StandardCharsets.UTF_8) : "";
         }
 
-        SharedRLPList logs = (SharedRLPList) receipt.get(2);
-        for (RLPElement log : logs) {
-            Log logInfo = LogUtility.decodeLog((SharedRLPList)log);
-            if (logInfo != null) {
-                logInfoList.add(logInfo);
-            }
-        }
+        encodedLogs = (SharedRLPList) receipt.get(2);
 
         rlpEncoded = rlp;
     }
@@ -86,13 +82,7 @@ public class AionTxReceipt {
             error = errBytes != null ? new String(errBytes, StandardCharsets.UTF_8) : "";
         }
 
-        SharedRLPList logs = (SharedRLPList) rlpReceipt.get(2);
-        for (RLPElement log : logs) {
-            Log logInfo = LogUtility.decodeLog((SharedRLPList)log);
-            if (logInfo != null) {
-                logInfoList.add(logInfo);
-            }
-        }
+        encodedLogs = (SharedRLPList) rlpReceipt.get(2);
 
         rlpEncoded = SharedRLPList.getRLPDataCopy(rlpReceipt);
     }
@@ -115,7 +105,18 @@ public class AionTxReceipt {
         return bloomFilter;
     }
 
-    public List<Log> getLogInfoList() {
+    public synchronized List<Log> getLogInfoList() {
+        if (encodedLogs != null) {
+            List<Log> decoded = new ArrayList<>();
+            for (RLPElement log : encodedLogs) {
+                Log logInfo = LogUtility.decodeLog((SharedRLPList) log);
+                if (logInfo != null) {
+                    decoded.add(logInfo);
+                }
+            }
+            logInfoList = decoded;
+            encodedLogs = null;
+        }
         return logInfoList;
     }
 
@@ -148,11 +149,12 @@ public class AionTxReceipt {
         this.error = error;
     }
 
-    public void setLogs(List<Log> logInfoList) {
+    public synchronized void setLogs(List<Log> logInfoList) {
         if (logInfoList == null) {
             return;
         }
         this.logInfoList = logInfoList;
+        this.encodedLogs = null;
 
         for (Log loginfo : logInfoList) {
             bloomFilter.or(LogUtility.createBloomFilterForLog(loginfo));
@@ -218,6 +220,7 @@ public class AionTxReceipt {
         byte[] bloomRLP = RLP.encodeElement(this.bloomFilter.data);
 
         final byte[] logInfoListRLP;
+        List<Log> logInfoList = getLogInfoList();
         if (logInfoList != null) {
             byte[][] logInfoListE = new byte[logInfoList.size()][];
 
@@ -259,7 +262,7 @@ public class AionTxReceipt {
                 + "\n  , bloom="
                 + bloomFilter.toString()
                 + "\n  , logs="
-                + logInfoList
+                + getLogInfoList()
                 + "\n  , nrgUsed="
                 + this.energyUsed
                 + ']';
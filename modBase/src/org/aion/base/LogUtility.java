@@ -14,9 +14,18 @@ import org.aion.types.Log;
 public class LogUtility {
 
     public static Bloom createBloomFilterForLog(Log log) {
-        Bloom ret = Bloom.create(HashUtil.h256(log.copyOfAddress()));
-        for (byte[] topic : log.copyOfTopics()) {
-            ret.or(Bloom.create(HashUtil.h256(topic)));
+        List<byte[]> topics = log.copyOfTopics();
+        byte[][] inputs = new byte[topics.size() + 1][];
+        inputs[0] = log.copyOfAddress();
+        for (int i = 0; i < topics.size(); i++) {
+            inputs[i + 1] = topics.get(i);
+        }
+
+        // the address and the topics are hashed with a single native call
+        byte[][] hashes = HashUtil.h256Many(inputs);
+        Bloom ret = Bloom.create(hashes[0]);
+        for (int i = 1; i < hashes.length; i++) {
+            ret.or(Bloom.create(hashes[i]));
         }
         return ret;
     }
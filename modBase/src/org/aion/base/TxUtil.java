@@ -11,6 +11,8 @@ import org.aion.fastvm.FvmConstants;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.aion.rlp.RLP;
+import org.aion.rlp.RLPCursor;
+import org.aion.rlp.RLPWriter;
 import org.aion.rlp.RLPList;
 import org.aion.rlp.SharedRLPList;
 import org.aion.types.AionAddress;
@@ -125,7 +127,86 @@ public final class TxUtil {
      * @return Aion Transaction represented by the given RLP encoding
      */
     public static AionTransaction decodeUsingRlpSharedList(byte[] rlpEncoding) {
-        return decodeUsingRlpSharedList((SharedRLPList) RLP.decode2SharedList(rlpEncoding).get(0));
+        return decodeUsingRlpCursor(new RLPCursor(rlpEncoding).nextList());
+    }
+
+    /**
+     * Decode the transaction read by the given cursor, which must be positioned over the items of
+     * the transaction list, i.e. obtained from {@link RLPCursor#nextList()}. The fields are decoded
+     * directly from the encoding without building the intermediate {@link SharedRLPList}.
+     *
+     * @see #decodeUsingRlpSharedList(byte[]) for the expected list elements
+     * @param tx cursor over the RLP list of an Aion transaction
+     * @return Aion Transaction represented by the given RLP encoding
+     */
+    public static AionTransaction decodeUsingRlpCursor(RLPCursor tx) {
+        Objects.requireNonNull(tx);
+
+        try {
+            // the fields are read in their order in the encoding
+            byte[] nonce = tx.nextBytes();
+
+            byte[] rlpTo = tx.nextBytes();
+            AionAddress destination = rlpTo.length == 0 ? null : new AionAddress(rlpTo);
+
+            byte[] value = tx.nextBytes();
+            byte[] data = tx.nextBytes();
+            byte[] timeStamp = tx.nextBytes();
+            long energyLimit = tx.nextLong();
+            long energyPrice = tx.nextLong();
+            byte type = tx.nextByte();
+
+            // Singature Factory will decode the signature based on the algo
+            // presetted in main() entry.
+            ISignature signature = SignatureFac.fromBytes(tx.nextBytes());
+            if (signature == null) {
+                LOG.error("tx -> unable to decode signature");
+                return null;
+            }
+            AionAddress sender = new AionAddress(signature.getAddress());
+
+            final byte[] beaconHash;
+            if (tx.hasNext()) {
+                // there are extensions
+                // today -- the only one that exists is beacon hash extension
+                byte extensions = tx.nextBytes()[0];
+                if (extensions != BEACON_HASH_EXTENSION) {
+                    throw new IllegalArgumentException("TxUtil#decode: unknown extension value: " +
+                        Byte.toString(extensions));
+                }
+
+                // the beacon hash should be present -- check that it really does
+                if (!tx.hasNext()) {
+                    throw new IllegalArgumentException("TxUtil#decode: malformed encoding: " +
+                        "BEACON_HASH_EXTENSION was specified, but no beacon hash was provided");
+                }
+                beaconHash = tx.nextBytes();
+                if (tx.hasNext()) {
+                    throw new IllegalArgumentException("TxUtil#decode: malformed encoding: " +
+                        "unexpected elements after the beacon hash");
+                }
+            } else {
+                // the beacon hash is absent
+                beaconHash = null;
+            }
+
+            return AionTransaction.createFromRlp(
+                nonce,
+                sender,
+                destination,
+                value,
+                data,
+                energyLimit,
+                energyPrice,
+                type,
+                timeStamp,
+                signature,
+                tx.encoding(),
+                beaconHash);
+        } catch (Exception e) {
+            LOG.error("tx -> unable to decode rlpEncoding", e);
+            return null;
+        }
     }
 
     public static AionTransaction decodeUsingRlpSharedList(SharedRLPList tx) {
@@ -209,6 +290,12 @@ public final class TxUtil {
         }
     }
 
+    /**
+     * Reused by the encodings of the transactions to avoid allocating the intermediate encodings of
+     * each field.
+     */
+    private static final ThreadLocal<RLPWriter> RLP_WRITER = ThreadLocal.withInitial(RLPWriter::new);
+
     /** For signatures you have to keep also RLP of the transaction without any signature data */
     static byte[] rlpEncodeWithoutSignature(
             byte[] nonce,
@@ -220,47 +307,7 @@ public final class TxUtil {
             long energyPrice,
             byte type,
             byte[] beaconHash) {
-        // see https://aionnetwork.atlassian.net/wiki/spaces/TE/pages/292389035/Transaction+RLP+Encoding
-        // for decoding/encoding rules
-
-        byte[] nonceEncoded = RLP.encodeElement(nonce);
-        byte[] destinationEncoded = RLP.encodeElement(destination == null ? null : destination.toByteArray());
-        byte[] valueEncoded = RLP.encodeElement(value);
-        byte[] dataEncoded = RLP.encodeElement(data);
-        byte[] timeStampEncoded = RLP.encodeElement(timeStamp);
-        byte[] energyLimitEncoded = RLP.encodeLong(energyLimit);
-        byte[] energyPriceEncoded = RLP.encodeLong(energyPrice);
-        byte[] typeEncoded = RLP.encodeByte(type);
-
-        if(beaconHash == null) {
-            return RLP.encodeList(
-                    nonceEncoded,
-                    destinationEncoded,
-                    valueEncoded,
-                    dataEncoded,
-                    timeStampEncoded,
-                    energyLimitEncoded,
-                    energyPriceEncoded,
-                    typeEncoded);
-        } else {
-            // may use different extensions in the future, but
-            // today, the only extension is beacon hash, which
-            // is represented by 0x01.
-            byte[] extensionsEncoded = RLP.encodeByte(BEACON_HASH_EXTENSION);
-
-            byte[] beaconHashEncoded = RLP.encodeElement(beaconHash);
-            return RLP.encodeList(
-                    nonceEncoded,
-                    destinationEncoded,
-                    valueEncoded,
-                    dataEncoded,
-                    timeStampEncoded,
-                    energyLimitEncoded,
-                    energyPriceEncoded,
-                    typeEncoded,
-                    extensionsEncoded,
-                    beaconHashEncoded);
-        }
+        return encode(nonce, destination, value, data, timeStamp, energyLimit, energyPrice, type, null, beaconHash);
     }
 
     /**
@@ -280,48 +327,51 @@ public final class TxUtil {
             byte type,
             ISignature signature,
             byte[] beaconHash) {
+        Objects.requireNonNull(signature);
+        return encode(nonce, destination, value, data, timeStamp, energyLimit, energyPrice, type, signature, beaconHash);
+    }
+
+    /** Writes the fields in order, omitting the signature when it is null. */
+    private static byte[] encode(
+            byte[] nonce,
+            AionAddress destination,
+            byte[] value,
+            byte[] data,
+            byte[] timeStamp,
+            long energyLimit,
+            long energyPrice,
+            byte type,
+            ISignature signature,
+            byte[] beaconHash) {
         // see https://aionnetwork.atlassian.net/wiki/spaces/TE/pages/292389035/Transaction+RLP+Encoding
         // for decoding/encoding rules
 
-        byte[] nonceEncoded = RLP.encodeElement(nonce);
-        byte[] destinationEncoded = RLP.encodeElement(destination == null ? null : destination.toByteArray());
-        byte[] valueEncoded = RLP.encodeElement(value);
-        byte[] dataEncoded = RLP.encodeElement(data);
-        byte[] timeStampEncoded = RLP.encodeElement(timeStamp);
-        byte[] energyLimitEncoded = RLP.encodeLong(energyLimit);
-        byte[] energyPriceEncoded = RLP.encodeLong(energyPrice);
-        byte[] typeEncoded = RLP.encodeByte(type);
-        byte[] signatureEncoded = RLP.encodeElement(signature.toBytes());
-
-        if(beaconHash == null) {
-            return RLP.encodeList(
-                    nonceEncoded,
-                    destinationEncoded,
-                    valueEncoded,
-                    dataEncoded,
-                    timeStampEncoded,
-                    energyLimitEncoded,
-                    energyPriceEncoded,
-                    typeEncoded,
-                    signatureEncoded);
-        } else {
-            // may use different extensions in the future, but
-            // today, the only extension is beacon hash, which
-            // is represented by 0x01.
-            byte[] extensionsEncoded = RLP.encodeByte(BEACON_HASH_EXTENSION);
-            byte[] beaconHashEncoded = RLP.encodeElement(beaconHash);
-            return RLP.encodeList(
-                    nonceEncoded,
-                    destinationEncoded,
-                    valueEncoded,
-                    dataEncoded,
-                    timeStampEncoded,
-                    energyLimitEncoded,
-                    energyPriceEncoded,
-                    typeEncoded,
-                    signatureEncoded,
-                    extensionsEncoded,
-                    beaconHashEncoded);
+        RLPWriter writer = RLP_WRITER.get();
+        try {
+            writer.startList()
+                    .writeElement(nonce)
+                    .writeElement(destination == null ? null : destination.toByteArray())
+                    .writeElement(value)
+                    .writeElement(data)
+                    .writeElement(timeStamp)
+                    .writeLong(energyLimit)
+                    .writeLong(energyPrice)
+                    .writeByte(type);
+
+            if (signature != null) {
+                writer.writeElement(signature.toBytes());
+            }
+
+            if (beaconHash != null) {
+                // may use different extensions in the future, but
+                // today, the only extension is beacon hash, which
+                // is represented by 0x01.
+                writer.writeByte(BEACON_HASH_EXTENSION).writeElement(beaconHash);
+            }
+
+            return writer.endList().toByteArray();
+        } finally {
+            writer.reset();
         }
     }
 }
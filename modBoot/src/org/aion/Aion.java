@@ -277,6 +277,7 @@ public class Aion {
                         rpcBuilder.setRequestQueueSize(rpcCfg.getRequestQueueSize());
                         rpcBuilder.setStuckThreadDetectorEnabled(
                                 rpcCfg.isStuckThreadDetectorEnabled());
+                        rpcBuilder.setMetricsEnabled(rpcCfg.isMetricsEnabled());
                         rpcBuilder.setAccountManager(finalAm);
 
                         if (rpcCfg.isCorsEnabled()) {
@@ -56,6 +56,62 @@ JNIEXPORT jbyteArray JNICALL Java_org_aion_crypto_hash_Blake2bNative_blake256
     return ret;
 }
 
+/*
+ * Class:     org_aion_crypto_hash_Blake2bNative
+ * Method:    blake256Range
+ * Signature: ([BII[BI)V
+ *
+ * The bounds are checked by the Java caller. The input is hashed in place, there are no other JNI
+ * calls while the critical region is held.
+ */
+JNIEXPORT void JNICALL Java_org_aion_crypto_hash_Blake2bNative_blake256Range
+  (JNIEnv *env, jclass cls, jbyteArray in, jint offset, jint length, jbyteArray out, jint outOffset)
+{
+    uint8_t hash[HASH_LEN];
+
+    jbyte* inBuf = (*env)->GetPrimitiveArrayCritical(env, in, NULL);
+    if (inBuf == NULL) {
+        return; // OutOfMemoryError already thrown
+    }
+    blake2b(hash, inBuf + offset, NULL, HASH_LEN, length, 0);
+    (*env)->ReleasePrimitiveArrayCritical(env, in, inBuf, JNI_ABORT);
+
+    (*env)->SetByteArrayRegion(env, out, outOffset, HASH_LEN, (jbyte*) hash);
+}
+
+/*
+ * Class:     org_aion_crypto_hash_Blake2bNative
+ * Method:    blake256Batch
+ * Signature: ([[B[B)V
+ *
+ * Writes the hash of the i-th input at the offset i * HASH_LEN of the output, which is sized by the
+ * Java caller.
+ */
+JNIEXPORT void JNICALL Java_org_aion_crypto_hash_Blake2bNative_blake256Batch
+  (JNIEnv *env, jclass cls, jobjectArray in, jbyteArray out)
+{
+    uint8_t hash[HASH_LEN];
+    jsize count = (*env)->GetArrayLength(env, in);
+
+    jsize i;
+    for (i = 0; i < count; i++) {
+        jbyteArray element = (jbyteArray) (*env)->GetObjectArrayElement(env, in, i);
+        jsize length = (*env)->GetArrayLength(env, element);
+
+        jbyte* inBuf = (*env)->GetPrimitiveArrayCritical(env, element, NULL);
+        if (inBuf == NULL) {
+            return; // OutOfMemoryError already thrown
+        }
+        blake2b(hash, inBuf, NULL, HASH_LEN, length, 0);
+        (*env)->ReleasePrimitiveArrayCritical(env, element, inBuf, JNI_ABORT);
+
+        (*env)->SetByteArrayRegion(env, out, i * HASH_LEN, HASH_LEN, (jbyte*) hash);
+
+        // release the reference to avoid exhausting the local references for large batches
+        (*env)->DeleteLocalRef(env, element);
+    }
+}
+
 /*
  * Class:     org_aion_crypto_hash_Blake2bNative
  * Method:    genSolutionHash
@@ -15,6 +15,22 @@ extern "C" {
 JNIEXPORT jbyteArray JNICALL Java_org_aion_crypto_hash_Blake2bNative_blake256
   (JNIEnv *, jclass, jbyteArray);
 
+/*
+ * Class:     org_aion_crypto_hash_Blake2bNative
+ * Method:    blake256Range
+ * Signature: ([BII[BI)V
+ */
+JNIEXPORT void JNICALL Java_org_aion_crypto_hash_Blake2bNative_blake256Range
+  (JNIEnv *, jclass, jbyteArray, jint, jint, jbyteArray, jint);
+
+/*
+ * Class:     org_aion_crypto_hash_Blake2bNative
+ * Method:    blake256Batch
+ * Signature: ([[B[B)V
+ */
+JNIEXPORT void JNICALL Java_org_aion_crypto_hash_Blake2bNative_blake256Batch
+  (JNIEnv *, jclass, jobjectArray, jbyteArray);
+
 /*
  * Class:     org_aion_crypto_hash_Blake2bNative
  * Method:    genSolutionHash
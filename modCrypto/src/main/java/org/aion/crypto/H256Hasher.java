@@ -0,0 +1,132 @@
+package org.aion.crypto;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import org.aion.crypto.HashUtil.H256Context;
+import org.aion.crypto.HashUtil.H256Type;
+import org.aion.crypto.hash.Blake2bNative;
+import org.aion.crypto.hash.Blake2bSodium;
+import org.spongycastle.crypto.digests.KeccakDigest;
+
+/**
+ * Computes the 256-bit hash of an input given in several parts, with the result identical to
+ * {@link HashUtil#h256(H256Context, byte[])} for the concatenation of the parts. Created with
+ * {@link HashUtil#newHasher(H256Context)}.
+ *
+ * <p>The blake2b implementations only hash complete inputs, so the parts are collected in a buffer
+ * kept between hashes and hashed with a single native call when finishing, while keccak is
+ * computed incrementally. The hasher is reset after each {@link #finish()} and can be reused.
+ *
+ * <p>Instances are not thread safe.
+ */
+public final class H256Hasher {
+
+    public static final int HASH_LENGTH = 32;
+
+    private static final int INITIAL_CAPACITY = 256;
+    // larger buffers are released on reset to avoid retaining the memory of rare large inputs
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private final H256Context context;
+
+    private final KeccakDigest keccak;
+    private byte[] buffer;
+    private int size;
+
+    H256Hasher(H256Type type, H256Context context) {
+        this.context = Objects.requireNonNull(context);
+        if (Objects.requireNonNull(type) == H256Type.KECCAK_256) {
+            this.keccak = new KeccakDigest(256);
+            this.buffer = null;
+        } else {
+            this.keccak = null;
+            this.buffer = new byte[INITIAL_CAPACITY];
+        }
+    }
+
+    public H256Hasher update(byte[] input) {
+        return update(input, 0, input.length);
+    }
+
+    public H256Hasher update(byte[] input, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, input.length);
+        if (keccak != null) {
+            keccak.update(input, offset, length);
+        } else {
+            ensureCapacity(length);
+            System.arraycopy(input, offset, buffer, size, length);
+            size += length;
+        }
+        return this;
+    }
+
+    /** Adds the remaining bytes of the buffer, moving its position to its limit. */
+    public H256Hasher update(ByteBuffer input) {
+        int length = input.remaining();
+        if (input.hasArray()) {
+            update(input.array(), input.arrayOffset() + input.position(), length);
+            input.position(input.limit());
+        } else if (keccak != null) {
+            byte[] chunk = new byte[Math.min(length, INITIAL_CAPACITY)];
+            while (input.hasRemaining()) {
+                int count = Math.min(chunk.length, input.remaining());
+                input.get(chunk, 0, count);
+                keccak.update(chunk, 0, count);
+            }
+        } else {
+            ensureCapacity(length);
+            input.get(buffer, size, length);
+            size += length;
+        }
+        return this;
+    }
+
+    /**
+     * Writes the hash of the added parts into the given array starting at the given offset and
+     * resets the hasher.
+     */
+    public void finish(byte[] out, int offset) {
+        Objects.checkFromIndexSize(offset, HASH_LENGTH, out.length);
+        try {
+            if (keccak != null) {
+                keccak.doFinal(out, offset);
+            } else if (context == H256Context.BEFORE_SIGNATURE_SWAP) {
+                Blake2bNative.blake256(buffer, 0, size, out, offset);
+            } else if (offset == 0 && out.length == HASH_LENGTH) {
+                Blake2bSodium.blake256(buffer, size, out);
+            } else {
+                byte[] hash = new byte[HASH_LENGTH];
+                Blake2bSodium.blake256(buffer, size, hash);
+                System.arraycopy(hash, 0, out, offset, HASH_LENGTH);
+            }
+        } finally {
+            reset();
+        }
+    }
+
+    /** Returns the hash of the added parts and resets the hasher. */
+    public byte[] finish() {
+        byte[] hash = new byte[HASH_LENGTH];
+        finish(hash, 0);
+        return hash;
+    }
+
+    /** Discards the added parts. */
+    public void reset() {
+        if (keccak != null) {
+            keccak.reset();
+        } else {
+            size = 0;
+            if (buffer.length > MAX_RETAINED_CAPACITY) {
+                buffer = new byte[INITIAL_CAPACITY];
+            }
+        }
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+        }
+    }
+}
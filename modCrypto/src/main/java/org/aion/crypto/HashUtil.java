@@ -6,6 +6,7 @@ import static org.aion.util.bytes.ByteUtil.EMPTY_BYTE_ARRAY;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.Objects;
 import org.aion.crypto.hash.Blake2b;
 import org.aion.crypto.hash.Blake2bNative;
 import org.aion.crypto.hash.Blake2bSodium;
@@ -17,7 +18,9 @@ import org.spongycastle.util.encoders.Hex;
  * A collection of utility functions for computing hashes.
  *
  * <p>It's recommended to use {@link #h256(byte[])}, {@link #h256(byte[], byte[])} and {@link
- * #h256(byte[], int, int)} whenever possible, instead of using the specific hash algorithms
+ * #h256(byte[], int, int)} whenever possible, instead of using the specific hash algorithms. Inputs
+ * built from several parts can be hashed with a {@link H256Hasher} and many small inputs with
+ * {@link #h256Many(byte[][])}.
  *
  * @author jin, cleaned by yulong
  */
@@ -34,9 +37,31 @@ public class HashUtil {
 
     protected static H256Type type = BLAKE2B_256;
 
-    public static final byte[] EMPTY_DATA_HASH = h256(EMPTY_BYTE_ARRAY);
+    /**
+     * Selects the blake2b implementation used by {@link #h256(byte[])}, which changed with the
+     * signature swap fork (AKI-716). The context is given per call or set for the current thread
+     * with {@link #setThreadContext(H256Context)}, which allows threads importing blocks from both
+     * sides of the fork to hash in parallel.
+     */
+    public enum H256Context {
+        BEFORE_SIGNATURE_SWAP,
+        AFTER_SIGNATURE_SWAP;
+
+        public static H256Context forSignatureSwap(boolean signatureSwapForkEnabled) {
+            return signatureSwapForkEnabled ? AFTER_SIGNATURE_SWAP : BEFORE_SIGNATURE_SWAP;
+        }
+    }
+
+    // used by the threads without a context of their own
+    private static volatile H256Context defaultContext = H256Context.BEFORE_SIGNATURE_SWAP;
+
+    private static final ThreadLocal<H256Context> threadContext = new ThreadLocal<>();
 
-    private static boolean beforeSignatureSwap = true;
+    // reused by the methods hashing several inputs as one with the native implementation
+    private static final ThreadLocal<H256Hasher> nativeHasher =
+            ThreadLocal.withInitial(() -> new H256Hasher(BLAKE2B_256, H256Context.BEFORE_SIGNATURE_SWAP));
+
+    public static final byte[] EMPTY_DATA_HASH = h256(EMPTY_BYTE_ARRAY);
 
     /**
      * Sets the 256-bit hash type.
@@ -48,13 +73,36 @@ public class HashUtil {
     }
 
     // AKI-716
+    /** Sets the context used by the threads that have not set their own context. */
     public static void setAfterSignatureSwap() {
-        beforeSignatureSwap = false;
+        defaultContext = H256Context.AFTER_SIGNATURE_SWAP;
     }
+
+    /** Sets the context used by the threads that have not set their own context. */
     public static void setBeforeSignatureSwap() {
-        beforeSignatureSwap = true;
+        defaultContext = H256Context.BEFORE_SIGNATURE_SWAP;
     }
 
+    /**
+     * Sets the context used by {@link #h256(byte[])} on the current thread, or clears it when
+     * given {@code null}, and returns the previous context of the thread, which may be {@code
+     * null}, to be restored once done.
+     */
+    public static H256Context setThreadContext(H256Context context) {
+        H256Context previous = threadContext.get();
+        if (context == null) {
+            threadContext.remove();
+        } else {
+            threadContext.set(context);
+        }
+        return previous;
+    }
+
+    /** Returns the context of the current thread, falling back to the default context. */
+    public static H256Context getContext() {
+        H256Context context = threadContext.get();
+        return context == null ? defaultContext : context;
+    }
 
     /**
      * Computes the 256-bit hash of the given input.
@@ -63,6 +111,11 @@ public class HashUtil {
      * @return
      */
     public static byte[] h256(byte[] in) {
+        return h256(getContext(), in);
+    }
+
+    /** Computes the 256-bit hash of the given input using the implementation of the context. */
+    public static byte[] h256(H256Context context, byte[] in) {
 
         if (in == null) {
             return null;
@@ -70,7 +123,7 @@ public class HashUtil {
 
         switch (type) {
             case BLAKE2B_256:
-                return beforeSignatureSwap ? blake256Native(in) : Blake2bSodium.blake256(in);
+                return context == H256Context.BEFORE_SIGNATURE_SWAP ? blake256Native(in) : Blake2bSodium.blake256(in);
             case KECCAK_256:
                 return keccak256(in);
             default:
@@ -87,7 +140,10 @@ public class HashUtil {
 
         switch (type) {
             case BLAKE2B_256:
-                return blake256Native(in1, in2);
+                // hashes a copy of the inputs in a reused buffer
+                H256Hasher hasher = nativeHasher.get();
+                hasher.reset();
+                return hasher.update(in1).update(in2).finish();
             case KECCAK_256:
                 return keccak256(in1, in2);
             default:
@@ -105,19 +161,72 @@ public class HashUtil {
      */
     public static byte[] h256(byte[] in, int start, int len) {
 
-        if (in == null || start < 0 || len <= 0) return null;
+        if (in == null || start < 0 || len <= 0 || len > in.length - start) return null;
 
-        byte[] buf = Arrays.copyOfRange(in, start, start + len);
+        // the slice is hashed in place
         switch (type) {
             case BLAKE2B_256:
-                return blake256(buf);
+                Blake2b blake = Blake2b.Digest.newInstance(32);
+                blake.update(in, start, len);
+                return blake.digest();
             case KECCAK_256:
-                return keccak256(buf);
+                KeccakDigest keccak = new KeccakDigest(256);
+                keccak.update(in, start, len);
+                byte[] hash = new byte[32];
+                keccak.doFinal(hash, 0);
+                return hash;
             default:
                 throw new RuntimeException("h256 hash type is not set!");
         }
     }
 
+    /**
+     * Computes the 256-bit hashes of the given inputs, using the context of the current thread.
+     *
+     * @see #h256Many(H256Context, byte[][])
+     */
+    public static byte[][] h256Many(byte[]... inputs) {
+        return h256Many(getContext(), inputs);
+    }
+
+    /**
+     * Computes the 256-bit hashes of the given inputs, which must not be null, with the results
+     * identical to calling {@link #h256(H256Context, byte[])} for each input. The native blake2b
+     * implementation hashes all the inputs in a single native call.
+     */
+    public static byte[][] h256Many(H256Context context, byte[]... inputs) {
+        byte[][] hashes = new byte[inputs.length][];
+
+        if (type == BLAKE2B_256 && context == H256Context.BEFORE_SIGNATURE_SWAP) {
+            byte[] out = new byte[inputs.length * Blake2bNative.HASH_LENGTH];
+            Blake2bNative.blake256(inputs, out);
+            for (int i = 0; i < inputs.length; i++) {
+                hashes[i] = Arrays.copyOfRange(out, i * Blake2bNative.HASH_LENGTH, (i + 1) * Blake2bNative.HASH_LENGTH);
+            }
+        } else {
+            for (int i = 0; i < inputs.length; i++) {
+                hashes[i] = h256(context, Objects.requireNonNull(inputs[i]));
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * Creates a hasher computing the 256-bit hash of inputs given in parts, using the context of
+     * the current thread.
+     */
+    public static H256Hasher newHasher() {
+        return newHasher(getContext());
+    }
+
+    /**
+     * Creates a hasher computing the 256-bit hash of inputs given in parts, with results identical
+     * to calling {@link #h256(H256Context, byte[])} for the concatenation of the parts.
+     */
+    public static H256Hasher newHasher(H256Context context) {
+        return new H256Hasher(type, Objects.requireNonNull(context));
+    }
+
     /**
      * Computes the SHA-256, a member of the SHA-2 cryptographic hash functions, of the given input.
      *
@@ -1,5 +1,7 @@
 package org.aion.crypto;
 
+import java.util.List;
+import java.util.stream.IntStream;
 import org.aion.crypto.ecdsa.ECDSASignature;
 import org.aion.crypto.ecdsa.ECKeySecp256k1;
 import org.aion.crypto.ed25519.ECKeyEd25519;
@@ -12,6 +14,9 @@ import org.aion.crypto.ed25519.Ed25519Signature;
  */
 public class SignatureFac {
 
+    // batches smaller than this are verified on the calling thread
+    private static final int PARALLEL_BATCH_THRESHOLD = 8;
+
     /**
      * @param bytes
      * @return
@@ -56,4 +61,30 @@ public class SignatureFac {
                 throw new RuntimeException("ECKey type is not set!");
         }
     }
+
+    /**
+     * Verifies a batch of signatures. The result for each signature is the same as the result of
+     * {@link #verify(byte[], ISignature)}.
+     *
+     * @implNote The signatures are verified concurrently, each with the single signature check of
+     *     the native library. A randomized multi-scalar check over the whole batch is not used since
+     *     it would not be equivalent to the single signature check for points with a small order
+     *     component, which would make the validity of a block depend on how it was verified.
+     * @param msgs the signed messages
+     * @param sigs the signatures, in the order of the messages
+     * @return the validity of each signature, in the order of the messages
+     */
+    public static boolean[] verifyBatch(List<byte[]> msgs, List<ISignature> sigs) {
+        if (msgs.size() != sigs.size()) {
+            throw new IllegalArgumentException("The number of messages and signatures differ!");
+        }
+
+        boolean[] valid = new boolean[msgs.size()];
+        IntStream indices = IntStream.range(0, valid.length);
+        if (valid.length >= PARALLEL_BATCH_THRESHOLD) {
+            indices = indices.parallel();
+        }
+        indices.forEach(i -> valid[i] = verify(msgs.get(i), sigs.get(i)));
+        return valid;
+    }
 }
@@ -1,9 +1,17 @@
 package org.aion.crypto.hash;
 
+import java.util.Objects;
+
 public class Blake2bNative {
 
+    public static final int HASH_LENGTH = 32;
+
     public static native byte[] blake256(byte[] in);
 
+    private static native void blake256Range(byte[] in, int offset, int length, byte[] out, int outOffset);
+
+    private static native void blake256Batch(byte[][] in, byte[] out);
+
     /*
     Generate hashes to validate an Equihash solution
      */
@@ -18,6 +26,28 @@ public class Blake2bNative {
         return blake256(arr);
     }
 
+    /**
+     * Hashes {@code length} bytes of the input starting at {@code offset} without copying them and
+     * writes the 32 byte hash into the output starting at {@code outOffset}.
+     */
+    public static void blake256(byte[] in, int offset, int length, byte[] out, int outOffset) {
+        Objects.checkFromIndexSize(offset, length, in.length);
+        Objects.checkFromIndexSize(outOffset, HASH_LENGTH, out.length);
+        blake256Range(in, offset, length, out, outOffset);
+    }
+
+    /**
+     * Hashes each of the inputs with a single native call and writes the hash of the i-th input
+     * into the output starting at {@code i * 32}.
+     */
+    public static void blake256(byte[][] in, byte[] out) {
+        for (byte[] input : in) {
+            Objects.requireNonNull(input);
+        }
+        Objects.checkFromIndexSize(0, in.length * HASH_LENGTH, out.length);
+        blake256Batch(in, out);
+    }
+
     public static byte[][] getSolutionHash(
             byte[] personalization, byte[] nonce, int[] indices, byte[] header) {
         return genSolutionHash(personalization, nonce, indices, header);
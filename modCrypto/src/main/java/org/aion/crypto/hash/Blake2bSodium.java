@@ -6,6 +6,7 @@ import org.libsodium.jni.Sodium;
 
 public class Blake2bSodium {
     final static int blake2bOutputLength = 32;
+    private static final byte[] EMPTY_KEY = new byte[0];
     static {
         NativeLoader.loadLibrary("sodium");
         NaCl.sodium();
@@ -13,7 +14,21 @@ public class Blake2bSodium {
 
     public static byte[] blake256(byte[] message) {
         byte[] buffer = new byte[blake2bOutputLength];
-        Sodium.crypto_generichash_blake2b(buffer, blake2bOutputLength, message, message.length, new byte[0], 0);
+        Sodium.crypto_generichash_blake2b(buffer, blake2bOutputLength, message, message.length, EMPTY_KEY, 0);
         return buffer;
     }
+
+    /**
+     * Hashes the first {@code length} bytes of the message into the given array, which must have
+     * exactly 32 bytes.
+     */
+    public static void blake256(byte[] message, int length, byte[] out) {
+        if (length < 0 || length > message.length) {
+            throw new IndexOutOfBoundsException("Invalid length " + length + " for message of length " + message.length);
+        }
+        if (out.length != blake2bOutputLength) {
+            throw new IllegalArgumentException("The output must have " + blake2bOutputLength + " bytes.");
+        }
+        Sodium.crypto_generichash_blake2b(out, blake2bOutputLength, message, length, EMPTY_KEY, 0);
+    }
 }
@@ -0,0 +1,130 @@
+package org.aion.crypto;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import org.aion.crypto.HashUtil.H256Context;
+import org.junit.Test;
+
+public class H256HasherTest {
+
+    private static final Random random = new Random(7);
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    @Test
+    public void testHasherMatchesConcatenation() {
+        for (H256Context context : H256Context.values()) {
+            H256Hasher hasher = HashUtil.newHasher(context);
+            for (int length : new int[] {0, 1, 31, 32, 255, 256, 1000, 70_000}) {
+                byte[] input = randomBytes(length);
+                int split = length / 3;
+
+                hasher.update(Arrays.copyOfRange(input, 0, split));
+                hasher.update(input, split, length - split);
+
+                assertArrayEquals(HashUtil.h256(context, input), hasher.finish());
+            }
+        }
+    }
+
+    @Test
+    public void testHasherWithByteBuffers() {
+        byte[] input = randomBytes(500);
+        ByteBuffer direct = ByteBuffer.allocateDirect(300);
+        direct.put(input, 200, 300).flip();
+
+        for (H256Context context : H256Context.values()) {
+            H256Hasher hasher = HashUtil.newHasher(context);
+            ByteBuffer heap = ByteBuffer.wrap(input, 0, 200);
+
+            hasher.update(heap).update(direct.duplicate());
+
+            assertEquals(0, heap.remaining());
+            assertArrayEquals(HashUtil.h256(context, input), hasher.finish());
+        }
+    }
+
+    @Test
+    public void testFinishIntoArray() {
+        byte[] input = randomBytes(100);
+        byte[] out = new byte[H256Hasher.HASH_LENGTH + 10];
+
+        for (H256Context context : H256Context.values()) {
+            HashUtil.newHasher(context).update(input).finish(out, 5);
+
+            assertArrayEquals(
+                    HashUtil.h256(context, input),
+                    Arrays.copyOfRange(out, 5, 5 + H256Hasher.HASH_LENGTH));
+        }
+    }
+
+    @Test
+    public void testResetDiscardsInput() {
+        H256Hasher hasher = HashUtil.newHasher(H256Context.BEFORE_SIGNATURE_SWAP);
+        hasher.update(randomBytes(100));
+        hasher.reset();
+
+        assertArrayEquals(
+                HashUtil.h256(H256Context.BEFORE_SIGNATURE_SWAP, new byte[0]), hasher.finish());
+    }
+
+    @Test
+    public void testH256Many() {
+        byte[][] inputs = {new byte[0], randomBytes(20), randomBytes(32), randomBytes(1000)};
+
+        for (H256Context context : H256Context.values()) {
+            byte[][] hashes = HashUtil.h256Many(context, inputs);
+
+            assertEquals(inputs.length, hashes.length);
+            for (int i = 0; i < inputs.length; i++) {
+                assertArrayEquals(HashUtil.h256(context, inputs[i]), hashes[i]);
+            }
+        }
+        assertEquals(0, HashUtil.h256Many().length);
+    }
+
+    @Test
+    public void testH256Slice() {
+        byte[] input = randomBytes(100);
+
+        assertArrayEquals(
+                HashUtil.h256(Arrays.copyOfRange(input, 10, 60)), HashUtil.h256(input, 10, 50));
+        assertNull(HashUtil.h256(input, 90, 20));
+    }
+
+    @Test
+    public void testH256Pair() {
+        byte[] first = randomBytes(40);
+        byte[] second = randomBytes(70);
+        byte[] both = new byte[110];
+        System.arraycopy(first, 0, both, 0, 40);
+        System.arraycopy(second, 0, both, 40, 70);
+
+        assertArrayEquals(HashUtil.h256(both), HashUtil.h256(first, second));
+    }
+
+    @Test
+    public void testThreadContext() {
+        H256Context initial = HashUtil.getContext();
+        H256Context previous = HashUtil.setThreadContext(H256Context.AFTER_SIGNATURE_SWAP);
+        try {
+            assertEquals(H256Context.AFTER_SIGNATURE_SWAP, HashUtil.getContext());
+
+            byte[] input = randomBytes(50);
+            assertArrayEquals(
+                    HashUtil.h256(H256Context.AFTER_SIGNATURE_SWAP, input), HashUtil.h256(input));
+        } finally {
+            HashUtil.setThreadContext(previous);
+        }
+        assertEquals(initial, HashUtil.getContext());
+    }
+}
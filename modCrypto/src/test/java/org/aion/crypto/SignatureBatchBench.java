@@ -0,0 +1,48 @@
+package org.aion.crypto;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class SignatureBatchBench {
+
+    @Test
+    public void bench() {
+        ECKeyFac.setType(ECKeyFac.ECKeyType.ED25519);
+
+        final int COUNT = 2000;
+        List<byte[]> msgs = new ArrayList<>();
+        List<ISignature> sigs = new ArrayList<>();
+        for (int i = 0; i < COUNT; i++) {
+            ECKey key = ECKeyFac.inst().create();
+            byte[] msg = HashUtil.h256(("test" + i).getBytes());
+            msgs.add(msg);
+            sigs.add(key.sign(msg));
+        }
+
+        // warm up
+        for (int i = 0; i < COUNT; i++) {
+            SignatureFac.verify(msgs.get(i), sigs.get(i));
+        }
+        SignatureFac.verifyBatch(msgs, sigs);
+
+        // single signatures
+        long ts = System.nanoTime();
+        for (int i = 0; i < COUNT; i++) {
+            SignatureFac.verify(msgs.get(i), sigs.get(i));
+        }
+        long te = System.nanoTime();
+        System.out.println(" Ed25519 verify:       " + (te - ts) / COUNT + " ns / signature");
+
+        // batches the size of a block range
+        for (int batchSize : new int[] {16, 256, COUNT}) {
+            ts = System.nanoTime();
+            for (int from = 0; from < COUNT; from += batchSize) {
+                int to = Math.min(from + batchSize, COUNT);
+                SignatureFac.verifyBatch(msgs.subList(from, to), sigs.subList(from, to));
+            }
+            te = System.nanoTime();
+            System.out.println(" Ed25519 verifyBatch(" + batchSize + "): " + (te - ts) / COUNT + " ns / signature");
+        }
+    }
+}
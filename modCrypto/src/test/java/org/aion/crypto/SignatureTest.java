@@ -1,7 +1,10 @@
 package org.aion.crypto;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.AfterClass;
 import org.junit.Test;
 
@@ -36,6 +39,28 @@ public class SignatureTest {
         assertTrue(SignatureFac.verify(msgHash, SignatureFac.fromBytes(sig.toBytes())));
     }
 
+    @Test
+    public void testED25519VerifyBatch() {
+        ECKeyFac.setType(ECKeyFac.ECKeyType.ED25519);
+
+        List<byte[]> msgs = new ArrayList<>();
+        List<ISignature> sigs = new ArrayList<>();
+        boolean[] expected = new boolean[20];
+        for (int i = 0; i < expected.length; i++) {
+            ECKey key = ECKeyFac.inst().create();
+            byte[] msgHash = HashUtil.h256(("test" + i).getBytes());
+            sigs.add(key.sign(msgHash));
+
+            // every third signature is for a different message
+            expected[i] = i % 3 != 0;
+            msgs.add(expected[i] ? msgHash : HashUtil.h256(msgHash));
+        }
+
+        assertArrayEquals(expected, SignatureFac.verifyBatch(msgs, sigs));
+        assertArrayEquals(new boolean[] {true}, SignatureFac.verifyBatch(msgs.subList(1, 2), sigs.subList(1, 2)));
+        assertArrayEquals(new boolean[0], SignatureFac.verifyBatch(new ArrayList<>(), new ArrayList<>()));
+    }
+
     @AfterClass
     public static void teardown() {
         ECKeyFac.setType(ECKeyFac.ECKeyType.ED25519);
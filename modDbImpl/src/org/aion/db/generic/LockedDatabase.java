@@ -2,6 +2,7 @@ package org.aion.db.generic;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -190,6 +191,56 @@ public class LockedDatabase implements ByteArrayKeyValueDatabase {
         }
     }
 
+    @Override
+    public List<byte[]> getBatch(Collection<byte[]> keys) {
+        // acquire read lock
+        lock.readLock().lock();
+
+        try {
+            return database.getBatch(keys);
+        } catch (Exception e) {
+            throw e;
+        } finally {
+            // releasing read lock
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @implNote The lock is held only while creating the iterator. The native implementations read
+     *     the following entries without locking, which is safe since the JNI reads are thread-safe,
+     *     while the other implementations copy the entries in the range on creation.
+     */
+    @Override
+    public Iterator<Map.Entry<byte[], byte[]>> iterate(byte[] fromKey, byte[] toKey) {
+        // acquire read lock
+        lock.readLock().lock();
+
+        try {
+            return database.iterate(fromKey, toKey);
+        } catch (Exception e) {
+            throw e;
+        } finally {
+            // releasing read lock
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Iterator<Map.Entry<byte[], byte[]>> iteratePrefix(byte[] prefix) {
+        // acquire read lock
+        lock.readLock().lock();
+
+        try {
+            return database.iteratePrefix(prefix);
+        } catch (Exception e) {
+            throw e;
+        } finally {
+            // releasing read lock
+            lock.readLock().unlock();
+        }
+    }
+
     @Override
     public Optional<byte[]> get(byte[] key) {
         // acquire read lock
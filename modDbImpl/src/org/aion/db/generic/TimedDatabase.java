@@ -2,6 +2,7 @@ package org.aion.db.generic;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.aion.db.impl.ByteArrayKeyValueDatabase;
@@ -143,6 +144,56 @@ public class TimedDatabase implements ByteArrayKeyValueDatabase {
         return result;
     }
 
+    @Override
+    public List<byte[]> getBatch(Collection<byte[]> keys) {
+        long t1 = System.nanoTime();
+        List<byte[]> values = database.getBatch(keys);
+        long t2 = System.nanoTime();
+
+        LOG.debug(
+                database.toString()
+                        + " getBatch("
+                        + (keys != null ? keys.size() : "null")
+                        + " keys) in "
+                        + (t2 - t1)
+                        + " ns.");
+        return values;
+    }
+
+    @Override
+    public Iterator<Map.Entry<byte[], byte[]>> iterate(byte[] fromKey, byte[] toKey) {
+        long t1 = System.nanoTime();
+        Iterator<Map.Entry<byte[], byte[]>> result = database.iterate(fromKey, toKey);
+        long t2 = System.nanoTime();
+
+        LOG.debug(
+                database.toString()
+                        + " iterate(fromKey, toKey) in "
+                        + (t2 - t1)
+                        + " ns."
+                        + "\n\t\t\t\t\tfromKey = "
+                        + (fromKey != null ? Hex.toHexString(fromKey) : "null")
+                        + "\n\t\t\t\t\ttoKey = "
+                        + (toKey != null ? Hex.toHexString(toKey) : "null"));
+        return result;
+    }
+
+    @Override
+    public Iterator<Map.Entry<byte[], byte[]>> iteratePrefix(byte[] prefix) {
+        long t1 = System.nanoTime();
+        Iterator<Map.Entry<byte[], byte[]>> result = database.iteratePrefix(prefix);
+        long t2 = System.nanoTime();
+
+        LOG.debug(
+                database.toString()
+                        + " iteratePrefix(prefix) in "
+                        + (t2 - t1)
+                        + " ns."
+                        + "\n\t\t\t\t\tprefix = "
+                        + (prefix != null ? Hex.toHexString(prefix) : "null"));
+        return result;
+    }
+
     @Override
     public Optional<byte[]> get(byte[] key) {
         long t1 = System.nanoTime();
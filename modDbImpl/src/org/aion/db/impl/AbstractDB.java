@@ -1,13 +1,21 @@
 package org.aion.db.impl;
 
+import com.google.common.primitives.UnsignedBytes;
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Stream;
+import org.aion.util.metrics.Histogram;
+import org.aion.util.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 
 /**
@@ -21,6 +29,9 @@ public abstract class AbstractDB implements ByteArrayKeyValueDatabase {
     protected static final int DEFAULT_CACHE_SIZE_BYTES = 128 * 1024 * 1024; // 128mb
     protected static final int DEFAULT_WRITE_BUFFER_SIZE_BYTES = 16 * 1024 * 1024; // 16mb
 
+    /** The order of the keys used by range iterations. */
+    private static final Comparator<byte[]> KEY_ORDER = UnsignedBytes.lexicographicalComparator();
+
     protected final String name;
     protected final Logger LOG;
 
@@ -28,10 +39,20 @@ public abstract class AbstractDB implements ByteArrayKeyValueDatabase {
     protected boolean enableDbCache = false;
     protected boolean enableDbCompression = false;
 
+    // latency of the operations reaching the database implementation, shared by the stores with the same name
+    private final Histogram getLatency;
+    private final Histogram putLatency;
+    private final Histogram putBatchLatency;
+
     protected AbstractDB(String name, Logger log) {
         Objects.requireNonNull(name, "The database name cannot be null.");
         this.name = name;
         this.LOG = log;
+
+        MetricsRegistry metrics = MetricsRegistry.getDefault();
+        this.getLatency = metrics.timer("aion_db_get_seconds", "Latency of the database reads.", "store", name);
+        this.putLatency = metrics.timer("aion_db_put_seconds", "Latency of the database writes added to the pending batch.", "store", name);
+        this.putBatchLatency = metrics.timer("aion_db_put_batch_seconds", "Latency of the database batch writes.", "store", name);
     }
 
     protected AbstractDB(
@@ -109,8 +130,9 @@ public abstract class AbstractDB implements ByteArrayKeyValueDatabase {
      * NullPointerException} if a null key is present.
      */
     public static void check(Collection<byte[]> keysOrValues) {
-        if (keysOrValues.contains(null)) {
-            throw new NullPointerException("The database does not accept null keys or values.");
+        // iterating since the immutable collections reject contains(null)
+        for (byte[] keyOrValue : keysOrValues) {
+            check(keyOrValue);
         }
     }
 
@@ -141,7 +163,9 @@ public abstract class AbstractDB implements ByteArrayKeyValueDatabase {
         check(key);
         check();
 
+        long start = System.nanoTime();
         byte[] v = getInternal(key);
+        getLatency.recordSince(start);
         return Optional.ofNullable(v);
     }
 
@@ -154,13 +178,40 @@ public abstract class AbstractDB implements ByteArrayKeyValueDatabase {
      */
     protected abstract byte[] getInternal(byte[] key);
 
+    @Override
+    public List<byte[]> getBatch(Collection<byte[]> keys) {
+        check(keys);
+        check();
+
+        return getBatchInternal(keys);
+    }
+
+    /**
+     * Database specific batch get functionality, without locking or integrity checks required.
+     * Locking and checks are applied in {@link #getBatch(Collection)}.
+     *
+     * @param keys the keys for which the method must return the associated values
+     * @return the values stored in the database for the given keys, in the same order
+     * @implNote Retrieves the values one by one. Overwrite method if the database supports
+     *     retrieving multiple keys with a single request.
+     */
+    protected List<byte[]> getBatchInternal(Collection<byte[]> keys) {
+        List<byte[]> values = new ArrayList<>(keys.size());
+        for (byte[] key : keys) {
+            values.add(getInternal(key));
+        }
+        return values;
+    }
+
     @Override
     public void put(byte[] key, byte[] value) {
         check(key);
         check(value);
         check();
 
+        long start = System.nanoTime();
         putToBatchInternal(key, value);
+        putLatency.recordSince(start);
     }
 
     /**
@@ -194,7 +245,9 @@ public abstract class AbstractDB implements ByteArrayKeyValueDatabase {
         check(input.values());
         check();
 
+        long start = System.nanoTime();
         putBatchInternal(input);
+        putBatchLatency.recordSince(start);
     }
 
     /**
@@ -220,4 +273,82 @@ public abstract class AbstractDB implements ByteArrayKeyValueDatabase {
      * @param keys a {@link Collection} of keys to be deleted form storage
      */
     protected abstract void deleteBatchInternal(Collection<byte[]> keys);
+
+    @Override
+    public Iterator<Map.Entry<byte[], byte[]>> iterate(byte[] fromKey, byte[] toKey) {
+        check();
+
+        return iterateInternal(fromKey, toKey);
+    }
+
+    /**
+     * Database specific range iteration functionality, without locking or integrity checks
+     * required. Locking and checks are applied in {@link #iterate(byte[], byte[])}.
+     *
+     * @param fromKey the lower bound of the range (inclusive) or {@code null} if unbounded
+     * @param toKey the upper bound of the range (exclusive) or {@code null} if unbounded
+     * @return an iterator over the stored entries with keys in the given range
+     */
+    protected abstract Iterator<Map.Entry<byte[], byte[]>> iterateInternal(
+            byte[] fromKey, byte[] toKey);
+
+    @Override
+    public Iterator<Map.Entry<byte[], byte[]>> iteratePrefix(byte[] prefix) {
+        check(prefix);
+
+        return iterate(prefix, upperBound(prefix));
+    }
+
+    /**
+     * Compares two keys in unsigned lexicographic order, the order used by range iterations.
+     */
+    public static int compare(byte[] key1, byte[] key2) {
+        return KEY_ORDER.compare(key1, key2);
+    }
+
+    /** @return {@code true} if the key is in the range {@code [fromKey, toKey)} */
+    public static boolean inRange(byte[] key, byte[] fromKey, byte[] toKey) {
+        return (fromKey == null || compare(key, fromKey) >= 0)
+                && (toKey == null || compare(key, toKey) < 0);
+    }
+
+    /**
+     * Returns the smallest key that is greater than all the keys starting with the given prefix.
+     *
+     * @return the exclusive upper bound for the keys with the given prefix, or {@code null} if
+     *     there is no such bound, i.e. the prefix is empty or contains only {@code 0xff} bytes
+     */
+    public static byte[] upperBound(byte[] prefix) {
+        for (int i = prefix.length - 1; i >= 0; i--) {
+            if (prefix[i] != (byte) 0xff) {
+                byte[] bound = new byte[i + 1];
+                System.arraycopy(prefix, 0, bound, 0, i + 1);
+                bound[i]++;
+                return bound;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Selects the entries with keys in the given range and sorts them. Used by the implementations
+     * that do not support ordered iteration natively.
+     *
+     * @param entries the entries to be filtered
+     * @param fromKey the lower bound of the range (inclusive) or {@code null} if unbounded
+     * @param toKey the upper bound of the range (exclusive) or {@code null} if unbounded
+     * @return an iterator over the entries with keys in the given range
+     */
+    protected static Iterator<Map.Entry<byte[], byte[]>> sortedRange(
+            Iterator<Map.Entry<byte[], byte[]>> entries, byte[] fromKey, byte[] toKey) {
+        List<Map.Entry<byte[], byte[]>> selected = new ArrayList<>();
+        while (entries.hasNext()) {
+            Map.Entry<byte[], byte[]> entry = entries.next();
+            if (inRange(entry.getKey(), fromKey, toKey)) {
+                selected.add(new AbstractMap.SimpleImmutableEntry<>(entry));
+            }
+        }
+        selected.sort(Map.Entry.comparingByKey(KEY_ORDER));
+        return selected.iterator();
+    }
 }
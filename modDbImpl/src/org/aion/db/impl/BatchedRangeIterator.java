@@ -0,0 +1,104 @@
+package org.aion.db.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * An {@link Iterator} over a range of database entries that reads ahead a bounded number of entries
+ * at a time. The native iterator is opened and released for each batch, so abandoning the iteration
+ * before the end of the range does not leak native resources.
+ */
+public abstract class BatchedRangeIterator implements Iterator<Map.Entry<byte[], byte[]>> {
+
+    /** Default number of entries read from the database at once. */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private final byte[] toKey;
+    private final int batchSize;
+    private final Deque<Map.Entry<byte[], byte[]>> buffer;
+
+    /** The key where the next batch starts; {@code null} for the first key in the database. */
+    private byte[] seekKey;
+    /** Set when the next batch starts with the last returned key, which must be skipped. */
+    private boolean resume;
+    private boolean exhausted;
+
+    /**
+     * @param fromKey the lower bound of the range (inclusive) or {@code null} if unbounded
+     * @param toKey the upper bound of the range (exclusive) or {@code null} if unbounded
+     * @param batchSize the maximum number of entries read from the database at once
+     */
+    protected BatchedRangeIterator(byte[] fromKey, byte[] toKey, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("The batch size must be positive.");
+        }
+        this.seekKey = fromKey;
+        this.toKey = toKey;
+        this.batchSize = batchSize;
+        this.buffer = new ArrayDeque<>(batchSize);
+        this.resume = false;
+        // an empty range does not require reading from the database
+        this.exhausted = fromKey != null && toKey != null && AbstractDB.compare(fromKey, toKey) >= 0;
+    }
+
+    /**
+     * Reads at most {@code limit} entries starting from the given key in ascending order of the
+     * keys, stopping before the first key that is greater or equal to {@code toKey}.
+     *
+     * @param seekKey the first key to be read if present, or {@code null} for the first key in the
+     *     database
+     * @param toKey the upper bound of the range (exclusive) or {@code null} if unbounded
+     * @param limit the maximum number of entries to be read
+     * @param entries collects the entries that were read
+     */
+    protected abstract void readBatch(
+            byte[] seekKey, byte[] toKey, int limit, List<Map.Entry<byte[], byte[]>> entries);
+
+    @Override
+    public boolean hasNext() {
+        if (buffer.isEmpty() && !exhausted) {
+            fill();
+        }
+        return !buffer.isEmpty();
+    }
+
+    @Override
+    public Map.Entry<byte[], byte[]> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return buffer.poll();
+    }
+
+    private void fill() {
+        // one extra entry is requested when resuming since the first one was already returned
+        int limit = resume ? batchSize + 1 : batchSize;
+        List<Map.Entry<byte[], byte[]>> entries = new ArrayList<>(limit);
+        readBatch(seekKey, toKey, limit, entries);
+
+        if (entries.size() < limit) {
+            exhausted = true;
+        }
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        Iterator<Map.Entry<byte[], byte[]>> it = entries.iterator();
+        if (resume) {
+            Map.Entry<byte[], byte[]> first = entries.get(0);
+            if (Arrays.equals(first.getKey(), seekKey)) {
+                it.next();
+            }
+        }
+        it.forEachRemaining(buffer::add);
+
+        seekKey = entries.get(entries.size() - 1).getKey();
+        resume = true;
+    }
+}
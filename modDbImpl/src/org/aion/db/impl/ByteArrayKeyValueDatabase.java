@@ -1,3 +1,36 @@
 package org.aion.db.impl;
 
-public interface ByteArrayKeyValueDatabase extends ByteArrayKeyValueStore, Database {}
+import java.util.Iterator;
+import java.util.Map;
+
+public interface ByteArrayKeyValueDatabase extends ByteArrayKeyValueStore, Database {
+
+    /**
+     * Returns an {@link Iterator} over the entries with keys in the range {@code [fromKey,
+     * toKey)}, in ascending unsigned lexicographic order of the keys. The entries contain both the
+     * key and the value, so no additional lookups are required.
+     *
+     * @param fromKey the lower bound of the range (inclusive); {@code null} starts the iteration
+     *     from the first key in the database
+     * @param toKey the upper bound of the range (exclusive); {@code null} continues the iteration
+     *     until the last key in the database
+     * @return an iterator over the stored entries with keys in the given range
+     * @throws RuntimeException if the data store is closed
+     * @apiNote Only the committed entries are returned. Entries committed while iterating may or
+     *     may not be visible, but an entry is never returned twice and the order of the keys is
+     *     always preserved.
+     */
+    Iterator<Map.Entry<byte[], byte[]>> iterate(byte[] fromKey, byte[] toKey);
+
+    /**
+     * Returns an {@link Iterator} over the entries with keys starting with the given prefix, in
+     * ascending unsigned lexicographic order of the keys.
+     *
+     * @param prefix the common prefix of the returned keys
+     * @return an iterator over the stored entries with keys starting with the given prefix
+     * @throws RuntimeException if the data store is closed
+     * @throws NullPointerException if the prefix is {@code null}
+     * @see #iterate(byte[], byte[])
+     */
+    Iterator<Map.Entry<byte[], byte[]>> iteratePrefix(byte[] prefix);
+}
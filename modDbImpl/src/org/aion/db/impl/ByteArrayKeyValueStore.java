@@ -1,3 +1,19 @@
 package org.aion.db.impl;
 
-public interface ByteArrayKeyValueStore extends KeyValueStore<byte[], byte[]> {}
+import java.util.Collection;
+import java.util.List;
+
+public interface ByteArrayKeyValueStore extends KeyValueStore<byte[], byte[]> {
+
+    /**
+     * Retrieves the values stored at the given keys. Implementations backed by a native database
+     * retrieve all the values with a single request instead of one request per key.
+     *
+     * @param keys the keys of the values to be retrieved
+     * @return a list containing the values in the iteration order of the given keys, where the
+     *     value is {@code null} if the key is not present in the data store
+     * @throws RuntimeException if the data store is closed
+     * @throws NullPointerException if the collection contains a {@code null} key
+     */
+    List<byte[]> getBatch(Collection<byte[]> keys);
+}
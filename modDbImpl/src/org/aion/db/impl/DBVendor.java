@@ -14,6 +14,11 @@ public enum DBVendor {
     LEVELDB("leveldb", PersistenceMethod.FILE_BASED), //
     /** Using an instance of {@link RocksDBWrapper}. */
     ROCKSDB("rocksdb", PersistenceMethod.FILE_BASED),
+    /**
+     * Using an instance of {@link org.aion.db.impl.rocksdb.RocksDBColumnFamily}, i.e. one column
+     * family of a RocksDB instance shared by all the databases with the same path.
+     */
+    ROCKSDB_CF("rocksdbcf", PersistenceMethod.FILE_BASED),
     /** Using an instance of {@link org.aion.db.impl.h2.H2MVMap}. */
     H2("h2", PersistenceMethod.FILE_BASED), //
     /** Using an instance of {@Link org.aion.db.impl.mongodb.MongoDB} */
@@ -33,7 +38,7 @@ public enum DBVendor {
 
     /* map implemented using concurrent hash map */
     private static final List<DBVendor> driverImplementations =
-            List.of(LEVELDB, ROCKSDB, H2, MOCKDB, MONGODB);
+            List.of(LEVELDB, ROCKSDB, ROCKSDB_CF, H2, MOCKDB, MONGODB);
 
     private final String value;
     private final PersistenceMethod persistence;
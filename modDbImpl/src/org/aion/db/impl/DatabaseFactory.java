@@ -9,6 +9,7 @@ import org.aion.db.impl.leveldb.LevelDBConstants;
 import org.aion.db.impl.mockdb.MockDB;
 import org.aion.db.impl.mockdb.PersistentMockDB;
 import org.aion.db.impl.mongodb.MongoDB;
+import org.aion.db.impl.rocksdb.RocksDBColumnFamily;
 import org.aion.db.impl.rocksdb.RocksDBConstants;
 import org.aion.db.impl.rocksdb.RocksDBWrapper;
 import org.slf4j.Logger;
@@ -134,6 +135,11 @@ public abstract class DatabaseFactory {
                             RocksDBConstants.READ_BUFFER_SIZE,
                             RocksDBConstants.CACHE_SIZE);
                 }
+            case ROCKSDB_CF:
+                {
+                    return new RocksDBColumnFamily(
+                            dbName, dbPath, log, enableDbCache, enableDbCompression);
+                }
             case H2:
                 {
                     return new H2MVMap(dbName, dbPath, log, enableDbCache, enableDbCompression);
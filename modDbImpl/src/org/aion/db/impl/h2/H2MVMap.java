@@ -220,6 +220,18 @@ public class H2MVMap extends AbstractDB {
         return snapshot.keySet().iterator();
     }
 
+    @Override
+    protected Iterator<Map.Entry<byte[], byte[]>> iterateInternal(byte[] fromKey, byte[] toKey) {
+        // get current version
+        long version = store.getCurrentVersion();
+        // making the version read-only
+        store.commit();
+
+        // the map is not sorted in unsigned lexicographic order
+        MVMap<byte[], byte[]> snapshot = map.openVersion(version);
+        return sortedRange(snapshot.entrySet().iterator(), fromKey, toKey);
+    }
+
     @Override
     public byte[] getInternal(byte[] key) {
         return map.get(key);
@@ -5,8 +5,10 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import org.aion.db.impl.AbstractDB;
+import org.aion.db.impl.BatchedRangeIterator;
 import org.aion.db.impl.SystemExitCodes;
 import org.fusesource.leveldbjni.JniDBFactory;
 import org.iq80.leveldb.CompressionType;
@@ -277,6 +279,37 @@ public class LevelDB extends AbstractDB {
         return Collections.emptyIterator();
     }
 
+    @Override
+    protected Iterator<Map.Entry<byte[], byte[]>> iterateInternal(byte[] fromKey, byte[] toKey) {
+        return new BatchedRangeIterator(fromKey, toKey, BatchedRangeIterator.DEFAULT_BATCH_SIZE) {
+            @Override
+            protected void readBatch(
+                    byte[] seekKey, byte[] toKey, int limit, List<Map.Entry<byte[], byte[]>> entries) {
+                // fails if the database was closed while iterating
+                check();
+
+                try (DBIterator itr = db.iterator()) {
+                    if (seekKey == null) {
+                        itr.seekToFirst();
+                    } else {
+                        itr.seek(seekKey);
+                    }
+
+                    while (itr.hasNext() && entries.size() < limit) {
+                        Map.Entry<byte[], byte[]> entry = itr.next();
+                        if (toKey != null && compare(entry.getKey(), toKey) >= 0) {
+                            break;
+                        }
+                        entries.add(entry);
+                    }
+                } catch (Exception e) {
+                    LOG.error("Unable to iterate over database " + LevelDB.this + ".", e);
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+    }
+
     /**
      * A wrapper for the {@link DBIterator} conforming to the {@link Iterator} interface.
      *
@@ -110,6 +110,13 @@ public class MockDB extends AbstractDB {
         return set.iterator();
     }
 
+    @Override
+    protected Iterator<Map.Entry<byte[], byte[]>> iterateInternal(byte[] fromKey, byte[] toKey) {
+        Map<byte[], byte[]> entries = new HashMap<>();
+        kv.forEach((key, value) -> entries.put(key.toBytes(), value));
+        return sortedRange(entries.entrySet().iterator(), fromKey, toKey);
+    }
+
     @Override
     protected byte[] getInternal(byte[] key) {
         return kv.get(ByteArrayWrapper.wrap(key));
@@ -325,6 +325,21 @@ public class MongoDB extends AbstractDB {
         return keys.iterator();
     }
 
+    @Override
+    protected Iterator<Map.Entry<byte[], byte[]>> iterateInternal(byte[] fromKey, byte[] toKey) {
+        LOG.debug("Getting the entries in the range");
+
+        // binary ids are sorted by length first, so the range is selected on the client side
+        Map<byte[], byte[]> entries = new HashMap<>();
+        for (BsonDocument document : this.collection.find(this.clientSession)) {
+            entries.put(
+                    document.getBinary(MongoConstants.ID_FIELD_NAME).getData(),
+                    document.getBinary(MongoConstants.VALUE_FIELD_NAME).getData());
+        }
+
+        return sortedRange(entries.entrySet().iterator(), fromKey, toKey);
+    }
+
     @Override
     protected byte[] getInternal(byte[] k) {
         BsonDocument document =
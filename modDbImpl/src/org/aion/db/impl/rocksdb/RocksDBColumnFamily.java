@@ -0,0 +1,389 @@
+package org.aion.db.impl.rocksdb;
+
+import static org.aion.db.impl.rocksdb.RocksDBConstants.ITERATOR_READAHEAD_SIZE;
+
+import com.google.common.collect.Iterators;
+import java.io.File;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.aion.db.impl.AbstractDB;
+import org.aion.db.impl.BatchedRangeIterator;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.ReadOptions;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteBatchWithIndex;
+import org.slf4j.Logger;
+
+/**
+ * A database stored as a column family of a {@link SharedRocksDB} instance. All the databases
+ * created with the same path share the instance located in {@link
+ * SharedRocksDB#getDirectory(String)}.
+ *
+ * <p>When the current thread has started an atomic write on the shared instance, all the writes
+ * are added to that atomic write instead of being applied directly, and reads include the
+ * uncommitted writes.
+ */
+public class RocksDBColumnFamily extends AbstractDB {
+
+    private final File directory;
+    private SharedRocksDB shared;
+    private ColumnFamilyHandle handle;
+    private ReadOptions readOptions;
+
+    public RocksDBColumnFamily(
+            String name,
+            String path,
+            Logger log,
+            boolean enableDbCache,
+            boolean enableDbCompression) {
+        super(name, path, log, enableDbCache, enableDbCompression);
+        this.directory = SharedRocksDB.getDirectory(path);
+
+        RocksDB.loadLibrary();
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + ":" + propertiesInfo();
+    }
+
+    // IDatabase Functionality
+    @Override
+    public boolean open() {
+        if (isOpen()) {
+            return true;
+        }
+
+        LOG.debug("Initialising RocksDB column family {}", this.toString());
+
+        try {
+            shared = SharedRocksDB.acquire(directory, LOG, enableDbCompression);
+            readOptions = new ReadOptions();
+            handle = shared.getColumnFamily(name);
+        } catch (RocksDBException e) {
+            if (e.getMessage() != null && e.getMessage().contains("lock")) {
+                LOG.error(
+                        "Failed to open the database "
+                                + this.toString()
+                                + "\nCheck if you have two instances running on the same database."
+                                + "\nFailure due to: ",
+                        e);
+            } else {
+                LOG.error("Failed to open the database " + this.toString() + " due to: ", e);
+            }
+
+            // close the connection and cleanup if needed
+            close();
+        }
+
+        return isOpen();
+    }
+
+    @Override
+    public void close() {
+        // do nothing if already closed
+        if (shared == null) {
+            return;
+        }
+
+        LOG.info("Closing database " + this.toString());
+
+        if (batch != null) {
+            batch.close();
+            batch = null;
+        }
+        if (readOptions != null) {
+            readOptions.close();
+            readOptions = null;
+        }
+
+        // the handle is owned and closed by the shared instance
+        handle = null;
+        SharedRocksDB.release(shared);
+        shared = null;
+    }
+
+    @Override
+    public void compact() {
+        LOG.info("Compacting " + this.toString() + ".");
+        try {
+            shared.getDb().compactRange(handle);
+        } catch (RocksDBException e) {
+            LOG.error("Cannot compact data.");
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void drop() {
+        boolean wasOpen = isOpen();
+        if (!wasOpen && !open()) {
+            return;
+        }
+
+        if (batch != null) {
+            batch.close();
+            batch = null;
+        }
+
+        try {
+            handle = shared.dropColumnFamily(name);
+        } catch (RocksDBException e) {
+            LOG.error("Unable to drop " + this.toString() + ".", e);
+        }
+
+        if (!wasOpen) {
+            close();
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return handle != null;
+    }
+
+    @Override
+    public boolean isCreatedOnDisk() {
+        return new File(directory, "CURRENT").exists();
+    }
+
+    @Override
+    public long approximateSize() {
+        check();
+
+        try {
+            return shared.getDb().getLongProperty(handle, "rocksdb.total-sst-files-size");
+        } catch (RocksDBException e) {
+            LOG.error("Unable to get the size of " + this.toString() + ".", e);
+        }
+
+        return -1L;
+    }
+
+    // IKetValueStore functionality
+
+    @Override
+    public boolean isEmpty() {
+        check();
+
+        try (RocksIterator itr = newIterator(readOptions)) {
+            itr.seekToFirst();
+
+            // check if there is at least one valid item
+            return !itr.isValid();
+        } catch (Exception e) {
+            LOG.error("Unable to extract information from database " + this.toString() + ".", e);
+        }
+
+        return true;
+    }
+
+    @Override
+    public Iterator<byte[]> keys() {
+        check();
+
+        return Iterators.transform(iterateInternal(null, null), Map.Entry::getKey);
+    }
+
+    @Override
+    protected Iterator<Map.Entry<byte[], byte[]>> iterateInternal(byte[] fromKey, byte[] toKey) {
+        return new BatchedRangeIterator(fromKey, toKey, BatchedRangeIterator.DEFAULT_BATCH_SIZE) {
+            @Override
+            protected void readBatch(
+                    byte[] seekKey, byte[] toKey, int limit, List<Map.Entry<byte[], byte[]>> entries) {
+                // fails if the database was closed while iterating
+                check();
+
+                try (ReadOptions readOptions =
+                                new ReadOptions().setReadaheadSize(ITERATOR_READAHEAD_SIZE);
+                        RocksIterator itr = newIterator(readOptions)) {
+                    if (seekKey == null) {
+                        itr.seekToFirst();
+                    } else {
+                        itr.seek(seekKey);
+                    }
+
+                    while (itr.isValid() && entries.size() < limit) {
+                        byte[] key = itr.key();
+                        if (toKey != null && compare(key, toKey) >= 0) {
+                            break;
+                        }
+                        entries.add(new AbstractMap.SimpleImmutableEntry<>(key, itr.value()));
+                        itr.next();
+                    }
+                } catch (Exception e) {
+                    LOG.error("Unable to iterate over database " + RocksDBColumnFamily.this + ".", e);
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Creates an iterator over the column family that includes the uncommitted writes of the
+     * atomic write owned by the current thread, if any.
+     */
+    private RocksIterator newIterator(ReadOptions options) {
+        RocksIterator itr = shared.getDb().newIterator(handle, options);
+        WriteBatchWithIndex atomicBatch = shared.getAtomicBatch();
+        return atomicBatch == null ? itr : atomicBatch.newIteratorWithBase(handle, itr);
+    }
+
+    @Override
+    protected byte[] getInternal(byte[] key) {
+        try {
+            WriteBatchWithIndex atomicBatch = shared.getAtomicBatch();
+            if (atomicBatch == null) {
+                return shared.getDb().get(handle, key);
+            } else {
+                return atomicBatch.getFromBatchAndDB(shared.getDb(), handle, readOptions, key);
+            }
+        } catch (RocksDBException e) {
+            LOG.error("Unable to get key " + Arrays.toString(key) + ". " + e);
+        }
+
+        return null;
+    }
+
+    @Override
+    protected List<byte[]> getBatchInternal(Collection<byte[]> keys) {
+        if (shared.getAtomicBatch() != null) {
+            // the uncommitted writes must be checked for each key
+            return super.getBatchInternal(keys);
+        }
+
+        try {
+            return shared.getDb()
+                    .multiGetAsList(Collections.nCopies(keys.size(), handle), new ArrayList<>(keys));
+        } catch (RocksDBException e) {
+            LOG.error("Unable to get batch of " + keys.size() + " keys. " + e);
+        }
+
+        // missing values when retrieval failed, as for single keys
+        return new ArrayList<>(Collections.nCopies(keys.size(), null));
+    }
+
+    private WriteBatch batch = null;
+
+    @Override
+    public void putToBatchInternal(byte[] key, byte[] value) {
+        try {
+            WriteBatchWithIndex atomicBatch = shared.getAtomicBatch();
+            if (atomicBatch != null) {
+                atomicBatch.put(handle, key, value);
+            } else {
+                if (batch == null) {
+                    batch = new WriteBatch();
+                }
+                batch.put(handle, key, value);
+            }
+        } catch (RocksDBException e) {
+            LOG.error("Unable to perform put to batch operation on " + this.toString() + ".", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void deleteInBatchInternal(byte[] key) {
+        try {
+            WriteBatchWithIndex atomicBatch = shared.getAtomicBatch();
+            if (atomicBatch != null) {
+                atomicBatch.delete(handle, key);
+            } else {
+                if (batch == null) {
+                    batch = new WriteBatch();
+                }
+                batch.delete(handle, key);
+            }
+        } catch (RocksDBException e) {
+            LOG.error("Unable to perform delete in batch operation on " + this.toString() + ".", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void commit() {
+        check();
+
+        if (batch != null) {
+            try {
+                shared.getDb().write(shared.getWriteOptions(), batch);
+            } catch (RocksDBException e) {
+                LOG.error(
+                        "Unable to execute batch put/update/delete operation on "
+                                + this.toString()
+                                + ".",
+                        e);
+            }
+            batch.close();
+            batch = null;
+        }
+    }
+
+    @Override
+    public void putBatchInternal(Map<byte[], byte[]> input) {
+        WriteBatchWithIndex atomicBatch = shared.getAtomicBatch();
+        if (atomicBatch != null) {
+            try {
+                for (Map.Entry<byte[], byte[]> e : input.entrySet()) {
+                    atomicBatch.put(handle, e.getKey(), e.getValue());
+                }
+            } catch (RocksDBException e) {
+                LOG.error("Unable to add batch put/update operation on " + this.toString() + " to the atomic write.", e);
+                throw new RuntimeException(e);
+            }
+            return;
+        }
+
+        // try-with-resources will automatically close the batch object
+        try (WriteBatch batch = new WriteBatch()) {
+            // add put and delete operations to batch
+            for (Map.Entry<byte[], byte[]> e : input.entrySet()) {
+                batch.put(handle, e.getKey(), e.getValue());
+            }
+
+            // bulk atomic update
+            shared.getDb().write(shared.getWriteOptions(), batch);
+        } catch (RocksDBException e) {
+            LOG.error(
+                    "Unable to execute batch put/update operation on " + this.toString() + ".", e);
+        }
+    }
+
+    @Override
+    public void deleteBatchInternal(Collection<byte[]> keys) {
+        WriteBatchWithIndex atomicBatch = shared.getAtomicBatch();
+        if (atomicBatch != null) {
+            try {
+                for (byte[] key : keys) {
+                    atomicBatch.delete(handle, key);
+                }
+            } catch (RocksDBException e) {
+                LOG.error("Unable to add batch delete operation on " + this.toString() + " to the atomic write.", e);
+                throw new RuntimeException(e);
+            }
+            return;
+        }
+
+        try (WriteBatch batch = new WriteBatch()) {
+            // add delete operations to batch
+            for (byte[] key : keys) {
+                batch.delete(handle, key);
+            }
+
+            // bulk atomic update
+            shared.getDb().write(shared.getWriteOptions(), batch);
+        } catch (RocksDBException e) {
+            LOG.error("Unable to execute batch delete operation on " + this.toString() + ".", e);
+        }
+    }
+}
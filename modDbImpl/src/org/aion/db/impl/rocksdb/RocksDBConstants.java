@@ -7,11 +7,16 @@ public class RocksDBConstants {
     public static int READ_BUFFER_SIZE = 8 * 1024 * 1024;
     public static int CACHE_SIZE = 16 * 1024 * 1024;
 
+    // used by the column families of a shared instance
+    public static int SHARED_CACHE_SIZE = 256 * 1024 * 1024;
+    public static int SHARED_WRITE_BUFFER_SIZE = 128 * 1024 * 1024;
+
     static int BYTES_PER_SYNC = 1024 * 1024;
     static int OPTIMIZE_LEVEL_STYLE_COMPACTION = 128 * 1024 * 1024;
     static int MAX_BACKGROUND_COMPACTIONS = Math.min(Runtime.getRuntime().availableProcessors(), 8);
     static int MAX_BACKGROUND_FLUSHES = 2;
     static int BLOOMFILTER_BITS_PER_KEY = 10;
+    static int ITERATOR_READAHEAD_SIZE = 256 * 1024;
     static int MIN_WRITE_BUFFER_NUMBER_TOMERGE = 4;
     static int LEVEL0_STOP_WRITES_TRIGGER = 16;
     static int LEVEL0_SLOWDOWN_WRITES_TRIGGER = 8;
@@ -4,6 +4,7 @@ import static java.lang.Math.max;
 import static org.aion.db.impl.rocksdb.RocksDBConstants.BLOCK_SIZE;
 import static org.aion.db.impl.rocksdb.RocksDBConstants.BLOOMFILTER_BITS_PER_KEY;
 import static org.aion.db.impl.rocksdb.RocksDBConstants.BYTES_PER_SYNC;
+import static org.aion.db.impl.rocksdb.RocksDBConstants.ITERATOR_READAHEAD_SIZE;
 import static org.aion.db.impl.rocksdb.RocksDBConstants.LEVEL0_SLOWDOWN_WRITES_TRIGGER;
 import static org.aion.db.impl.rocksdb.RocksDBConstants.LEVEL0_STOP_WRITES_TRIGGER;
 import static org.aion.db.impl.rocksdb.RocksDBConstants.MAX_BACKGROUND_COMPACTIONS;
@@ -12,12 +13,16 @@ import static org.aion.db.impl.rocksdb.RocksDBConstants.MIN_WRITE_BUFFER_NUMBER_
 import static org.aion.db.impl.rocksdb.RocksDBConstants.OPTIMIZE_LEVEL_STYLE_COMPACTION;
 
 import java.io.File;
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import org.aion.db.impl.AbstractDB;
+import org.aion.db.impl.BatchedRangeIterator;
 import org.rocksdb.BlockBasedTableConfig;
 import org.rocksdb.BloomFilter;
 import org.rocksdb.CompactionPriority;
@@ -256,6 +261,40 @@ public class RocksDBWrapper extends AbstractDB {
         return Collections.emptyIterator();
     }
 
+    @Override
+    protected Iterator<Map.Entry<byte[], byte[]>> iterateInternal(byte[] fromKey, byte[] toKey) {
+        return new BatchedRangeIterator(fromKey, toKey, BatchedRangeIterator.DEFAULT_BATCH_SIZE) {
+            @Override
+            protected void readBatch(
+                    byte[] seekKey, byte[] toKey, int limit, List<Map.Entry<byte[], byte[]>> entries) {
+                // fails if the database was closed while iterating
+                check();
+
+                try (ReadOptions readOptions =
+                                new ReadOptions().setReadaheadSize(ITERATOR_READAHEAD_SIZE);
+                        RocksIterator itr = db.newIterator(readOptions)) {
+                    if (seekKey == null) {
+                        itr.seekToFirst();
+                    } else {
+                        itr.seek(seekKey);
+                    }
+
+                    while (itr.isValid() && entries.size() < limit) {
+                        byte[] key = itr.key();
+                        if (toKey != null && compare(key, toKey) >= 0) {
+                            break;
+                        }
+                        entries.add(new AbstractMap.SimpleImmutableEntry<>(key, itr.value()));
+                        itr.next();
+                    }
+                } catch (Exception e) {
+                    LOG.error("Unable to iterate over database " + RocksDBWrapper.this + ".", e);
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+    }
+
     /**
      * A wrapper for the {@link RocksIterator} conforming to the {@link Iterator} interface.
      *
@@ -313,6 +352,18 @@ public class RocksDBWrapper extends AbstractDB {
         return null;
     }
 
+    @Override
+    protected List<byte[]> getBatchInternal(Collection<byte[]> keys) {
+        try {
+            return db.multiGetAsList(new ArrayList<>(keys));
+        } catch (RocksDBException e) {
+            LOG.error("Unable to get batch of " + keys.size() + " keys. " + e);
+        }
+
+        // missing values when retrieval failed, as for single keys
+        return new ArrayList<>(Collections.nCopies(keys.size(), null));
+    }
+
     private WriteBatch batch = null;
 
     @Override
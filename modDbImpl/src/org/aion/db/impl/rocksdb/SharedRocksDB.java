@@ -0,0 +1,379 @@
+package org.aion.db.impl.rocksdb;
+
+import static java.lang.Math.max;
+import static org.aion.db.impl.rocksdb.RocksDBConstants.BLOCK_SIZE;
+import static org.aion.db.impl.rocksdb.RocksDBConstants.BLOOMFILTER_BITS_PER_KEY;
+import static org.aion.db.impl.rocksdb.RocksDBConstants.BYTES_PER_SYNC;
+import static org.aion.db.impl.rocksdb.RocksDBConstants.LEVEL0_SLOWDOWN_WRITES_TRIGGER;
+import static org.aion.db.impl.rocksdb.RocksDBConstants.LEVEL0_STOP_WRITES_TRIGGER;
+import static org.aion.db.impl.rocksdb.RocksDBConstants.MAX_BACKGROUND_COMPACTIONS;
+import static org.aion.db.impl.rocksdb.RocksDBConstants.MAX_BACKGROUND_FLUSHES;
+import static org.aion.db.impl.rocksdb.RocksDBConstants.MAX_OPEN_FILES;
+import static org.aion.db.impl.rocksdb.RocksDBConstants.MIN_WRITE_BUFFER_NUMBER_TOMERGE;
+import static org.aion.db.impl.rocksdb.RocksDBConstants.OPTIMIZE_LEVEL_STYLE_COMPACTION;
+import static org.aion.db.impl.rocksdb.RocksDBConstants.READ_BUFFER_SIZE;
+import static org.aion.db.impl.rocksdb.RocksDBConstants.SHARED_CACHE_SIZE;
+import static org.aion.db.impl.rocksdb.RocksDBConstants.SHARED_WRITE_BUFFER_SIZE;
+import static org.aion.db.impl.rocksdb.RocksDBConstants.WRITE_BUFFER_SIZE;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.BloomFilter;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.CompactionPriority;
+import org.rocksdb.CompressionType;
+import org.rocksdb.DBOptions;
+import org.rocksdb.LRUCache;
+import org.rocksdb.Options;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.WriteBatchWithIndex;
+import org.rocksdb.WriteBufferManager;
+import org.rocksdb.WriteOptions;
+import org.slf4j.Logger;
+
+/**
+ * A single RocksDB instance whose column families back the databases created as {@link
+ * RocksDBColumnFamily}. All the column families share one block cache, one write buffer budget,
+ * one write-ahead log and one set of background flush and compaction threads.
+ *
+ * <p>Writes to different column families can be grouped into a single atomic write by calling
+ * {@link #startAtomicWrite()} before and {@link #commitAtomicWrite()} after them.
+ *
+ * @implNote Instances are shared by all the column families opened in the same directory and are
+ *     reference counted. The RocksDB instance is closed when its last column family is closed.
+ */
+public final class SharedRocksDB {
+
+    /** The directory created inside the database path to hold the shared instance. */
+    public static final String DIRECTORY_NAME = "columnfamilies";
+
+    private static final Map<String, SharedRocksDB> instances = new HashMap<>();
+
+    private final String path;
+    private final Logger log;
+    private final boolean enableDbCompression;
+
+    private RocksDB db;
+    private LRUCache blockCache;
+    private WriteBufferManager writeBufferManager;
+    private DBOptions dbOptions;
+    private ColumnFamilyOptions columnFamilyOptions;
+    private WriteOptions writeOptions;
+    private final Map<String, ColumnFamilyHandle> handles = new HashMap<>();
+    private int references = 0;
+
+    // the atomic write is owned by the thread holding the lock
+    private final ReentrantLock atomicWriteLock = new ReentrantLock();
+    private WriteBatchWithIndex atomicBatch = null;
+    // set when a nested atomic write is discarded, the outermost call then discards all the writes
+    private boolean atomicDiscarded = false;
+
+    private SharedRocksDB(String path, Logger log, boolean enableDbCompression) {
+        this.path = path;
+        this.log = log;
+        this.enableDbCompression = enableDbCompression;
+    }
+
+    /**
+     * Returns the directory of the shared instance used for the databases located at the given
+     * path.
+     */
+    public static File getDirectory(String dbPath) {
+        return new File(dbPath, DIRECTORY_NAME);
+    }
+
+    /**
+     * Returns the shared instance used for the databases located at the given path if any of them
+     * is currently open.
+     */
+    public static synchronized Optional<SharedRocksDB> getOpenInstance(String dbPath) {
+        return Optional.ofNullable(instances.get(getDirectory(dbPath).getAbsolutePath()));
+    }
+
+    /** Opens the shared instance from the given directory or adds a reference to it. */
+    static synchronized SharedRocksDB acquire(File directory, Logger log, boolean enableDbCompression)
+            throws RocksDBException {
+        String key = directory.getAbsolutePath();
+        SharedRocksDB instance = instances.get(key);
+
+        if (instance == null) {
+            instance = new SharedRocksDB(key, log, enableDbCompression);
+            try {
+                instance.open();
+            } catch (RocksDBException e) {
+                instance.close();
+                throw e;
+            }
+            instances.put(key, instance);
+        }
+
+        instance.references++;
+        return instance;
+    }
+
+    /** Removes a reference to the shared instance and closes it when no references are left. */
+    static synchronized void release(SharedRocksDB instance) {
+        instance.references--;
+
+        if (instance.references == 0) {
+            instances.remove(instance.path);
+            instance.close();
+        }
+    }
+
+    private void open() throws RocksDBException {
+        File directory = new File(path);
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new RocksDBException("Unable to create the directory " + path + ".");
+        }
+
+        blockCache = new LRUCache(SHARED_CACHE_SIZE);
+        // the memory used by write buffers is charged to the block cache
+        writeBufferManager = new WriteBufferManager(SHARED_WRITE_BUFFER_SIZE, blockCache);
+        dbOptions = setupDBOptions();
+        columnFamilyOptions = setupColumnFamilyOptions();
+        writeOptions = new WriteOptions().setLowPri(true);
+
+        List<byte[]> names = new ArrayList<>();
+        if (new File(directory, "CURRENT").exists()) {
+            try (Options options = new Options()) {
+                names.addAll(RocksDB.listColumnFamilies(options, path));
+            }
+        } else {
+            names.add(RocksDB.DEFAULT_COLUMN_FAMILY);
+        }
+
+        List<ColumnFamilyDescriptor> descriptors = new ArrayList<>();
+        for (byte[] name : names) {
+            descriptors.add(new ColumnFamilyDescriptor(name, columnFamilyOptions));
+        }
+
+        List<ColumnFamilyHandle> opened = new ArrayList<>();
+        db = RocksDB.open(dbOptions, path, descriptors, opened);
+
+        for (int i = 0; i < opened.size(); i++) {
+            handles.put(new String(names.get(i), StandardCharsets.UTF_8), opened.get(i));
+        }
+
+        log.info("Opened shared RocksDB instance at {} with column families {}.", path, handles.keySet());
+    }
+
+    private DBOptions setupDBOptions() {
+        DBOptions options = new DBOptions();
+
+        options.setCreateIfMissing(true);
+        options.setCreateMissingColumnFamilies(true);
+        options.setUseFsync(false);
+        options.setAtomicFlush(true);
+        options.setParanoidChecks(true);
+        options.setMaxOpenFiles(MAX_OPEN_FILES);
+        options.setRandomAccessMaxBufferSize(READ_BUFFER_SIZE);
+        options.setIncreaseParallelism(max(1, Runtime.getRuntime().availableProcessors() / 2));
+        options.setMaxBackgroundCompactions(MAX_BACKGROUND_COMPACTIONS);
+        options.setMaxBackgroundFlushes(MAX_BACKGROUND_FLUSHES);
+        options.setBytesPerSync(BYTES_PER_SYNC);
+        options.setWriteBufferManager(writeBufferManager);
+
+        return options;
+    }
+
+    private ColumnFamilyOptions setupColumnFamilyOptions() {
+        ColumnFamilyOptions options = new ColumnFamilyOptions();
+
+        options.setCompressionType(
+                enableDbCompression
+                        ? CompressionType.LZ4_COMPRESSION
+                        : CompressionType.NO_COMPRESSION);
+
+        options.setBottommostCompressionType(CompressionType.ZLIB_COMPRESSION);
+        options.setMinWriteBufferNumberToMerge(MIN_WRITE_BUFFER_NUMBER_TOMERGE);
+        options.setLevel0StopWritesTrigger(LEVEL0_STOP_WRITES_TRIGGER);
+        options.setLevel0SlowdownWritesTrigger(LEVEL0_SLOWDOWN_WRITES_TRIGGER);
+        options.setWriteBufferSize(WRITE_BUFFER_SIZE);
+        options.setDisableAutoCompactions(false);
+        options.setLevelCompactionDynamicLevelBytes(true);
+        options.setCompactionPriority(CompactionPriority.MinOverlappingRatio);
+        options.optimizeLevelStyleCompaction(OPTIMIZE_LEVEL_STYLE_COMPACTION);
+
+        BlockBasedTableConfig bbtc = new BlockBasedTableConfig();
+        bbtc.setBlockSize(BLOCK_SIZE);
+        bbtc.setBlockCache(blockCache);
+        bbtc.setCacheIndexAndFilterBlocks(true);
+        bbtc.setPinL0FilterAndIndexBlocksInCache(true);
+        bbtc.setFilterPolicy(new BloomFilter(BLOOMFILTER_BITS_PER_KEY, false));
+        options.setTableFormatConfig(bbtc);
+
+        return options;
+    }
+
+    private void close() {
+        log.info("Closing shared RocksDB instance at {}.", path);
+
+        if (atomicBatch != null) {
+            log.error("Discarding the uncommitted atomic write for {}.", path);
+            atomicBatch.close();
+            atomicBatch = null;
+        }
+
+        for (ColumnFamilyHandle handle : handles.values()) {
+            handle.close();
+        }
+        handles.clear();
+
+        if (db != null) {
+            db.close();
+            db = null;
+        }
+        if (writeOptions != null) {
+            writeOptions.close();
+        }
+        if (columnFamilyOptions != null) {
+            columnFamilyOptions.close();
+        }
+        if (dbOptions != null) {
+            dbOptions.close();
+        }
+        if (writeBufferManager != null) {
+            writeBufferManager.close();
+        }
+        if (blockCache != null) {
+            blockCache.close();
+        }
+    }
+
+    RocksDB getDb() {
+        return db;
+    }
+
+    WriteOptions getWriteOptions() {
+        return writeOptions;
+    }
+
+    /** Returns the handle of the column family with the given name, creating it if missing. */
+    synchronized ColumnFamilyHandle getColumnFamily(String name) throws RocksDBException {
+        ColumnFamilyHandle handle = handles.get(name);
+
+        if (handle == null) {
+            handle =
+                    db.createColumnFamily(
+                            new ColumnFamilyDescriptor(
+                                    name.getBytes(StandardCharsets.UTF_8), columnFamilyOptions));
+            handles.put(name, handle);
+        }
+
+        return handle;
+    }
+
+    /**
+     * Drops the column family with the given name and all its data.
+     *
+     * @return the handle of the newly created empty column family
+     * @throws IllegalStateException when called during an atomic write
+     */
+    synchronized ColumnFamilyHandle dropColumnFamily(String name) throws RocksDBException {
+        if (atomicWriteLock.isLocked()) {
+            throw new IllegalStateException("Cannot drop the column family " + name + " during an atomic write.");
+        }
+
+        ColumnFamilyHandle handle = handles.remove(name);
+        if (handle != null) {
+            db.dropColumnFamily(handle);
+            handle.close();
+        }
+
+        return getColumnFamily(name);
+    }
+
+    /**
+     * Starts grouping the writes performed by the current thread on any of the column families
+     * into a single atomic write. Calls can be nested; the writes are applied when the outermost
+     * call to {@link #commitAtomicWrite()} is made.
+     *
+     * <p>While the atomic write is in progress, reads and iterations from the owning thread
+     * include its uncommitted writes. Other threads see only committed data and block if they
+     * attempt to start an atomic write of their own.
+     */
+    public void startAtomicWrite() {
+        atomicWriteLock.lock();
+
+        if (atomicWriteLock.getHoldCount() == 1) {
+            if (db == null) {
+                atomicWriteLock.unlock();
+                throw new IllegalStateException("The shared RocksDB instance at " + path + " is closed.");
+            }
+            atomicBatch = new WriteBatchWithIndex(true);
+        }
+    }
+
+    /**
+     * Ends an atomic write started with {@link #startAtomicWrite()}. The outermost call applies all
+     * the grouped writes to the database in one write-ahead log entry.
+     *
+     * @throws IllegalStateException when the current thread has not started an atomic write
+     */
+    public void commitAtomicWrite() {
+        if (!atomicWriteLock.isHeldByCurrentThread()) {
+            throw new IllegalStateException("No atomic write was started by the current thread.");
+        }
+
+        try {
+            if (atomicWriteLock.getHoldCount() == 1) {
+                try {
+                    if (!atomicDiscarded && atomicBatch.count() > 0) {
+                        db.write(writeOptions, atomicBatch);
+                    }
+                } catch (RocksDBException e) {
+                    log.error("Unable to execute the atomic write on " + path + ".", e);
+                    throw new RuntimeException(e);
+                } finally {
+                    atomicBatch.close();
+                    atomicBatch = null;
+                    atomicDiscarded = false;
+                }
+            }
+        } finally {
+            atomicWriteLock.unlock();
+        }
+    }
+
+    /**
+     * Ends an atomic write started with {@link #startAtomicWrite()} without applying its writes.
+     * When called for a nested atomic write, the writes of the outermost one are discarded.
+     *
+     * @throws IllegalStateException when the current thread has not started an atomic write
+     */
+    public void discardAtomicWrite() {
+        if (!atomicWriteLock.isHeldByCurrentThread()) {
+            throw new IllegalStateException("No atomic write was started by the current thread.");
+        }
+
+        try {
+            atomicDiscarded = true;
+            if (atomicWriteLock.getHoldCount() == 1) {
+                atomicBatch.close();
+                atomicBatch = null;
+                atomicDiscarded = false;
+            }
+        } finally {
+            atomicWriteLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the batch collecting the atomic write owned by the current thread or {@code null}
+     * when the current thread is not performing an atomic write.
+     */
+    WriteBatchWithIndex getAtomicBatch() {
+        return atomicWriteLock.isHeldByCurrentThread() ? atomicBatch : null;
+    }
+}
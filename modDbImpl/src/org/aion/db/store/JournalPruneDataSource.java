@@ -1,6 +1,8 @@
 package org.aion.db.store;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -8,13 +10,18 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
 import org.aion.db.impl.ByteArrayKeyValueDatabase;
 import org.aion.db.impl.ByteArrayKeyValueStore;
+import org.aion.db.impl.mockdb.MockDB;
 import org.aion.util.types.ByteArrayWrapper;
 import org.slf4j.Logger;
 
@@ -24,17 +31,61 @@ import org.slf4j.Logger;
  * [storeBlockChanges] call). When the [prune] is called for a block the deletes for this block are
  * submitted to the underlying DataSource with respect to following inserts. E.g. if the key was
  * deleted at block N and then inserted at block N + 10 this delete is not passed.
+ *
+ * <p>The updates of the stored blocks and the reference counts of the inserted keys are kept in a
+ * separate journal database, so that only the changes of the current block are held in memory.
+ * The journal entries of each block are keyed by block number followed by block hash. Updates are
+ * written atomically with the reference counts they modify, allowing a restarted node to resume
+ * pruning from the persisted journal.
  */
 public class JournalPruneDataSource implements ByteArrayKeyValueStore {
 
     private final ReadWriteLock lock = new ReentrantReadWriteLock();
     private final Logger LOG;
 
-    private class Updates {
-        ByteArrayWrapper blockHeader;
-        long blockNumber;
+    private static class Updates {
         Set<ByteArrayWrapper> insertedKeys = new HashSet<>();
         Set<ByteArrayWrapper> deletedKeys = new HashSet<>();
+
+        byte[] encode() {
+            int size = 2 * Integer.BYTES;
+            for (ByteArrayWrapper key : insertedKeys) {
+                size += Integer.BYTES + key.length();
+            }
+            for (ByteArrayWrapper key : deletedKeys) {
+                size += Integer.BYTES + key.length();
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(size);
+            encodeKeys(buffer, insertedKeys);
+            encodeKeys(buffer, deletedKeys);
+            return buffer.array();
+        }
+
+        static Updates decode(byte[] encoding) {
+            ByteBuffer buffer = ByteBuffer.wrap(encoding);
+            Updates updates = new Updates();
+            decodeKeys(buffer, updates.insertedKeys);
+            decodeKeys(buffer, updates.deletedKeys);
+            return updates;
+        }
+
+        private static void encodeKeys(ByteBuffer buffer, Set<ByteArrayWrapper> keys) {
+            buffer.putInt(keys.size());
+            for (ByteArrayWrapper key : keys) {
+                buffer.putInt(key.length());
+                buffer.put(key.toBytes());
+            }
+        }
+
+        private static void decodeKeys(ByteBuffer buffer, Set<ByteArrayWrapper> keys) {
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                byte[] key = new byte[buffer.getInt()];
+                buffer.get(key);
+                keys.add(ByteArrayWrapper.wrap(key));
+            }
+        }
     }
 
     private static class Ref {
@@ -50,31 +101,88 @@ public class JournalPruneDataSource implements ByteArrayKeyValueStore {
             return journalRefs + (dbRef ? 1 : 0);
         }
 
+        byte[] encode() {
+            return ByteBuffer.allocate(Integer.BYTES + 1)
+                    .putInt(journalRefs)
+                    .put((byte) (dbRef ? 1 : 0))
+                    .array();
+        }
+
+        static Ref decode(byte[] encoding) {
+            ByteBuffer buffer = ByteBuffer.wrap(encoding);
+            int journalRefs = buffer.getInt();
+            Ref ref = new Ref(buffer.get() == 1);
+            ref.journalRefs = journalRefs;
+            return ref;
+        }
+
         @Override
         public String toString() {
             return "refs: " + String.valueOf(journalRefs) + " db: " + String.valueOf(dbRef);
         }
     }
 
-    Map<ByteArrayWrapper, Ref> refCount = new HashMap<>();
+    // journal key prefixes
+    private static final byte UPDATES_PREFIX = 0;
+    private static final byte REF_PREFIX = 1;
+
+    // key => reference counts modified since the last write to the journal
+    private final Map<ByteArrayWrapper, Ref> dirtyRefs = new HashMap<>();
 
     private ByteArrayKeyValueStore src;
-    // block hash => updates
-    private LinkedHashMap<ByteArrayWrapper, Updates> blockUpdates = new LinkedHashMap<>();
+    private final ByteArrayKeyValueDatabase journal;
     private Updates currentUpdates = new Updates();
     private AtomicBoolean enabled = new AtomicBoolean(false);
     private final boolean hasArchive;
+    // notified of the keys removed from the source by pruning
+    private Consumer<Collection<byte[]>> pruneListener = keys -> {};
 
+    /**
+     * Creates a data source that keeps its pruning journal in memory, which is lost on restart.
+     */
     public JournalPruneDataSource(ByteArrayKeyValueStore src, Logger log) {
+        this(src, newInMemoryJournal(log), log);
+    }
+
+    /**
+     * Creates a data source that keeps its pruning journal in the given database.
+     *
+     * @param src the data source being pruned
+     * @param journal an open database used exclusively to store the pruning journal
+     * @param log the logger used by this data source
+     */
+    public JournalPruneDataSource(
+            ByteArrayKeyValueStore src, ByteArrayKeyValueDatabase journal, Logger log) {
         this.src = src;
+        this.journal = journal;
         this.hasArchive = src instanceof ArchivedDataSource;
         this.LOG = log;
     }
 
+    private static ByteArrayKeyValueDatabase newInMemoryJournal(Logger log) {
+        MockDB journal = new MockDB("journal", log);
+        journal.open();
+        return journal;
+    }
+
     public void setPruneEnabled(boolean _enabled) {
         enabled.set(_enabled);
     }
 
+    /**
+     * Sets the listener notified of the keys removed from the source when pruning, e.g. to evict
+     * them from the caches placed in front of this data source.
+     */
+    public void setPruneListener(Consumer<Collection<byte[]>> listener) {
+        lock.writeLock().lock();
+
+        try {
+            this.pruneListener = Objects.requireNonNull(listener);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
     public boolean isArchiveEnabled() {
         return hasArchive;
     }
@@ -191,23 +299,68 @@ public class JournalPruneDataSource implements ByteArrayKeyValueStore {
     }
 
     private void incRef(ByteArrayWrapper keyW) {
-        Ref cnt = refCount.get(keyW);
+        Ref cnt = getRef(keyW);
         if (cnt == null) {
             cnt = new Ref(src.get(keyW.toBytes()).isPresent());
-            refCount.put(keyW, cnt);
         }
         cnt.journalRefs++;
+        dirtyRefs.put(keyW, cnt);
     }
 
     private Ref decRef(ByteArrayWrapper keyW) {
-        Ref cnt = refCount.get(keyW);
+        Ref cnt = getRef(keyW);
         cnt.journalRefs -= 1;
-        if (cnt.journalRefs == 0) {
-            refCount.remove(keyW);
-        }
+        // references reaching zero are removed from the journal on the next write
+        dirtyRefs.put(keyW, cnt);
         return cnt;
     }
 
+    /** Returns the reference count of the given key, or {@code null} if it is not journaled. */
+    private Ref getRef(ByteArrayWrapper keyW) {
+        Ref cnt = dirtyRefs.get(keyW);
+        if (cnt != null) {
+            return cnt.journalRefs == 0 ? null : cnt;
+        }
+
+        Optional<byte[]> encoding = journal.get(refKey(keyW));
+        return encoding.map(Ref::decode).orElse(null);
+    }
+
+    /**
+     * Writes the modified reference counts together with the journal changes already added to the
+     * journal batch in a single atomic write.
+     */
+    private void writeJournal() {
+        for (Map.Entry<ByteArrayWrapper, Ref> entry : dirtyRefs.entrySet()) {
+            if (entry.getValue().journalRefs == 0) {
+                journal.delete(refKey(entry.getKey()));
+            } else {
+                journal.put(refKey(entry.getKey()), entry.getValue().encode());
+            }
+        }
+        journal.commit();
+        dirtyRefs.clear();
+    }
+
+    private static byte[] refKey(ByteArrayWrapper keyW) {
+        byte[] key = new byte[1 + keyW.length()];
+        key[0] = REF_PREFIX;
+        System.arraycopy(keyW.toBytes(), 0, key, 1, keyW.length());
+        return key;
+    }
+
+    private static byte[] updatesPrefix(long blockNumber) {
+        return ByteBuffer.allocate(1 + Long.BYTES).put(UPDATES_PREFIX).putLong(blockNumber).array();
+    }
+
+    private static byte[] updatesKey(ByteArrayWrapper blockHash, long blockNumber) {
+        return ByteBuffer.allocate(1 + Long.BYTES + blockHash.length())
+                .put(UPDATES_PREFIX)
+                .putLong(blockNumber)
+                .put(blockHash.toBytes())
+                .array();
+    }
+
     public void storeBlockChanges(ByteArrayWrapper blockHash, long blockNumber) {
         if (!enabled.get()) {
             return;
@@ -216,9 +369,8 @@ public class JournalPruneDataSource implements ByteArrayKeyValueStore {
         lock.writeLock().lock();
 
         try {
-            currentUpdates.blockHeader = blockHash;
-            currentUpdates.blockNumber = blockNumber;
-            blockUpdates.put(blockHash, currentUpdates);
+            journal.put(updatesKey(blockHash, blockNumber), currentUpdates.encode());
+            writeJournal();
             currentUpdates = new Updates();
         } finally {
             lock.writeLock().unlock();
@@ -233,40 +385,97 @@ public class JournalPruneDataSource implements ByteArrayKeyValueStore {
         lock.writeLock().lock();
 
         try {
-            Updates updates = blockUpdates.remove(blockHash);
-            if (updates != null) {
-                for (ByteArrayWrapper insertedKey : updates.insertedKeys) {
-                    decRef(insertedKey).dbRef = true;
-                }
+            pruneBlock(blockHash, blockNumber);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
 
-                List<byte[]> batchRemove = new ArrayList<>();
-                for (ByteArrayWrapper key : updates.deletedKeys) {
-                    Ref ref = refCount.get(key);
-                    if (ref == null || ref.journalRefs == 0) {
-                        batchRemove.add(key.toBytes());
-                    } else if (ref != null) {
-                        ref.dbRef = false;
-                    }
-                }
-                src.deleteBatch(batchRemove);
+    /**
+     * Prunes the blocks left in the journal up to the given block number, e.g. when the node was
+     * stopped before pruning them. Must be called at startup, before new blocks are stored.
+     *
+     * @param blockNumber the highest block number to be pruned
+     * @param canonicalHash returns the hash of the main chain block at the given height or {@code
+     *     null} if unknown, in which case all the journaled blocks at that height are rolled back
+     */
+    public void pruneUpTo(long blockNumber, LongFunction<byte[]> canonicalHash) {
+        if (!enabled.get() || blockNumber < 0) {
+            return;
+        }
+
+        lock.writeLock().lock();
 
-                rollbackForkBlocks(blockNumber);
+        try {
+            // collect the heights first since pruning modifies the journal
+            Set<Long> heights = new TreeSet<>();
+            Iterator<Map.Entry<byte[], byte[]>> entries =
+                    journal.iterate(new byte[] {UPDATES_PREFIX}, updatesPrefix(blockNumber + 1));
+            while (entries.hasNext()) {
+                heights.add(ByteBuffer.wrap(entries.next().getKey(), 1, Long.BYTES).getLong());
+            }
+
+            for (long height : heights) {
+                byte[] hash = canonicalHash.apply(height);
+                pruneBlock(hash == null ? null : ByteArrayWrapper.wrap(hash), height);
+            }
+
+            if (!heights.isEmpty()) {
+                LOG.info("Pruned {} journaled block heights up to block {}.", heights.size(), blockNumber);
             }
         } finally {
             lock.writeLock().unlock();
         }
     }
 
-    private void rollbackForkBlocks(long blockNum) {
-        for (Updates updates : new ArrayList<>(blockUpdates.values())) {
-            if (updates.blockNumber == blockNum) {
-                rollback(updates.blockHeader);
+    private void pruneBlock(ByteArrayWrapper blockHash, long blockNumber) {
+        byte[] updatesKey = blockHash == null ? null : updatesKey(blockHash, blockNumber);
+        Optional<byte[]> encoding = updatesKey == null ? Optional.empty() : journal.get(updatesKey);
+
+        if (encoding.isPresent()) {
+            Updates updates = Updates.decode(encoding.get());
+            for (ByteArrayWrapper insertedKey : updates.insertedKeys) {
+                decRef(insertedKey).dbRef = true;
             }
+
+            List<byte[]> batchRemove = new ArrayList<>();
+            for (ByteArrayWrapper key : updates.deletedKeys) {
+                Ref ref = getRef(key);
+                if (ref == null || ref.journalRefs == 0) {
+                    batchRemove.add(key.toBytes());
+                } else {
+                    ref.dbRef = false;
+                    dirtyRefs.put(key, ref);
+                }
+            }
+            src.deleteBatch(batchRemove);
+            pruneListener.accept(batchRemove);
+            journal.delete(updatesKey);
+        }
+
+        if (encoding.isPresent() || blockHash == null) {
+            rollbackForkBlocks(blockNumber, updatesKey);
+            writeJournal();
         }
     }
 
-    private void rollback(ByteArrayWrapper blockHashW) {
-        Updates updates = blockUpdates.remove(blockHashW);
+    private void rollbackForkBlocks(long blockNum, byte[] prunedKey) {
+        List<Map.Entry<byte[], byte[]>> forks = new ArrayList<>();
+        Iterator<Map.Entry<byte[], byte[]>> entries = journal.iteratePrefix(updatesPrefix(blockNum));
+        while (entries.hasNext()) {
+            Map.Entry<byte[], byte[]> entry = entries.next();
+            // the deletion of the pruned block is not yet committed to the journal
+            if (prunedKey == null || !Arrays.equals(entry.getKey(), prunedKey)) {
+                forks.add(entry);
+            }
+        }
+
+        for (Map.Entry<byte[], byte[]> fork : forks) {
+            rollback(fork.getKey(), Updates.decode(fork.getValue()));
+        }
+    }
+
+    private void rollback(byte[] updatesKey, Updates updates) {
         List<byte[]> batchRemove = new ArrayList<>();
         for (ByteArrayWrapper insertedKey : updates.insertedKeys) {
             Ref ref = decRef(insertedKey);
@@ -275,14 +484,31 @@ public class JournalPruneDataSource implements ByteArrayKeyValueStore {
             }
         }
         src.deleteBatch(batchRemove);
+        pruneListener.accept(batchRemove);
+        journal.delete(updatesKey);
     }
 
-    public Map<ByteArrayWrapper, Ref> getRefCount() {
-        return refCount;
-    }
-
-    public LinkedHashMap<ByteArrayWrapper, Updates> getBlockUpdates() {
-        return blockUpdates;
+    /**
+     * Returns the hashes of the blocks with journaled updates mapped to their block numbers, in
+     * block number order. Reads the whole journal, so it should only be used for testing.
+     */
+    public Map<ByteArrayWrapper, Long> getBlockUpdates() {
+        lock.readLock().lock();
+        try {
+            Map<ByteArrayWrapper, Long> blocks = new LinkedHashMap<>();
+            Iterator<Map.Entry<byte[], byte[]>> entries =
+                    journal.iteratePrefix(new byte[] {UPDATES_PREFIX});
+            while (entries.hasNext()) {
+                byte[] key = entries.next().getKey();
+                long number = ByteBuffer.wrap(key, 1, Long.BYTES).getLong();
+                blocks.put(
+                        ByteArrayWrapper.wrap(Arrays.copyOfRange(key, 1 + Long.BYTES, key.length)),
+                        number);
+            }
+            return blocks;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     public int getDeletedKeysCount() {
@@ -316,6 +542,19 @@ public class JournalPruneDataSource implements ByteArrayKeyValueStore {
         }
     }
 
+    @Override
+    public List<byte[]> getBatch(Collection<byte[]> keys) {
+        lock.readLock().lock();
+        try {
+            return src.getBatch(keys);
+        } catch (Exception e) {
+            LOG.error("Could not get keys due to ", e);
+            throw e;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
     @Override
     public Iterator<byte[]> keys() {
         lock.readLock().lock();
@@ -1,5 +1,10 @@
 package org.aion.db.store;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import org.aion.db.impl.ByteArrayKeyValueDatabase;
 import org.aion.util.types.ByteArrayWrapper;
 import org.apache.commons.collections4.map.LRUMap;
@@ -42,4 +47,36 @@ class LruDataSource<V> extends ObjectDataSource<V> {
             return val;
         }
     }
+
+    @Override
+    public List<V> getBatch(Collection<byte[]> keys) {
+        List<ByteArrayWrapper> wrappedKeys = new ArrayList<>(keys.size());
+        Map<ByteArrayWrapper, V> found = new HashMap<>();
+        List<ByteArrayWrapper> missing = new ArrayList<>();
+        for (byte[] key : keys) {
+            ByteArrayWrapper wrappedKey = ByteArrayWrapper.wrap(key);
+            wrappedKeys.add(wrappedKey);
+            if (cache.containsKey(wrappedKey)) {
+                found.put(wrappedKey, cache.get(wrappedKey));
+            } else {
+                missing.add(wrappedKey);
+            }
+        }
+
+        // the entries missing from the cache are loaded with a single database request
+        if (!missing.isEmpty()) {
+            Map<ByteArrayWrapper, V> loaded = getBatchFromDatabase(missing);
+            for (ByteArrayWrapper key : missing) {
+                V val = loaded.get(key);
+                cache.put(key, val);
+                found.put(key, val);
+            }
+        }
+
+        List<V> objects = new ArrayList<>(wrappedKeys.size());
+        for (ByteArrayWrapper key : wrappedKeys) {
+            objects.add(found.get(key));
+        }
+        return objects;
+    }
 }
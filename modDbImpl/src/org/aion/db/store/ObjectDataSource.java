@@ -1,7 +1,13 @@
 package org.aion.db.store;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.aion.db.impl.ByteArrayKeyValueDatabase;
+import org.aion.util.types.ByteArrayWrapper;
 
 /**
  * Object Datasource.
@@ -46,6 +52,35 @@ class ObjectDataSource<V> implements ObjectStore<V> {
         return val.map(serializer::deserialize).orElse(null);
     }
 
+    @Override
+    public List<V> getBatch(Collection<byte[]> keys) {
+        List<byte[]> values = src.getBatch(keys);
+        List<V> objects = new ArrayList<>(values.size());
+        for (byte[] value : values) {
+            objects.add(value == null ? null : serializer.deserialize(value));
+        }
+        return objects;
+    }
+
+    // used by inheriting classes when loading multiple entries from the database
+    protected Map<ByteArrayWrapper, V> getBatchFromDatabase(Iterable<? extends ByteArrayWrapper> keys) {
+        List<byte[]> rawKeys = new ArrayList<>();
+        for (ByteArrayWrapper key : keys) {
+            rawKeys.add(key.toBytes());
+        }
+
+        // only the entries present in the database are returned
+        Map<ByteArrayWrapper, V> objects = new HashMap<>();
+        List<byte[]> values = src.getBatch(rawKeys);
+        for (int i = 0; i < rawKeys.size(); i++) {
+            byte[] value = values.get(i);
+            if (value != null) {
+                objects.put(ByteArrayWrapper.wrap(rawKeys.get(i)), serializer.deserialize(value));
+            }
+        }
+        return objects;
+    }
+
     /** Returns the underlying cache source. */
     protected ByteArrayKeyValueDatabase getSrc() {
         return src;
@@ -1,6 +1,8 @@
 package org.aion.db.store;
 
 import java.io.Closeable;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * A key value store that interacts with objects that are serialized to byte arrays and deserialized
@@ -35,6 +37,16 @@ public interface ObjectStore<V> extends Closeable {
      */
     V get(byte[] key);
 
+    /**
+     * Retrieves the objects stored at the given keys, reading the entries missing from the cache (if
+     * any) with a single request to the underlying database.
+     *
+     * @return a list containing the objects in the iteration order of the given keys, where the
+     *     object is {@code null} if the key is not present in the database
+     * @apiNote Values that have been added with {@link #put(byte[], Object)} or deleted with {@link #delete(byte[])} are not guaranteed to be retrieved until {@link #commit()} is called.
+     */
+    List<V> getBatch(Collection<byte[]> keys);
+
     /** Returns {@code true} to indicate that the database is open, {@code false} otherwise. */
     boolean isOpen();
 }
@@ -5,6 +5,7 @@ import static org.aion.db.impl.DatabaseFactory.Props.DB_NAME;
 
 import com.google.common.truth.Truth;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -223,6 +224,22 @@ public class AccessWithExceptionTest {
         db.get(null);
     }
 
+    @Test(expected = NullPointerException.class)
+    @Parameters(method = "databaseInstanceDefinitions")
+    public void testGetBatchWithNullKey(Properties dbDef) {
+        // create database
+        dbDef.setProperty(DB_NAME, DatabaseTestUtils.dbName + DatabaseTestUtils.getNext());
+        ByteArrayKeyValueDatabase db = DatabaseFactory.connect(dbDef, log);
+        assertThat(db.open()).isTrue();
+
+        if (VERBOSE) {
+            System.out.println(db.toString());
+        }
+
+        // attempt getBatch with null key
+        db.getBatch(Arrays.asList(DatabaseTestUtils.randomBytes(32), null));
+    }
+
     @Test(expected = NullPointerException.class)
     @Parameters(method = "databaseInstanceDefinitions")
     public void testPutToBatchWithNullKey(Properties dbDef) {
@@ -758,6 +758,124 @@ public class DriverBaseTest {
         assertThat(keys.hasNext()).isFalse();
     }
 
+    @Test
+    public void testGetBatch() {
+        // missing keys
+        List<byte[]> values = db.getBatch(List.of(k1, k2, k3));
+        assertThat(db.isLocked()).isFalse();
+        assertThat(values.size()).isEqualTo(3);
+        assertThat(values.get(0)).isNull();
+        assertThat(values.get(1)).isNull();
+        assertThat(values.get(2)).isNull();
+
+        // checking after put
+        db.put(k1, v1);
+        db.put(k3, v3);
+        db.commit();
+
+        values = db.getBatch(List.of(k3, k2, k1, k3));
+        assertThat(db.isLocked()).isFalse();
+        assertThat(values.size()).isEqualTo(4);
+        assertThat(values.get(0)).isEqualTo(v3);
+        assertThat(values.get(1)).isNull();
+        assertThat(values.get(2)).isEqualTo(v1);
+        assertThat(values.get(3)).isEqualTo(v3);
+
+        // empty batch
+        assertThat(db.getBatch(new ArrayList<>())).isEmpty();
+    }
+
+    private static List<byte[]> iteratedKeys(Iterator<Map.Entry<byte[], byte[]>> entries) {
+        List<byte[]> keys = new ArrayList<>();
+        while (entries.hasNext()) {
+            Map.Entry<byte[], byte[]> entry = entries.next();
+            keys.add(entry.getKey());
+        }
+        return keys;
+    }
+
+    @Test
+    public void testIterate() {
+        // empty database
+        assertThat(db.iterate(null, null).hasNext()).isFalse();
+        assertThat(db.isLocked()).isFalse();
+
+        // more entries than read in a single batch by the native implementations
+        Map<byte[], byte[]> ops = new HashMap<>();
+        List<byte[]> sorted = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            // the first byte covers both positive and negative signed values
+            byte[] key = new byte[] {(byte) (i % 256), (byte) (i / 256)};
+            ops.put(key, ("value" + i).getBytes());
+            sorted.add(key);
+        }
+        db.putBatch(ops);
+        sorted.sort(AbstractDB::compare);
+
+        // all entries, in unsigned lexicographic order, with their values
+        Iterator<Map.Entry<byte[], byte[]>> entries = db.iterate(null, null);
+        assertThat(db.isLocked()).isFalse();
+        int index = 0;
+        while (entries.hasNext()) {
+            Map.Entry<byte[], byte[]> entry = entries.next();
+            assertThat(entry.getKey()).isEqualTo(sorted.get(index));
+            assertThat(entry.getValue()).isEqualTo(db.get(entry.getKey()).get());
+            index++;
+        }
+        assertThat(index).isEqualTo(sorted.size());
+
+        // bounded range: from inclusive, to exclusive
+        List<byte[]> keys = iteratedKeys(db.iterate(sorted.get(100), sorted.get(500)));
+        assertThat(keys.size()).isEqualTo(400);
+        for (int i = 0; i < keys.size(); i++) {
+            assertThat(keys.get(i)).isEqualTo(sorted.get(100 + i));
+        }
+
+        // bounds that are not stored keys
+        keys = iteratedKeys(db.iterate(new byte[] {(byte) 0x7f, 0x05}, new byte[] {(byte) 0x80}));
+        assertThat(keys.size()).isEqualTo(0);
+        keys = iteratedKeys(db.iterate(new byte[] {(byte) 0xff, 0x00, 0x00}, null));
+        assertThat(keys.size()).isEqualTo(1);
+        assertThat(keys.get(0)).isEqualTo(new byte[] {(byte) 0xff, 0x01});
+
+        // empty ranges
+        assertThat(db.iterate(sorted.get(10), sorted.get(10)).hasNext()).isFalse();
+        assertThat(db.iterate(sorted.get(20), sorted.get(10)).hasNext()).isFalse();
+        assertThat(db.isLocked()).isFalse();
+    }
+
+    @Test
+    public void testIteratePrefix() {
+        Map<byte[], byte[]> ops = new HashMap<>();
+        ops.put("a".getBytes(), v1);
+        ops.put("ab".getBytes(), v2);
+        ops.put("abc".getBytes(), v3);
+        ops.put("b".getBytes(), v1);
+        ops.put(new byte[] {(byte) 0xff}, v1);
+        ops.put(new byte[] {(byte) 0xff, (byte) 0xff}, v2);
+        db.putBatch(ops);
+
+        List<byte[]> keys = iteratedKeys(db.iteratePrefix("ab".getBytes()));
+        assertThat(db.isLocked()).isFalse();
+        assertThat(keys.size()).isEqualTo(2);
+        assertThat(keys.get(0)).isEqualTo("ab".getBytes());
+        assertThat(keys.get(1)).isEqualTo("abc".getBytes());
+
+        keys = iteratedKeys(db.iteratePrefix("a".getBytes()));
+        assertThat(keys.size()).isEqualTo(3);
+
+        // prefix without upper bound
+        keys = iteratedKeys(db.iteratePrefix(new byte[] {(byte) 0xff}));
+        assertThat(keys.size()).isEqualTo(2);
+        assertThat(keys.get(1)).isEqualTo(new byte[] {(byte) 0xff, (byte) 0xff});
+
+        // empty prefix matches all entries
+        assertThat(iteratedKeys(db.iteratePrefix(new byte[0])).size()).isEqualTo(ops.size());
+
+        assertThat(db.iteratePrefix("c".getBytes()).hasNext()).isFalse();
+        assertThat(db.isLocked()).isFalse();
+    }
+
     @Test
     public void testIsEmpty() {
         assertThat(db.isEmpty()).isTrue();
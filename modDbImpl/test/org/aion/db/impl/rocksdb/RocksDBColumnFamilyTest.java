@@ -0,0 +1,161 @@
+package org.aion.db.impl.rocksdb;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.aion.db.utils.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class RocksDBColumnFamilyTest {
+
+    private static final File testDir = new File(System.getProperty("user.dir"), "tmp");
+    private static final String dbPath = testDir.getAbsolutePath();
+    private static final Logger log = LoggerFactory.getLogger("DB");
+
+    private static final byte[] k1 = new byte[] {1};
+    private static final byte[] k2 = new byte[] {2};
+    private static final byte[] v1 = new byte[] {10};
+    private static final byte[] v2 = new byte[] {20};
+
+    private RocksDBColumnFamily state, block;
+
+    @Before
+    public void setup() {
+        assertThat(FileUtils.deleteRecursively(testDir)).isTrue();
+        assertThat(testDir.mkdirs()).isTrue();
+
+        state = new RocksDBColumnFamily("state", dbPath, log, false, false);
+        block = new RocksDBColumnFamily("block", dbPath, log, false, false);
+        assertThat(state.open()).isTrue();
+        assertThat(block.open()).isTrue();
+    }
+
+    @After
+    public void teardown() {
+        state.close();
+        block.close();
+        assertThat(FileUtils.deleteRecursively(testDir)).isTrue();
+    }
+
+    @Test
+    public void testColumnFamiliesShareOneInstance() {
+        assertThat(SharedRocksDB.getOpenInstance(dbPath).isPresent()).isTrue();
+        assertThat(state.isCreatedOnDisk()).isTrue();
+
+        state.putBatch(Map.of(k1, v1));
+        block.putBatch(Map.of(k1, v2));
+
+        // the same key is stored independently in each column family
+        assertThat(state.get(k1).get()).isEqualTo(v1);
+        assertThat(block.get(k1).get()).isEqualTo(v2);
+        assertThat(state.getBatch(List.of(k1, k2))).containsExactly(v1, null).inOrder();
+
+        // the instance remains open until the last column family is closed
+        state.close();
+        assertThat(SharedRocksDB.getOpenInstance(dbPath).isPresent()).isTrue();
+        assertThat(block.get(k1).get()).isEqualTo(v2);
+        block.close();
+        assertThat(SharedRocksDB.getOpenInstance(dbPath).isPresent()).isFalse();
+
+        // data persists after reopening
+        assertThat(state.open()).isTrue();
+        assertThat(block.open()).isTrue();
+        assertThat(state.get(k1).get()).isEqualTo(v1);
+        assertThat(block.get(k1).get()).isEqualTo(v2);
+    }
+
+    @Test
+    public void testAtomicWrite() throws Exception {
+        SharedRocksDB shared = SharedRocksDB.getOpenInstance(dbPath).get();
+        ExecutorService otherThread = Executors.newSingleThreadExecutor();
+
+        shared.startAtomicWrite();
+        try {
+            state.put(k1, v1);
+            state.commit();
+            block.putBatch(Map.of(k2, v2));
+
+            // nested sections are committed by the outermost call
+            shared.startAtomicWrite();
+            block.delete(k2);
+            shared.commitAtomicWrite();
+
+            // the owning thread sees the uncommitted writes
+            assertThat(state.get(k1).get()).isEqualTo(v1);
+            assertThat(state.isEmpty()).isFalse();
+            assertThat(state.keys().next()).isEqualTo(k1);
+            assertThat(block.get(k2).isPresent()).isFalse();
+
+            // other threads do not
+            Optional<byte[]> value = otherThread.submit(() -> state.get(k1)).get();
+            assertThat(value.isPresent()).isFalse();
+        } finally {
+            shared.commitAtomicWrite();
+        }
+
+        Optional<byte[]> value = otherThread.submit(() -> state.get(k1)).get();
+        assertThat(value.get()).isEqualTo(v1);
+        assertThat(block.isEmpty()).isTrue();
+        otherThread.shutdown();
+    }
+
+    @Test
+    public void testDiscardAtomicWrite() {
+        SharedRocksDB shared = SharedRocksDB.getOpenInstance(dbPath).get();
+        block.putBatch(Map.of(k2, v2));
+
+        shared.startAtomicWrite();
+        state.put(k1, v1);
+        state.commit();
+        block.delete(k2);
+        block.commit();
+        shared.discardAtomicWrite();
+
+        assertThat(state.get(k1).isPresent()).isFalse();
+        assertThat(block.get(k2).get()).isEqualTo(v2);
+
+        // a discarded nested atomic write discards the outermost one
+        shared.startAtomicWrite();
+        state.put(k1, v1);
+        state.commit();
+        shared.startAtomicWrite();
+        shared.discardAtomicWrite();
+        shared.commitAtomicWrite();
+
+        assertThat(state.get(k1).isPresent()).isFalse();
+
+        // the following atomic writes are applied
+        shared.startAtomicWrite();
+        state.put(k1, v1);
+        state.commit();
+        shared.commitAtomicWrite();
+
+        assertThat(state.get(k1).get()).isEqualTo(v1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCommitWithoutAtomicWrite() {
+        SharedRocksDB.getOpenInstance(dbPath).get().commitAtomicWrite();
+    }
+
+    @Test
+    public void testDrop() {
+        state.putBatch(Map.of(k1, v1));
+        block.putBatch(Map.of(k1, v2));
+
+        state.drop();
+
+        assertThat(state.isOpen()).isTrue();
+        assertThat(state.isEmpty()).isTrue();
+        assertThat(block.get(k1).get()).isEqualTo(v2);
+    }
+}
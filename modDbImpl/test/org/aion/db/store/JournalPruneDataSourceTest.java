@@ -6,10 +6,12 @@ import static org.junit.Assert.assertTrue;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -1627,4 +1629,119 @@ public class JournalPruneDataSourceTest {
         assertThat(source_db.get(k5).get()).isEqualTo(v5);
         assertThat(source_db.get(k6).get()).isEqualTo(v6);
     }
+
+    @Test
+    public void pruningTest_wPersistedJournal() {
+        MockDB journal = new MockDB("journal", log);
+        assertThat(journal.open()).isTrue();
+        db = new JournalPruneDataSource(source_db, journal, log);
+        db.setPruneEnabled(true);
+
+        // block 0
+        db.put(k1, v1);
+        db.put(k2, v2);
+        db.commit();
+        db.storeBlockChanges(b0, 0);
+
+        // block 1
+        db.put(k3, v3);
+        db.delete(k2);
+        db.commit();
+        db.storeBlockChanges(b1, 1);
+
+        // restart using the same journal
+        db = new JournalPruneDataSource(source_db, journal, log);
+        db.setPruneEnabled(true);
+        assertThat(db.getBlockUpdates().size()).isEqualTo(2);
+
+        db.prune(b0, 0);
+        assertThat(db.getBlockUpdates().size()).isEqualTo(1);
+        assertThat(source_db.get(k2).get()).isEqualTo(v2);
+
+        // the delete from block 1 is applied after the restart
+        db.prune(b1, 1);
+        assertThat(db.getBlockUpdates().size()).isEqualTo(0);
+        assertThat(source_db.get(k1).get()).isEqualTo(v1);
+        assertThat(source_db.get(k2).isPresent()).isFalse();
+        assertThat(source_db.get(k3).get()).isEqualTo(v3);
+
+        // the reference counts were removed from the journal
+        assertThat(journal.isEmpty()).isTrue();
+        journal.close();
+    }
+
+    @Test
+    public void pruningTest_pruneUpTo() {
+        db.setPruneEnabled(true);
+
+        // block b0
+        db.put(k1, v1);
+        db.put(k2, v2);
+        db.commit();
+        db.storeBlockChanges(b0, 0);
+
+        // block b1
+        db.put(k3, v3);
+        db.delete(k2);
+        db.commit();
+        db.storeBlockChanges(b1, 1);
+
+        // block b2 : note same level as block b1
+        db.put(k4, v4);
+        db.commit();
+        db.storeBlockChanges(b2, 1);
+
+        // block b3
+        db.put(k5, v5);
+        db.commit();
+        db.storeBlockChanges(b3, 2);
+        assertThat(db.getBlockUpdates().size()).isEqualTo(4);
+
+        Map<Long, byte[]> mainChain = Map.of(0L, b0.toBytes(), 1L, b1.toBytes());
+        db.pruneUpTo(1, mainChain::get);
+
+        // only block b3 remains in the journal
+        assertThat(db.getBlockUpdates().size()).isEqualTo(1);
+        assertThat(db.getBlockUpdates().get(b3)).isEqualTo(2L);
+
+        assertThat(count(source_db.keys())).isEqualTo(3);
+        assertThat(source_db.get(k1).get()).isEqualTo(v1);
+        assertThat(source_db.get(k2).isPresent()).isFalse();
+        assertThat(source_db.get(k3).get()).isEqualTo(v3);
+        assertThat(source_db.get(k4).isPresent()).isFalse();
+        assertThat(source_db.get(k5).get()).isEqualTo(v5);
+    }
+
+    @Test
+    public void pruningTest_notifiesPruneListener() {
+        db.setPruneEnabled(true);
+        Set<ByteArrayWrapper> removed = new HashSet<>();
+        db.setPruneListener(keys -> keys.forEach(key -> removed.add(ByteArrayWrapper.wrap(key))));
+
+        // block b0
+        db.put(k1, v1);
+        db.put(k2, v2);
+        db.commit();
+        db.storeBlockChanges(b0, 0);
+
+        // block b1
+        db.put(k3, v3);
+        db.delete(k2);
+        db.commit();
+        db.storeBlockChanges(b1, 1);
+
+        // block b2 : note same level as block b1
+        db.put(k4, v4);
+        db.commit();
+        db.storeBlockChanges(b2, 1);
+
+        db.prune(b0, 0);
+        assertThat(removed).isEmpty();
+
+        // the key deleted by b1 and the key inserted by the fork block b2 are removed
+        db.prune(b1, 1);
+        assertThat(removed).containsExactly(ByteArrayWrapper.wrap(k2), ByteArrayWrapper.wrap(k4));
+        assertThat(source_db.get(k2).isPresent()).isFalse();
+        assertThat(source_db.get(k4).isPresent()).isFalse();
+    }
 }
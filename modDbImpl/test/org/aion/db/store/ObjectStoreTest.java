@@ -0,0 +1,83 @@
+package org.aion.db.store;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import org.aion.db.impl.mockdb.MockDB;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Tests for the {@link ObjectStore} implementations built by {@link Stores}. */
+@RunWith(JUnitParamsRunner.class)
+public class ObjectStoreTest {
+
+    public static final Logger log = LoggerFactory.getLogger("DB");
+
+    // test serializer
+    private static final Serializer<String> STRING_SERIALIZER =
+            new Serializer<>() {
+
+                @Override
+                public byte[] serialize(String value) {
+                    return value.getBytes();
+                }
+
+                @Override
+                public String deserialize(byte[] bytes) {
+                    return new String(bytes);
+                }
+            };
+
+    /** @return the object stores with no cache, an LRU cache and a Caffeine cache */
+    private Object[] stores() {
+        MockDB database = new MockDB("test_database", log);
+        database.open();
+        return new Object[] {
+            new Object[] {database, Stores.newObjectStore(database, STRING_SERIALIZER)},
+            new Object[] {database, Stores.newObjectStoreWithCache(database, STRING_SERIALIZER, 10, false)},
+            new Object[] {database, Stores.newObjectStoreWithCache(database, STRING_SERIALIZER, 10, true)},
+            new Object[] {database, Stores.newObjectStoreWithCache(database, STRING_SERIALIZER, 500, false)},
+            new Object[] {database, Stores.newObjectStoreWithDebugCache(database, STRING_SERIALIZER, 500, log, true)}
+        };
+    }
+
+    @Test
+    @Parameters(method = "stores")
+    public void testGetBatch(MockDB database, ObjectStore<String> store) {
+        for (int i = 0; i < 20; i += 2) {
+            store.put(("key" + i).getBytes(), "value" + i);
+        }
+        store.commit();
+
+        // some of the entries are already cached
+        assertThat(store.get("key4".getBytes())).isEqualTo("value4");
+        assertThat(store.get("key5".getBytes())).isNull();
+
+        List<byte[]> keys = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            keys.add(("key" + i).getBytes());
+        }
+        List<String> values = store.getBatch(keys);
+        assertThat(values.size()).isEqualTo(keys.size());
+        for (int i = 0; i < 20; i++) {
+            if (i % 2 == 0) {
+                assertThat(values.get(i)).isEqualTo("value" + i);
+            } else {
+                assertThat(values.get(i)).isNull();
+            }
+        }
+
+        // the batch results match the single key retrieval
+        database.deleteAndCommit("key2".getBytes());
+        database.putAndCommit("key3".getBytes(), "value3".getBytes());
+        values = store.getBatch(keys);
+        for (int i = 0; i < 20; i++) {
+            assertThat(values.get(i)).isEqualTo(store.get(keys.get(i)));
+        }
+    }
+}
@@ -1,6 +1,20 @@
 package org.aion.evtmgr;
 
+import java.util.List;
+
 /** @author jay */
 public interface IEventCallback {
     void onEvent(IEvent e);
+
+    /**
+     * Receives consecutive events of the same event and callback type in a single call. Delivers
+     * the events one by one unless overridden.
+     *
+     * @param events the events in the order they were received
+     */
+    default void onEvents(List<IEvent> events) {
+        for (IEvent e : events) {
+            onEvent(e);
+        }
+    }
 }
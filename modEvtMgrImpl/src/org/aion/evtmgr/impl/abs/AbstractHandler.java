@@ -1,12 +1,16 @@
 package org.aion.evtmgr.impl.abs;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import org.aion.evtmgr.IEvent;
 import org.aion.evtmgr.IEventCallback;
 import org.aion.evtmgr.impl.evt.EventDummy;
@@ -19,53 +23,85 @@ public abstract class AbstractHandler {
 
     protected static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.EVTMGR.toString());
 
+    /** The behaviour of {@link #onEvent(IEvent)} when the queue of the handler is full. */
+    public enum OverflowPolicy {
+        /**
+         * Waits for the dispatcher to make room for the new event. Meant only for handlers whose
+         * producers may wait. The events posted by the dispatcher itself, e.g. from a callback,
+         * are handled as with {@link #DROP_OLDEST} since the dispatcher cannot make room while
+         * waiting.
+         */
+        BLOCK,
+        /** Discards the oldest queued event to make room for the new event. */
+        DROP_OLDEST,
+        /**
+         * Replaces the oldest queued event of the same event and callback type with the new event,
+         * falling back to {@link #DROP_OLDEST} when there is no such event.
+         */
+        COALESCE
+    }
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 50_000;
+    /**
+     * The policy of the handlers whose producers must not wait, such as the block and transaction
+     * handlers. Under load these handlers drop queued events with only a periodic warning: a
+     * replaced block event is a block that the callbacks never see, so the API filters miss its
+     * logs and transactions.
+     */
+    public static final OverflowPolicy DEFAULT_OVERFLOW_POLICY = OverflowPolicy.COALESCE;
+
+    // the maximum number of queued events taken by the dispatcher at once
+    private static final int MAX_DISPATCH_BATCH = 1_000;
+    // how often a blocked producer checks if the handler was stopped
+    private static final long BLOCKED_OFFER_TIMEOUT_MS = 100L;
+
+    /** An event with the time it was queued at. */
+    private static final class QueuedEvent {
+        private final IEvent event;
+        private final long queuedAt;
+
+        private QueuedEvent(IEvent event) {
+            this.event = event;
+            this.queuedAt = System.nanoTime();
+        }
+    }
+
     private Set<IEvent> events = new HashSet<>();
-    // TODO AKI-548: this queue should probably be bounded
-    private BlockingQueue<IEvent> queue = new LinkedBlockingQueue<>();
+    private final BlockingDeque<QueuedEvent> queue;
+    private final OverflowPolicy overflowPolicy;
     private List<IEventCallback> eventCallback = new CopyOnWriteArrayList<>();
     private AtomicBoolean interrupt = new AtomicBoolean(false);
     private boolean interrupted = false;
     private int handlerType;
 
-    protected Thread dispatcher =
-            new Thread(
-                    () -> {
-                        try {
-                            while (!interrupt.get()) {
-                                IEvent e = queue.take();
-                                if (e.getEventType() != EventDummy.getTypeStatic()
-                                        && events.contains(e)) {
-                                    if (LOG.isTraceEnabled()) {
-                                        LOG.trace("dispatcher e[{}]", e.getEventType());
-                                    }
-
-                                    try {
-                                        dispatch(e);
-                                    } catch (Exception ex) {
-                                        LOG.error(
-                                                "Failed to dispatch event: eventType = {}, callbackType = {}, {}",
-                                                e.getEventType(),
-                                                e.getCallbackType(),
-                                                ex.toString());
-                                    }
-                                }
-                            }
-
-                            if (LOG.isInfoEnabled()) {
-                                LOG.info("dispatcher interrupted!");
-                            }
-
-                            queue.clear();
-                            interrupted = true;
-                        } catch (InterruptedException e) {
-                            LOG.error("Handler interrupt exception ", e);
-                        } catch (Error e) {
-                            LOG.error("Handler interrupt error ", e);
-                        }
-                    });
+    // metrics
+    private final AtomicLong droppedEvents = new AtomicLong(0);
+    private final AtomicLong dispatchedEvents = new AtomicLong(0);
+    private final AtomicLong totalDispatchLatency = new AtomicLong(0);
+    private final AtomicLong maxDispatchLatency = new AtomicLong(0);
+
+    protected Thread dispatcher = new Thread(this::dispatchLoop);
 
     public AbstractHandler(int value) {
+        this(value, DEFAULT_QUEUE_CAPACITY, DEFAULT_OVERFLOW_POLICY);
+    }
+
+    /**
+     * @param value the handler type
+     * @param queueCapacity the maximum number of events waiting to be dispatched
+     * @param overflowPolicy the behaviour when an event is received while the queue is full
+     */
+    public AbstractHandler(int value, int queueCapacity, OverflowPolicy overflowPolicy) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("The queue capacity must be positive.");
+        }
+        if (overflowPolicy == null) {
+            throw new NullPointerException();
+        }
+
         handlerType = value;
+        queue = new LinkedBlockingDeque<>(queueCapacity);
+        this.overflowPolicy = overflowPolicy;
     }
 
     public synchronized boolean addEvent(IEvent _evt) {
@@ -89,11 +125,8 @@ public abstract class AbstractHandler {
     public void stop() throws InterruptedException {
 
         interrupt.set(true);
-        try {
-            this.queue.add(new EventDummy());
-        } catch (Exception e) {
-            LOG.error("stop exception ", e);
-        }
+        // wakes up the dispatcher if waiting, a full queue means it is not waiting
+        this.queue.offer(new QueuedEvent(new EventDummy()));
 
         if (LOG.isInfoEnabled()) {
             LOG.info("Handler {} dispatcher interrupting..", this.getType());
@@ -116,18 +149,101 @@ public abstract class AbstractHandler {
         }
     }
 
-    private <E extends IEvent> void dispatch(E event) {
+    private void dispatchLoop() {
+        try {
+            List<QueuedEvent> taken = new ArrayList<>();
+            while (!interrupt.get()) {
+                taken.add(queue.take());
+                queue.drainTo(taken, MAX_DISPATCH_BATCH - 1);
+                dispatchAll(taken);
+                taken.clear();
+            }
+
+            if (LOG.isInfoEnabled()) {
+                LOG.info("dispatcher interrupted!");
+            }
+
+            queue.clear();
+            interrupted = true;
+        } catch (InterruptedException e) {
+            LOG.error("Handler interrupt exception ", e);
+        } catch (Error e) {
+            LOG.error("Handler interrupt error ", e);
+        }
+    }
+
+    /**
+     * Dispatches the given events in order, delivering each run of consecutive events with the
+     * same event and callback type to the callbacks as a single batch.
+     */
+    private void dispatchAll(List<QueuedEvent> taken) {
+        List<IEvent> batch = new ArrayList<>();
+        long oldestQueuedAt = 0;
+
+        for (QueuedEvent queued : taken) {
+            IEvent e = queued.event;
+            if (e.getEventType() == EventDummy.getTypeStatic() || !isRegistered(e)) {
+                continue;
+            }
+
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("dispatcher e[{}]", e.getEventType());
+            }
+
+            if (!batch.isEmpty() && !batch.get(0).equals(e)) {
+                dispatchBatch(batch, oldestQueuedAt);
+                batch = new ArrayList<>();
+            }
+            if (batch.isEmpty()) {
+                oldestQueuedAt = queued.queuedAt;
+            }
+            batch.add(e);
+        }
+
+        if (!batch.isEmpty()) {
+            dispatchBatch(batch, oldestQueuedAt);
+        }
+    }
+
+    private synchronized boolean isRegistered(IEvent e) {
+        return events.contains(e);
+    }
+
+    private void dispatchBatch(List<IEvent> batch, long oldestQueuedAt) {
+        IEvent first = batch.get(0);
+        try {
+            dispatch(first, batch);
+        } catch (Exception ex) {
+            LOG.error(
+                    "Failed to dispatch event: eventType = {}, callbackType = {}, {}",
+                    first.getEventType(),
+                    first.getCallbackType(),
+                    ex.toString());
+        }
+
+        long latency = System.nanoTime() - oldestQueuedAt;
+        dispatchedEvents.addAndGet(batch.size());
+        totalDispatchLatency.addAndGet(latency * batch.size());
+        maxDispatchLatency.accumulateAndGet(latency, Math::max);
+    }
+
+    private void dispatch(IEvent event, List<IEvent> batch) {
         if (this.typeEqual(event.getEventType())) {
 
             if (LOG.isTraceEnabled()) {
                 LOG.trace(
-                        "CB size:[{}] cbType:[{}]",
+                        "CB size:[{}] cbType:[{}] batch:[{}]",
                         this.eventCallback.size(),
-                        event.getCallbackType());
+                        event.getCallbackType(),
+                        batch.size());
             }
 
             for (IEventCallback cb : this.eventCallback) {
-                cb.onEvent(event);
+                if (batch.size() == 1) {
+                    cb.onEvent(event);
+                } else {
+                    cb.onEvents(batch);
+                }
             }
         }
     }
@@ -149,13 +265,105 @@ public abstract class AbstractHandler {
 
     public void onEvent(IEvent _evt) {
         try {
-            this.queue.add(_evt);
+            QueuedEvent queued = new QueuedEvent(_evt);
+            if (queue.offer(queued)) {
+                return;
+            }
+
+            OverflowPolicy policy = overflowPolicy;
+            if (policy == OverflowPolicy.BLOCK && Thread.currentThread() == dispatcher) {
+                policy = OverflowPolicy.DROP_OLDEST;
+            }
+
+            switch (policy) {
+                case BLOCK:
+                    while (!queue.offer(queued, BLOCKED_OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                        if (interrupt.get()) {
+                            return;
+                        }
+                    }
+                    break;
+                case COALESCE:
+                    while (!queue.offer(queued)) {
+                        if (removeOldestLike(_evt) || queue.poll() != null) {
+                            eventDropped();
+                        }
+                    }
+                    break;
+                case DROP_OLDEST:
+                default:
+                    while (!queue.offer(queued)) {
+                        if (queue.poll() != null) {
+                            eventDropped();
+                        }
+                    }
+                    break;
+            }
+        } catch (InterruptedException e) {
+            LOG.error("onEvent interrupted! ", e);
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             LOG.error("onEvent exception! ", e);
         }
     }
 
+    /** Removes the oldest queued event with the same event and callback type as the given one. */
+    private boolean removeOldestLike(IEvent evt) {
+        Iterator<QueuedEvent> it = queue.iterator();
+        while (it.hasNext()) {
+            if (evt.equals(it.next().event)) {
+                it.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void eventDropped() {
+        long dropped = droppedEvents.incrementAndGet();
+        if (dropped % 1_000 == 1) {
+            LOG.warn(
+                    "Handler {} queue is full, {} events dropped so far with the {} policy.",
+                    this.getType(),
+                    dropped,
+                    overflowPolicy);
+        }
+    }
+
     public int getType() {
         return handlerType;
     }
+
+    /** @return the number of events waiting to be dispatched */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /** @return the number of events discarded due to the overflow policy */
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    /** @return the number of events delivered to the callbacks */
+    public long getDispatchedEvents() {
+        return dispatchedEvents.get();
+    }
+
+    /**
+     * @return the average time in nanoseconds from queuing an event until its delivery to all the
+     *     callbacks completed
+     */
+    public long getAverageDispatchLatency() {
+        long dispatched = dispatchedEvents.get();
+        return dispatched == 0 ? 0 : totalDispatchLatency.get() / dispatched;
+    }
+
+    /** @return the maximum dispatch latency in nanoseconds, measured as for the average */
+    public long getMaxDispatchLatency() {
+        return maxDispatchLatency.get();
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
 }
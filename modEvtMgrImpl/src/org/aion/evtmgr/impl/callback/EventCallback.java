@@ -1,5 +1,6 @@
 package org.aion.evtmgr.impl.callback;
 
+import java.util.List;
 import org.aion.evtmgr.IEvent;
 import org.aion.evtmgr.IEventCallback;
 import org.aion.evtmgr.impl.es.EventExecuteService;
@@ -31,4 +32,14 @@ public class EventCallback implements IEventCallback {
             LOG.error("{}", e.toString());
         }
     }
+
+    /** Queues the whole batch for the execute service at once. */
+    @Override
+    public void onEvents(List<IEvent> events) {
+        try {
+            ees.addAll(events);
+        } catch (Exception e) {
+            LOG.error("{}", e.toString());
+        }
+    }
 }
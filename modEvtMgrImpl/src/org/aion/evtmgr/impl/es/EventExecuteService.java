@@ -1,6 +1,7 @@
 package org.aion.evtmgr.impl.es;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -93,6 +94,31 @@ public class EventExecuteService {
         }
     }
 
+    /**
+     * Adds the events accepted by the filter in a single call, for the callbacks receiving the
+     * events of a handler in batches. The events left when the queue becomes full are dropped.
+     *
+     * @return the number of events added
+     */
+    public int addAll(List<IEvent> events) {
+        int added = 0;
+        for (IEvent event : events) {
+            if (event == null) {
+                throw new NullPointerException();
+            }
+
+            int sn = (event.getEventType() << 8) + event.getCallbackType();
+            if (filter.contains(sn)) {
+                if (!callbackEvt.offer(event)) {
+                    LOG.warn("ExecutorService Q is full!");
+                    break;
+                }
+                added++;
+            }
+        }
+        return added;
+    }
+
     public void shutdown() {
         callbackEvt.clear();
         callbackEvt.add(new EventDummy());
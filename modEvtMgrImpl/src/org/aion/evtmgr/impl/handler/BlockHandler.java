@@ -8,7 +8,11 @@ public class BlockHandler extends AbstractHandler implements IHandler {
 
     // Default constructor to set name of the thread, simplifies troubleshooting
     public BlockHandler() {
-        super(TYPE.BLOCK0.getValue());
+        this(DEFAULT_QUEUE_CAPACITY, DEFAULT_OVERFLOW_POLICY);
+    }
+
+    public BlockHandler(int queueCapacity, OverflowPolicy overflowPolicy) {
+        super(TYPE.BLOCK0.getValue(), queueCapacity, overflowPolicy);
         dispatcher.setName("BlkHdr");
     }
 }
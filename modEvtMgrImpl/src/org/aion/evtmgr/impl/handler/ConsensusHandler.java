@@ -8,7 +8,11 @@ public class ConsensusHandler extends AbstractHandler implements IHandler {
 
     // Default constructor to set name of the thread, simplifies troubleshooting
     public ConsensusHandler() {
-        super(TYPE.CONSENSUS.getValue());
+        this(DEFAULT_QUEUE_CAPACITY, OverflowPolicy.BLOCK);
+    }
+
+    public ConsensusHandler(int queueCapacity, OverflowPolicy overflowPolicy) {
+        super(TYPE.CONSENSUS.getValue(), queueCapacity, overflowPolicy);
         dispatcher.setName("ConsHdr");
     }
 }
@@ -7,7 +7,11 @@ import org.aion.evtmgr.impl.abs.AbstractHandler;
 public class MinerHandler extends AbstractHandler implements IHandler {
 
     public MinerHandler() {
-        super(TYPE.MINER0.getValue());
+        this(DEFAULT_QUEUE_CAPACITY, OverflowPolicy.BLOCK);
+    }
+
+    public MinerHandler(int queueCapacity, OverflowPolicy overflowPolicy) {
+        super(TYPE.MINER0.getValue(), queueCapacity, overflowPolicy);
         dispatcher.setName("MinerHdr");
     }
 }
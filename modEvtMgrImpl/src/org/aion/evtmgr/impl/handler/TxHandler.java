@@ -7,7 +7,11 @@ import org.aion.evtmgr.impl.abs.AbstractHandler;
 public class TxHandler extends AbstractHandler implements IHandler {
 
     public TxHandler() {
-        super(TYPE.TX0.getValue());
+        this(DEFAULT_QUEUE_CAPACITY, DEFAULT_OVERFLOW_POLICY);
+    }
+
+    public TxHandler(int queueCapacity, OverflowPolicy overflowPolicy) {
+        super(TYPE.TX0.getValue(), queueCapacity, overflowPolicy);
         dispatcher.setName("TxHdr");
     }
 }
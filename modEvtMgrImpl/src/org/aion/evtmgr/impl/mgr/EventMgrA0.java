@@ -6,6 +6,8 @@ import org.aion.evtmgr.IEvent;
 import org.aion.evtmgr.IEventMgr;
 import org.aion.evtmgr.IHandler;
 import org.aion.evtmgr.impl.abs.AbstractEventMgr;
+import org.aion.evtmgr.impl.abs.AbstractHandler;
+import org.aion.evtmgr.impl.abs.AbstractHandler.OverflowPolicy;
 import org.aion.evtmgr.impl.handler.BlockHandler;
 import org.aion.evtmgr.impl.handler.ConsensusHandler;
 import org.aion.evtmgr.impl.handler.MinerHandler;
@@ -14,6 +16,14 @@ import org.aion.evtmgr.impl.handler.TxHandler;
 /** @author jay */
 public class EventMgrA0 extends AbstractEventMgr implements IEventMgr {
 
+    /** The maximum number of events queued by each handler. */
+    public static final String PROP_QUEUE_CAPACITY = "queue_capacity";
+    /**
+     * The {@link OverflowPolicy} name applied by all the handlers when their queue is full,
+     * replacing the default policy of each handler.
+     */
+    public static final String PROP_OVERFLOW_POLICY = "overflow_policy";
+
     public EventMgrA0(Properties config) {
         super();
 
@@ -21,18 +31,32 @@ public class EventMgrA0 extends AbstractEventMgr implements IEventMgr {
             throw new NullPointerException();
         }
 
-        IHandler txHdr = new TxHandler();
+        int queueCapacity =
+                Integer.parseInt(
+                        config.getProperty(
+                                PROP_QUEUE_CAPACITY,
+                                String.valueOf(AbstractHandler.DEFAULT_QUEUE_CAPACITY)));
+        // the configured policy applies to all the handlers, otherwise the consensus and miner
+        // events, produced by the miner and API threads which may wait, are never dropped
+        String configuredPolicy = config.getProperty(PROP_OVERFLOW_POLICY);
+        OverflowPolicy overflowPolicy =
+                configuredPolicy == null
+                        ? AbstractHandler.DEFAULT_OVERFLOW_POLICY
+                        : OverflowPolicy.valueOf(configuredPolicy.toUpperCase());
+        OverflowPolicy waitingPolicy =
+                configuredPolicy == null ? OverflowPolicy.BLOCK : overflowPolicy;
+
+        IHandler txHdr = new TxHandler(queueCapacity, overflowPolicy);
         this.handlers.put(txHdr, txHdr);
 
-        IHandler consHdr = new ConsensusHandler();
+        IHandler consHdr = new ConsensusHandler(queueCapacity, waitingPolicy);
         this.handlers.put(consHdr, consHdr);
 
-        IHandler blkHdr = new BlockHandler();
+        IHandler blkHdr = new BlockHandler(queueCapacity, overflowPolicy);
         this.handlers.put(blkHdr, blkHdr);
 
-        IHandler minerHdr = new MinerHandler();
+        IHandler minerHdr = new MinerHandler(queueCapacity, waitingPolicy);
         this.handlers.put(minerHdr, minerHdr);
-        // setPoolArgs(config);
     }
 
     /*
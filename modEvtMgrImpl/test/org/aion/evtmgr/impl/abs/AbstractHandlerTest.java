@@ -4,6 +4,12 @@ import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertTrue;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.aion.evtmgr.IEvent;
 import org.aion.evtmgr.IEventCallback;
 import org.aion.evtmgr.impl.callback.EventCallback;
 import org.aion.evtmgr.impl.es.EventExecuteService;
@@ -92,4 +98,104 @@ public class AbstractHandlerTest {
     public void testType() {
         assertEquals(BlockHandler.TYPE.BLOCK0.getValue(), handler.getType());
     }
+
+    @Test
+    public void testDropOldest() {
+        AbstractHandler handler = new BlockHandler(2, AbstractHandler.OverflowPolicy.DROP_OLDEST);
+        handler.onEvent(new EventBlock(EventBlock.CALLBACK.ONBLOCK0));
+        handler.onEvent(new EventBlock(EventBlock.CALLBACK.ONTRACE0));
+        handler.onEvent(new EventBlock(EventBlock.CALLBACK.ONBEST0));
+
+        assertEquals(2, handler.getQueueDepth());
+        assertEquals(1, handler.getDroppedEvents());
+    }
+
+    @Test
+    public void testCoalesce() throws InterruptedException {
+        AbstractHandler handler = new BlockHandler(2, AbstractHandler.OverflowPolicy.COALESCE);
+        handler.addEvent(new EventBlock(EventBlock.CALLBACK.ONBLOCK0));
+        handler.addEvent(new EventBlock(EventBlock.CALLBACK.ONBEST0));
+
+        EventBlock best1 = new EventBlock(EventBlock.CALLBACK.ONBEST0);
+        EventBlock block = new EventBlock(EventBlock.CALLBACK.ONBLOCK0);
+        EventBlock best2 = new EventBlock(EventBlock.CALLBACK.ONBEST0);
+        handler.onEvent(best1);
+        handler.onEvent(block);
+        // replaces best1 instead of the oldest event
+        handler.onEvent(best2);
+
+        assertEquals(2, handler.getQueueDepth());
+        assertEquals(1, handler.getDroppedEvents());
+
+        List<IEvent> received = new CopyOnWriteArrayList<>();
+        handler.eventCallback(received::add);
+        handler.start();
+        Thread.sleep(500L);
+        handler.stop();
+
+        assertEquals(2, received.size());
+        assertTrue(received.get(0) == block);
+        assertTrue(received.get(1) == best2);
+    }
+
+    @Test
+    public void testCallbackPostingToItsOwnFullBlockingHandler() throws InterruptedException {
+        AbstractHandler handler = new BlockHandler(1, AbstractHandler.OverflowPolicy.BLOCK);
+        handler.addEvent(new EventBlock(EventBlock.CALLBACK.ONBLOCK0));
+
+        CountDownLatch posted = new CountDownLatch(1);
+        handler.eventCallback(
+                e -> {
+                    if (e.getCallbackType() == EventBlock.CALLBACK.ONBLOCK0.getValue()) {
+                        // the second event does not fit and the dispatcher cannot wait for itself
+                        handler.onEvent(new EventBlock(EventBlock.CALLBACK.ONBEST0));
+                        handler.onEvent(new EventBlock(EventBlock.CALLBACK.ONBEST0));
+                        posted.countDown();
+                    }
+                });
+        handler.start();
+        handler.onEvent(new EventBlock(EventBlock.CALLBACK.ONBLOCK0));
+
+        assertTrue(posted.await(5, TimeUnit.SECONDS));
+        assertEquals(1, handler.getDroppedEvents());
+        handler.stop();
+    }
+
+    @Test
+    public void testBatchedDispatch() throws InterruptedException {
+        AbstractHandler handler = new BlockHandler();
+        handler.addEvent(new EventBlock(EventBlock.CALLBACK.ONBLOCK0));
+        handler.addEvent(new EventBlock(EventBlock.CALLBACK.ONBEST0));
+
+        // consecutive events with the same callback type form a batch
+        for (int i = 0; i < 3; i++) {
+            handler.onEvent(new EventBlock(EventBlock.CALLBACK.ONBLOCK0));
+        }
+        handler.onEvent(new EventBlock(EventBlock.CALLBACK.ONBEST0));
+        // not registered, so not dispatched
+        handler.onEvent(new EventBlock(EventBlock.CALLBACK.ONTRACE0));
+        handler.onEvent(new EventBlock(EventBlock.CALLBACK.ONBLOCK0));
+
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        handler.eventCallback(
+                new IEventCallback() {
+                    @Override
+                    public void onEvent(IEvent e) {
+                        batchSizes.add(1);
+                    }
+
+                    @Override
+                    public void onEvents(List<IEvent> events) {
+                        batchSizes.add(events.size());
+                    }
+                });
+        handler.start();
+        Thread.sleep(500L);
+        handler.stop();
+
+        assertEquals(Arrays.asList(3, 1, 1), batchSizes);
+        assertEquals(5, handler.getDispatchedEvents());
+        assertEquals(0, handler.getQueueDepth());
+        assertTrue(handler.getMaxDispatchLatency() >= handler.getAverageDispatchLatency());
+    }
 }
@@ -2,7 +2,10 @@ package org.aion.evtmgr.impl.callback;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.Arrays;
+import org.aion.evtmgr.IEvent;
 import org.aion.evtmgr.impl.es.EventExecuteService;
+import org.aion.evtmgr.impl.evt.EventDummy;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.junit.Test;
@@ -31,6 +34,18 @@ public class EventCallbackTest {
         EventCallback eventCallback = new EventCallback(null, LOGGER_EVENT);
     }
 
+    @Test
+    public void testOnEventsQueuesTheBatch() {
+        EventCallback eventCallback = new EventCallback(eventExecuteService, LOGGER_EVENT);
+        IEvent first = new EventDummy();
+        IEvent second = new EventDummy();
+
+        eventCallback.onEvents(Arrays.asList(first, second));
+
+        assertEquals(first, eventExecuteService.take());
+        assertEquals(second, eventExecuteService.take());
+    }
+
     @Test(expected = NullPointerException.class)
     public void testNullEvent() {
         EventCallback eventCallback = new EventCallback(eventExecuteService, LOGGER_EVENT);
@@ -4,6 +4,7 @@ import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertTrue;
 
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 import org.aion.evtmgr.IEvent;
@@ -57,6 +58,38 @@ public class EventExecuteServiceTest {
         assertFalse(ees.add(new EventDummy()));
     }
 
+    @Test
+    public void testAddAll() {
+        Set<Integer> filter = new HashSet<>();
+        filter.add((IEvent.TYPE.BLOCK0.getValue() << 8) + EventBlock.CALLBACK.ONBLOCK0.getValue());
+        filter.add(
+                (IEvent.TYPE.TX0.getValue() << 8)
+                        + EventTx.CALLBACK.PENDINGTXSTATECHANGE0.getValue());
+        eventExecuteService.setFilter(filter);
+        IEvent block = new EventBlock(EventBlock.CALLBACK.ONBLOCK0);
+        IEvent tx = new EventTx(EventTx.CALLBACK.PENDINGTXSTATECHANGE0);
+
+        int added =
+                eventExecuteService.addAll(
+                        Arrays.asList(block, new EventBlock(EventBlock.CALLBACK.ONBEST0), tx));
+
+        // the events rejected by the filter are skipped
+        assertEquals(2, added);
+        assertEquals(block, eventExecuteService.take());
+        assertEquals(tx, eventExecuteService.take());
+    }
+
+    @Test
+    public void testAddAllQueueFull() {
+        EventExecuteService ees =
+                new EventExecuteService(100, "test", Thread.NORM_PRIORITY, LOGGER_EVENT);
+        IEvent[] events = new IEvent[150];
+        Arrays.fill(events, new EventDummy());
+
+        assertEquals(100, ees.addAll(Arrays.asList(events)));
+        assertFalse(ees.add(new EventDummy()));
+    }
+
     @Test
     public void testEventNotRecognized() {
         assertFalse(eventExecuteService.add(new EventBlock(EventBlock.CALLBACK.ONBEST0)));
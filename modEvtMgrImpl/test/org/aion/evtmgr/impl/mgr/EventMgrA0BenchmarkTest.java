@@ -0,0 +1,110 @@
+package org.aion.evtmgr.impl.mgr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.aion.evtmgr.IEvent;
+import org.aion.evtmgr.IEventCallback;
+import org.aion.evtmgr.IHandler;
+import org.aion.evtmgr.impl.abs.AbstractHandler;
+import org.aion.evtmgr.impl.evt.EventBlock;
+import org.aion.evtmgr.impl.evt.EventTx;
+import org.junit.Test;
+
+/** Measures the fan-out of events from the event manager to several callbacks. */
+public class EventMgrA0BenchmarkTest {
+
+    private static final int CALLBACKS = 4;
+    private static final int EVENTS = 200_000;
+
+    @Test
+    public void benchmarkFanOut() throws InterruptedException {
+        Properties config = new Properties();
+        config.put(EventMgrA0.PROP_QUEUE_CAPACITY, "10000");
+        config.put(EventMgrA0.PROP_OVERFLOW_POLICY, "block");
+        EventMgrA0 evtMgr = new EventMgrA0(config);
+
+        List<IEvent> registered = new ArrayList<>();
+        registered.add(new EventBlock(EventBlock.CALLBACK.ONBLOCK0));
+        registered.add(new EventBlock(EventBlock.CALLBACK.ONBEST0));
+        registered.add(new EventTx(EventTx.CALLBACK.PENDINGTXUPDATE0));
+        assertTrue(evtMgr.registerEvent(registered));
+
+        // each event is delivered once to each callback of its handler
+        CountDownLatch delivered = new CountDownLatch(CALLBACKS * EVENTS);
+        AtomicLong calls = new AtomicLong(0);
+        for (IHandler hdr : evtMgr.getHandlerList()) {
+            for (int i = 0; i < CALLBACKS; i++) {
+                hdr.eventCallback(
+                        new IEventCallback() {
+                            @Override
+                            public void onEvent(IEvent e) {
+                                calls.incrementAndGet();
+                                delivered.countDown();
+                            }
+
+                            @Override
+                            public void onEvents(List<IEvent> events) {
+                                calls.incrementAndGet();
+                                for (int j = 0; j < events.size(); j++) {
+                                    delivered.countDown();
+                                }
+                            }
+                        });
+            }
+        }
+        evtMgr.start();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < EVENTS; i++) {
+            switch (i % 4) {
+                case 0:
+                    evtMgr.newEvent(new EventBlock(EventBlock.CALLBACK.ONBEST0));
+                    break;
+                case 1:
+                    evtMgr.newEvent(new EventBlock(EventBlock.CALLBACK.ONBLOCK0));
+                    break;
+                default:
+                    evtMgr.newEvent(new EventTx(EventTx.CALLBACK.PENDINGTXUPDATE0));
+                    break;
+            }
+        }
+        assertTrue(delivered.await(60, TimeUnit.SECONDS));
+        long duration = System.nanoTime() - start;
+
+        System.out.println(
+                "fan-out of "
+                        + EVENTS
+                        + " events to "
+                        + CALLBACKS
+                        + " callbacks: "
+                        + TimeUnit.NANOSECONDS.toMillis(duration)
+                        + " ms, "
+                        + calls.get()
+                        + " callback calls.");
+
+        for (IHandler hdr : evtMgr.getHandlerList()) {
+            AbstractHandler handler = (AbstractHandler) hdr;
+            if (handler.getDispatchedEvents() > 0) {
+                System.out.println(
+                        hdr.getClass().getSimpleName()
+                                + ": dispatched "
+                                + handler.getDispatchedEvents()
+                                + ", average latency "
+                                + TimeUnit.NANOSECONDS.toMicros(handler.getAverageDispatchLatency())
+                                + " us, max latency "
+                                + TimeUnit.NANOSECONDS.toMicros(handler.getMaxDispatchLatency())
+                                + " us.");
+            }
+            assertEquals(0, handler.getDroppedEvents());
+        }
+
+        evtMgr.shutDown();
+    }
+}
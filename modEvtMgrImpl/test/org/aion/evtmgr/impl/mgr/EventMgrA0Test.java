@@ -1,5 +1,6 @@
 package org.aion.evtmgr.impl.mgr;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -7,6 +8,9 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
 import org.aion.evtmgr.IEvent;
+import org.aion.evtmgr.IHandler;
+import org.aion.evtmgr.impl.abs.AbstractHandler;
+import org.aion.evtmgr.impl.abs.AbstractHandler.OverflowPolicy;
 import org.aion.evtmgr.impl.evt.EventBlock;
 import org.aion.evtmgr.impl.evt.EventDummy;
 import org.junit.Test;
@@ -63,6 +67,30 @@ public class EventMgrA0Test {
         assertTrue(res2);
     }
 
+    @Test
+    public void testDefaultOverflowPolicies() {
+        EventMgrA0 testManager = new EventMgrA0(properties);
+
+        assertEquals(OverflowPolicy.COALESCE, policyOf(testManager, IHandler.TYPE.TX0));
+        assertEquals(OverflowPolicy.COALESCE, policyOf(testManager, IHandler.TYPE.BLOCK0));
+        assertEquals(OverflowPolicy.BLOCK, policyOf(testManager, IHandler.TYPE.CONSENSUS));
+        assertEquals(OverflowPolicy.BLOCK, policyOf(testManager, IHandler.TYPE.MINER0));
+    }
+
+    @Test
+    public void testConfiguredOverflowPolicy() {
+        properties.setProperty(EventMgrA0.PROP_OVERFLOW_POLICY, "drop_oldest");
+        EventMgrA0 testManager = new EventMgrA0(properties);
+
+        for (IHandler.TYPE type : List.of(IHandler.TYPE.TX0, IHandler.TYPE.BLOCK0, IHandler.TYPE.CONSENSUS, IHandler.TYPE.MINER0)) {
+            assertEquals(OverflowPolicy.DROP_OLDEST, policyOf(testManager, type));
+        }
+    }
+
+    private static OverflowPolicy policyOf(EventMgrA0 manager, IHandler.TYPE type) {
+        return ((AbstractHandler) manager.getHandler(type.getValue())).getOverflowPolicy();
+    }
+
     private List<IEvent> getEventsList() {
         List<IEvent> eventsList = new ArrayList<>();
         eventsList.add(new EventBlock(EventBlock.CALLBACK.ONBEST0));
@@ -20,6 +20,12 @@ public class V1Constants {
     // TODO: also add limit for the size of the resulting message
     public static final int BLOCKS_REQUEST_MAXIMUM_BATCH_SIZE = 60;
 
+    /** Limits the number of transaction hashes contained in one announcement or request. */
+    public static final int TX_HASHES_MAXIMUM_BATCH_SIZE = 256;
+
+    /** Limits the number of transactions contained in one compact block. */
+    public static final int COMPACT_BLOCK_MAXIMUM_TRANSACTIONS = 16_384;
+
     /** The number of components contained in a trie data response. */
     public static int TRIE_DATA_RESPONSE_COMPONENTS = 4;
 }
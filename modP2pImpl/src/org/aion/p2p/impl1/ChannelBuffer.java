@@ -1,7 +1,13 @@
 package org.aion.p2p.impl1;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
@@ -25,6 +31,15 @@ class ChannelBuffer {
 
     private Map<Integer, RouteStatus> routes = new HashMap<>();
 
+    // max number of buffers passed to a single gathering write
+    private static final int MAX_GATHER = 64;
+
+    // outbound buffers waiting to be written, guarded by the lock
+    private final Deque<ByteBuffer> outbound = new ArrayDeque<>();
+    private final ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+    private long outboundBytes = 0;
+    private boolean writeInterest = false;
+
     private final Logger p2pLOG;
 
     ChannelBuffer(final Logger p2pLOG) {
@@ -172,6 +187,83 @@ class ChannelBuffer {
         header = _header;
     }
 
+    /**
+     * Adds a message to the outbound queue. Must be called while holding the {@link #lock}.
+     *
+     * @param buffers the buffers holding the message
+     * @param maxQueuedBytes the limit of queued bytes above which messages are rejected, unless
+     *     the queue is empty
+     * @return {@code true} if the message was queued, {@code false} if it was rejected
+     */
+    boolean enqueueOutbound(ByteBuffer[] buffers, long maxQueuedBytes) {
+        if (!outbound.isEmpty() && outboundBytes >= maxQueuedBytes) {
+            return false;
+        }
+
+        for (ByteBuffer buffer : buffers) {
+            outbound.addLast(buffer);
+            outboundBytes += buffer.remaining();
+        }
+        return true;
+    }
+
+    /**
+     * Writes as much of the outbound queue as the channel accepts without blocking. Must be called
+     * while holding the {@link #lock}.
+     *
+     * @return {@code true} if the queue was fully written, {@code false} otherwise
+     */
+    boolean flushOutbound(GatheringByteChannel channel, DirectBufferPool pool) throws IOException {
+        while (!outbound.isEmpty()) {
+            int count = 0;
+            Iterator<ByteBuffer> it = outbound.iterator();
+            while (it.hasNext() && count < MAX_GATHER) {
+                gather[count++] = it.next();
+            }
+
+            long written;
+            try {
+                written = channel.write(gather, 0, count);
+            } finally {
+                Arrays.fill(gather, 0, count, null);
+            }
+            outboundBytes -= written;
+
+            // return the fully written buffers to the pool
+            while (!outbound.isEmpty() && !outbound.peekFirst().hasRemaining()) {
+                pool.release(outbound.pollFirst());
+            }
+
+            if (written == 0) {
+                // the socket send buffer is full
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Discards the outbound queue. Must be called while holding the {@link #lock}. */
+    void releaseOutbound(DirectBufferPool pool) {
+        for (ByteBuffer buffer : outbound) {
+            pool.release(buffer);
+        }
+        outbound.clear();
+        outboundBytes = 0;
+    }
+
+    long getOutboundBytes() {
+        return outboundBytes;
+    }
+
+    /** Indicates whether the channel is registered for write readiness events. */
+    boolean hasWriteInterest() {
+        return writeInterest;
+    }
+
+    void setWriteInterest(boolean writeInterest) {
+        this.writeInterest = writeInterest;
+    }
+
     class RouteStatus {
 
         long timestamp;
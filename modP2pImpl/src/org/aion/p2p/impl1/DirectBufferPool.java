@@ -0,0 +1,98 @@
+package org.aion.p2p.impl1;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.aion.p2p.Header;
+
+/**
+ * Reusable direct buffers for the messages written to the peer channels. Each message is stored as
+ * one header buffer followed by fixed size chunks of its body, which are written together with a
+ * gathering write and returned to the pool once sent.
+ *
+ * @implNote Buffers released while the pool is full are left to the garbage collector.
+ */
+final class DirectBufferPool {
+
+    private final int chunkSize;
+    private final int maxPooledHeaders;
+    private final int maxPooledChunks;
+
+    private final Queue<ByteBuffer> headers = new ConcurrentLinkedQueue<>();
+    private final Queue<ByteBuffer> chunks = new ConcurrentLinkedQueue<>();
+    // tracked separately since the size of a concurrent queue is not a constant time operation
+    private final AtomicInteger headerCount = new AtomicInteger(0);
+    private final AtomicInteger chunkCount = new AtomicInteger(0);
+
+    DirectBufferPool(int chunkSize, int maxPooledHeaders, int maxPooledChunks) {
+        if (chunkSize == Header.LEN) {
+            throw new IllegalArgumentException("The chunk size must differ from the header size.");
+        }
+        this.chunkSize = chunkSize;
+        this.maxPooledHeaders = maxPooledHeaders;
+        this.maxPooledChunks = maxPooledChunks;
+    }
+
+    /**
+     * Copies the given message into pooled buffers ready to be written.
+     *
+     * @param header the encoded header of the message
+     * @param body the encoded body of the message, may be {@code null}
+     * @return the header buffer followed by the body chunks, all flipped for reading
+     */
+    ByteBuffer[] toBuffers(byte[] header, byte[] body) {
+        int bodyLen = body == null ? 0 : body.length;
+        int bodyChunks = (bodyLen + chunkSize - 1) / chunkSize;
+        ByteBuffer[] buffers = new ByteBuffer[1 + bodyChunks];
+
+        buffers[0] = acquire(headers, headerCount, Header.LEN);
+        buffers[0].put(header).flip();
+
+        for (int i = 0; i < bodyChunks; i++) {
+            int offset = i * chunkSize;
+            ByteBuffer chunk = acquire(chunks, chunkCount, chunkSize);
+            chunk.put(body, offset, Math.min(chunkSize, bodyLen - offset)).flip();
+            buffers[i + 1] = chunk;
+        }
+
+        return buffers;
+    }
+
+    /** Returns a buffer obtained from {@link #toBuffers(byte[], byte[])} to the pool. */
+    void release(ByteBuffer buffer) {
+        buffer.clear();
+
+        if (buffer.capacity() == Header.LEN) {
+            release(headers, headerCount, maxPooledHeaders, buffer);
+        } else if (buffer.capacity() == chunkSize) {
+            release(chunks, chunkCount, maxPooledChunks, buffer);
+        }
+    }
+
+    private static ByteBuffer acquire(Queue<ByteBuffer> pool, AtomicInteger count, int capacity) {
+        ByteBuffer buffer = pool.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(capacity);
+        } else {
+            count.decrementAndGet();
+            return buffer;
+        }
+    }
+
+    private static void release(Queue<ByteBuffer> pool, AtomicInteger count, int max, ByteBuffer buffer) {
+        if (count.incrementAndGet() <= max) {
+            pool.offer(buffer);
+        } else {
+            count.decrementAndGet();
+        }
+    }
+
+    int pooledHeaders() {
+        return headerCount.get();
+    }
+
+    int pooledChunks() {
+        return chunkCount.get();
+    }
+}
@@ -0,0 +1,82 @@
+package org.aion.p2p.impl1;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.aion.p2p.Header;
+import org.aion.util.metrics.Counter;
+import org.aion.util.metrics.MetricsRegistry;
+
+/**
+ * Counts the messages and bytes exchanged with the peers for each route. The counters of a route
+ * are registered the first time a message with that route is seen. The received messages with
+ * routes that are not handled are counted under a single {@code other} route, so that the peers
+ * cannot register an unbounded number of counters.
+ */
+final class MessageMetrics {
+
+    private static final String MESSAGES = "aion_p2p_messages_total";
+    private static final String MESSAGES_HELP = "Messages exchanged with the peers.";
+    private static final String BYTES = "aion_p2p_bytes_total";
+    private static final String BYTES_HELP = "Bytes exchanged with the peers, including the headers.";
+    private static final String OTHER = "other";
+
+    private final MetricsRegistry registry;
+    private final String direction;
+    private final Map<Integer, Counter[]> routes = new ConcurrentHashMap<>();
+    private volatile Counter[] other;
+
+    private MessageMetrics(MetricsRegistry registry, String direction) {
+        this.registry = registry;
+        this.direction = direction;
+    }
+
+    static MessageMetrics inbound() {
+        return new MessageMetrics(MetricsRegistry.getDefault(), "in");
+    }
+
+    static MessageMetrics outbound() {
+        return new MessageMetrics(MetricsRegistry.getDefault(), "out");
+    }
+
+    /**
+     * Counts a message.
+     *
+     * @param header the header of the message
+     * @param bodyLength the length of the message body
+     */
+    void record(Header header, int bodyLength) {
+        record(header, bodyLength, true);
+    }
+
+    /**
+     * Counts a message, under the {@code other} route if its route is not handled.
+     *
+     * @param header the header of the message
+     * @param bodyLength the length of the message body
+     * @param handled whether the route of the message is handled
+     */
+    void record(Header header, int bodyLength, boolean handled) {
+        Counter[] counters;
+        if (handled) {
+            counters = routes.get(header.getRoute());
+            if (counters == null) {
+                counters = routes.computeIfAbsent(header.getRoute(), route -> register(Short.toString(header.getVer()), Byte.toString(header.getCtrl()), Byte.toString(header.getAction())));
+            }
+        } else {
+            counters = other;
+            if (counters == null) {
+                // a duplicate registration returns the same counters
+                counters = other = register(OTHER, OTHER, OTHER);
+            }
+        }
+        counters[0].inc();
+        counters[1].add(Header.LEN + bodyLength);
+    }
+
+    private Counter[] register(String ver, String ctrl, String act) {
+        String[] labels = {"direction", direction, "ver", ver, "ctrl", ctrl, "act", act};
+        return new Counter[] {
+            registry.counter(MESSAGES, MESSAGES_HELP, labels), registry.counter(BYTES, BYTES_HELP, labels)
+        };
+    }
+}
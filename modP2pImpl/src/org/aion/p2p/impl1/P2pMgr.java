@@ -5,7 +5,9 @@ import java.math.BigInteger;
 import java.net.InetSocketAddress;
 import java.net.SocketException;
 import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
@@ -20,6 +22,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -50,7 +53,6 @@ import org.slf4j.Logger;
 public final class P2pMgr implements IP2pMgr {
     private static final int DELAY_SHOW_P2P_STATUS = 10; // in seconds
     private static final int DELAY_CLEAR_PEERS = 10; // in seconds
-    private static final int DELAY_SELECT = 100; // in milliseconds
     private static final int DELAY_REQUEST_ACTIVE_NODES = 1; // in seconds
     private static final int PERIOD_UPNP_PORT_MAPPING = 3600000;
     private static final int DELAY_CONNECT_OUTBOUND = 1; // in seconds
@@ -59,8 +61,12 @@ public final class P2pMgr implements IP2pMgr {
 
     // timeout for messages to be sent
     private static final long WRITE_MSG_TIMEOUT = TimeUnit.SECONDS.toNanos(5);
-    private static final long MAX_BUFFER_WRITE_TIME = 1_000_000_000L;
-    private static final long MIN_TRACE_BUFFER_WRITE_TIME = 10_000_000L;
+
+    // outbound message buffering
+    private static final int WRITE_CHUNK_SIZE = 64 * 1024;
+    private static final int MAX_POOLED_HEADERS = 1024;
+    private static final int MAX_POOLED_CHUNKS = 512;
+    private static final long MAX_OUTBOUND_QUEUE_BYTES = 8 * 1024 * 1024;
 
     public final Logger p2pLOG, surveyLog;
 
@@ -80,8 +86,14 @@ public final class P2pMgr implements IP2pMgr {
 
     private ServerSocketChannel tcpServer;
     private Selector selector;
+    // held by threads registering channels to keep the selector thread from selecting again
+    private final Object selectorGuard = new Object();
+    private final DirectBufferPool bufferPool =
+            new DirectBufferPool(WRITE_CHUNK_SIZE, MAX_POOLED_HEADERS, MAX_POOLED_CHUNKS);
+    private final MessageMetrics inboundMetrics = MessageMetrics.inbound();
+    private final MessageMetrics outboundMetrics = MessageMetrics.outbound();
     private ScheduledExecutorService scheduledWorkers;
-    private ScheduledExecutorService inboundExecutor;
+    private ExecutorService inboundExecutor;
     private int errTolerance;
 
     private static ReqHandshake1 cachedReqHandshake1;
@@ -163,7 +175,7 @@ public final class P2pMgr implements IP2pMgr {
             selector = Selector.open();
             // IO-bounded threads get max-gain from the double of the availableProcessor number
             scheduledWorkers = Executors.newScheduledThreadPool(Math.min(32, 2 * Runtime.getRuntime().availableProcessors()));
-            inboundExecutor = Executors.newSingleThreadScheduledExecutor();
+            inboundExecutor = Executors.newSingleThreadExecutor();
 
             tcpServer = ServerSocketChannel.open();
             tcpServer.configureBlocking(false);
@@ -191,7 +203,7 @@ public final class P2pMgr implements IP2pMgr {
 
             tcpServer.register(selector, SelectionKey.OP_ACCEPT);
 
-            inboundExecutor.scheduleWithFixedDelay(this::checkSelector, DELAY_SELECT, DELAY_SELECT, TimeUnit.MILLISECONDS);
+            inboundExecutor.execute(this::selectLoop);
 
             if (p2pLOG.isDebugEnabled()) {
                 this.handlers.forEach(
@@ -325,56 +337,31 @@ public final class P2pMgr implements IP2pMgr {
                         this.dropActive(channelBuffer.getNodeIdHash(), "close-already");
                         return;
                     } else {
-                        try {
-                            channelBuffer.lock.lock();
+                        // @warning header set len (body len) before header encode
+                        byte[] bodyBytes = message.encode();
+                        int bodyLen = bodyBytes == null ? 0 : bodyBytes.length;
+                        Header h = message.getHeader();
+                        h.setLen(bodyLen);
+                        byte[] headerBytes = h.encode();
 
-                            // @warning header set len (body len) before header encode
-                            byte[] bodyBytes = message.encode();
-                            int bodyLen = bodyBytes == null ? 0 : bodyBytes.length;
-                            Header h = message.getHeader();
-                            h.setLen(bodyLen);
-                            byte[] headerBytes = h.encode();
+                        p2pLOG.trace("write id:{} {}-{}-{}", nodeDisplayId, h.getVer(), h.getCtrl(), h.getAction());
 
-                            p2pLOG.trace("write id:{} {}-{}-{}", nodeDisplayId, h.getVer(), h.getCtrl(), h.getAction());
+                        ByteBuffer[] buffers = bufferPool.toBuffers(headerBytes, bodyBytes);
+                        try {
+                            channelBuffer.lock.lock();
 
-                            ByteBuffer buf = ByteBuffer.allocate(headerBytes.length + bodyLen);
-                            buf.put(headerBytes);
-                            if (bodyBytes != null) {
-                                buf.put(bodyBytes);
-                            }
-                            buf.flip();
-
-                            long t1 = System.nanoTime(), t2;
-                            int wrote = 0;
-                            try {
-                                do {
-                                    int result = sc.write(buf);
-                                    wrote += result;
-
-                                    if (result == 0) {
-                                        // @Attention:  very important sleep , otherwise when NIO write buffer full,
-                                        // without sleep will hangup this thread.
-                                        Thread.sleep(0, 1);
-                                    }
-
-                                    t2 = System.nanoTime() - t1;
-                                } while (buf.hasRemaining() && (t2 < MAX_BUFFER_WRITE_TIME));
-
-                                if (t2 > MIN_TRACE_BUFFER_WRITE_TIME) {
-                                    p2pLOG.trace("msg write: id {} size {} time {} ms length {}", nodeDisplayId, wrote, t2, buf.array().length);
+                            if (!channelBuffer.enqueueOutbound(buffers, MAX_OUTBOUND_QUEUE_BYTES)) {
+                                p2pLOG.debug("outbound-queue-full node={} queued={} dropped={}-{}-{}", nodeDisplayId, channelBuffer.getOutboundBytes(), h.getVer(), h.getCtrl(), h.getAction());
+                                for (ByteBuffer buffer : buffers) {
+                                    bufferPool.release(buffer);
                                 }
+                                return;
+                            }
+                            outboundMetrics.record(h, bodyLen);
 
-                            } catch (ClosedChannelException ex1) {
-                                p2pLOG.debug("closed-channel-exception node=" + nodeDisplayId, ex1);
-                                channelBuffer.setClosed();
-                            } catch (IOException ex2) {
-                                p2pLOG.debug("write-msg-io-exception node=" + nodeDisplayId + " headerBytes=" + headerBytes.length + " bodyLen=" + bodyLen + " time=" + (System.nanoTime() - t1) + "ns", ex2);
-
-                                if (ex2.getMessage().equals("Broken pipe")) {
-                                    channelBuffer.setClosed();
-                                }
-                            } catch (InterruptedException e) {
-                                p2pLOG.error("Interrupted while writing message to node=" + nodeDisplayId + ".", e);
+                            // while waiting for write readiness the queue is flushed by the selector thread
+                            if (!channelBuffer.hasWriteInterest()) {
+                                writeOutbound(sk, channelBuffer);
                             }
                         } finally {
                             channelBuffer.lock.unlock();
@@ -385,10 +372,44 @@ public final class P2pMgr implements IP2pMgr {
         }
     }
 
+    /**
+     * Writes the queued outbound messages of the channel without blocking and updates the write
+     * interest of the channel depending on whether the queue was fully written. Must be called
+     * while holding the lock of the given channel buffer.
+     */
+    private void writeOutbound(SelectionKey sk, ChannelBuffer channelBuffer) {
+        try {
+            boolean flushed = channelBuffer.flushOutbound((SocketChannel) sk.channel(), bufferPool);
+
+            if (!flushed && !channelBuffer.hasWriteInterest()) {
+                channelBuffer.setWriteInterest(true);
+                sk.interestOps(sk.interestOps() | SelectionKey.OP_WRITE);
+                // apply the new interest set if the selector is blocked
+                selector.wakeup();
+            } else if (flushed && channelBuffer.hasWriteInterest()) {
+                channelBuffer.setWriteInterest(false);
+                sk.interestOps(sk.interestOps() & ~SelectionKey.OP_WRITE);
+            }
+        } catch (ClosedChannelException | CancelledKeyException ex1) {
+            p2pLOG.debug("closed-channel-exception node=" + channelBuffer.getDisplayId(), ex1);
+            channelBuffer.setClosed();
+            channelBuffer.releaseOutbound(bufferPool);
+        } catch (IOException ex2) {
+            p2pLOG.debug("write-msg-io-exception node=" + channelBuffer.getDisplayId() + " queued=" + channelBuffer.getOutboundBytes(), ex2);
+            // a partially written message cannot be recovered
+            channelBuffer.setClosed();
+            channelBuffer.releaseOutbound(bufferPool);
+        }
+    }
+
     @Override
     public void shutdown() {
         start.set(false);
 
+        if (selector != null) {
+            selector.wakeup();
+        }
+
         if (scheduledWorkers != null) {
             scheduledWorkers.shutdownNow();
         }
@@ -403,6 +424,11 @@ public final class P2pMgr implements IP2pMgr {
         nodeMgr.shutdown();
     }
 
+    // used by the dispatch tests to add peers
+    INodeMgr getNodeMgr() {
+        return nodeMgr;
+    }
+
     @Override
     public List<Short> versions() {
         return new ArrayList<>(versions);
@@ -445,7 +471,15 @@ public final class P2pMgr implements IP2pMgr {
             SelectionKey sk = _sc.keyFor(selector);
             if (sk != null) {
                 sk.cancel();
-                sk.attach(null);
+                ChannelBuffer cb = (ChannelBuffer) sk.attach(null);
+                if (cb != null) {
+                    cb.lock.lock();
+                    try {
+                        cb.releaseOutbound(bufferPool);
+                    } finally {
+                        cb.lock.unlock();
+                    }
+                }
             }
 
             try {
@@ -562,54 +596,91 @@ public final class P2pMgr implements IP2pMgr {
      */
     private final ByteBuffer readBuf = ByteBuffer.allocate(P2pConstant.MAX_BODY_SIZE);
 
-    private void checkSelector() {
+    /**
+     * Registers the channel with the selector for read events. Safe to call from any thread.
+     */
+    private SelectionKey registerChannel(SocketChannel channel, ChannelBuffer channelBuffer) throws ClosedChannelException {
+        synchronized (selectorGuard) {
+            // registering can block while the selector thread is selecting
+            selector.wakeup();
+            return channel.register(selector, SelectionKey.OP_READ, channelBuffer);
+        }
+    }
+
+    private void selectLoop() {
         Thread.currentThread().setName("p2p-in");
-        try {
-            if (selector.selectNow() != 0) {
+        while (start.get()) {
+            try {
+                // lets other threads complete their channel registrations before selecting again
+                synchronized (selectorGuard) {}
+
+                if (selector.select() == 0) {
+                    continue;
+                }
+
                 for (Iterator<SelectionKey> keys = selector.selectedKeys().iterator(); keys.hasNext(); ) {
                     SelectionKey key = keys.next();
-                    if (key != null && key.isValid()) {
-                        if (key.isAcceptable()) {
-                            ServerSocketChannel channel = (ServerSocketChannel) key.channel();
-                            try {
-                                acceptConnection(channel);
-                            } catch (IOException e) {
-                                p2pLOG.error("Could not accept connection.", e);
-                                ChannelBuffer cb = (ChannelBuffer) key.attachment();
-                                closeSocket((SocketChannel) key.channel(), (cb != null ? cb.getDisplayId() : null) + "-read-msg-exception ", e);
-                                if (cb != null) {
-                                    cb.setClosed();
-                                }
-                            }
+                    keys.remove();
+
+                    if (key == null || !key.isValid()) {
+                        continue;
+                    }
+
+                    if (key.isAcceptable()) {
+                        ServerSocketChannel channel = (ServerSocketChannel) key.channel();
+                        try {
+                            acceptConnection(channel);
+                        } catch (IOException e) {
+                            p2pLOG.error("Could not accept connection.", e);
                         }
+                        continue;
+                    }
 
-                        if (key.isReadable()) {
-                            ChannelBuffer cb = (ChannelBuffer) key.attachment();
-                            if (cb == null) {
-                                p2pLOG.error("inbound exception: attachment is null");
-                                continue;
-                            }
-                            try {
-                                readBuffer(key, cb, readBuf);
-                            } catch (IOException e) {
-                                p2pLOG.error("Could not read buffer.", e);
-                                closeSocket((SocketChannel) key.channel(),
-                                    cb.getDisplayId() + "-read-msg-exception ", e);
-                                cb.setClosed();
-                            } catch (NullPointerException npe) {
-                                // TODO: investigate why readBody throw the NPE.
-                                p2pLOG.debug("Parsing msg body failed.", npe);
-                                closeSocket((SocketChannel) key.channel(),
-                                    cb.getDisplayId() + "-read-msg-exception ", npe);
+                    ChannelBuffer cb = (ChannelBuffer) key.attachment();
+                    if (cb == null) {
+                        p2pLOG.error("inbound exception: attachment is null");
+                        continue;
+                    }
+
+                    if (key.isReadable()) {
+                        try {
+                            if (!readBuffer(key, cb, readBuf)) {
+                                // the peer closed the connection
+                                if (cb.getNodeIdHash() != 0) {
+                                    dropActive(cb.getNodeIdHash(), cb.getDisplayId() + "-end-of-stream");
+                                }
+                                closeSocket((SocketChannel) key.channel(), cb.getDisplayId() + "-end-of-stream");
                                 cb.setClosed();
                             }
+                        } catch (IOException e) {
+                            p2pLOG.error("Could not read buffer.", e);
+                            closeSocket((SocketChannel) key.channel(),
+                                cb.getDisplayId() + "-read-msg-exception ", e);
+                            cb.setClosed();
+                        } catch (NullPointerException npe) {
+                            // TODO: investigate why readBody throw the NPE.
+                            p2pLOG.debug("Parsing msg body failed.", npe);
+                            closeSocket((SocketChannel) key.channel(),
+                                cb.getDisplayId() + "-read-msg-exception ", npe);
+                            cb.setClosed();
+                        }
+                    }
+
+                    if (key.isValid() && key.isWritable()) {
+                        cb.lock.lock();
+                        try {
+                            writeOutbound(key, cb);
+                        } finally {
+                            cb.lock.unlock();
                         }
                     }
-                    keys.remove();
                 }
+            } catch (ClosedSelectorException e) {
+                p2pLOG.debug("Selector closed.", e);
+                return;
+            } catch (IOException e) {
+                p2pLOG.error("Exception encountered while selecting keys.", e);
             }
-        } catch (IOException e) {
-            p2pLOG.error("Exception encountered while selecting keys.", e);
         }
     }
 
@@ -660,11 +731,10 @@ public final class P2pMgr implements IP2pMgr {
                     p2pLOG.debug("success-connect node-id={} ip={}", node.getIdShort(), node.getIpStr());
 
                     channel.configureBlocking(false);
-                    SelectionKey sk = channel.register(selector, SelectionKey.OP_READ);
                     ChannelBuffer rb = new ChannelBuffer(p2pLOG);
                     rb.setDisplayId(node.getIdShort());
                     rb.setNodeIdHash(nodeIdHash);
-                    sk.attach(rb);
+                    registerChannel(channel, rb);
 
                     node.refreshTimestamp();
                     node.setChannel(channel);
@@ -721,26 +791,31 @@ public final class P2pMgr implements IP2pMgr {
             p2pLOG.trace("new-node : {}", node.toString());
 
             node.setChannel(channel);
-            SelectionKey sk = channel.register(this.selector, SelectionKey.OP_READ);
-            sk.attach(new ChannelBuffer(p2pLOG));
+            registerChannel(channel, new ChannelBuffer(p2pLOG));
             this.nodeMgr.addInboundNode(node);
             p2pLOG.debug("new-connection {}:{}", ip, port);
         }
     }
 
-    private void readBuffer(final SelectionKey sk, final ChannelBuffer cb, final ByteBuffer readBuf) throws IOException {
+    /** @return {@code false} if the end of the stream was reached, {@code true} otherwise */
+    private boolean readBuffer(final SelectionKey sk, final ChannelBuffer cb, final ByteBuffer readBuf) throws IOException {
         readBuf.rewind();
         SocketChannel sc = (SocketChannel) sk.channel();
 
         int r;
         int cnt = 0;
+        boolean endOfStream = false;
         do {
             r = sc.read(readBuf);
-            cnt += r;
+            if (r > 0) {
+                cnt += r;
+            } else if (r < 0) {
+                endOfStream = true;
+            }
         } while (r > 0);
 
         if (cnt < 1) {
-            return;
+            return !endOfStream;
         }
 
         int remainBufAll = cb.getBuffRemain() + cnt;
@@ -770,6 +845,7 @@ public final class P2pMgr implements IP2pMgr {
         }
 
         readBuf.rewind();
+        return !endOfStream;
     }
 
     private static ByteBuffer calBuffer(ChannelBuffer _cb, ByteBuffer _readBuf, int _cnt) {
@@ -852,7 +928,8 @@ public final class P2pMgr implements IP2pMgr {
     private static final int ACT_BROADCAST_BLOCK = 7;
     private static final int CTRL_SYNC = 1;
 
-    private void handleMessage(SelectionKey sk, ChannelBuffer cb) {
+    /** Routes a complete message read from the channel; package-private for the dispatch tests. */
+    void handleMessage(SelectionKey sk, ChannelBuffer cb) {
 
         Header h = cb.getHeader();
         byte[] bodyBytes = cb.body;
@@ -860,6 +937,8 @@ public final class P2pMgr implements IP2pMgr {
         cb.refreshHeader();
         cb.refreshBody();
 
+        inboundMetrics.record(h, bodyBytes == null ? 0 : bodyBytes.length, isHandledRoute(h));
+
         int maxRequestsPerSecond = 0;
 
         // TODO: refactor to remove knowledge of sync message types
@@ -887,24 +966,44 @@ public final class P2pMgr implements IP2pMgr {
                         }
                         break;
                     case Ctrl.SYNC:
-                        if (!handlers.containsKey(h.getRoute())) {
-                            p2pLOG.debug("unregistered-route={}-{}-{} node={}", h.getVer(), h.getCtrl(), h.getAction(), cb.getDisplayId());
-                            return;
-                        }
-
-                        handleKernelMessage(cb.getNodeIdHash(), h.getRoute(), bodyBytes);
+                        handleSyncMessage(cb, h, bodyBytes);
                         break;
                     default:
                         p2pLOG.debug("invalid-route={}-{}-{} node={}", h.getVer(), h.getCtrl(), h.getAction(), cb.getDisplayId());
                         break;
                 }
                 break;
+            case Ver.V1:
+                // the V1 messages are only defined for the kernel
+                if (h.getCtrl() == Ctrl.SYNC) {
+                    handleSyncMessage(cb, h, bodyBytes);
+                } else {
+                    p2pLOG.debug("invalid-route={}-{}-{} node={}", h.getVer(), h.getCtrl(), h.getAction(), cb.getDisplayId());
+                }
+                break;
             default:
                 p2pLOG.debug("unhandled-ver={} node={}", h.getVer(), cb.getDisplayId());
                 break;
         }
     }
 
+    /** @return whether the route of the given header is handled by the p2p layer or the kernel */
+    private boolean isHandledRoute(Header h) {
+        if (h.getVer() == Ver.V0 && h.getCtrl() == Ctrl.NET) {
+            return Act.filter(h.getAction()) != Act.UNKNOWN;
+        }
+        return h.getCtrl() == Ctrl.SYNC && handlers.containsKey(h.getRoute());
+    }
+
+    private void handleSyncMessage(ChannelBuffer cb, Header h, byte[] bodyBytes) {
+        if (!handlers.containsKey(h.getRoute())) {
+            p2pLOG.debug("unregistered-route={}-{}-{} node={}", h.getVer(), h.getCtrl(), h.getAction(), cb.getDisplayId());
+            return;
+        }
+
+        handleKernelMessage(cb.getNodeIdHash(), h.getRoute(), bodyBytes);
+    }
+
     private void handleKernelMessage(int nodeIdHash, int route, final byte[] msgBytes) {
         INode node = nodeMgr.getActiveNode(nodeIdHash);
         if (node != null) {
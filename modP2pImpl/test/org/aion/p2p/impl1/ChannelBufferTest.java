@@ -9,7 +9,10 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.when;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.util.Arrays;
 import java.util.Random;
 import java.util.UUID;
 import org.aion.p2p.Header;
@@ -158,4 +161,42 @@ public class ChannelBufferTest {
         assertNotNull(rs);
         assertEquals(2, rs.count);
     }
+
+    @Test
+    public void testOutboundQueue() throws IOException {
+        DirectBufferPool pool = new DirectBufferPool(16, 4, 4);
+        byte[] header = new byte[LEN];
+        byte[] body = new byte[40];
+        r.nextBytes(header);
+        r.nextBytes(body);
+
+        assertTrue(cb.enqueueOutbound(pool.toBuffers(header, body), 10));
+        assertEquals(LEN + body.length, cb.getOutboundBytes());
+        // rejected only when the queue is not empty
+        assertFalse(cb.enqueueOutbound(pool.toBuffers(header, null), 10));
+
+        Pipe pipe = Pipe.open();
+        assertTrue(cb.flushOutbound(pipe.sink(), pool));
+        assertEquals(0, cb.getOutboundBytes());
+        assertEquals(1, pool.pooledHeaders());
+        assertEquals(3, pool.pooledChunks());
+
+        ByteBuffer written = ByteBuffer.allocate(LEN + body.length);
+        while (written.hasRemaining()) {
+            pipe.source().read(written);
+        }
+        assertArrayEquals(header, Arrays.copyOfRange(written.array(), 0, LEN));
+        assertArrayEquals(body, Arrays.copyOfRange(written.array(), LEN, LEN + body.length));
+    }
+
+    @Test
+    public void testReleaseOutbound() {
+        DirectBufferPool pool = new DirectBufferPool(16, 4, 4);
+        cb.enqueueOutbound(pool.toBuffers(new byte[LEN], new byte[20]), 100);
+
+        cb.releaseOutbound(pool);
+        assertEquals(0, cb.getOutboundBytes());
+        assertEquals(1, pool.pooledHeaders());
+        assertEquals(2, pool.pooledChunks());
+    }
 }
@@ -0,0 +1,210 @@
+package org.aion.p2p.impl1;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.aion.p2p.Ctrl;
+import org.aion.p2p.Handler;
+import org.aion.p2p.Header;
+import org.aion.p2p.INode;
+import org.aion.p2p.Msg;
+import org.aion.p2p.Ver;
+import org.aion.p2p.impl.comm.Node;
+import org.aion.util.metrics.MetricsRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+
+/** Tests the delivery of the received kernel messages to the registered handlers. */
+public class P2pMgrDispatchTest {
+
+    // the route of the fast sync trie data requests
+    private static final byte ACT_REQUEST_TRIE_DATA = 8;
+
+    private Logger log;
+    private P2pMgr p2p;
+    private INode peer;
+
+    private static final class RecordingHandler extends Handler {
+        private final CountDownLatch received = new CountDownLatch(1);
+        private volatile int peerId;
+        private volatile byte[] message;
+
+        private RecordingHandler(short ver, byte ctrl, byte act) {
+            super(ver, ctrl, act);
+        }
+
+        @Override
+        public void receive(int _id, String _displayId, byte[] _msg) {
+            peerId = _id;
+            message = _msg;
+            received.countDown();
+        }
+    }
+
+    private static final class RawMsg extends Msg {
+        private final byte[] body;
+
+        private RawMsg(short ver, byte ctrl, byte act, byte[] body) {
+            super(ver, ctrl, act);
+            this.body = body;
+        }
+
+        @Override
+        public byte[] encode() {
+            return body;
+        }
+    }
+
+    @Before
+    public void setup() {
+        log = mock(Logger.class);
+        p2p = newP2pMgr(UUID.randomUUID().toString(), 0, new String[0]);
+        p2p.run();
+
+        peer =
+                new Node(
+                        false,
+                        UUID.randomUUID().toString().getBytes(),
+                        Node.ipStrToBytes("127.0.0.1"),
+                        30303);
+        p2p.getNodeMgr().addOutboundNode(peer);
+        p2p.getNodeMgr().movePeerToActive(peer.getIdHash(), "outbound");
+    }
+
+    @After
+    public void teardown() {
+        p2p.shutdown();
+    }
+
+    private P2pMgr newP2pMgr(String nodeId, int port, String[] bootNodes) {
+        return new P2pMgr(
+                log, log, 0, "test", nodeId, "127.0.0.1", port, bootNodes, false, 128, 128, false,
+                50);
+    }
+
+    private ChannelBuffer message(short ver, byte ctrl, byte act, byte[] body) {
+        ChannelBuffer cb = new ChannelBuffer(log);
+        cb.setNodeIdHash(peer.getIdHash());
+        cb.setDisplayId(peer.getIdShort());
+        byte[] header =
+                ByteBuffer.allocate(Header.LEN)
+                        .putShort(ver)
+                        .put(ctrl)
+                        .put(act)
+                        .putInt(body.length)
+                        .array();
+        cb.setHeader(Header.decode(header));
+        cb.body = body;
+        return cb;
+    }
+
+    @Test
+    public void testDeliversV1Messages() throws InterruptedException {
+        RecordingHandler handler = new RecordingHandler(Ver.V1, Ctrl.SYNC, ACT_REQUEST_TRIE_DATA);
+        p2p.register(Collections.singletonList(handler));
+
+        byte[] body = {1, 2, 3};
+        p2p.handleMessage(null, message(Ver.V1, Ctrl.SYNC, ACT_REQUEST_TRIE_DATA, body));
+
+        assertTrue(handler.received.await(5, TimeUnit.SECONDS));
+        assertEquals(peer.getIdHash(), handler.peerId);
+        assertArrayEquals(body, handler.message);
+    }
+
+    @Test
+    public void testDropsUnregisteredV1Routes() throws InterruptedException {
+        RecordingHandler handler = new RecordingHandler(Ver.V1, Ctrl.SYNC, ACT_REQUEST_TRIE_DATA);
+        p2p.register(Collections.singletonList(handler));
+
+        // same action under the other version and an unknown action
+        p2p.handleMessage(null, message(Ver.V0, Ctrl.SYNC, ACT_REQUEST_TRIE_DATA, new byte[] {1}));
+        p2p.handleMessage(
+                null,
+                message(Ver.V1, Ctrl.SYNC, (byte) (ACT_REQUEST_TRIE_DATA + 50), new byte[] {1}));
+        // the V1 messages are only routed to the kernel
+        p2p.handleMessage(null, message(Ver.V1, Ctrl.NET, ACT_REQUEST_TRIE_DATA, new byte[] {1}));
+
+        assertFalse(handler.received.await(500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testDeliversV1MessagesBetweenPeers() throws Exception {
+        int port = freePort();
+        String serverId = UUID.randomUUID().toString();
+        P2pMgr server = newP2pMgr(serverId, port, new String[0]);
+        P2pMgr client =
+                newP2pMgr(
+                        UUID.randomUUID().toString(),
+                        freePort(),
+                        new String[] {"p2p://" + serverId + "@127.0.0.1:" + port});
+
+        RecordingHandler handler = new RecordingHandler(Ver.V1, Ctrl.SYNC, ACT_REQUEST_TRIE_DATA);
+        server.register(Collections.singletonList(handler));
+        client.register(Collections.emptyList());
+
+        try {
+            server.run();
+            client.run();
+
+            // wait for the handshake to complete
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+            while (client.getActiveNodes().isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+            }
+            assertFalse(client.getActiveNodes().isEmpty());
+
+            INode serverNode = client.getActiveNodes().values().iterator().next();
+            byte[] body = {9, 8, 7};
+            client.send(
+                    serverNode.getIdHash(),
+                    serverNode.getIdShort(),
+                    new RawMsg(Ver.V1, Ctrl.SYNC, ACT_REQUEST_TRIE_DATA, body));
+
+            assertTrue(handler.received.await(10, TimeUnit.SECONDS));
+            assertArrayEquals(body, handler.message);
+        } finally {
+            client.shutdown();
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void testCountsUnregisteredRoutesTogether() {
+        RecordingHandler handler = new RecordingHandler(Ver.V1, Ctrl.SYNC, ACT_REQUEST_TRIE_DATA);
+        p2p.register(Collections.singletonList(handler));
+
+        p2p.handleMessage(null, message(Ver.V1, Ctrl.SYNC, ACT_REQUEST_TRIE_DATA, new byte[] {1}));
+        for (byte act = 100; act < 110; act++) {
+            p2p.handleMessage(null, message(Ver.V1, Ctrl.SYNC, act, new byte[] {1}));
+        }
+
+        String scraped = MetricsRegistry.getDefault().scrape();
+        assertTrue(
+                scraped.contains(
+                        "direction=\"in\",ver=\"1\",ctrl=\"1\",act=\""
+                                + ACT_REQUEST_TRIE_DATA
+                                + "\""));
+        assertTrue(scraped.contains("direction=\"in\",ver=\"other\",ctrl=\"other\",act=\"other\""));
+        for (byte act = 100; act < 110; act++) {
+            assertFalse(scraped.contains("act=\"" + act + "\""));
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
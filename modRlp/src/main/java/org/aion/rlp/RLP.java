@@ -30,7 +30,7 @@ public class RLP {
      * fine for 2^128 space, but that's way too much - so 56 and 2^64 space seems like the right
      * place to put the cutoff - also, that's where Bitcoin's variant does the cutoff
      */
-    private static final int SIZE_THRESHOLD = 56;
+    static final int SIZE_THRESHOLD = 56;
 
     /**
      * For a single byte whose value is in the [0x00, 0x7f] range, that byte is its own RLP
@@ -40,7 +40,7 @@ public class RLP {
      * value 0x80 plus the length of the string followed by the string. The range of the first byte
      * is thus [0x80, 0xb7].
      */
-    private static final int OFFSET_SHORT_ITEM = 0x80;
+    static final int OFFSET_SHORT_ITEM = 0x80;
 
     /**
      * [0xb7] If a string is more than 55 bytes long, the RLP encoding consists of a single byte
@@ -49,7 +49,7 @@ public class RLP {
      * encoded as \xb9\x04\x00 followed by the string. The range of the first byte is thus [0xb8,
      * 0xbf].
      */
-    private static final int OFFSET_LONG_ITEM = 0xb7;
+    static final int OFFSET_LONG_ITEM = 0xb7;
 
     /**
      * [0xc0] If the total payload of a list (i.e. the combined length of all its items) is 0-55
@@ -57,7 +57,7 @@ public class RLP {
      * list followed by the concatenation of the RLP encodings of the items. The range of the first
      * byte is thus [0xc0, 0xf7].
      */
-    private static final int OFFSET_SHORT_LIST = 0xc0;
+    static final int OFFSET_SHORT_LIST = 0xc0;
 
     /**
      * [0xf7] If the total payload of a list is more than 55 bytes long, the RLP encoding consists
@@ -65,12 +65,12 @@ public class RLP {
      * followed by the length of the list, followed by the concatenation of the RLP encodings of the
      * items. The range of the first byte is thus [0xf8, 0xff].
      */
-    private static final int OFFSET_LONG_LIST = 0xf7;
+    static final int OFFSET_LONG_LIST = 0xf7;
 
     private static final byte[] BYTES_SHORT_ITEM = new byte[] {(byte) OFFSET_SHORT_ITEM};
     private static final byte[] BYTES_SHORT_LIST = new byte[] {(byte) OFFSET_SHORT_LIST};
 
-    private static final int MAX_DEPTH = 16;
+    static final int MAX_DEPTH = 16;
 
     // DECODING
 
@@ -0,0 +1,269 @@
+package org.aion.rlp;
+
+import static org.aion.rlp.RLP.MAX_DEPTH;
+import static org.aion.rlp.RLP.OFFSET_LONG_ITEM;
+import static org.aion.rlp.RLP.OFFSET_LONG_LIST;
+import static org.aion.rlp.RLP.OFFSET_SHORT_ITEM;
+import static org.aion.rlp.RLP.OFFSET_SHORT_LIST;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import org.aion.util.bytes.ByteUtil;
+
+/**
+ * Reads the elements of an RLP encoding one at a time without building the tree of {@link
+ * RLPElement} objects created by {@link RLP#decode2SharedList(byte[])}. Only the headers of the
+ * elements that are read or skipped are parsed and the content of an element is copied only when
+ * requested as bytes, while numbers are decoded directly from the underlying array.
+ *
+ * <p>A cursor iterates over the elements found between its bounds, which for the cursor returned
+ * by {@link #nextList()} are the items of the list. The nested cursors share the underlying array,
+ * which must not be modified while being read.
+ *
+ * @implNote Differently from {@link RLP#decode2SharedList(byte[])}, the lengths of the elements
+ *     are checked against the bounds of the enclosing list when read and an {@link
+ *     IllegalArgumentException} is thrown for encodings that exceed them.
+ */
+public final class RLPCursor {
+
+    private final byte[] data;
+    // the start of the encoding including the list header, used to copy the encoding of a list
+    private final int encodingStart;
+    private final int end;
+    private final int depth;
+
+    private int position;
+
+    // the header of the element at the current position, valid while headerPosition == position
+    private int headerPosition = -1;
+    private int contentStart;
+    private int contentLength;
+    private boolean isList;
+
+    public RLPCursor(byte[] data) {
+        this(data, 0, data.length);
+    }
+
+    public RLPCursor(byte[] data, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > data.length) {
+            throw new IndexOutOfBoundsException("Invalid bounds [" + offset + ", " + (offset + length) + ") for array of length " + data.length);
+        }
+        this.data = data;
+        this.encodingStart = offset;
+        this.position = offset;
+        this.end = offset + length;
+        this.depth = 0;
+    }
+
+    private RLPCursor(byte[] data, int encodingStart, int position, int end, int depth) {
+        this.data = data;
+        this.encodingStart = encodingStart;
+        this.position = position;
+        this.end = end;
+        this.depth = depth;
+    }
+
+    /**
+     * Creates a cursor over the remaining bytes of the given buffer without changing its position.
+     * Heap buffers are read in place, while the content of direct buffers is copied.
+     */
+    public static RLPCursor wrap(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            return new RLPCursor(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        } else {
+            byte[] copy = new byte[buffer.remaining()];
+            buffer.duplicate().get(copy);
+            return new RLPCursor(copy);
+        }
+    }
+
+    /**
+     * Returns a cursor over the same bounds positioned at the current element of this one, which
+     * can be used to read ahead without moving this cursor.
+     */
+    public RLPCursor duplicate() {
+        return new RLPCursor(data, encodingStart, position, end, depth);
+    }
+
+    /** Returns {@code true} if there are elements left to read. */
+    public boolean hasNext() {
+        return position < end;
+    }
+
+    /** Returns {@code true} if the next element is a list. */
+    public boolean isNextList() {
+        readHeader();
+        return isList;
+    }
+
+    /**
+     * Counts the elements left to read without moving the cursor. Only the headers of the elements
+     * are parsed.
+     */
+    public int remaining() {
+        int initial = position;
+        int count = 0;
+        try {
+            while (hasNext()) {
+                skip();
+                count++;
+            }
+        } finally {
+            position = initial;
+        }
+        return count;
+    }
+
+    /** Moves the cursor past the next element. */
+    public void skip() {
+        readHeader();
+        position = contentStart + contentLength;
+    }
+
+    /**
+     * Returns a cursor over the items of the next element, which must be a list, and moves this
+     * cursor past it.
+     */
+    public RLPCursor nextList() {
+        readHeader();
+        if (!isList) {
+            throw new IllegalArgumentException("RLP wrong encoding: expected a list at position " + position + ".");
+        }
+        if (depth + 1 > MAX_DEPTH) {
+            throw new IllegalArgumentException(String.format("Error: Traversing over max RLP depth (%s)", MAX_DEPTH));
+        }
+        RLPCursor list = new RLPCursor(data, position, contentStart, contentStart + contentLength, depth + 1);
+        position = contentStart + contentLength;
+        return list;
+    }
+
+    /**
+     * Returns a copy of the content of the next element, which must be an item, and moves the
+     * cursor past it. Empty items are returned as {@link ByteUtil#EMPTY_BYTE_ARRAY}.
+     */
+    public byte[] nextBytes() {
+        readItemHeader();
+        byte[] bytes = contentLength == 0 ? ByteUtil.EMPTY_BYTE_ARRAY : Arrays.copyOfRange(data, contentStart, contentStart + contentLength);
+        position = contentStart + contentLength;
+        return bytes;
+    }
+
+    /**
+     * Decodes the next item as an unsigned big-endian number keeping its lowest 64 bits, matching
+     * {@code new BigInteger(1, bytes).longValue()}, and moves the cursor past it.
+     */
+    public long nextLong() {
+        readItemHeader();
+        long value = 0;
+        for (int i = contentStart; i < contentStart + contentLength; i++) {
+            value = (value << 8) | (data[i] & 0xFF);
+        }
+        position = contentStart + contentLength;
+        return value;
+    }
+
+    /**
+     * Decodes the next item as an unsigned big-endian number keeping its lowest 32 bits, matching
+     * {@code new BigInteger(1, bytes).intValue()}, and moves the cursor past it.
+     */
+    public int nextInt() {
+        return (int) nextLong();
+    }
+
+    /**
+     * Decodes the next item as an unsigned big-endian number keeping its lowest 8 bits, matching
+     * {@code new BigInteger(1, bytes).byteValue()}, and moves the cursor past it.
+     */
+    public byte nextByte() {
+        return (byte) nextLong();
+    }
+
+    /** Decodes the next item as an unsigned big-endian number and moves the cursor past it. */
+    public BigInteger nextBigInteger() {
+        readItemHeader();
+        BigInteger value = contentLength == 0 ? BigInteger.ZERO : new BigInteger(1, Arrays.copyOfRange(data, contentStart, contentStart + contentLength));
+        position = contentStart + contentLength;
+        return value;
+    }
+
+    /**
+     * Returns a copy of the complete encoding of the next element, including its header, and moves
+     * the cursor past it.
+     */
+    public byte[] nextEncoded() {
+        readHeader();
+        int start = position;
+        position = contentStart + contentLength;
+        return Arrays.copyOfRange(data, start, position);
+    }
+
+    /**
+     * Returns a copy of the bytes covered by this cursor. For cursors created by {@link
+     * #nextList()} this is the complete encoding of the list, including its header.
+     */
+    public byte[] encoding() {
+        return Arrays.copyOfRange(data, encodingStart, end);
+    }
+
+    private void readItemHeader() {
+        readHeader();
+        if (isList) {
+            throw new IllegalArgumentException("RLP wrong encoding: expected an item at position " + position + ".");
+        }
+    }
+
+    private void readHeader() {
+        if (headerPosition == position) {
+            return;
+        }
+        if (position >= end) {
+            throw new NoSuchElementException("No RLP elements left to read.");
+        }
+
+        int type = data[position] & 0xFF;
+        if (type < OFFSET_SHORT_ITEM) {
+            // single byte item
+            setHeader(position, 1, false);
+        } else if (type <= OFFSET_LONG_ITEM) {
+            // item of at most 55 bytes
+            setHeader(position + 1, type - OFFSET_SHORT_ITEM, false);
+        } else if (type < OFFSET_SHORT_LIST) {
+            // item of more than 55 bytes
+            int lengthOfLength = type - OFFSET_LONG_ITEM;
+            setHeader(position + 1 + lengthOfLength, readLength(lengthOfLength), false);
+        } else if (type <= OFFSET_LONG_LIST) {
+            // list with a payload of at most 55 bytes
+            setHeader(position + 1, type - OFFSET_SHORT_LIST, true);
+        } else {
+            // list with a payload of more than 55 bytes
+            int lengthOfLength = type - OFFSET_LONG_LIST;
+            setHeader(position + 1 + lengthOfLength, readLength(lengthOfLength), true);
+        }
+    }
+
+    private int readLength(int lengthOfLength) {
+        if (lengthOfLength > Integer.BYTES || position + lengthOfLength >= end) {
+            throw new IllegalArgumentException("RLP wrong encoding: invalid length of length " + lengthOfLength + " at position " + position + ".");
+        }
+        int length = 0;
+        for (int i = 1; i <= lengthOfLength; i++) {
+            length = (length << 8) | (data[position + i] & 0xFF);
+        }
+        if (length < 0) {
+            throw new IllegalArgumentException("RLP wrong encoding: invalid length at position " + position + ".");
+        }
+        return length;
+    }
+
+    private void setHeader(int contentStart, int contentLength, boolean isList) {
+        if (contentStart > end || contentLength > end - contentStart) {
+            throw new IllegalArgumentException("RLP wrong encoding: element at position " + position + " exceeds the enclosing bounds.");
+        }
+        this.headerPosition = position;
+        this.contentStart = contentStart;
+        this.contentLength = contentLength;
+        this.isList = isList;
+    }
+}
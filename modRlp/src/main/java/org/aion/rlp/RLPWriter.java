@@ -0,0 +1,222 @@
+package org.aion.rlp;
+
+import static org.aion.rlp.RLP.OFFSET_LONG_ITEM;
+import static org.aion.rlp.RLP.OFFSET_LONG_LIST;
+import static org.aion.rlp.RLP.OFFSET_SHORT_ITEM;
+import static org.aion.rlp.RLP.OFFSET_SHORT_LIST;
+import static org.aion.rlp.RLP.SIZE_THRESHOLD;
+import static org.aion.rlp.Utils.asUnsignedByteArray;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Writes RLP encodings into a growable buffer which is kept between encodings, avoiding the
+ * intermediate arrays created when encoding each element with {@link RLP} and concatenating them
+ * with {@link RLP#encodeList(byte[]...)}. The produced encodings are identical to the ones of the
+ * corresponding {@link RLP} methods.
+ *
+ * <p>Lists are written by calling {@link #startList()}, writing the items and calling {@link
+ * #endList()}. A single byte is reserved for the list header, which is expanded by shifting the
+ * items when the list is longer than 55 bytes.
+ *
+ * <p>Instances are not thread safe and are meant to be reused by calling {@link #reset()} after
+ * retrieving each encoding with {@link #toByteArray()}.
+ */
+public final class RLPWriter {
+
+    private static final int INITIAL_CAPACITY = 256;
+    // larger buffers are released on reset to avoid retaining the memory of rare large encodings
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private byte[] buffer;
+    private int size;
+
+    // the positions of the headers of the lists that were started but not ended
+    private int[] openLists = new int[RLP.MAX_DEPTH];
+    private int depth;
+
+    public RLPWriter() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public RLPWriter(int initialCapacity) {
+        this.buffer = new byte[Math.max(initialCapacity, 16)];
+    }
+
+    /** Encodes the given bytes as an item, as done by {@link RLP#encodeElement(byte[])}. */
+    public RLPWriter writeElement(byte[] element) {
+        if (element == null || element.length == 0) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) OFFSET_SHORT_ITEM;
+        } else if (element.length == 1 && (element[0] & 0xFF) < OFFSET_SHORT_ITEM) {
+            ensureCapacity(1);
+            buffer[size++] = element[0];
+        } else {
+            writeHeader(element.length, OFFSET_SHORT_ITEM, OFFSET_LONG_ITEM);
+            ensureCapacity(element.length);
+            System.arraycopy(element, 0, buffer, size, element.length);
+            size += element.length;
+        }
+        return this;
+    }
+
+    /** Encodes the given byte, as done by {@link RLP#encodeByte(byte)}. */
+    public RLPWriter writeByte(byte value) {
+        ensureCapacity(2);
+        if (value == 0) {
+            buffer[size++] = (byte) OFFSET_SHORT_ITEM;
+        } else if ((value & 0xFF) < OFFSET_SHORT_ITEM) {
+            buffer[size++] = value;
+        } else {
+            buffer[size++] = (byte) (OFFSET_SHORT_ITEM + 1);
+            buffer[size++] = value;
+        }
+        return this;
+    }
+
+    /** Encodes the given short, as done by {@link RLP#encodeShort(short)}. */
+    public RLPWriter writeShort(short value) {
+        if ((value & 0xFF) == value) {
+            return writeByte((byte) value);
+        }
+        return writeNumber(value & 0xFFFF, 2);
+    }
+
+    /** Encodes the given int, as done by {@link RLP#encodeInt(int)}. */
+    public RLPWriter writeInt(int value) {
+        if ((value & 0xFFFF) == value) {
+            return writeShort((short) value);
+        }
+        return writeNumber(value & 0xFFFFFFFFL, (value & 0xFFFFFF) == value ? 3 : 4);
+    }
+
+    /**
+     * Encodes the given long, as done by {@link RLP#encodeLong(long)}, which uses all the 8 bytes
+     * for values that do not fit in 32 bits.
+     */
+    public RLPWriter writeLong(long value) {
+        if ((value & 0xFFFFFFFFL) == value) {
+            return writeInt((int) value);
+        }
+        return writeNumber(value, 8);
+    }
+
+    /** Encodes the given value, as done by {@link RLP#encodeBigInteger(BigInteger)}. */
+    public RLPWriter writeBigInteger(BigInteger value) {
+        if (value.equals(BigInteger.ZERO)) {
+            return writeByte((byte) 0);
+        }
+        return writeElement(asUnsignedByteArray(value));
+    }
+
+    /** Encodes the given string, as done by {@link RLP#encodeString(String)}. */
+    public RLPWriter writeString(String value) {
+        return writeElement(value.getBytes());
+    }
+
+    /** Appends the given bytes, which must already be a valid RLP encoding, without changing them. */
+    public RLPWriter writeEncoded(byte[] encoding) {
+        ensureCapacity(encoding.length);
+        System.arraycopy(encoding, 0, buffer, size, encoding.length);
+        size += encoding.length;
+        return this;
+    }
+
+    /** Starts a list containing the elements written until the matching {@link #endList()}. */
+    public RLPWriter startList() {
+        if (depth == openLists.length) {
+            openLists = Arrays.copyOf(openLists, depth * 2);
+        }
+        ensureCapacity(1);
+        openLists[depth++] = size;
+        size++;
+        return this;
+    }
+
+    /** Ends the last started list, writing its header. */
+    public RLPWriter endList() {
+        if (depth == 0) {
+            throw new IllegalStateException("There is no started list to end.");
+        }
+        int header = openLists[--depth];
+        int length = size - header - 1;
+
+        if (length < SIZE_THRESHOLD) {
+            buffer[header] = (byte) (OFFSET_SHORT_LIST + length);
+        } else {
+            int lengthOfLength = lengthOfLength(length);
+            ensureCapacity(lengthOfLength);
+            System.arraycopy(buffer, header + 1, buffer, header + 1 + lengthOfLength, length);
+            buffer[header] = (byte) (OFFSET_LONG_LIST + lengthOfLength);
+            writeBigEndian(length, header + 1, lengthOfLength);
+            size += lengthOfLength;
+        }
+        return this;
+    }
+
+    /** Returns the number of bytes written since the last {@link #reset()}. */
+    public int size() {
+        return size;
+    }
+
+    /** Returns a copy of the written encoding. All the started lists must have been ended. */
+    public byte[] toByteArray() {
+        if (depth != 0) {
+            throw new IllegalStateException("The encoding has " + depth + " unfinished list(s).");
+        }
+        return Arrays.copyOf(buffer, size);
+    }
+
+    /** Discards the written bytes, keeping the buffer for the next encoding unless it grew too large. */
+    public void reset() {
+        size = 0;
+        depth = 0;
+        if (buffer.length > MAX_RETAINED_CAPACITY) {
+            buffer = new byte[INITIAL_CAPACITY];
+        }
+    }
+
+    private RLPWriter writeNumber(long value, int length) {
+        ensureCapacity(1 + length);
+        buffer[size] = (byte) (OFFSET_SHORT_ITEM + length);
+        writeBigEndian(value, size + 1, length);
+        size += 1 + length;
+        return this;
+    }
+
+    private void writeHeader(int length, int shortOffset, int longOffset) {
+        if (length < SIZE_THRESHOLD) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) (shortOffset + length);
+        } else {
+            int lengthOfLength = lengthOfLength(length);
+            ensureCapacity(1 + lengthOfLength);
+            buffer[size] = (byte) (longOffset + lengthOfLength);
+            writeBigEndian(length, size + 1, lengthOfLength);
+            size += 1 + lengthOfLength;
+        }
+    }
+
+    private void writeBigEndian(long value, int position, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            buffer[position + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static int lengthOfLength(int length) {
+        int byteNum = 0;
+        while (length != 0) {
+            ++byteNum;
+            length >>>= 8;
+        }
+        return byteNum;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+        }
+    }
+}
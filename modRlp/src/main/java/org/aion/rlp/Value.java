@@ -164,17 +164,32 @@ public class Value {
 
     private void decode() {
         if (!this.decoded) {
-            SharedRLPList decodedList = RLP.decode2SharedList(rlp);
-            if (decodedList.isEmpty()) {
-                this.value = "";
-            } else {
-                this.value = SharedRLPList.getDecode(decodedList.get(0));
-            }
+            RLPCursor cursor = new RLPCursor(rlp);
+            this.value = cursor.hasNext() ? decodeNext(cursor) : "";
 
             this.decoded = true;
         }
     }
 
+    /**
+     * Decodes the next element of the cursor in the same representation as {@link
+     * SharedRLPList#getDecode(RLPElement)}: lists become arrays of objects, while items become byte
+     * arrays or empty strings.
+     */
+    private static Object decodeNext(RLPCursor cursor) {
+        if (cursor.isNextList()) {
+            RLPCursor list = cursor.nextList();
+            Object[] objs = new Object[list.remaining()];
+            for (int i = 0; i < objs.length; i++) {
+                objs[i] = decodeNext(list);
+            }
+            return objs;
+        } else {
+            byte[] rlpData = cursor.nextBytes();
+            return rlpData.length == 0 ? "" : rlpData;
+        }
+    }
+
     public byte[] encode() {
         if (rlp == null) {
             rlp = RLP.encode(value);
@@ -0,0 +1,137 @@
+package org.aion.rlp;
+
+import java.util.Random;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compares the decoding with {@link RLPCursor} to {@link RLP#decode2SharedList(byte[])} and the
+ * encoding with {@link RLPWriter} to the {@link RLP} static encoders for a block-like structure: a
+ * header of 15 items followed by a list of transactions of 11 items each.
+ *
+ * <p>NOTE: Run manually; the results depend on the warmup of the JIT.
+ */
+public class RLPBenchmark {
+
+    private static final int TRANSACTIONS = 200;
+    private static final int WARMUP = 2_000;
+    private static final int ROUNDS = 10_000;
+
+    private static final Random random = new Random(42);
+
+    @Test
+    @Ignore
+    public void benchmarkDecoding() {
+        byte[] block = encodeBlock();
+
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += decodeShared(block) + decodeCursor(block);
+        }
+
+        long t1 = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            sink += decodeShared(block);
+        }
+        long t2 = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            sink += decodeCursor(block);
+        }
+        long t3 = System.nanoTime();
+
+        System.out.println("shared list decoding: " + (t2 - t1) / ROUNDS + " ns/block");
+        System.out.println("cursor decoding:      " + (t3 - t2) / ROUNDS + " ns/block");
+        System.out.println(sink);
+    }
+
+    @Test
+    @Ignore
+    public void benchmarkEncoding() {
+        byte[][] fields = randomFields(11);
+        RLPWriter writer = new RLPWriter();
+
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += encodeStatic(fields).length + encodeWriter(writer, fields).length;
+        }
+
+        long t1 = System.nanoTime();
+        for (int i = 0; i < ROUNDS * 100; i++) {
+            sink += encodeStatic(fields).length;
+        }
+        long t2 = System.nanoTime();
+        for (int i = 0; i < ROUNDS * 100; i++) {
+            sink += encodeWriter(writer, fields).length;
+        }
+        long t3 = System.nanoTime();
+
+        System.out.println("static encoding: " + (t2 - t1) / (ROUNDS * 100) + " ns/transaction");
+        System.out.println("writer encoding: " + (t3 - t2) / (ROUNDS * 100) + " ns/transaction");
+        System.out.println(sink);
+    }
+
+    private static long decodeShared(byte[] block) {
+        long sum = 0;
+        SharedRLPList decoded = (SharedRLPList) RLP.decode2SharedList(block).get(0);
+        for (RLPElement item : (SharedRLPList) decoded.get(0)) {
+            sum += item.getRLPData().length;
+        }
+        for (RLPElement tx : (SharedRLPList) decoded.get(1)) {
+            for (RLPElement item : (SharedRLPList) tx) {
+                sum += item.getRLPData().length;
+            }
+        }
+        return sum;
+    }
+
+    private static long decodeCursor(byte[] block) {
+        long sum = 0;
+        RLPCursor decoded = new RLPCursor(block).nextList();
+        RLPCursor header = decoded.nextList();
+        while (header.hasNext()) {
+            sum += header.nextBytes().length;
+        }
+        RLPCursor txs = decoded.nextList();
+        while (txs.hasNext()) {
+            RLPCursor tx = txs.nextList();
+            while (tx.hasNext()) {
+                sum += tx.nextBytes().length;
+            }
+        }
+        return sum;
+    }
+
+    private static byte[] encodeStatic(byte[][] fields) {
+        byte[][] encoded = new byte[fields.length][];
+        for (int i = 0; i < fields.length; i++) {
+            encoded[i] = RLP.encodeElement(fields[i]);
+        }
+        return RLP.encodeList(encoded);
+    }
+
+    private static byte[] encodeWriter(RLPWriter writer, byte[][] fields) {
+        writer.reset();
+        writer.startList();
+        for (byte[] field : fields) {
+            writer.writeElement(field);
+        }
+        return writer.endList().toByteArray();
+    }
+
+    private static byte[] encodeBlock() {
+        byte[][] txs = new byte[TRANSACTIONS][];
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            txs[i] = encodeStatic(randomFields(11));
+        }
+        return RLP.encodeList(encodeStatic(randomFields(15)), RLP.encodeList(txs));
+    }
+
+    private static byte[][] randomFields(int count) {
+        byte[][] fields = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            fields[i] = new byte[1 + random.nextInt(96)];
+            random.nextBytes(fields[i]);
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,147 @@
+package org.aion.rlp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.NoSuchElementException;
+import org.aion.util.conversions.Hex;
+import org.junit.Test;
+
+/** Unit tests for {@link RLPCursor}. */
+public class RLPCursorTest {
+
+    private static final byte[] longItem = new byte[100];
+
+    static {
+        for (int i = 0; i < longItem.length; i++) {
+            longItem[i] = (byte) i;
+        }
+    }
+
+    private static final byte[] encoding =
+            RLP.encodeList(
+                    RLP.encodeElement(new byte[] {5}),
+                    RLP.encodeElement(new byte[0]),
+                    RLP.encodeLong(Long.MAX_VALUE - 1),
+                    RLP.encodeList(RLP.encodeString("dog"), RLP.encodeList()),
+                    RLP.encodeElement(longItem),
+                    RLP.encodeBigInteger(BigInteger.valueOf(1_000_000)));
+
+    @Test
+    public void testReadsTheElementsInOrder() {
+        RLPCursor cursor = new RLPCursor(encoding);
+        RLPCursor list = cursor.nextList();
+        assertThat(cursor.hasNext()).isFalse();
+
+        assertThat(list.remaining()).isEqualTo(6);
+        assertThat(list.nextInt()).isEqualTo(5);
+        assertThat(list.nextBytes()).isEmpty();
+        assertThat(list.nextLong()).isEqualTo(Long.MAX_VALUE - 1);
+
+        assertThat(list.isNextList()).isTrue();
+        RLPCursor inner = list.nextList();
+        assertThat(inner.nextBytes()).isEqualTo("dog".getBytes());
+        assertThat(inner.nextList().hasNext()).isFalse();
+        assertThat(inner.hasNext()).isFalse();
+
+        assertThat(list.isNextList()).isFalse();
+        assertThat(list.nextBytes()).isEqualTo(longItem);
+        assertThat(list.nextBigInteger()).isEqualTo(BigInteger.valueOf(1_000_000));
+        assertThat(list.hasNext()).isFalse();
+        assertThat(list.remaining()).isEqualTo(0);
+    }
+
+    @Test
+    public void testMatchesTheSharedListDecoding() {
+        SharedRLPList decoded = (SharedRLPList) RLP.decode2SharedList(encoding).get(0);
+        RLPCursor list = new RLPCursor(encoding).nextList();
+
+        for (RLPElement element : decoded) {
+            if (element.isList()) {
+                assertThat(list.nextEncoded()).isEqualTo(SharedRLPList.getRLPDataCopy((SharedRLPList) element));
+            } else {
+                assertThat(list.nextBytes()).isEqualTo(element.getRLPData());
+            }
+        }
+        assertThat(list.hasNext()).isFalse();
+    }
+
+    @Test
+    public void testNumbersMatchTheBigIntegerConversions() {
+        byte[] large = Hex.decode("0102030405060708090a0b");
+        RLPCursor cursor = new RLPCursor(RLP.encodeList(RLP.encodeElement(large), RLP.encodeElement(large), RLP.encodeElement(large))).nextList();
+
+        assertThat(cursor.nextLong()).isEqualTo(new BigInteger(1, large).longValue());
+        assertThat(cursor.nextInt()).isEqualTo(new BigInteger(1, large).intValue());
+        assertThat(cursor.nextByte()).isEqualTo(new BigInteger(1, large).byteValue());
+    }
+
+    @Test
+    public void testEncodingOfTheList() {
+        byte[] outer = RLP.encodeList(RLP.encodeElement(longItem), encoding);
+        RLPCursor list = new RLPCursor(outer).nextList();
+        list.skip();
+
+        assertThat(list.nextList().encoding()).isEqualTo(encoding);
+    }
+
+    @Test
+    public void testDuplicateDoesNotMoveTheCursor() {
+        RLPCursor list = new RLPCursor(encoding).nextList();
+
+        assertThat(list.duplicate().nextInt()).isEqualTo(5);
+        assertThat(list.nextInt()).isEqualTo(5);
+    }
+
+    @Test
+    public void testWrapsByteBuffers() {
+        ByteBuffer buffer = ByteBuffer.allocate(encoding.length + 2);
+        buffer.put((byte) 0).put(encoding).put((byte) 0);
+        buffer.position(1).limit(1 + encoding.length);
+
+        assertThat(RLPCursor.wrap(buffer).nextList().nextInt()).isEqualTo(5);
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(encoding.length);
+        direct.put(encoding).flip();
+
+        assertThat(RLPCursor.wrap(direct).nextList().nextInt()).isEqualTo(5);
+        assertThat(direct.position()).isEqualTo(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testItemExceedingTheList() {
+        // the list claims 3 bytes while the item claims 4
+        new RLPCursor(Hex.decode("c383010203")).nextList().nextBytes();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncatedEncoding() {
+        new RLPCursor(Hex.decode("c5830102")).nextList();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testListReadAsItem() {
+        new RLPCursor(encoding).nextBytes();
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testReadPastTheEnd() {
+        RLPCursor cursor = new RLPCursor(encoding);
+        cursor.skip();
+        cursor.skip();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMaxDepth() {
+        byte[] nested = RLP.encodeList();
+        for (int i = 0; i < 20; i++) {
+            nested = RLP.encodeList(nested);
+        }
+
+        RLPCursor cursor = new RLPCursor(nested);
+        while (cursor.hasNext()) {
+            cursor = cursor.nextList();
+        }
+    }
+}
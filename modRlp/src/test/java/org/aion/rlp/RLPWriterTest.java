@@ -0,0 +1,99 @@
+package org.aion.rlp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.math.BigInteger;
+import org.junit.Test;
+
+/** Unit tests for {@link RLPWriter} comparing its encodings to the ones of {@link RLP}. */
+public class RLPWriterTest {
+
+    private final RLPWriter writer = new RLPWriter(16);
+
+    @Test
+    public void testElements() {
+        byte[][] elements = {null, new byte[0], {0}, {0x7f}, {(byte) 0x80}, new byte[55], new byte[56], new byte[1024], new byte[70_000]};
+
+        for (byte[] element : elements) {
+            writer.writeElement(element);
+            assertThat(writer.toByteArray()).isEqualTo(RLP.encodeElement(element));
+            writer.reset();
+        }
+    }
+
+    @Test
+    public void testNumbers() {
+        long[] values = {0, 1, 0x7f, 0x80, 0xff, 0x100, 0x7fff, 0x8000, 0xffff, 0x10000, 0xffffff, 0x1000000, 0x7fffffff, 0x80000000L, 0xffffffffL, 0x100000000L, Long.MAX_VALUE, -1};
+
+        for (long value : values) {
+            assertThat(writer.writeLong(value).toByteArray()).isEqualTo(RLP.encodeLong(value));
+            writer.reset();
+            assertThat(writer.writeInt((int) value).toByteArray()).isEqualTo(RLP.encodeInt((int) value));
+            writer.reset();
+            assertThat(writer.writeShort((short) value).toByteArray()).isEqualTo(RLP.encodeShort((short) value));
+            writer.reset();
+            assertThat(writer.writeByte((byte) value).toByteArray()).isEqualTo(RLP.encodeByte((byte) value));
+            writer.reset();
+            if (value >= 0) {
+                BigInteger big = BigInteger.valueOf(value);
+                assertThat(writer.writeBigInteger(big).toByteArray()).isEqualTo(RLP.encodeBigInteger(big));
+                writer.reset();
+            }
+        }
+    }
+
+    @Test
+    public void testNestedLists() {
+        byte[] expected =
+                RLP.encodeList(
+                        RLP.encodeString("dog"),
+                        RLP.encodeList(),
+                        RLP.encodeList(RLP.encodeElement(new byte[60]), RLP.encodeList(RLP.encodeLong(7))),
+                        RLP.encodeElement(new byte[300]));
+
+        writer.startList()
+                .writeString("dog")
+                .startList()
+                .endList()
+                .startList()
+                .writeElement(new byte[60])
+                .startList()
+                .writeLong(7)
+                .endList()
+                .endList()
+                .writeElement(new byte[300])
+                .endList();
+
+        assertThat(writer.toByteArray()).isEqualTo(expected);
+    }
+
+    @Test
+    public void testWriteEncoded() {
+        byte[] item = RLP.encodeElement(new byte[] {1, 2, 3});
+
+        writer.startList().writeEncoded(item).writeEncoded(item).endList();
+
+        assertThat(writer.toByteArray()).isEqualTo(RLP.encodeList(item, item));
+    }
+
+    @Test
+    public void testResetReusesTheWriter() {
+        writer.startList().writeElement(new byte[100_000]).endList();
+        writer.toByteArray();
+        writer.reset();
+
+        assertThat(writer.size()).isEqualTo(0);
+        writer.startList().writeByte((byte) 1).endList();
+        assertThat(writer.toByteArray()).isEqualTo(RLP.encodeList(RLP.encodeByte((byte) 1)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnfinishedList() {
+        writer.startList().writeByte((byte) 1).toByteArray();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testEndWithoutStart() {
+        writer.endList();
+    }
+}
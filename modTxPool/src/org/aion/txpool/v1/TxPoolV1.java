@@ -5,12 +5,12 @@ import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.PriorityQueue;
 import java.util.Properties;
 import java.util.Set;
 import java.util.SortedMap;
@@ -26,7 +26,6 @@ import org.aion.txpool.Constant;
 import org.aion.txpool.Constant.TXPOOL_PROPERTY;
 import org.aion.types.AionAddress;
 import org.aion.util.types.ByteArrayWrapper;
-import org.apache.commons.lang3.tuple.Triple;
 import org.slf4j.Logger;
 
 public final class TxPoolV1 {
@@ -66,6 +65,9 @@ public final class TxPoolV1 {
 
     private PooledTransaction droppedPoolTx;
 
+    // the result of the last snapshot, reset when the pool content changes
+    private List<AionTransaction> cachedSnapshot;
+
     /**
      * @implNote construct the transaction pool with Java.Properties setup.
      * @param config the pool arguments
@@ -143,6 +145,7 @@ public final class TxPoolV1 {
     private void poolAdd(ByteArrayWrapper txHash, PooledTransaction poolTx) {
 
         LOG_TXPOOL.debug("Adding tx[{}]", poolTx.tx);
+        cachedSnapshot = null;
 
         poolTransactions.put(txHash, poolTx);
         long txTime = TimeUnit.MICROSECONDS.toSeconds(poolTx.tx.getTimeStampBI().longValue()) + transactionTimeout;
@@ -170,6 +173,7 @@ public final class TxPoolV1 {
         }
 
         LOG_TXPOOL.debug("Removing tx[{}]", removedTx.tx);
+        cachedSnapshot = null;
 
         long time = TimeUnit.MICROSECONDS.toSeconds(removedTx.tx.getTimeStampBI().longValue()) + transactionTimeout;
         Set<ByteArrayWrapper> timeSet = timeView.get(time);
@@ -332,7 +336,9 @@ public final class TxPoolV1 {
     }
 
     /**
-     * @implNote snapshot the transactions for creating new block template.
+     * @implNote snapshot the transactions for creating new block template. The transactions are
+     *     picked in a single pass over a price ordered queue that holds the next pickable nonce of
+     *     each sender. The result is reused until the pool content changes.
      * @return the transactions ready to be seal into the new blocks.
      */
     public List<AionTransaction> snapshot() {
@@ -343,98 +349,95 @@ public final class TxPoolV1 {
                 return Collections.emptyList();
             }
 
-            Map<AionAddress, BigInteger> accountPickingInfo = new HashMap<>();
-            Set<ByteArrayWrapper> pickedTxHash = new HashSet<>();
+            if (cachedSnapshot != null) {
+                LOG_TXPOOL.debug("snapshot {} tx from the cached result", cachedSnapshot.size());
+                return new ArrayList<>(cachedSnapshot);
+            }
+
+            // the insertion order of the transactions with the same energy price breaks the ties
+            Map<ByteArrayWrapper, Integer> feeOrder = new HashMap<>();
+            for (Set<ByteArrayWrapper> s : feeView.values()) {
+                for (ByteArrayWrapper hash : s) {
+                    feeOrder.put(hash, feeOrder.size());
+                }
+            }
+
+            PriorityQueue<PickingCandidate> readyQueue = new PriorityQueue<>(Math.max(1, accountView.size()));
+            for (SortedMap<BigInteger, ByteArrayWrapper> accountInfo : accountView.values()) {
+                readyQueue.add(newCandidate(accountInfo.get(accountInfo.firstKey()), feeOrder));
+            }
 
-            // We use the multi rounds picking strategy.
             List<AionTransaction> pickedTransactions = new ArrayList<>();
-            int totalPicked;
             long cumulatedTxEncodedSize = 0;
             long cumulatedTxEnergyConsumed = 0;
             LOG_TXPOOL.info("Start to pick transaction");
-            do {
-                totalPicked = pickedTransactions.size();
-
-                Triple<List<AionTransaction>, Long, Long> newPicked =
-                        pickTransaction(
-                                accountPickingInfo,
-                                pickedTxHash,
-                                cumulatedTxEncodedSize,
-                                cumulatedTxEnergyConsumed);
-                cumulatedTxEncodedSize += newPicked.getMiddle();
-                cumulatedTxEnergyConsumed += newPicked.getRight();
-                LOG_TXPOOL.debug(
-                        "transaction picked: {}, newPickedEncodedSize: {}, newPickedEnergyConsumed: {}",
-                        newPicked.getLeft().size(),
-                        newPicked.getMiddle(),
-                        newPicked.getRight());
-                pickedTransactions.addAll(newPicked.getLeft());
-
-            } while (totalPicked < pickedTransactions.size());
+            while (!readyQueue.isEmpty()) {
+                PooledTransaction pendingTx = readyQueue.poll().pooledTx;
+
+                long txEncodedSize = pendingTx.tx.getEncoded().length;
+                long txEnergyConsumed = Math.max(pendingTx.energyConsumed, (Constant.MIN_ENERGY_CONSUME / 2));
+
+                if ((cumulatedTxEncodedSize + txEncodedSize) > Constant.MAX_BLK_SIZE
+                        || (cumulatedTxEnergyConsumed + txEncodedSize) > blockEnergyLimit) {
+                    break;
+                }
+
+                LOG_TXPOOL.trace("Transaction picked: [{}]", pendingTx.tx);
+                pickedTransactions.add(pendingTx.tx);
+                cumulatedTxEncodedSize += txEncodedSize;
+                cumulatedTxEnergyConsumed += txEnergyConsumed;
+
+                // the next transaction of the sender becomes pickable
+                ByteArrayWrapper nextHash =
+                        accountView
+                                .get(pendingTx.tx.getSenderAddress())
+                                .get(pendingTx.tx.getNonceBI().add(BigInteger.ONE));
+                if (nextHash != null) {
+                    readyQueue.add(newCandidate(nextHash, feeOrder));
+                }
+            }
 
             LOG_TXPOOL.info(
                     "snapshot {} tx, totalEncodedSize: {}, totalEnergyConsumed: {}",
                     pickedTransactions.size(),
                     cumulatedTxEncodedSize,
                     cumulatedTxEnergyConsumed);
-            return pickedTransactions;
+
+            cachedSnapshot = pickedTransactions;
+            return new ArrayList<>(pickedTransactions);
         } finally {
             lock.unlock();
         }
     }
 
-    private Triple<List<AionTransaction>, Long, Long> pickTransaction(
-            Map<AionAddress, BigInteger> accountPickingInfo,
-            Set<ByteArrayWrapper> pickedTxHash,
-            long cumulatedTxEncodedSize,
-            long cumulatedTxEnergy) {
-
-        List<AionTransaction> pickedTx = new ArrayList<>();
-        long pickedTxEncodedSize = 0;
-        long pickedEnergyConsumed = 0;
-        for (Set<ByteArrayWrapper> s : feeView.values()) {
-            for (ByteArrayWrapper hash : s) {
-
-                if (!pickedTxHash.contains(hash)) {
-                    PooledTransaction pendingTx = poolTransactions.get(hash);
-
-                    AionAddress sender = pendingTx.tx.getSenderAddress();
-                    BigInteger currentAccountPickingNonce =
-                        accountPickingInfo.getOrDefault(sender, getAccountFirstPickingNonce(sender));
-
-                    if (currentAccountPickingNonce.equals(pendingTx.tx.getNonceBI())) {
-                        long txEncodedSize = pendingTx.tx.getEncoded().length;
-                        long txEnergyConsumed = Math.max(pendingTx.energyConsumed, (Constant.MIN_ENERGY_CONSUME / 2));
-
-                        if ((cumulatedTxEncodedSize + pickedTxEncodedSize + txEncodedSize) <= Constant.MAX_BLK_SIZE
-                            && (cumulatedTxEnergy + pickedEnergyConsumed + txEncodedSize) <= blockEnergyLimit) {
-                            LOG_TXPOOL.trace("Transaction picked: [{}]", pendingTx.tx);
-                            pickedTx.add(pendingTx.tx);
-                            pickedTxHash.add(hash);
-
-                            currentAccountPickingNonce = currentAccountPickingNonce.add(BigInteger.ONE);
-                            accountPickingInfo.put(sender, currentAccountPickingNonce);
-
-                            pickedTxEncodedSize += txEncodedSize;
-                            pickedEnergyConsumed += txEnergyConsumed;
-                        } else {
-                            return Triple.of(pickedTx, pickedTxEncodedSize, pickedEnergyConsumed);
-                        }
-                    }
-                }
-            }
+    private PickingCandidate newCandidate(ByteArrayWrapper hash, Map<ByteArrayWrapper, Integer> feeOrder) {
+        PooledTransaction pTx = poolTransactions.get(hash);
+        if (pTx == null) {
+            throw new IllegalStateException("The pool data has broken, cannot find the txHash:" + hash);
         }
-
-        return Triple.of(pickedTx, pickedTxEncodedSize, pickedEnergyConsumed);
+        return new PickingCandidate(pTx, feeOrder.get(hash));
     }
 
-    private BigInteger getAccountFirstPickingNonce(AionAddress sender) {
-        SortedMap<BigInteger, ByteArrayWrapper> accountInfo = accountView.get(sender);
-        if (accountInfo == null) {
-            throw new IllegalStateException("Can't find the account info relate with sender: " + sender);
+    /**
+     * The next pickable transaction of a sender, ordered by the highest energy price first and by
+     * the order in the fee view for the same energy price.
+     */
+    private static final class PickingCandidate implements Comparable<PickingCandidate> {
+        private final PooledTransaction pooledTx;
+        private final long energyPrice;
+        private final int feeOrder;
+
+        private PickingCandidate(PooledTransaction pooledTx, int feeOrder) {
+            this.pooledTx = pooledTx;
+            this.energyPrice = pooledTx.tx.getEnergyPrice();
+            this.feeOrder = feeOrder;
         }
 
-        return accountInfo.firstKey();
+        @Override
+        public int compareTo(PickingCandidate other) {
+            int cmp = Long.compare(other.energyPrice, energyPrice);
+            return cmp != 0 ? cmp : Integer.compare(feeOrder, other.feeOrder);
+        }
     }
 
     /**
@@ -462,6 +465,7 @@ public final class TxPoolV1 {
                 }
 
                 LOG_TXPOOL.debug("Removing tx[{}]", removedTx.tx);
+                cachedSnapshot = null;
 
                 Set<ByteArrayWrapper> feeSet = feeView.get(removedTx.tx.getEnergyPrice());
                 feeSet.remove(txHash);
@@ -550,6 +554,7 @@ public final class TxPoolV1 {
             } else {
                 blockEnergyLimit = nrg;
             }
+            cachedSnapshot = null;
 
             LOG_TXPOOL.debug(
                     "TxPoolA1.updateBlkNrgLimit nrg[{}] blkNrgLimit[{}]", nrg, blockEnergyLimit);
@@ -622,6 +627,40 @@ public final class TxPoolV1 {
         }
     }
 
+    /**
+     * @implNote get all the pool transactions without ordering them, for looking up the
+     *     transactions by their content.
+     * @return the pool transactions.
+     */
+    public List<AionTransaction> getPoolTransactions() {
+        lock.lock();
+        try {
+            List<AionTransaction> transactions = new ArrayList<>(poolTransactions.size());
+            for (PooledTransaction pooledTx : poolTransactions.values()) {
+                transactions.add(pooledTx.tx);
+            }
+            return transactions;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @implNote get pool transaction by given the transaction hash.
+     * @param txHash the transaction hash.
+     * @return the pooledTransaction when the pool contains the transaction. Otherwise, return null.
+     */
+    public PooledTransaction getPoolTx(ByteArrayWrapper txHash) {
+        Objects.requireNonNull(txHash);
+
+        lock.lock();
+        try {
+            return poolTransactions.get(txHash);
+        } finally {
+            lock.unlock();
+        }
+    }
+
     @VisibleForTesting
     public List<BigInteger> getNonceList(AionAddress acc) {
         lock.lock();
@@ -674,6 +713,7 @@ public final class TxPoolV1 {
             ByteArrayWrapper txHash = ByteArrayWrapper.wrap(pooledTransaction.tx.getTransactionHash());
             if (poolTransactions.containsKey(txHash)) {
                 poolTransactions.put(txHash, pooledTransaction);
+                cachedSnapshot = null;
             }
         } finally{
             lock.unlock();
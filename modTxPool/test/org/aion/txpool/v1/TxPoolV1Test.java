@@ -1110,6 +1110,11 @@ public class TxPoolV1Test {
         PooledTransaction pTx = tp.getPoolTx(new AionAddress(key.get(0).getAddress()), BigInteger.ZERO);
         assertNotNull(pTx);
         assertEquals(tx, pTx.tx);
+
+        assertNull(tp.getPoolTx(ByteArrayWrapper.wrap(new byte[32])));
+        pTx = tp.getPoolTx(ByteArrayWrapper.wrap(tx.getTransactionHash()));
+        assertNotNull(pTx);
+        assertEquals(tx, pTx.tx);
     }
 
     @Test
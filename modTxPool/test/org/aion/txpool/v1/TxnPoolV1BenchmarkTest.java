@@ -2,7 +2,9 @@ package org.aion.txpool.v1;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Random;
 import org.aion.base.AionTransaction;
@@ -333,4 +335,80 @@ public class TxnPoolV1BenchmarkTest {
             }
         }
     }
+
+    @Test
+    /* 100K transactions from 10K senders, each sender with 10 transactions in random energy price.
+     */
+    public void benchmarkSnapshotManySenders() {
+        Properties config = new Properties();
+        config.put(TXPOOL_PROPERTY.PROP_TX_TIMEOUT, "100");
+        config.put(TXPOOL_PROPERTY.PROP_POOL_SIZE_MAX, "100000");
+        config.put(TXPOOL_PROPERTY.PROP_BLOCK_NRG_LIMIT, "100000000");
+
+        TxPoolV1 tp = new TxPoolV1(config);
+
+        int senderCnt = 10_000;
+        int cnt = 10;
+        System.out.println("gen new transactions...");
+        long start = System.currentTimeMillis();
+        List<PooledTransaction> txnl = new ArrayList<>();
+        for (int s = 0; s < senderCnt; s++) {
+            ECKey sender = ECKeyFac.inst().create();
+            for (int i = 0; i < cnt; i++) {
+                AionTransaction txn =
+                        AionTransaction.create(
+                                sender,
+                                BigInteger.valueOf(i).toByteArray(),
+                                AddressUtils.wrapAddress(
+                                        "0000000000000000000000000000000000000000000000000000000000000001"),
+                                ByteUtils.fromHexString("1"),
+                                ByteUtils.fromHexString("1"),
+                                Constant.MIN_ENERGY_CONSUME,
+                                10_000_000_000L + r.nextInt(1000),
+                                TransactionTypes.DEFAULT,
+                                null);
+                txnl.add(new PooledTransaction(txn, Constant.MIN_ENERGY_CONSUME));
+            }
+        }
+        System.out.println("time spent: " + (System.currentTimeMillis() - start) + " ms.");
+
+        System.out.println("Inserting txns...");
+        start = System.currentTimeMillis();
+        tp.add(txnl);
+        System.out.println("time spent: " + (System.currentTimeMillis() - start) + " ms.");
+        Assert.assertEquals(senderCnt * cnt, tp.size());
+
+        System.out.println("1st time snapshot...");
+        start = System.currentTimeMillis();
+        List<AionTransaction> snapshot = tp.snapshot();
+        System.out.println("1st time spent: " + (System.currentTimeMillis() - start) + " ms.");
+
+        // the block energy limit bounds the picked transactions
+        Assert.assertFalse(snapshot.isEmpty());
+        Assert.assertTrue(snapshot.size() < tp.size());
+
+        // the transactions of each sender are picked in nonce order
+        Map<AionAddress, BigInteger> expectedNonce = new HashMap<>();
+        for (AionTransaction tx : snapshot) {
+            BigInteger nonce = expectedNonce.getOrDefault(tx.getSenderAddress(), BigInteger.ZERO);
+            Assert.assertEquals(nonce, tx.getNonceBI());
+            expectedNonce.put(tx.getSenderAddress(), nonce.add(BigInteger.ONE));
+        }
+
+        System.out.println("2nd time snapshot...");
+        start = System.currentTimeMillis();
+        Assert.assertEquals(snapshot, tp.snapshot());
+        System.out.println("2nd time spent: " + (System.currentTimeMillis() - start) + " ms.");
+
+        System.out.println("Re-Snapshot after the picked txns was been removed...");
+        List<PooledTransaction> picked = new ArrayList<>();
+        for (AionTransaction tx : snapshot) {
+            picked.add(new PooledTransaction(tx, Constant.MIN_ENERGY_CONSUME));
+        }
+        Assert.assertEquals(snapshot.size(), tp.remove(picked).size());
+
+        start = System.currentTimeMillis();
+        tp.snapshot();
+        System.out.println("time spent: " + (System.currentTimeMillis() - start) + " ms.");
+    }
 }
@@ -13,4 +13,5 @@ module aion.util {
     exports org.aion.util.types;
     exports org.aion.util;
     exports org.aion.util.math;
+    exports org.aion.util.metrics;
 }
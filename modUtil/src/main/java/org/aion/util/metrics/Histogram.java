@@ -0,0 +1,164 @@
+package org.aion.util.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A distribution of non-negative values with a bounded relative error, in the style of an HDR
+ * histogram.
+ *
+ * <p>The values are counted in buckets of exponentially increasing width: the values below {@code
+ * 32} have their own bucket and each power of two above is split into {@code 16} buckets of equal
+ * width, which bounds the relative error of the reported quantiles to about {@code 3%} for the
+ * whole range of {@code long} values with {@code 960} buckets. Recording a value increments a
+ * single bucket with an atomic operation and never takes a lock or allocates.
+ *
+ * <p>The histogram is exported as a Prometheus summary with the {@code 0.5}, {@code 0.9}, {@code
+ * 0.99} and {@code 0.999} quantiles, the sum and the count of the recorded values. The quantiles
+ * are computed from all the values recorded since the start.
+ */
+public final class Histogram implements Metric {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+    // the largest long has its highest bit at position 62
+    static final int BUCKETS = SUB_BUCKETS + (62 - SUB_BUCKET_BITS + 1) * HALF_SUB_BUCKETS;
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+    // the unit of the exported values relative to the recorded ones
+    private final double scale;
+
+    Histogram(double scale) {
+        this.scale = scale;
+    }
+
+    /** @param value the value to record, negative values are recorded as zero */
+    public void record(long value) {
+        long v = Math.max(value, 0);
+        counts.incrementAndGet(bucketIndex(v));
+        sum.add(v);
+        if (v > max.get()) {
+            max.accumulateAndGet(v, Math::max);
+        }
+    }
+
+    /**
+     * Records the time elapsed since the given start.
+     *
+     * @param startNanos the start time returned by {@link System#nanoTime()}
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /** @return the number of recorded values */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /** @return the sum of the recorded values */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /** @return the largest recorded value */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns an estimate of the value below which the given fraction of the recorded values fall.
+     *
+     * @param quantile the fraction, between {@code 0} and {@code 1}
+     * @return the estimated quantile or {@code 0} if no values were recorded
+     */
+    public long getQuantile(double quantile) {
+        long[] snapshot = snapshot();
+        return quantile(snapshot, total(snapshot), quantile);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (value >>> shift);
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (subBucket - HALF_SUB_BUCKETS);
+    }
+
+    static long lowestValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int offset = index - SUB_BUCKETS;
+        int shift = offset / HALF_SUB_BUCKETS + 1;
+        long subBucket = offset % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return subBucket << shift;
+    }
+
+    static long highestValue(int index) {
+        return index + 1 < BUCKETS ? lowestValue(index + 1) - 1 : Long.MAX_VALUE;
+    }
+
+    private long[] snapshot() {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return snapshot;
+    }
+
+    private static long total(long[] snapshot) {
+        long total = 0;
+        for (long count : snapshot) {
+            total += count;
+        }
+        return total;
+    }
+
+    private long quantile(long[] snapshot, long total, double quantile) {
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        if (rank >= total) {
+            return max.get();
+        }
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                // the middle of the bucket, which cannot exceed the largest value
+                long lowest = lowestValue(i);
+                long middle = lowest + (highestValue(i) - lowest) / 2;
+                return Math.min(middle, max.get());
+            }
+        }
+        return max.get();
+    }
+
+    @Override
+    public void write(StringBuilder out, String name, String labels) {
+        long[] snapshot = snapshot();
+        long total = total(snapshot);
+
+        String separator = labels.isEmpty() ? "" : ",";
+        for (double quantile : QUANTILES) {
+            String quantileLabels = labels + separator + "quantile=\"" + quantile + "\"";
+            MetricsRegistry.appendSample(out, name, quantileLabels, quantile(snapshot, total, quantile) * scale);
+        }
+        MetricsRegistry.appendSample(out, name + "_sum", labels, getSum() * scale);
+        MetricsRegistry.appendSample(out, name + "_count", labels, total);
+    }
+}
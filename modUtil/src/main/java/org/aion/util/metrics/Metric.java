@@ -0,0 +1,14 @@
+package org.aion.util.metrics;
+
+/** A time series of a metric family that can be written in the Prometheus text format. */
+interface Metric {
+
+    /**
+     * Appends the samples of this metric.
+     *
+     * @param out the output of the scrape
+     * @param name the name of the metric family
+     * @param labels the formatted labels of this metric without braces, possibly empty
+     */
+    void write(StringBuilder out, String name, String labels);
+}
@@ -0,0 +1,205 @@
+package org.aion.util.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * A registry of the metrics of the kernel which can be scraped in the Prometheus text exposition
+ * format.
+ *
+ * <p>The metrics are grouped in families by name. Each family has a type and a help text, and
+ * contains one metric for each distinct set of labels. The labels are given as alternating names
+ * and values, for example {@code registry.counter("aion_p2p_messages_total", "...", "direction",
+ * "in")}.
+ *
+ * <p>Looking up a metric builds its labels and must not be done on the hot paths: the metric
+ * should be obtained once and kept in a field. Recording to a {@link Counter} or a {@link
+ * Histogram} never blocks. Gauges and function counters are sampled only when scraped.
+ */
+public final class MetricsRegistry {
+
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+    /** The metric types of the text exposition format. */
+    private enum Type {
+        COUNTER("counter"),
+        GAUGE("gauge"),
+        SUMMARY("summary");
+
+        private final String text;
+
+        Type(String text) {
+            this.text = text;
+        }
+    }
+
+    private final ConcurrentMap<String, Family> families = new ConcurrentSkipListMap<>();
+
+    /** @return the registry shared by all the modules of the kernel */
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the counter with the given name and labels, creating it if needed.
+     *
+     * @throws IllegalArgumentException if a metric with the same name but a different type exists,
+     *     or the labels are not pairs of names and values
+     */
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, Type.COUNTER).series.computeIfAbsent(formatLabels(labels), l -> new Counter());
+    }
+
+    /**
+     * Returns the histogram with the given name and labels, creating it if needed. The recorded
+     * values are exported unchanged.
+     *
+     * @throws IllegalArgumentException if a metric with the same name but a different type exists,
+     *     or the labels are not pairs of names and values
+     */
+    public Histogram histogram(String name, String help, String... labels) {
+        return (Histogram) family(name, help, Type.SUMMARY).series.computeIfAbsent(formatLabels(labels), l -> new Histogram(1));
+    }
+
+    /**
+     * Returns the histogram of durations with the given name and labels, creating it if needed. The
+     * durations are recorded in nanoseconds and exported in seconds, so the name should end with
+     * {@code _seconds}.
+     *
+     * @throws IllegalArgumentException if a metric with the same name but a different type exists,
+     *     or the labels are not pairs of names and values
+     */
+    public Histogram timer(String name, String help, String... labels) {
+        return (Histogram) family(name, help, Type.SUMMARY).series.computeIfAbsent(formatLabels(labels), l -> new Histogram(1e-9));
+    }
+
+    /**
+     * Registers a gauge sampled when the metrics are scraped, replacing any gauge with the same name
+     * and labels.
+     *
+     * @throws IllegalArgumentException if a metric with the same name but a different type exists,
+     *     or the labels are not pairs of names and values
+     */
+    public void registerGauge(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, Type.GAUGE).series.put(formatLabels(labels), (out, n, l) -> appendSample(out, n, l, value.getAsDouble()));
+    }
+
+    /**
+     * Registers a counter maintained outside of the registry and sampled when the metrics are
+     * scraped, replacing any counter with the same name and labels.
+     *
+     * @throws IllegalArgumentException if a metric with the same name but a different type exists,
+     *     or the labels are not pairs of names and values
+     */
+    public void registerCounter(String name, String help, LongSupplier value, String... labels) {
+        family(name, help, Type.COUNTER).series.put(formatLabels(labels), (out, n, l) -> appendSample(out, n, l, value.getAsLong()));
+    }
+
+    /**
+     * Writes all the metrics in the Prometheus text exposition format, version {@code 0.0.4}.
+     *
+     * @return the text of the scrape
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(16 * 1024);
+        for (Family family : families.values()) {
+            if (family.series.isEmpty()) {
+                continue;
+            }
+            out.append("# HELP ").append(family.name).append(' ');
+            appendEscaped(out, family.help, false);
+            out.append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type.text).append('\n');
+            for (Map.Entry<String, Metric> entry : family.series.entrySet()) {
+                try {
+                    entry.getValue().write(out, family.name, entry.getKey());
+                } catch (RuntimeException e) {
+                    // a failing gauge must not prevent the other metrics from being scraped
+                    appendSample(out, family.name, entry.getKey(), Double.NaN);
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    private Family family(String name, String help, Type type) {
+        Family family = families.computeIfAbsent(name, n -> new Family(n, help, type));
+        if (family.type != type) {
+            throw new IllegalArgumentException("The metric " + name + " is already registered as a " + family.type.text + ".");
+        }
+        return family;
+    }
+
+    private static String formatLabels(String[] labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("The labels must be pairs of names and values.");
+        }
+
+        StringBuilder formatted = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                formatted.append(',');
+            }
+            formatted.append(labels[i]).append("=\"");
+            appendEscaped(formatted, labels[i + 1], true);
+            formatted.append('"');
+        }
+        return formatted.toString();
+    }
+
+    private static void appendEscaped(StringBuilder out, String text, boolean escapeQuotes) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\') {
+                out.append("\\\\");
+            } else if (c == '\n') {
+                out.append("\\n");
+            } else if (c == '"' && escapeQuotes) {
+                out.append("\\\"");
+            } else {
+                out.append(c);
+            }
+        }
+    }
+
+    static void appendSample(StringBuilder out, String name, String labels, long value) {
+        appendName(out, name, labels).append(value).append('\n');
+    }
+
+    static void appendSample(StringBuilder out, String name, String labels, double value) {
+        appendName(out, name, labels);
+        if (Double.isNaN(value)) {
+            out.append("NaN");
+        } else if (Double.isInfinite(value)) {
+            out.append(value > 0 ? "+Inf" : "-Inf");
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    private static StringBuilder appendName(StringBuilder out, String name, String labels) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        return out.append(' ');
+    }
+
+    /** The metrics sharing a name, keyed by their formatted labels. */
+    private static final class Family {
+        private final String name;
+        private final String help;
+        private final Type type;
+        private final ConcurrentMap<String, Metric> series = new ConcurrentSkipListMap<>();
+
+        private Family(String name, String help, Type type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.aion.util.metrics;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.Random;
+import org.junit.Test;
+
+/** Unit tests for {@link Histogram}. */
+public class HistogramTest {
+
+    @Test
+    public void testBucketsCoverAllValues() {
+        assertThat(Histogram.bucketIndex(0)).isEqualTo(0);
+        assertThat(Histogram.bucketIndex(31)).isEqualTo(31);
+        assertThat(Histogram.bucketIndex(32)).isEqualTo(32);
+        assertThat(Histogram.bucketIndex(Long.MAX_VALUE)).isEqualTo(Histogram.BUCKETS - 1);
+
+        for (int index = 0; index < Histogram.BUCKETS; index++) {
+            assertThat(Histogram.bucketIndex(Histogram.lowestValue(index))).isEqualTo(index);
+            assertThat(Histogram.bucketIndex(Histogram.highestValue(index))).isEqualTo(index);
+            if (index > 0) {
+                assertThat(Histogram.lowestValue(index)).isEqualTo(Histogram.highestValue(index - 1) + 1);
+            }
+        }
+    }
+
+    @Test
+    public void testQuantilesHaveBoundedError() {
+        Histogram histogram = new Histogram(1);
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1_000);
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(100_000L);
+        assertThat(histogram.getMax()).isEqualTo(100_000_000L);
+        assertThat((double) histogram.getQuantile(0.5)).isWithin(0.035 * 50_000_000).of(50_000_000);
+        assertThat((double) histogram.getQuantile(0.99)).isWithin(0.035 * 99_000_000).of(99_000_000);
+        assertThat(histogram.getQuantile(1)).isAtMost(histogram.getMax());
+    }
+
+    @Test
+    public void testRecordClampsNegativeValues() {
+        Histogram histogram = new Histogram(1);
+        histogram.record(-5);
+
+        assertThat(histogram.getCount()).isEqualTo(1L);
+        assertThat(histogram.getSum()).isEqualTo(0L);
+        assertThat(histogram.getQuantile(0.5)).isEqualTo(0L);
+    }
+
+    @Test
+    public void testConcurrentRecording() throws InterruptedException {
+        Histogram histogram = new Histogram(1);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            long seed = t;
+            threads[t] =
+                    new Thread(
+                            () -> {
+                                Random random = new Random(seed);
+                                for (int i = 0; i < 10_000; i++) {
+                                    histogram.record(random.nextInt(1_000_000));
+                                }
+                            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(40_000L);
+    }
+}
@@ -0,0 +1,76 @@
+package org.aion.util.metrics;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+
+/** Unit tests for {@link MetricsRegistry}. */
+public class MetricsRegistryTest {
+
+    @Test
+    public void testScrapeFormat() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("test_messages_total", "Messages received.", "act", "1").add(3);
+        registry.counter("test_messages_total", "Messages received.", "act", "2").inc();
+        registry.registerGauge("test_queue_depth", "Queued events.", () -> 7);
+
+        assertThat(registry.scrape())
+                .isEqualTo(
+                        "# HELP test_messages_total Messages received.\n"
+                                + "# TYPE test_messages_total counter\n"
+                                + "test_messages_total{act=\"1\"} 3\n"
+                                + "test_messages_total{act=\"2\"} 1\n"
+                                + "# HELP test_queue_depth Queued events.\n"
+                                + "# TYPE test_queue_depth gauge\n"
+                                + "test_queue_depth 7.0\n");
+    }
+
+    @Test
+    public void testSameLabelsReturnTheSameMetric() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Counter counter = registry.counter("test_total", "Test.", "store", "block");
+
+        assertThat(registry.counter("test_total", "Test.", "store", "block")).isSameAs(counter);
+        assertThat(registry.counter("test_total", "Test.", "store", "state")).isNotSameAs(counter);
+    }
+
+    @Test
+    public void testTimerIsExportedInSeconds() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.timer("test_get_seconds", "Get latency.", "store", "block").record(2_000_000_000L);
+
+        String scrape = registry.scrape();
+        assertThat(scrape).contains("# TYPE test_get_seconds summary\n");
+        assertThat(scrape).contains("test_get_seconds{store=\"block\",quantile=\"0.5\"} ");
+        assertThat(scrape).contains("test_get_seconds_sum{store=\"block\"} 2.0\n");
+        assertThat(scrape).contains("test_get_seconds_count{store=\"block\"} 1\n");
+    }
+
+    @Test
+    public void testLabelValuesAreEscaped() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("test_total", "Test.", "name", "a\"b\\c\nd").inc();
+
+        assertThat(registry.scrape()).contains("test_total{name=\"a\\\"b\\\\c\\nd\"} 1\n");
+    }
+
+    @Test
+    public void testFailingGaugeIsReportedAsNaN() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.registerGauge("test_gauge", "Test.", () -> { throw new IllegalStateException(); });
+
+        assertThat(registry.scrape()).contains("test_gauge NaN\n");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTypeMismatch() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("test_metric", "Test.");
+        registry.timer("test_metric", "Test.");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnpairedLabels() {
+        new MetricsRegistry().counter("test_total", "Test.", "store");
+    }
+}